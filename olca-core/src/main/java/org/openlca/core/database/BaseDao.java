@@ -71,6 +71,7 @@ public class BaseDao<T extends AbstractEntity> implements IDao<T> {
 			em.getTransaction().begin();
 			em.remove(em.merge(entity));
 			em.getTransaction().commit();
+			db.listeners().deleted(entity);
 		} catch (Exception e) {
 			DatabaseException.logAndThrow(log, "Error while deleting "
 					+ entityType.getSimpleName(), e);
@@ -91,6 +92,9 @@ public class BaseDao<T extends AbstractEntity> implements IDao<T> {
 				em.remove(em.merge(entity));
 			}
 			em.getTransaction().commit();
+			for (T entity : entities) {
+				db.listeners().deleted(entity);
+			}
 		} catch (Exception e) {
 			DatabaseException.logAndThrow(log, "Error while deleting "
 					+ entityType.getSimpleName(), e);
@@ -108,6 +112,7 @@ public class BaseDao<T extends AbstractEntity> implements IDao<T> {
 			em.getTransaction().begin();
 			T retval = em.merge(entity);
 			em.getTransaction().commit();
+			db.listeners().updated(retval);
 			return retval;
 		} catch (Exception e) {
 			DatabaseException.logAndThrow(log, "Error while updating "
@@ -127,6 +132,7 @@ public class BaseDao<T extends AbstractEntity> implements IDao<T> {
 			em.getTransaction().begin();
 			em.persist(entity);
 			em.getTransaction().commit();
+			db.listeners().inserted(entity);
 			return entity;
 		} catch (Exception e) {
 			DatabaseException.logAndThrow(log, "Error while inserting "
@@ -137,6 +143,36 @@ public class BaseDao<T extends AbstractEntity> implements IDao<T> {
 		}
 	}
 
+	/**
+	 * Inserts the given entities in a single transaction. If the insertion of
+	 * an entity fails, the transaction is rolled back and none of the entities
+	 * is inserted.
+	 */
+	@Override
+	public void insertAll(Collection<T> entities) {
+		if (entities == null)
+			return;
+		var em = db.newEntityManager();
+		try {
+			em.getTransaction().begin();
+			for (T entity : entities) {
+				em.persist(entity);
+			}
+			em.getTransaction().commit();
+			for (T entity : entities) {
+				db.listeners().inserted(entity);
+			}
+		} catch (Exception e) {
+			if (em.getTransaction().isActive()) {
+				em.getTransaction().rollback();
+			}
+			DatabaseException.logAndThrow(log, "Error while inserting "
+					+ entityType.getSimpleName(), e);
+		} finally {
+			em.close();
+		}
+	}
+
 	@Override
 	public T getForId(long id) {
 		log.trace("get {} for id={}", entityType, id);
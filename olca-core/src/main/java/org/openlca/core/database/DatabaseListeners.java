@@ -0,0 +1,63 @@
+package org.openlca.core.database;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+
+import org.openlca.core.model.AbstractEntity;
+import org.openlca.core.model.RootEntity;
+import org.openlca.core.model.descriptors.Descriptor;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The registered listeners of a database. The DAOs of a database notify these
+ * listeners when root entities are inserted, updated, or deleted. Note that
+ * changes that are done via native SQL statements are not tracked.
+ */
+public final class DatabaseListeners {
+
+	private final CopyOnWriteArrayList<IDatabaseListener> listeners =
+			new CopyOnWriteArrayList<>();
+
+	public void add(IDatabaseListener listener) {
+		if (listener != null) {
+			listeners.addIfAbsent(listener);
+		}
+	}
+
+	public void remove(IDatabaseListener listener) {
+		if (listener != null) {
+			listeners.remove(listener);
+		}
+	}
+
+	public boolean isEmpty() {
+		return listeners.isEmpty();
+	}
+
+	void inserted(AbstractEntity entity) {
+		fire(entity, IDatabaseListener::modelInserted);
+	}
+
+	void updated(AbstractEntity entity) {
+		fire(entity, IDatabaseListener::modelUpdated);
+	}
+
+	void deleted(AbstractEntity entity) {
+		fire(entity, IDatabaseListener::modelDeleted);
+	}
+
+	private void fire(AbstractEntity entity,
+			BiConsumer<IDatabaseListener, Descriptor> fn) {
+		if (listeners.isEmpty() || !(entity instanceof RootEntity root))
+			return;
+		var descriptor = Descriptor.of(root);
+		for (var listener : listeners) {
+			try {
+				fn.accept(listener, descriptor);
+			} catch (Exception e) {
+				var log = LoggerFactory.getLogger(getClass());
+				log.error("database listener " + listener + " failed", e);
+			}
+		}
+	}
+}
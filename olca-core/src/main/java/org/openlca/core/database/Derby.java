@@ -46,6 +46,7 @@ public class Derby implements IDatabase {
 
 	private boolean closed = false;
 	private HikariDataSource connectionPool;
+	private final DatabaseListeners listeners = new DatabaseListeners();
 
 	public static Derby createInMemory() {
 		int i = memInstances.incrementAndGet();
@@ -279,6 +280,11 @@ public class Derby implements IDatabase {
 		return name;
 	}
 
+	@Override
+	public DatabaseListeners listeners() {
+		return listeners;
+	}
+
 	@Override
 	public int getVersion() {
 		return DbUtils.getVersion(this);
@@ -19,6 +19,8 @@ public interface IDao<T> {
 
 	T insert(T entity);
 
+	void insertAll(Collection<T> entities);
+
 	T getForId(long id);
 
 	List<T> getForIds(Set<Long> ids);
@@ -56,6 +56,20 @@ public interface IDatabase extends EntityStore, Closeable {
 
 	int getVersion();
 
+	/**
+	 * Returns the listeners of this database. They are notified when root
+	 * entities are inserted, updated, or deleted via the DAOs of this database.
+	 */
+	DatabaseListeners listeners();
+
+	default void addListener(IDatabaseListener listener) {
+		listeners().add(listener);
+	}
+
+	default void removeListener(IDatabaseListener listener) {
+		listeners().remove(listener);
+	}
+
 	/**
 	 * Get a location where external files that belongs this database are stored
 	 * (e.g. PDF or Word documents, shapefiles etc). If there is no such location
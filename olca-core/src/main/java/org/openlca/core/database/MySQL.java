@@ -17,6 +17,7 @@ public class MySQL implements IDatabase {
 	private final String name;
 	private final EntityManagerFactory entityFactory;
 	private final HikariDataSource connectionPool;
+	private final DatabaseListeners listeners = new DatabaseListeners();
 	private File fileDir;
 
 	private MySQL(Config config) {
@@ -59,6 +60,11 @@ public class MySQL implements IDatabase {
 		return entityFactory;
 	}
 
+	@Override
+	public DatabaseListeners listeners() {
+		return listeners;
+	}
+
 	@Override
 	public Connection createConnection() {
 		try {
@@ -19,6 +19,10 @@ import org.openlca.core.model.Process;
  * update this exchange after the import of the respective provider process
  * because we need the database internal ID of that process which is only
  * available after the import.
+ *
+ * The queue is thread-safe, so that exchanges can be added while another
+ * thread (e.g. the writer of a batch import) pops the processes that were
+ * written to the database.
  */
 public class ExchangeProviderQueue {
 
@@ -53,7 +57,7 @@ public class ExchangeProviderQueue {
 	 * @param providerId the reference ID of the provider process
 	 * @param exchange   the exchange that should be linked to the provider
 	 */
-	public void add(String providerId, Exchange exchange) {
+	public synchronized void add(String providerId, Exchange exchange) {
 		if (providerId == null || exchange == null)
 			return;
 		var processId = processIds.get(providerId);
@@ -65,6 +69,25 @@ public class ExchangeProviderQueue {
 			.add(exchange);
 	}
 
+	/**
+	 * Removes the given exchange from this queue, e.g. when the process of the
+	 * exchange could not be saved in the database.
+	 *
+	 * @param providerId the reference ID of the provider process
+	 * @param exchange   the exchange that should not be linked anymore
+	 */
+	public synchronized void remove(String providerId, Exchange exchange) {
+		if (providerId == null || exchange == null)
+			return;
+		var exchanges = queue.get(providerId);
+		if (exchanges == null)
+			return;
+		exchanges.removeIf(e -> e == exchange);
+		if (exchanges.isEmpty()) {
+			queue.remove(providerId);
+		}
+	}
+
 	/**
 	 * Updates the exchanges that link to the given process and removes them from
 	 * this queue. The given process needs to be saved in the database ({@code id
@@ -75,8 +98,11 @@ public class ExchangeProviderQueue {
 	public void pop(Process process) {
 		if (process == null || process.refId == null || process.id == 0)
 			return;
-		processIds.put(process.refId, process.id);
-		var exchanges = queue.remove(process.refId);
+		List<Exchange> exchanges;
+		synchronized (this) {
+			processIds.put(process.refId, process.id);
+			exchanges = queue.remove(process.refId);
+		}
 		if (exchanges == null || exchanges.isEmpty())
 			return;
 		db.transaction(em -> {
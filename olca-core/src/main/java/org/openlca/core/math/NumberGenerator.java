@@ -1,11 +1,44 @@
 package org.openlca.core.math;
 
+import java.util.SplittableRandom;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
 
 public abstract class NumberGenerator {
 
+	/**
+	 * An optional, seeded random stream of the current thread. If it is not
+	 * set, the numbers are generated from the `ThreadLocalRandom` instance of
+	 * the current thread.
+	 */
+	private static final ThreadLocal<RandomGenerator> seeded = new ThreadLocal<>();
+
 	public abstract double next();
 
+	/**
+	 * Sets a new random stream with the given seed for the current thread. All
+	 * number generators that are called from this thread will then generate
+	 * their numbers from this stream until `unseed` is called. With this, the
+	 * generated numbers of a thread are reproducible.
+	 */
+	public static void seed(long seed) {
+		seeded.set(new SplittableRandom(seed));
+	}
+
+	/**
+	 * Removes a possibly seeded random stream from the current thread.
+	 */
+	public static void unseed() {
+		seeded.remove();
+	}
+
+	private static RandomGenerator random() {
+		var r = seeded.get();
+		return r != null
+				? r
+				: ThreadLocalRandom.current();
+	}
+
 	public static NumberGenerator normal(double mean, double standardDeviation) {
 		return new Normal(mean, standardDeviation);
 	}
@@ -43,7 +76,7 @@ public abstract class NumberGenerator {
 
 		@Override
 		public double next() {
-			var rand = ThreadLocalRandom.current().nextGaussian();
+			var rand = random().nextGaussian();
 			return rand * std + mean;
 		}
 	}
@@ -90,7 +123,7 @@ public abstract class NumberGenerator {
 
 		@Override
 		public double next() {
-			var rand = ThreadLocalRandom.current();
+			var rand = random();
 			return min + rand.nextDouble() * range;
 		}
 	}
@@ -114,7 +147,7 @@ public abstract class NumberGenerator {
 		public double next() {
 			if (max == min)
 				return mode;
-			double u = ThreadLocalRandom.current().nextDouble();
+			double u = random().nextDouble();
 			double fMode = (mode - min) / (max - min);
 			if (u <= fMode)
 				return min + Math.sqrt(u * (max - min) * (mode - min));
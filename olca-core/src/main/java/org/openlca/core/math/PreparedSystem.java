@@ -0,0 +1,204 @@
+package org.openlca.core.math;
+
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+
+import org.openlca.core.database.IDatabase;
+import org.openlca.core.database.IDatabaseListener;
+import org.openlca.core.matrix.Demand;
+import org.openlca.core.matrix.MatrixData;
+import org.openlca.core.matrix.ParameterTable;
+import org.openlca.core.matrix.index.TechIndex;
+import org.openlca.core.model.AllocationMethod;
+import org.openlca.core.model.CalculationSetup;
+import org.openlca.core.model.ModelType;
+import org.openlca.core.model.RootEntity;
+import org.openlca.core.model.descriptors.Descriptor;
+
+/**
+ * A prepared calculation system for repeated calculations of the same
+ * product system (or process) with different parameter values or demand
+ * amounts. The matrix index and matrices are built only once, together with
+ * the cells that depend on formulas. For a new calculation setup, only these
+ * formula cells are evaluated again with the parameter redefinitions of that
+ * setup which is much faster than reading all exchanges from the database.
+ * <p>
+ * The prepared data are shared between calculations and can be used from
+ * multiple threads. The instance registers a listener on the database and
+ * is rebuilt on the next calculation when a model that is used in the
+ * matrices (like a process, flow, or LCIA category) is inserted, updated, or
+ * deleted via the DAOs of the database. Changes of parameters do not trigger
+ * a rebuild as the parameter values are read for each evaluation. Call
+ * {@link #close()} to remove the listener when the instance is not needed
+ * anymore.
+ * <p>
+ * A setup is compatible with a prepared system when it has the same target,
+ * reference flow, allocation method, LCIA method, and cost and
+ * regionalization options. Systems with sub-systems or results as providers
+ * and setups for uncertainty calculations are not supported; see
+ * {@link #isCompatible(CalculationSetup)}.
+ */
+public final class PreparedSystem implements AutoCloseable {
+
+	/**
+	 * The types of models that may change the prepared matrices.
+	 */
+	private static final EnumSet<ModelType> relevantTypes = EnumSet.of(
+			ModelType.PROCESS,
+			ModelType.PRODUCT_SYSTEM,
+			ModelType.FLOW,
+			ModelType.FLOW_PROPERTY,
+			ModelType.UNIT_GROUP,
+			ModelType.CURRENCY,
+			ModelType.LOCATION,
+			ModelType.IMPACT_CATEGORY,
+			ModelType.IMPACT_METHOD,
+			ModelType.RESULT);
+
+	private final IDatabase db;
+	private final CalculationSetup setup;
+	private final Listener listener;
+
+	private volatile MatrixData data;
+	private volatile Set<Long> contexts;
+	private volatile boolean hasSubSystems;
+	private volatile boolean stale;
+
+	private PreparedSystem(IDatabase db, CalculationSetup setup) {
+		this.db = Objects.requireNonNull(db);
+		this.setup = Objects.requireNonNull(setup);
+		this.listener = new Listener();
+	}
+
+	/**
+	 * Prepares the matrices of the given setup.
+	 */
+	public static PreparedSystem of(IDatabase db, CalculationSetup setup) {
+		var prepared = new PreparedSystem(db, setup);
+		prepared.build();
+		db.addListener(prepared.listener);
+		return prepared;
+	}
+
+	private synchronized void build() {
+		stale = false;
+		var techIndex = TechIndex.of(db, setup);
+		var next = MatrixData.of(db, techIndex)
+				.withSetup(setup)
+				.withUncertainties(false)
+				.withFormulaCells(true)
+				.build();
+
+		var nextContexts = new HashSet<>(techIndex.getProcessIds());
+		if (next.impactIndex != null) {
+			next.impactIndex.each((i, impact) -> nextContexts.add(impact.id));
+		}
+		boolean subs = false;
+		for (var techFlow : techIndex) {
+			if (!techFlow.isProcess()) {
+				subs = true;
+				break;
+			}
+		}
+
+		hasSubSystems = subs;
+		contexts = nextContexts;
+		data = next;
+	}
+
+	/**
+	 * Returns true when the prepared system was modified in the database
+	 * since it was built. It is then rebuilt on the next calculation.
+	 */
+	public boolean isStale() {
+		return stale;
+	}
+
+	/**
+	 * Returns true if the matrix data of the given setup can be derived from
+	 * this prepared system.
+	 */
+	public boolean isCompatible(CalculationSetup other) {
+		if (other == null || hasSubSystems)
+			return false;
+		if (other.simulationRuns().isPresent())
+			return false;
+		return sameId(setup.target(), other.target())
+				&& sameId(setup.flow(), other.flow())
+				&& allocationOf(setup) == allocationOf(other)
+				&& sameId(setup.impactMethod(), other.impactMethod())
+				&& setup.hasCosts() == other.hasCosts()
+				&& setup.hasRegionalization() == other.hasRegionalization();
+	}
+
+	/**
+	 * Creates the matrix data for the given setup by evaluating the formula
+	 * cells of the prepared matrices with the parameter redefinitions of
+	 * that setup. The matrices without formula cells and the indices are
+	 * shared with the prepared data and must not be modified.
+	 *
+	 * @throws IllegalArgumentException if the setup is not compatible with
+	 *                                  this prepared system
+	 */
+	public MatrixData dataOf(CalculationSetup other) {
+		if (!isCompatible(other))
+			throw new IllegalArgumentException(
+					"setup is not compatible with the prepared system");
+		if (stale) {
+			build();
+		}
+		var current = data;
+		var interpreter = ParameterTable.interpreter(
+				db, contexts, other.parameters());
+		var next = current.eval(interpreter);
+		next.demand = Demand.of(other);
+		return next;
+	}
+
+	/**
+	 * Removes the database listener of this prepared system.
+	 */
+	@Override
+	public void close() {
+		db.removeListener(listener);
+	}
+
+	private static AllocationMethod allocationOf(CalculationSetup setup) {
+		var method = setup.allocation();
+		return method != null
+				? method
+				: AllocationMethod.NONE;
+	}
+
+	private static boolean sameId(RootEntity a, RootEntity b) {
+		if (a == null || b == null)
+			return a == b;
+		return a.id == b.id;
+	}
+
+	private class Listener implements IDatabaseListener {
+
+		@Override
+		public void modelInserted(Descriptor d) {
+			check(d);
+		}
+
+		@Override
+		public void modelUpdated(Descriptor d) {
+			check(d);
+		}
+
+		@Override
+		public void modelDeleted(Descriptor d) {
+			check(d);
+		}
+
+		private void check(Descriptor d) {
+			if (d != null && relevantTypes.contains(d.type)) {
+				stale = true;
+			}
+		}
+	}
+}
@@ -8,6 +8,11 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.openlca.core.database.IDatabase;
 import org.openlca.core.database.ImpactMethodDao;
@@ -21,15 +26,18 @@ import org.openlca.core.matrix.index.LongPair;
 import org.openlca.core.matrix.index.TechFlow;
 import org.openlca.core.matrix.index.TechIndex;
 import org.openlca.core.matrix.solvers.MatrixSolver;
+import org.openlca.core.matrix.solvers.PatternReusingSolver;
 import org.openlca.core.model.CalculationSetup;
 import org.openlca.core.model.ModelType;
 import org.openlca.core.model.ProductSystem;
 import org.openlca.core.results.LcaResult;
 import org.openlca.core.results.SimulationResult;
+import org.openlca.core.results.SimulationResult.PinnedContribution;
 import org.openlca.core.results.providers.ResultProvider;
 import org.openlca.core.results.providers.ResultProviders;
 import org.openlca.core.results.providers.SimpleResultProvider;
 import org.openlca.core.results.providers.SolverContext;
+import org.openlca.core.results.simulation.SimulationStore;
 import org.openlca.expressions.FormulaInterpreter;
 import org.openlca.util.TopoSort;
 import org.slf4j.Logger;
@@ -98,9 +106,22 @@ public class Simulator {
 	private final Map<Long, Node> nodeIndex = new HashMap<>();
 
 	private SimulationResult result;
+	private SimulationStore.Factory stores;
 	private LibraryDir libraryDir;
 	private MatrixSolver solver;
 
+	/**
+	 * An optional seed from which the random streams of the single runs are
+	 * derived.
+	 */
+	private Long seed;
+
+	/**
+	 * The number of runs that were started so far. This is used as the index
+	 * of the next run when deriving its random stream from the seed.
+	 */
+	private int runCount;
+
 	private Simulator(IDatabase db) {
 		this.db = db;
 	}
@@ -121,16 +142,49 @@ public class Simulator {
 		return this;
 	}
 
+	/**
+	 * Sets the factory of the stores in which the results of the simulation
+	 * runs are stored (e.g. memory-mapped files for very large simulations).
+	 * This needs to be set before the first run is executed; by default, the
+	 * results are stored on the heap.
+	 */
+	public Simulator withResultStore(SimulationStore.Factory stores) {
+		this.stores = stores;
+		return this;
+	}
+
+	/**
+	 * Sets a seed for the number generation. When a seed is set, each run $i$
+	 * generates its numbers from an own random stream that is derived from
+	 * this seed and $i$. Thus, the results of a simulation with the same seed
+	 * are reproducible, also when the runs are executed in parallel with a
+	 * varying number of workers.
+	 */
+	public Simulator withSeed(long seed) {
+		this.seed = seed;
+		return this;
+	}
+
 	/**
 	 * Get the result of the simulation.
 	 */
 	public SimulationResult getResult() {
 		if (result != null)
 			return result;
-		result = new SimulationResult(root.data);
+		result = new SimulationResult(root.data, stores);
 		return result;
 	}
 
+	/**
+	 * Releases the resources of the simulation result (e.g. the files of
+	 * memory-mapped result stores).
+	 */
+	public void dispose() {
+		if (result != null) {
+			result.dispose();
+		}
+	}
+
 	public TechIndex getTechIndex() {
 		return root.data.techIndex;
 	}
@@ -151,33 +205,13 @@ public class Simulator {
 	 * (which you get via `getResult()`, so it does not need to be cached.
 	 */
 	public LcaResult nextRun() {
+		int run = runCount++;
 		try {
-
-			// generate the numbers and calculate the overall result
-			for (var sub : subNodes) {
-				generateData(sub);
-				sub.lastResult = solve(sub.data);
-			}
-			generateData(root);
-			var next = solve(root.data);
-			var provider = next.provider();
+			seedRun(run);
+			var next = runOn(root, subNodes, nodeIndex);
 			var result = getResult();
 			result.append(next);
-
-			// calculate results of possible pinned products
-			for (var product : pinnedProducts) {
-				int idx = next.techIndex().of(product);
-				if (idx < 0)
-					continue;
-				var pin = result.pin(product);
-				if (provider.hasFlows()) {
-					pin.withDirectFlows(next.provider().directFlowsOf(idx));
-					pin.withUpstreamFlows(provider.totalFlowsOf(idx));
-				}
-				if (provider.hasImpacts()) {
-					pin.withDirectImpacts(provider.directImpactsOf(idx));
-					pin.withUpstreamImpacts(provider.totalImpactsOf(idx));
-				}
+			for (var pin : pinsOf(next)) {
 				pin.add();
 			}
 			return next;
@@ -185,18 +219,151 @@ public class Simulator {
 			Logger log = LoggerFactory.getLogger(this.getClass());
 			log.trace("simulation run failed", e);
 			return null;
+		} finally {
+			NumberGenerator.unseed();
+		}
+	}
+
+	/**
+	 * Runs the given number of simulations on the given number of worker
+	 * threads. Each worker operates on its own copies of the matrix data and
+	 * parameter tables of the simulation graph. The results of the runs,
+	 * including the results of the pinned products, are appended to the
+	 * result of this simulator in the order of the runs. Runs that failed are
+	 * skipped like in `nextRun`. The result of the simulator should not be
+	 * read while this method is running.
+	 *
+	 * @param runs    the number of simulation runs
+	 * @param workers the number of worker threads
+	 * @return the number of runs that finished without errors
+	 */
+	public int runParallel(int runs, int workers) {
+		if (runs <= 0)
+			return 0;
+		int n = Math.max(1, Math.min(workers, runs));
+		int offset = runCount;
+		runCount += runs;
+
+		var merger = new RunMerger(getResult(), runs);
+		var counter = new AtomicInteger(0);
+		ExecutorService pool = Executors.newFixedThreadPool(n);
+		for (int w = 0; w < n; w++) {
+			pool.execute(() -> {
+				var graph = new Graph(root, subNodes);
+				int i;
+				while ((i = counter.getAndIncrement()) < runs) {
+					merger.put(i, runIsolated(graph, offset + i));
+				}
+			});
+		}
+		pool.shutdown();
+		try {
+			while (!pool.awaitTermination(1, TimeUnit.SECONDS)) {
+				// wait until all runs are finished
+			}
+		} catch (InterruptedException e) {
+			pool.shutdownNow();
+			Thread.currentThread().interrupt();
 		}
+		return merger.succeeded;
 	}
 
-	private LcaResult solve(MatrixData data) {
-		var context = SolverContext.of(db, data)
-				.solver(solver)
-				.libraryDir(libraryDir);
+	/**
+	 * Executes a run on the given (copied) simulation graph. Returns a slim
+	 * result that only contains the total result vectors and the
+	 * contributions of the pinned products, or `null` when the run failed.
+	 */
+	private Run runIsolated(Graph graph, int run) {
+		try {
+			seedRun(run);
+			var next = runOn(graph.root, graph.subNodes, graph.index);
+			var provider = next.provider();
+			var slim = SimpleResultProvider.of(next.demand(), next.techIndex())
+					.withFlowIndex(next.enviIndex())
+					.withImpactIndex(next.impactIndex())
+					.withTotalFlows(provider.hasFlows()
+							? provider.totalFlows()
+							: null)
+					.withTotalImpacts(provider.hasImpacts()
+							? provider.totalImpacts()
+							: null)
+					.toResult();
+			return new Run(slim, pinsOf(next));
+		} catch (Throwable e) {
+			Logger log = LoggerFactory.getLogger(this.getClass());
+			log.trace("simulation run failed", e);
+			return null;
+		} finally {
+			NumberGenerator.unseed();
+		}
+	}
+
+	private void seedRun(int run) {
+		if (seed == null)
+			return;
+		long runSeed = new SplittableRandom(
+				seed ^ (run * 0x9E3779B97F4A7C15L)).nextLong();
+		NumberGenerator.seed(runSeed);
+	}
+
+	/**
+	 * Generates the numbers and calculates the results of the sub-systems and
+	 * the root system of the given simulation graph.
+	 */
+	private LcaResult runOn(Node root, List<Node> subNodes,
+			Map<Long, Node> nodeIndex) {
+		for (var sub : subNodes) {
+			generateData(sub, nodeIndex);
+			sub.lastResult = solve(sub);
+		}
+		generateData(root, nodeIndex);
+		return solve(root);
+	}
+
+	/**
+	 * Calculates the contributions of the pinned products for the given result.
+	 * The returned contributions are not yet added to the simulation result.
+	 */
+	private List<PinnedContribution> pinsOf(LcaResult next) {
+		if (pinnedProducts.isEmpty())
+			return Collections.emptyList();
+		var provider = next.provider();
+		var result = getResult();
+		var pins = new ArrayList<PinnedContribution>();
+		for (var product : pinnedProducts) {
+			int idx = next.techIndex().of(product);
+			if (idx < 0)
+				continue;
+			var pin = result.pin(product);
+			if (provider.hasFlows()) {
+				pin.withDirectFlows(provider.directFlowsOf(idx));
+				pin.withUpstreamFlows(provider.totalFlowsOf(idx));
+			}
+			if (provider.hasImpacts()) {
+				pin.withDirectImpacts(provider.directImpactsOf(idx));
+				pin.withUpstreamImpacts(provider.totalImpactsOf(idx));
+			}
+			pins.add(pin);
+		}
+		return pins;
+	}
+
+	private LcaResult solve(Node node) {
+		// the matrix structure of a node does not change between the runs, so
+		// we can reuse the sparsity pattern in the factorizations of a node
+		if (node.solver == null) {
+			node.solver = PatternReusingSolver.of(
+					solver != null ? solver : MatrixSolver.get());
+		}
+		var context = SolverContext.of(db, node.data)
+				.solver(node.solver)
+				.libraryDir(libraryDir)
+				.shortLived(true);
 		var provider = ResultProviders.solveLazy(context);
 		return new LcaResult(provider);
 	}
 
-	private void generateData(Node node) {
+	private void generateData(Node node, Map<Long, Node> nodeIndex) {
 		FormulaInterpreter fi = node.parameters.simulate();
 		node.data.simulate(fi);
 
@@ -374,6 +541,20 @@ public class Simulator {
 
 		Set<TechFlow> subSystems;
 		LcaResult lastResult;
+		MatrixSolver solver;
+
+		/**
+		 * Creates a copy of the given node with copies of its matrix data and
+		 * parameter table for the execution in a parallel worker.
+		 */
+		Node(Node other) {
+			this.providerId = other.providerId;
+			this.provider = other.provider;
+			this.data = other.data.copy();
+			this.parameters = other.parameters.copy();
+			this.subSystems = other.subSystems;
+			this.lastResult = other.lastResult;
+		}
 
 		Node(CalculationSetup setup, IDatabase db,
 				Map<TechFlow, LcaResult> subResults) {
@@ -411,4 +592,65 @@ public class Simulator {
 		}
 	}
 
+	/**
+	 * A copy of the simulation graph that is used by a single worker in a
+	 * parallel simulation.
+	 */
+	private static class Graph {
+
+		final Node root;
+		final List<Node> subNodes = new ArrayList<>();
+		final Map<Long, Node> index = new HashMap<>();
+
+		Graph(Node root, List<Node> subNodes) {
+			for (var sub : subNodes) {
+				var copy = new Node(sub);
+				this.subNodes.add(copy);
+				index.put(copy.providerId, copy);
+			}
+			this.root = new Node(root);
+			index.put(this.root.providerId, this.root);
+		}
+	}
+
+	private record Run(LcaResult result, List<PinnedContribution> pins) {
+	}
+
+	/**
+	 * Collects the results of parallel runs and appends them in the order of
+	 * the runs to the simulation result. A run is appended as soon as all runs
+	 * before it are finished.
+	 */
+	private static class RunMerger {
+
+		private final SimulationResult result;
+		private final Run[] runs;
+		private final boolean[] finished;
+		private int next;
+		private int succeeded;
+
+		RunMerger(SimulationResult result, int count) {
+			this.result = result;
+			this.runs = new Run[count];
+			this.finished = new boolean[count];
+		}
+
+		synchronized void put(int i, Run run) {
+			runs[i] = run;
+			finished[i] = true;
+			while (next < runs.length && finished[next]) {
+				var r = runs[next];
+				runs[next] = null;
+				next++;
+				if (r == null)
+					continue;
+				succeeded++;
+				result.append(r.result);
+				for (var pin : r.pins) {
+					pin.add();
+				}
+			}
+		}
+	}
+
 }
@@ -4,6 +4,12 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 import org.openlca.core.database.IDatabase;
 import org.openlca.core.library.LibraryDir;
@@ -11,7 +17,11 @@ import org.openlca.core.matrix.MatrixData;
 import org.openlca.core.matrix.index.TechFlow;
 import org.openlca.core.matrix.index.TechIndex;
 import org.openlca.core.matrix.solvers.MatrixSolver;
+import org.openlca.core.model.AbstractEntity;
+import org.openlca.core.model.AllocationMethod;
 import org.openlca.core.model.CalculationSetup;
+import org.openlca.core.model.ModelType;
+import org.openlca.core.model.ParameterRedef;
 import org.openlca.core.model.ProductSystem;
 import org.openlca.core.model.Result;
 import org.openlca.core.results.LcaResult;
@@ -24,8 +34,12 @@ import org.slf4j.LoggerFactory;
 /**
  * Calculates the results of a calculation setup. The product systems of the
  * setups may contain sub-systems which are calculated recursively. The
- * calculator does not check if there are obvious errors like sub-system cycles
- * etc.
+ * sub-systems are scheduled as a dependency graph on an executor so that
+ * independent sub-systems are calculated in parallel. Within a calculation,
+ * each sub-system is calculated only once for the same parameter
+ * redefinitions, even when it is used in multiple places. Other than
+ * sub-system cycles, the calculator does not check if there are obvious
+ * errors in the setup.
  */
 public class SystemCalculator {
 
@@ -38,6 +52,8 @@ public class SystemCalculator {
 	private final IDatabase db;
 	private LibraryDir libraryDir;
 	private MatrixSolver solver;
+	private PreparedSystem prepared;
+	private Executor executor;
 
 	public SystemCalculator(IDatabase db) {
 		this.db = db;
@@ -48,11 +64,37 @@ public class SystemCalculator {
 		return this;
 	}
 
+	/**
+	 * Sets the matrix solver of the calculation, e.g. an
+	 * {@link org.openlca.core.matrix.solvers.IterativeSolver}. If not set, the
+	 * best available solver is used (see {@link MatrixSolver#get()}). If the
+	 * given solver is not thread-safe (see {@link MatrixSolver#isThreadSafe()}),
+	 * the sub-systems are calculated sequentially on the calling thread.
+	 */
 	public SystemCalculator withSolver(MatrixSolver solver) {
 		this.solver = solver;
 		return this;
 	}
 
+	/**
+	 * Sets a prepared system that is used for the calculation of compatible
+	 * setups instead of building the matrices from the database (see
+	 * {@link PreparedSystem#isCompatible(CalculationSetup)}).
+	 */
+	public SystemCalculator withPreparedSystem(PreparedSystem prepared) {
+		this.prepared = prepared;
+		return this;
+	}
+
+	/**
+	 * Sets the executor on which the sub-systems are calculated. If not set,
+	 * the common fork-join pool is used.
+	 */
+	public SystemCalculator withExecutor(Executor executor) {
+		this.executor = executor;
+		return this;
+	}
+
 	public LcaResult calculate(CalculationSetup setup) {
 		return solve(setup, DEFAULT);
 	}
@@ -67,13 +109,28 @@ public class SystemCalculator {
 
 	private LcaResult solve(CalculationSetup setup, int type) {
 		log.info("calculate result for {}", setup.target());
+		if (prepared != null && prepared.isCompatible(setup)) {
+			log.trace("use prepared system");
+			var data = prepared.dataOf(setup);
+			return solve(data, Collections.emptyMap(), type);
+		}
 		var techIndex = TechIndex.of(db, setup);
 		var subs = solveSubSystems(setup, techIndex);
 		log.trace("solved {} sub-systems", subs.size());
+		return solve(setup, techIndex, subs, type);
+	}
+
+	private LcaResult solve(CalculationSetup setup, TechIndex techIndex,
+			Map<TechFlow, LcaResult> subs, int type) {
 		var data = MatrixData.of(db, techIndex)
 				.withSetup(setup)
 				.withSubResults(subs)
 				.build();
+		return solve(data, subs, type);
+	}
+
+	private LcaResult solve(
+			MatrixData data, Map<TechFlow, LcaResult> subs, int type) {
 		var context = SolverContext.of(db, data)
 				.libraryDir(libraryDir)
 				.solver(solver);
@@ -101,16 +158,37 @@ public class SystemCalculator {
 
 	/**
 	 * Calculates (recursively) the sub-systems of the product system of the
-	 * given setup. It returns an empty map when there are no subsystems. For
-	 * the sub-results, the same calculation type is performed as defined in
-	 * the original calculation setup.
+	 * given setup. It returns an empty map when there are no subsystems. The
+	 * sub-systems are calculated with the default calculation type.
 	 */
 	private Map<TechFlow, LcaResult> solveSubSystems(
 			CalculationSetup setup, TechIndex techIndex) {
+		var memo = new ConcurrentHashMap<SubKey, CompletableFuture<LcaResult>>();
+		var path = Set.of(idOf(setup.target()));
+		var futures = scheduleSubSystems(setup, techIndex, memo, path);
+		try {
+			return joinAll(futures);
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException cause)
+				throw cause;
+			throw e;
+		}
+	}
+
+	/**
+	 * Schedules the calculations of the sub-systems of the given setup. The
+	 * stored results that are used as providers in the system are loaded
+	 * directly. The given path contains the IDs of the systems from the
+	 * top-level system to the system of the setup and is used to detect
+	 * cycles.
+	 */
+	private Map<TechFlow, CompletableFuture<LcaResult>> scheduleSubSystems(
+			CalculationSetup setup, TechIndex techIndex,
+			Map<SubKey, CompletableFuture<LcaResult>> memo, Set<Long> path) {
 		if (setup == null || !setup.hasProductSystem())
 			return Collections.emptyMap();
 
-		var subResults = new HashMap<TechFlow, LcaResult>();
+		var futures = new HashMap<TechFlow, CompletableFuture<LcaResult>>();
 
 		var subSystems = new HashSet<TechFlow>();
 		for (var link : setup.productSystem().processLinks) {
@@ -128,16 +206,19 @@ public class SystemCalculator {
 			if (provider.isResult()) {
 				var result = db.get(Result.class, provider.providerId());
 				if (result != null) {
-					subResults.put(provider, new LcaResult(ResultModelProvider.of(result)));
+					var r = new LcaResult(ResultModelProvider.of(result));
+					futures.put(provider, CompletableFuture.completedFuture(r));
 				}
 			}
 		}
 		if (subSystems.isEmpty())
-			return subResults;
-
-		// calculate the LCI results of the sub-systems
+			return futures;
 
+		// schedule the calculations of the sub-systems
 		for (var pp : subSystems) {
+			if (path.contains(pp.providerId()))
+				throw new IllegalStateException(
+						"sub-system cycle detected: " + pp.provider());
 			var subSystem = db.get(ProductSystem.class, pp.providerId());
 			if (subSystem == null)
 				continue;
@@ -149,9 +230,122 @@ public class SystemCalculator {
 					.withAllocation(setup.allocation())
 					.withImpactMethod(setup.impactMethod())
 					.withNwSet(setup.nwSet());
-			var subResult = calculate(subSetup);
-			subResults.put(pp, subResult);
+			futures.put(pp, scheduleSubSystem(subSetup, memo, path));
+		}
+		return futures;
+	}
+
+	/**
+	 * Schedules the calculation of the given sub-system setup or returns the
+	 * already scheduled calculation of an identical setup. The calculation
+	 * of a sub-system starts when the calculations of its own sub-systems
+	 * are finished, thus, no thread of the executor is blocked while waiting
+	 * for other results.
+	 */
+	private CompletableFuture<LcaResult> scheduleSubSystem(
+			CalculationSetup setup, Map<SubKey, CompletableFuture<LcaResult>> memo,
+			Set<Long> path) {
+		var key = SubKey.of(setup);
+		var future = new CompletableFuture<LcaResult>();
+		var existing = memo.putIfAbsent(key, future);
+		if (existing != null)
+			return existing;
+
+		var subPath = new HashSet<>(path);
+		subPath.add(key.systemId);
+		var exec = executor();
+
+		CompletableFuture.supplyAsync(() -> {
+					log.info("calculate sub-system {}", setup.target());
+					var techIndex = TechIndex.of(db, setup);
+					var subs = scheduleSubSystems(setup, techIndex, memo, subPath);
+					return new SubTask(techIndex, subs);
+				}, exec)
+				.thenCompose(task -> CompletableFuture.allOf(
+								task.subs.values().toArray(new CompletableFuture[0]))
+						.thenApplyAsync(
+								$ -> solve(setup, task.techIndex, joinAll(task.subs), DEFAULT),
+								exec))
+				.whenComplete((result, err) -> {
+					if (err != null) {
+						future.completeExceptionally(err);
+					} else {
+						future.complete(result);
+					}
+				});
+		return future;
+	}
+
+	/**
+	 * Returns the executor for the sub-system calculations. A solver that is
+	 * not thread-safe must not be used in parallel, so in this case the
+	 * calculations are directly executed on the calling thread.
+	 */
+	private Executor executor() {
+		if (solver != null && !solver.isThreadSafe())
+			return Runnable::run;
+		return executor != null
+				? executor
+				: ForkJoinPool.commonPool();
+	}
+
+	private static Map<TechFlow, LcaResult> joinAll(
+			Map<TechFlow, CompletableFuture<LcaResult>> futures) {
+		if (futures.isEmpty())
+			return Collections.emptyMap();
+		var results = new HashMap<TechFlow, LcaResult>();
+		for (var e : futures.entrySet()) {
+			results.put(e.getKey(), e.getValue().join());
+		}
+		return results;
+	}
+
+	private static long idOf(AbstractEntity e) {
+		return e != null ? e.id : 0;
+	}
+
+	private record SubTask(
+			TechIndex techIndex, Map<TechFlow, CompletableFuture<LcaResult>> subs) {
+	}
+
+	/**
+	 * Identifies the setup of a sub-system calculation: sub-system setups with
+	 * equal keys have the same results.
+	 */
+	private record SubKey(
+			long systemId,
+			Set<RedefKey> redefs,
+			boolean costs,
+			boolean regionalized,
+			AllocationMethod allocation,
+			long impactMethod,
+			long nwSet) {
+
+		static SubKey of(CalculationSetup setup) {
+			var redefs = new HashSet<RedefKey>();
+			for (var redef : setup.parameters()) {
+				redefs.add(RedefKey.of(redef));
+			}
+			return new SubKey(
+					idOf(setup.target()),
+					redefs,
+					setup.hasCosts(),
+					setup.hasRegionalization(),
+					setup.allocation(),
+					idOf(setup.impactMethod()),
+					idOf(setup.nwSet()));
+		}
+	}
+
+	private record RedefKey(
+			String name, Long contextId, ModelType contextType, double value) {
+
+		static RedefKey of(ParameterRedef redef) {
+			var name = redef.name != null
+					? redef.name.toLowerCase()
+					: null;
+			return new RedefKey(
+					name, redef.contextId, redef.contextType, redef.value);
 		}
-		return subResults;
 	}
 }
@@ -33,6 +33,13 @@ public class CalcAllocationFactor {
 		return factor;
 	}
 
+	/**
+	 * Returns true when the value of this factor is calculated from a formula.
+	 */
+	public boolean hasFormula() {
+		return formula != null;
+	}
+
 	/**
 	 * Get the value of the allocation factor. If no formula is bound to the factor,
 	 * simply the value of the factor is returned. Otherwise, the value of the
@@ -44,16 +51,7 @@ public class CalcAllocationFactor {
 			return amount;
 		if (interpreter == null)
 			return amount;
-		try {
-			var scope = interpreter.getScope(processID);
-			amount = scope.isPresent()
-					? scope.get().eval(formula)
-					: interpreter.eval(formula);
-		} catch (Exception e) {
-			var log = LoggerFactory.getLogger(getClass());
-			log.error("failed to evaluate formula of allocation factor: "
-					+ formula);
-		}
+		amount = eval(interpreter);
 		evaluated = true;
 		return amount;
 	}
@@ -61,11 +59,26 @@ public class CalcAllocationFactor {
 	/**
 	 * If the allocation factor is bound to a formula, this formula is always
 	 * evaluated. No cached value is returned in contrast to the `get` method.
+	 * Also, the evaluated value is not cached so that this method can be
+	 * called from concurrent simulation runs with different interpreters.
 	 */
 	public double force(FormulaInterpreter interpreter) {
-		if (formula == null)
+		if (formula == null || interpreter == null)
 			return amount;
-		evaluated = false;
-		return get(interpreter);
+		return eval(interpreter);
+	}
+
+	private double eval(FormulaInterpreter interpreter) {
+		try {
+			var scope = interpreter.getScope(processID);
+			return scope.isPresent()
+					? scope.get().eval(formula)
+					: interpreter.eval(formula);
+		} catch (Exception e) {
+			var log = LoggerFactory.getLogger(getClass());
+			log.error("failed to evaluate formula of allocation factor: "
+					+ formula);
+			return amount;
+		}
 	}
 }
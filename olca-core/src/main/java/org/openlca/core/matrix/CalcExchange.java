@@ -86,6 +86,17 @@ public class CalcExchange {
 
 	public double matrixValue(FormulaInterpreter interpreter,
 		double allocationFactor) {
+		return matrixValue(amount, interpreter, allocationFactor);
+	}
+
+	/**
+	 * Calculates the matrix value for the given amount instead of the amount
+	 * of this exchange. If the exchange has a formula, the formula is still
+	 * evaluated. This method does not modify the exchange, so that it can be
+	 * called from concurrent simulation runs.
+	 */
+	public double matrixValue(double amount, FormulaInterpreter interpreter,
+		double allocationFactor) {
 
 		double a = amount;
 		if (Strings.notEmpty(formula) && interpreter != null) {
@@ -37,6 +37,15 @@ public class CalcImpactFactor {
 	}
 
 	public double matrixValue(FormulaInterpreter interpreter) {
+		return matrixValue(amount, interpreter);
+	}
+
+	/**
+	 * Calculates the matrix value for the given amount instead of the amount
+	 * of this factor. This method does not modify the factor, so that it can
+	 * be called from concurrent simulation runs.
+	 */
+	public double matrixValue(double amount, FormulaInterpreter interpreter) {
 
 		double a = amount;
 		if (Strings.notEmpty(formula) && interpreter != null) {
@@ -0,0 +1,147 @@
+package org.openlca.core.matrix;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+import org.openlca.core.matrix.format.Matrix;
+import org.openlca.expressions.FormulaInterpreter;
+import org.openlca.util.Strings;
+
+import gnu.trove.map.hash.TLongObjectHashMap;
+
+/**
+ * Contains the matrix cells with values that depend on formulas: amounts of
+ * exchanges, costs, allocation factors, or characterization factors that are
+ * defined by formulas. For such a cell, all contributions are stored (also the
+ * contributions without formulas) so that the value of the cell can be
+ * calculated again with another formula interpreter, e.g. for other parameter
+ * redefinitions, without reading the data from the database again. For a
+ * vector, like the cost vector, the row index is always 0.
+ */
+public class FormulaCells {
+
+	private final TLongObjectHashMap<Cell> cells = new TLongObjectHashMap<>();
+
+	/**
+	 * Adds the matrix value of the given exchange to the cell.
+	 */
+	public void add(int row, int col, CalcExchange e, CalcAllocationFactor af) {
+		if (e == null)
+			return;
+		boolean dynamic = Strings.notEmpty(e.formula)
+				|| (af != null && af.hasFormula());
+		cellOf(row, col).add(dynamic, interpreter -> {
+			double f = af != null ? af.force(interpreter) : 1;
+			return e.matrixValue(interpreter, f);
+		});
+	}
+
+	/**
+	 * Adds the cost value of the given exchange to the entry in the cost vector.
+	 */
+	public void addCosts(int col, CalcExchange e, CalcAllocationFactor af) {
+		if (e == null)
+			return;
+		boolean dynamic = Strings.notEmpty(e.costFormula)
+				|| (af != null && af.hasFormula());
+		cellOf(0, col).add(dynamic, interpreter -> {
+			double f = af != null ? af.force(interpreter) : 1;
+			return e.costValue(interpreter, f);
+		});
+	}
+
+	/**
+	 * Sets the given characterization factor as the only contribution of the
+	 * cell.
+	 */
+	public void set(int row, int col, CalcImpactFactor factor) {
+		if (factor == null)
+			return;
+		var cell = new Cell();
+		cell.add(Strings.notEmpty(factor.formula), factor::matrixValue);
+		cells.put(key(row, col), cell);
+	}
+
+	/**
+	 * Removes all cells that do not depend on formulas. This should be called
+	 * when all values were added.
+	 */
+	public FormulaCells trim() {
+		cells.retainEntries((key, cell) -> cell.dynamic);
+		cells.compact();
+		return this;
+	}
+
+	public boolean isEmpty() {
+		return cells.isEmpty();
+	}
+
+	public int size() {
+		return cells.size();
+	}
+
+	/**
+	 * Evaluates the cells with the given interpreter and sets the values into
+	 * the given matrix.
+	 */
+	public void eval(Matrix matrix, FormulaInterpreter interpreter) {
+		cells.forEachEntry((key, cell) -> {
+			matrix.set(rowOf(key), colOf(key), cell.eval(interpreter));
+			return true;
+		});
+	}
+
+	/**
+	 * Evaluates the cells with the given interpreter and sets the values into
+	 * the given vector.
+	 */
+	public void eval(double[] vector, FormulaInterpreter interpreter) {
+		cells.forEachEntry((key, cell) -> {
+			vector[colOf(key)] = cell.eval(interpreter);
+			return true;
+		});
+	}
+
+	private Cell cellOf(int row, int col) {
+		long key = key(row, col);
+		var cell = cells.get(key);
+		if (cell == null) {
+			cell = new Cell();
+			cells.put(key, cell);
+		}
+		return cell;
+	}
+
+	private static long key(int row, int col) {
+		return ((long) row << 32) | (col & 0xffffffffL);
+	}
+
+	private static int rowOf(long key) {
+		return (int) (key >>> 32);
+	}
+
+	private static int colOf(long key) {
+		return (int) key;
+	}
+
+	private static class Cell {
+
+		private final List<ToDoubleFunction<FormulaInterpreter>> terms =
+				new ArrayList<>(1);
+		private boolean dynamic;
+
+		void add(boolean dynamic, ToDoubleFunction<FormulaInterpreter> term) {
+			terms.add(term);
+			this.dynamic |= dynamic;
+		}
+
+		double eval(FormulaInterpreter interpreter) {
+			double sum = 0;
+			for (var term : terms) {
+				sum += term.applyAsDouble(interpreter);
+			}
+			return sum;
+		}
+	}
+}
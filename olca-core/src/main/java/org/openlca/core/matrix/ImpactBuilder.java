@@ -34,10 +34,12 @@ public final class ImpactBuilder {
 	private final ImpactIndex impactIndex;
 	private final FormulaInterpreter interpreter;
 	private final boolean withUncertainties;
+	private final boolean withFormulaCells;
 
 	private final ConversionTable conversions;
 	private MatrixBuilder matrix;
 	private UMatrix uncertainties;
+	private FormulaCells formulas;
 
 	private ImpactBuilder(Config config) {
 		this.db = config.db;
@@ -64,6 +66,7 @@ public final class ImpactBuilder {
 		}
 
 		withUncertainties = config.withUncertainties;
+		withFormulaCells = config.withFormulaCells;
 		conversions = ConversionTable.create(db);
 	}
 
@@ -83,6 +86,9 @@ public final class ImpactBuilder {
 		uncertainties = withUncertainties
 			? new UMatrix()
 			: null;
+		formulas = withFormulaCells
+			? new FormulaCells()
+			: null;
 		if (flowIndex.isRegionalized()) {
 			fillRegionalized();
 		} else {
@@ -106,6 +112,9 @@ public final class ImpactBuilder {
 		data.impactIndex = impactIndex;
 		data.impactMatrix = matrix.finish();
 		data.impactUncertainties = uncertainties;
+		if (formulas != null) {
+			data.impactFormulas = formulas.trim();
+		}
 		return data;
 	}
 
@@ -145,6 +154,9 @@ public final class ImpactBuilder {
 				int row = impactIndex.of(impactId);
 				int col = flowIndex.of(flowId);
 				matrix.set(row, col, f.matrixValue(interpreter));
+				if (formulas != null) {
+					formulas.set(row, col, f);
+				}
 
 				// set possible uncertainties
 				if (uncertainties != null) {
@@ -223,6 +235,9 @@ public final class ImpactBuilder {
 				if (addIt) {
 					int col = flowIndex.of(flowId, locationId);
 					matrix.set(row, col, f.matrixValue(interpreter));
+					if (formulas != null) {
+						formulas.set(row, col, f);
+					}
 					if (uncertainties != null) {
 						uncertainties.add(row, col, f);
 					}
@@ -254,6 +269,9 @@ public final class ImpactBuilder {
 					? impact.direction == Direction.INPUT
 					: idxFlow.isInput();
 				matrix.set(row, col, factor.matrixValue(interpreter));
+				if (formulas != null) {
+					formulas.set(row, col, factor);
+				}
 				if (uncertainties != null) {
 					uncertainties.add(row, col, factor);
 				}
@@ -298,6 +316,7 @@ public final class ImpactBuilder {
 		public ImpactIndex impactIndex;
 		public Matrix impactMatrix;
 		public UMatrix impactUncertainties;
+		public FormulaCells impactFormulas;
 
 		/**
 		 * Adds the impact data to the given matrix data.
@@ -315,6 +334,7 @@ public final class ImpactBuilder {
 			data.impactIndex = impactIndex;
 			data.impactMatrix = impactMatrix;
 			data.impactUncertainties = impactUncertainties;
+			data.impactFormulas = impactFormulas;
 		}
 	}
 
@@ -323,6 +343,7 @@ public final class ImpactBuilder {
 		private final IDatabase db;
 		private final EnviIndex flows;
 		private boolean withUncertainties;
+		private boolean withFormulaCells;
 		private FormulaInterpreter interpreter;
 		private ImpactIndex impacts;
 
@@ -335,6 +356,7 @@ public final class ImpactBuilder {
 			this.db	= conf.db;
 			this.flows = flows;
 			this.withUncertainties = conf.withUncertainties;
+			this.withFormulaCells = conf.withFormulaCells;
 			this.interpreter = conf.interpreter;
 			this.impacts = conf.impactIndex;
 		}
@@ -344,6 +366,11 @@ public final class ImpactBuilder {
 			return this;
 		}
 
+		public Config withFormulaCells(boolean b) {
+			this.withFormulaCells = b;
+			return this;
+		}
+
 		public Config withInterpreter(FormulaInterpreter interpreter) {
 			this.interpreter = interpreter;
 			return this;
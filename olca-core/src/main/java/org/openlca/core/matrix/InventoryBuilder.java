@@ -28,6 +28,9 @@ public class InventoryBuilder {
 	private final MatrixBuilder enviBuilder;
 	private UMatrix techUncerts;
 	private UMatrix enviUncerts;
+	private FormulaCells techFormulas;
+	private FormulaCells enviFormulas;
+	private FormulaCells costFormulas;
 	private double[] costs;
 
 	public InventoryBuilder(MatrixConfig conf) {
@@ -65,6 +68,13 @@ public class InventoryBuilder {
 		if (conf.withCosts) {
 			costs = new double[conf.techIndex.size()];
 		}
+		if (conf.withFormulaCells) {
+			techFormulas = new FormulaCells();
+			enviFormulas = new FormulaCells();
+			if (conf.withCosts) {
+				costFormulas = new FormulaCells();
+			}
+		}
 	}
 
 	public MatrixData build() {
@@ -83,6 +93,9 @@ public class InventoryBuilder {
 		techBuilder.minSize(n, n);
 		data.techMatrix = techBuilder.finish();
 		data.techUncertainties = techUncerts;
+		if (techFormulas != null) {
+			data.techFormulas = techFormulas.trim();
+		}
 
 		// optional elementary flows
 		if (m > 0) {
@@ -90,10 +103,16 @@ public class InventoryBuilder {
 			enviBuilder.minSize(m, n);
 			data.enviMatrix = enviBuilder.finish();
 			data.enviUncertainties = enviUncerts;
+			if (enviFormulas != null) {
+				data.enviFormulas = enviFormulas.trim();
+			}
 		}
 
 		// optional costs
 		data.costVector = costs;
+		if (costFormulas != null) {
+			data.costFormulas = costFormulas.trim();
+		}
 		return data;
 	}
 
@@ -207,6 +226,16 @@ public class InventoryBuilder {
 
 		if (conf.withCosts) {
 			costs[col] += exchange.costValue(conf.interpreter, af);
+			if (costFormulas != null) {
+				costFormulas.addCosts(col, exchange, allocationFactor);
+			}
+		}
+
+		if (conf.withFormulaCells) {
+			var formulas = matrix == techBuilder
+				? techFormulas
+				: enviFormulas;
+			formulas.add(row, col, exchange, allocationFactor);
 		}
 
 		if (conf.withUncertainties) {
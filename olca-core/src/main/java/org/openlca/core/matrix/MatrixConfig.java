@@ -27,6 +27,7 @@ public class MatrixConfig {
 	public final boolean withUncertainties;
 	public final boolean withCosts;
 	public final boolean withRegionalization;
+	public final boolean withFormulaCells;
 	public final AllocationMethod allocationMethod;
 
 	/**
@@ -63,6 +64,7 @@ public class MatrixConfig {
 		withUncertainties = builder.withUncertainties;
 		withCosts = builder.withCosts;
 		withRegionalization = builder.withRegionalization;
+		withFormulaCells = builder.withFormulaCells;
 		allocationMethod = builder.allocationMethod == null
 			? AllocationMethod.NONE
 			: builder.allocationMethod;
@@ -97,6 +99,7 @@ public class MatrixConfig {
 		private boolean withUncertainties;
 		private boolean withCosts;
 		private boolean withRegionalization;
+		private boolean withFormulaCells;
 
 		private Builder(IDatabase db, TechIndex techIndex) {
 			this.db = db;
@@ -138,6 +141,16 @@ public class MatrixConfig {
 			return this;
 		}
 
+		/**
+		 * If set to true, the cells with values that depend on formulas are
+		 * kept in the matrix data, so that the data can be evaluated again
+		 * for other parameter values (see {@link MatrixData#eval}).
+		 */
+		public Builder withFormulaCells(boolean b) {
+			withFormulaCells = b;
+			return this;
+		}
+
 		public Builder withAllocation(AllocationMethod method) {
 			allocationMethod = method;
 			return this;
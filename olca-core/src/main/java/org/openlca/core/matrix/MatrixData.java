@@ -90,6 +90,32 @@ public class MatrixData {
 	 */
 	public UMatrix impactUncertainties;
 
+	/**
+	 * Contains the cells of the technology matrix with values that depend on
+	 * formulas. This field is only used (not null) when the matrix data should
+	 * be evaluated again for other parameter values, see
+	 * {@link #eval(FormulaInterpreter)}.
+	 */
+	public FormulaCells techFormulas;
+
+	/**
+	 * Contains the cells of the intervention matrix with values that depend on
+	 * formulas (see {@link #techFormulas}).
+	 */
+	public FormulaCells enviFormulas;
+
+	/**
+	 * Contains the cells of the matrix with LCIA characterization factors with
+	 * values that depend on formulas (see {@link #techFormulas}).
+	 */
+	public FormulaCells impactFormulas;
+
+	/**
+	 * Contains the entries of the cost vector with values that depend on
+	 * formulas (see {@link #techFormulas}).
+	 */
+	public FormulaCells costFormulas;
+
 	private Boolean _hasLibraryLinks;
 
 	public static MatrixConfig.Builder of(IDatabase db, TechIndex techIndex) {
@@ -119,11 +145,66 @@ public class MatrixData {
 			.ifPresent(m -> impactMatrix = m);
 	}
 
+	/**
+	 * Returns a copy of this data where the values of the formula cells are
+	 * evaluated with the given interpreter. Only the matrices with formula
+	 * cells are copied; the indices and the other matrices are shared with
+	 * this data.
+	 */
+	public MatrixData eval(FormulaInterpreter interpreter) {
+		var copy = new MatrixData();
+		copy.demand = demand;
+		copy.techIndex = techIndex;
+		copy.enviIndex = enviIndex;
+		copy.impactIndex = impactIndex;
+		copy.techMatrix = eval(techMatrix, techFormulas, interpreter);
+		copy.enviMatrix = eval(enviMatrix, enviFormulas, interpreter);
+		copy.impactMatrix = eval(impactMatrix, impactFormulas, interpreter);
+		copy.costVector = costVector;
+		if (costVector != null && costFormulas != null
+				&& !costFormulas.isEmpty()) {
+			copy.costVector = Arrays.copyOf(costVector, costVector.length);
+			costFormulas.eval(copy.costVector, interpreter);
+		}
+		copy.techFormulas = techFormulas;
+		copy.enviFormulas = enviFormulas;
+		copy.impactFormulas = impactFormulas;
+		copy.costFormulas = costFormulas;
+		copy._hasLibraryLinks = _hasLibraryLinks;
+		return copy;
+	}
+
+	private static MatrixReader eval(MatrixReader matrix, FormulaCells cells,
+		FormulaInterpreter interpreter) {
+		if (matrix == null || cells == null || cells.isEmpty())
+			return matrix;
+		var m = matrix.asMutableCopy();
+		cells.eval(m, interpreter);
+		return m;
+	}
+
 	public boolean isSparse() {
 		return techMatrix instanceof HashPointMatrix
 			|| techMatrix instanceof CSCMatrix;
 	}
 
+	/**
+	 * Returns an estimate of the heap memory in bytes of the matrices and
+	 * vectors of this data set (see {@link MatrixReader#memorySize()}).
+	 */
+	public long memorySize() {
+		long size = 0;
+		for (var m : new MatrixReader[]{techMatrix, enviMatrix, impactMatrix}) {
+			if (m != null) {
+				size += m.memorySize();
+			}
+		}
+		if (costVector != null) {
+			size += 8L * costVector.length;
+		}
+		return size;
+	}
+
 	public boolean hasLibraryLinks() {
 		if (_hasLibraryLinks != null)
 			return _hasLibraryLinks;
@@ -161,6 +242,7 @@ public class MatrixData {
 
 	public MatrixData copy() {
 		var copy = new MatrixData();
+		copy.demand = demand;
 		copy.techIndex = Copy.of(techIndex);
 		copy.enviIndex = Copy.of(enviIndex);
 		copy.impactIndex = Copy.of(impactIndex);
@@ -173,6 +255,10 @@ public class MatrixData {
 		copy.techUncertainties = Copy.of(techUncertainties);
 		copy.enviUncertainties = Copy.of(enviUncertainties);
 		copy.impactUncertainties = Copy.of(impactUncertainties);
+		copy.techFormulas = techFormulas;
+		copy.enviFormulas = enviFormulas;
+		copy.impactFormulas = impactFormulas;
+		copy.costFormulas = costFormulas;
 		copy._hasLibraryLinks = _hasLibraryLinks;
 		return copy;
 	}
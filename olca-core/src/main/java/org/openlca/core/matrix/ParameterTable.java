@@ -31,9 +31,14 @@ public class ParameterTable {
 	 */
 	private TLongObjectHashMap<Map<String, NumberGenerator>> numberGens;
 
-	private final FormulaInterpreter interpreter = new FormulaInterpreter();
+	private final FormulaInterpreter interpreter;
 
 	private ParameterTable() {
+		this(new FormulaInterpreter());
+	}
+
+	private ParameterTable(FormulaInterpreter interpreter) {
+		this.interpreter = interpreter;
 	}
 
 	/**
@@ -56,11 +61,13 @@ public class ParameterTable {
 
 	/**
 	 * Builds a parameter table suitable for creating formula interpreters in a
-	 * Monte Carlo simulation.
+	 * Monte Carlo simulation. As the formulas are evaluated again in each
+	 * iteration, the interpreter uses compiled expressions.
 	 */
 	public static ParameterTable forSimulation(IDatabase db,
 		Set<Long> contexts, Collection<ParameterRedef> redefs) {
 		var table = new ParameterTable();
+		table.interpreter.useCompiledExpressions(true);
 		table.numberGens = new TLongObjectHashMap<>(
 			Constants.DEFAULT_CAPACITY,
 			Constants.DEFAULT_LOAD_FACTOR,
@@ -102,6 +109,17 @@ public class ParameterTable {
 		return interpreter;
 	}
 
+	/**
+	 * Creates a copy of this parameter table with an independent interpreter.
+	 * The number generators are shared with the copy as they do not hold any
+	 * state; the copy can be used in another thread than this table.
+	 */
+	public ParameterTable copy() {
+		var copy = new ParameterTable(interpreter.copy());
+		copy.numberGens = numberGens;
+		return copy;
+	}
+
 	private void bindRedefs(Collection<ParameterRedef> redefs) {
 		if (redefs == null)
 			return;
@@ -52,6 +52,12 @@ public class CSCMatrix implements MatrixReader {
 		return true;
 	}
 
+	@Override
+	public long memorySize() {
+		return 8L * values.length
+				+ 4L * (columnPointers.length + rowIndices.length);
+	}
+
 	/**
 	 * Constructs a new matrix from the given values.
 	 *
@@ -54,6 +54,11 @@ public class DenseMatrix implements Matrix {
 		return false;
 	}
 
+	@Override
+	public long memorySize() {
+		return 8L * data.length;
+	}
+
 	@Override
 	public int rows() {
 		return rows;
@@ -57,6 +57,13 @@ public class HashPointMatrix implements Matrix {
 		return true;
 	}
 
+	@Override
+	public long memorySize() {
+		// the hash maps of Trove have a key, value, and state per slot and
+		// a default load factor of 0.5
+		return 26L * getNumberOfEntries();
+	}
+
 	public boolean isEmpty() {
 		return data.isEmpty();
 	}
@@ -37,6 +37,11 @@ public class JavaMatrix implements Matrix {
 		return false;
 	}
 
+	@Override
+	public long memorySize() {
+		return 8L * rows() * columns();
+	}
+
 	public RealMatrix getRealMatrix() {
 		return matrix;
 	}
@@ -118,6 +118,15 @@ public interface MatrixReader extends Copyable<MatrixReader> {
 	 */
 	boolean isSparse();
 
+	/**
+	 * Returns an estimate of the heap memory in bytes that the values of this
+	 * matrix use. It returns 0 if this is not known, e.g. for matrices that
+	 * are stored outside of the heap.
+	 */
+	default long memorySize() {
+		return 0;
+	}
+
 	/**
 	 * A matrix is dense if it is not sparse (see `isSparse`)
 	 */
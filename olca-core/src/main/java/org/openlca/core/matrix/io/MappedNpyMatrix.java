@@ -0,0 +1,257 @@
+package org.openlca.core.matrix.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.WeakReference;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.openlca.core.matrix.format.EntryFunction;
+import org.openlca.core.matrix.format.MatrixReader;
+import org.openlca.npy.NpyDataType;
+import org.openlca.npy.NpyHeader;
+
+/**
+ * A read-only view on a dense matrix that is stored in a npy file. Instead
+ * of loading the matrix into the heap, the data section of the file is mapped
+ * into memory and the values are read directly from the mapped buffers. The
+ * operating system then loads the pages of the file on demand and can share
+ * them between processes. As a single buffer can map at most 2 GB, the data
+ * is mapped in segments.
+ * <p>
+ * The mappings are shared within a process: {@link #of(File)} returns the
+ * same instance for the same file as long as the file is not modified and
+ * the instance is still in use. The shared instances are only weakly
+ * referenced, so that the mapped memory (and on Windows the lock on the file)
+ * is released when no calculation uses the matrix anymore. Only
+ * 2-dimensional arrays with 64-bit floating point numbers are supported; the
+ * array can be stored in column-major (Fortran) or row-major (C) order where
+ * column reads are much faster for the column-major order.
+ */
+public final class MappedNpyMatrix implements MatrixReader {
+
+	/**
+	 * The maximum number of values in a mapped segment (1 GB).
+	 */
+	private static final int SEGMENT_SIZE = 1 << 27;
+
+	private static final ConcurrentHashMap<String, WeakReference<MappedNpyMatrix>>
+			cache = new ConcurrentHashMap<>();
+
+	private final File file;
+	private final long lastModified;
+	private final int rows;
+	private final int columns;
+	private final boolean columnOrder;
+	private final DoubleBuffer[] segments;
+
+	private MappedNpyMatrix(File file) {
+		this.file = file;
+		this.lastModified = file.lastModified();
+		try (var channel = FileChannel.open(
+				file.toPath(), StandardOpenOption.READ)) {
+			var header = NpyHeader.read(channel);
+			var dict = header.dict();
+			if (dict.dataType() != NpyDataType.f8 || dict.dimensions() != 2)
+				throw new IllegalArgumentException(
+						"file " + file + " does not contain a matrix of doubles");
+			rows = dict.sizeOfDimension(0);
+			columns = dict.sizeOfDimension(1);
+			columnOrder = dict.hasFortranOrder();
+
+			long size = (long) rows * columns;
+			int count = (int) ((size + SEGMENT_SIZE - 1) / SEGMENT_SIZE);
+			segments = new DoubleBuffer[count];
+			for (int i = 0; i < count; i++) {
+				long start = (long) i * SEGMENT_SIZE;
+				long length = Math.min(SEGMENT_SIZE, size - start);
+				segments[i] = channel.map(
+								FileChannel.MapMode.READ_ONLY,
+								header.dataOffset() + start * Double.BYTES,
+								length * Double.BYTES)
+						.order(header.byteOrder())
+						.asDoubleBuffer();
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("failed to map matrix file " + file, e);
+		}
+	}
+
+	/**
+	 * Returns the mapped matrix of the given npy file. Mappings are shared:
+	 * when the file was already mapped and not modified since then, the
+	 * existing mapping is returned.
+	 */
+	public static MappedNpyMatrix of(File file) {
+		var key = file.getAbsolutePath();
+		var matrix = new MappedNpyMatrix[1];
+		cache.compute(key, ($, ref) -> {
+			var current = ref != null ? ref.get() : null;
+			if (current != null && current.lastModified == file.lastModified()) {
+				matrix[0] = current;
+				return ref;
+			}
+			matrix[0] = new MappedNpyMatrix(file);
+			return new WeakReference<>(matrix[0]);
+		});
+		cache.values().removeIf(ref -> ref.get() == null);
+		return matrix[0];
+	}
+
+	/**
+	 * Removes the shared mappings of all files in the given folder, e.g. when
+	 * a library is deleted or replaced, so that the files are mapped again
+	 * on the next call of {@link #of(File)}. The mapped memory is released
+	 * when the matrices are garbage collected.
+	 */
+	public static void releaseAll(File folder) {
+		if (folder == null)
+			return;
+		var prefix = folder.getAbsolutePath() + File.separator;
+		cache.keySet().removeIf(key -> key.startsWith(prefix));
+	}
+
+	public File file() {
+		return file;
+	}
+
+	@Override
+	public int rows() {
+		return rows;
+	}
+
+	@Override
+	public int columns() {
+		return columns;
+	}
+
+	@Override
+	public boolean isSparse() {
+		return false;
+	}
+
+	private long indexOf(int row, int col) {
+		return columnOrder
+				? (long) col * rows + row
+				: (long) row * columns + col;
+	}
+
+	private double valueAt(long index) {
+		return segments[(int) (index / SEGMENT_SIZE)]
+				.get((int) (index % SEGMENT_SIZE));
+	}
+
+	/**
+	 * Copies `count` consecutive values, starting at the given index, into
+	 * the buffer.
+	 */
+	private void copy(long index, double[] buffer, int offset, int count) {
+		while (count > 0) {
+			int segment = (int) (index / SEGMENT_SIZE);
+			int pos = (int) (index % SEGMENT_SIZE);
+			int n = Math.min(count, SEGMENT_SIZE - pos);
+			segments[segment].get(pos, buffer, offset, n);
+			index += n;
+			offset += n;
+			count -= n;
+		}
+	}
+
+	@Override
+	public double get(int row, int col) {
+		return valueAt(indexOf(row, col));
+	}
+
+	@Override
+	public double[] getColumn(int i) {
+		var column = new double[rows];
+		readColumn(i, column);
+		return column;
+	}
+
+	@Override
+	public void readColumn(int column, double[] buffer) {
+		int n = Math.min(rows, buffer.length);
+		if (columnOrder) {
+			copy(indexOf(0, column), buffer, 0, n);
+			return;
+		}
+		for (int row = 0; row < n; row++) {
+			buffer[row] = get(row, column);
+		}
+	}
+
+	@Override
+	public double[] getRow(int i) {
+		var row = new double[columns];
+		readRow(i, row);
+		return row;
+	}
+
+	@Override
+	public void readRow(int row, double[] buffer) {
+		int n = Math.min(columns, buffer.length);
+		if (!columnOrder) {
+			copy(indexOf(row, 0), buffer, 0, n);
+			return;
+		}
+		for (int col = 0; col < n; col++) {
+			buffer[col] = get(row, col);
+		}
+	}
+
+	@Override
+	public void iterate(EntryFunction fn) {
+		if (fn == null)
+			return;
+		var buffer = new double[rows];
+		for (int col = 0; col < columns; col++) {
+			readColumn(col, buffer);
+			for (int row = 0; row < rows; row++) {
+				double val = buffer[row];
+				if (val != 0) {
+					fn.value(row, col, val);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Calculates the matrix-vector product column by column. Columns where
+	 * the vector has a zero entry are skipped so that only the required parts
+	 * of the file are loaded.
+	 */
+	@Override
+	public double[] multiply(double[] v) {
+		var x = new double[rows];
+		var buffer = new double[rows];
+		int n = Math.min(columns, v.length);
+		for (int col = 0; col < n; col++) {
+			double vj = v[col];
+			if (vj == 0)
+				continue;
+			readColumn(col, buffer);
+			for (int row = 0; row < rows; row++) {
+				x[row] += buffer[row] * vj;
+			}
+		}
+		return x;
+	}
+
+	/**
+	 * As the mapped matrix is read-only, this returns the same instance.
+	 * Use {@link #asMutableCopy()} to get a copy on the heap.
+	 */
+	@Override
+	public MatrixReader copy() {
+		return this;
+	}
+
+	@Override
+	public String toString() {
+		return "MappedNpyMatrix{" + file + ", " + rows + "x" + columns + "}";
+	}
+}
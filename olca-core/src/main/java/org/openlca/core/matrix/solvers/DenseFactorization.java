@@ -47,6 +47,11 @@ public class DenseFactorization implements Factorization {
 		return x;
 	}
 
+	@Override
+	public boolean hasBlockSolve() {
+		return true;
+	}
+
 	@Override
 	public Matrix solve(Matrix b) {
 		double[] x;
@@ -50,6 +50,25 @@ public interface Factorization {
 		return x;
 	}
 
+	/**
+	 * Returns true if this factorization overwrites {@link #solve(Matrix)}
+	 * with a method that solves multiple right-hand sides faster than one by
+	 * one. Otherwise, collecting the right-hand sides in a matrix only costs
+	 * memory and callers should solve them separately.
+	 */
+	default boolean hasBlockSolve() {
+		return false;
+	}
+
+	/**
+	 * Returns an estimate of the heap memory in bytes that this factorization
+	 * uses. It returns 0 if this is not known, e.g. for factorizations that
+	 * are stored in native memory.
+	 */
+	default long memorySize() {
+		return 0;
+	}
+
 	/**
 	 * Disposes the factorization (e.g. clears native memory etc.).
 	 */
@@ -0,0 +1,675 @@
+package org.openlca.core.matrix.solvers;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.math3.linear.NonSquareMatrixException;
+import org.openlca.core.matrix.format.CSCMatrix;
+import org.openlca.core.matrix.format.Matrix;
+import org.openlca.core.matrix.format.MatrixReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A matrix solver that solves the equations $A x = b$ of sparse matrices with
+ * a preconditioned Krylov method (BiCGSTAB or restarted GMRES) instead of a
+ * direct factorization. This works well for the technology matrices in
+ * openLCA which are typically very sparse and diagonally dominant. Thus, the
+ * {@link #factorize(MatrixReader)} method of this solver does not calculate a
+ * real factorization but prepares the preconditioner of the matrix; the
+ * equations are then solved iteratively when {@code solve} is called on the
+ * returned factorization.
+ * <p>
+ * The solver keeps the last solutions of the equations $A x = e_i$ and uses
+ * them as start values when an equation with the same right-hand side is
+ * solved again. In Monte Carlo simulations or parameter sweeps, consecutive
+ * matrices differ only slightly and the iterations converge then much
+ * faster. When an iteration does not converge, the equation is solved with
+ * the direct solver. Dense matrices and the other operations (inversion,
+ * multiplication) are also delegated to the direct solver.
+ * <p>
+ * The solver can be used in calculations by passing it into the
+ * {@code withSolver} method of the calculators:
+ *
+ * <pre>{@code
+ * var solver = new IterativeSolver()
+ *     .withMethod(IterativeSolver.Method.GMRES)
+ *     .withTolerance(1e-12);
+ * var result = new SystemCalculator(db)
+ *     .withSolver(solver)
+ *     .calculate(setup);
+ * }</pre>
+ */
+public class IterativeSolver implements MatrixSolver {
+
+	/**
+	 * The maximum number of start values that are stored for warm starts.
+	 */
+	private static final int MAX_START_VALUES = 32;
+
+	public enum Method {
+		BICGSTAB, GMRES
+	}
+
+	public enum Preconditioner {
+
+		/** No preconditioning. */
+		NONE,
+
+		/** Scaling with the inverse of the diagonal of the matrix. */
+		JACOBI,
+
+		/** Incomplete LU factorization without fill-in. */
+		ILU
+	}
+
+	private final Logger log = LoggerFactory.getLogger(getClass());
+	private final MatrixSolver direct;
+
+	private Method method = Method.BICGSTAB;
+	private Preconditioner preconditioner = Preconditioner.ILU;
+	private double tolerance = 1e-10;
+	private int maxIterations = 1000;
+	private int restart = 50;
+	private boolean warmStart = true;
+
+	private final Map<Integer, double[]> startValues = new LinkedHashMap<>(
+			16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Integer, double[]> e) {
+			return size() > MAX_START_VALUES;
+		}
+	};
+
+	private volatile int lastIterations;
+
+	/**
+	 * Creates a new iterative solver that uses the best available solver (see
+	 * {@link MatrixSolver#get()}) for the direct operations.
+	 */
+	public IterativeSolver() {
+		this(MatrixSolver.get());
+	}
+
+	/**
+	 * Creates a new iterative solver that uses the given solver for the direct
+	 * operations and as fallback when an iteration does not converge.
+	 */
+	public IterativeSolver(MatrixSolver direct) {
+		this.direct = direct;
+	}
+
+	public IterativeSolver withMethod(Method method) {
+		if (method != null) {
+			this.method = method;
+		}
+		return this;
+	}
+
+	public IterativeSolver withPreconditioner(Preconditioner preconditioner) {
+		if (preconditioner != null) {
+			this.preconditioner = preconditioner;
+		}
+		return this;
+	}
+
+	/**
+	 * Sets the tolerance of the relative residual $||b - A x|| / ||b||$ at
+	 * which the iteration stops.
+	 */
+	public IterativeSolver withTolerance(double tolerance) {
+		if (tolerance > 0) {
+			this.tolerance = tolerance;
+		}
+		return this;
+	}
+
+	public IterativeSolver withMaxIterations(int maxIterations) {
+		if (maxIterations > 0) {
+			this.maxIterations = maxIterations;
+		}
+		return this;
+	}
+
+	/**
+	 * Sets the number of iterations after which GMRES is restarted.
+	 */
+	public IterativeSolver withRestart(int restart) {
+		if (restart > 0) {
+			this.restart = restart;
+		}
+		return this;
+	}
+
+	/**
+	 * Enables or disables the warm start from previous solutions; it is
+	 * enabled by default.
+	 */
+	public IterativeSolver withWarmStart(boolean warmStart) {
+		this.warmStart = warmStart;
+		if (!warmStart) {
+			synchronized (startValues) {
+				startValues.clear();
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * Returns the number of iterations of the last solved equation; this is
+	 * useful for tuning the solver parameters. It is 0 when the last equation
+	 * was solved with the direct solver.
+	 */
+	public int lastIterations() {
+		return lastIterations;
+	}
+
+	@Override
+	public boolean isThreadSafe() {
+		return direct.isThreadSafe();
+	}
+
+	@Override
+	public boolean hasSparseSupport() {
+		return true;
+	}
+
+	@Override
+	public Matrix matrix(int rows, int columns) {
+		return direct.matrix(rows, columns);
+	}
+
+	@Override
+	public double[] solve(MatrixReader a, int idx, double d) {
+		if (!a.isSparse())
+			return direct.solve(a, idx, d);
+		return factorize(a).solve(idx, d);
+	}
+
+	@Override
+	public Matrix invert(MatrixReader a) {
+		return direct.invert(a);
+	}
+
+	@Override
+	public Matrix multiply(MatrixReader a, MatrixReader b) {
+		return direct.multiply(a, b);
+	}
+
+	@Override
+	public double[] multiply(MatrixReader m, double[] v) {
+		return m.isSparse()
+				? m.multiply(v)
+				: direct.multiply(m, v);
+	}
+
+	@Override
+	public Factorization factorize(MatrixReader matrix) {
+		if (!matrix.isSparse())
+			return direct.factorize(matrix);
+		if (!matrix.isSquare())
+			throw new NonSquareMatrixException(matrix.rows(), matrix.columns());
+		var csc = matrix instanceof CSCMatrix c
+				? c
+				: CSCMatrix.of(matrix);
+		return new Iteration(csc);
+	}
+
+	private double[] startValue(int idx, double val, int n) {
+		if (!warmStart)
+			return null;
+		double[] x;
+		synchronized (startValues) {
+			x = startValues.get(idx);
+		}
+		if (x == null || x.length != n)
+			return null;
+		var start = new double[n];
+		for (int i = 0; i < n; i++) {
+			start[i] = x[i] * val;
+		}
+		return start;
+	}
+
+	private void keepStartValue(int idx, double val, double[] x) {
+		if (!warmStart || val == 0)
+			return;
+		var unit = new double[x.length];
+		for (int i = 0; i < x.length; i++) {
+			unit[i] = x[i] / val;
+		}
+		synchronized (startValues) {
+			startValues.put(idx, unit);
+		}
+	}
+
+	/**
+	 * The "factorization" of this solver: it holds the matrix in compressed
+	 * row format together with its preconditioner.
+	 */
+	private class Iteration implements Factorization {
+
+		private final CSCMatrix matrix;
+		private final int n;
+
+		// the matrix in compressed row format
+		private final int[] rp;
+		private final int[] ci;
+		private final double[] vals;
+
+		// the diagonal positions in the rows and the preconditioner
+		private final int[] diag;
+		private final double[] invDiag;
+		private final double[] ilu;
+		private final double[] pivots;
+
+		private Factorization fallback;
+		private boolean disposed;
+
+		Iteration(CSCMatrix matrix) {
+			this.matrix = matrix;
+			this.n = matrix.rows;
+
+			// transpose the CSC structure; the column indices are then sorted
+			int nnz = matrix.columnPointers[matrix.columns];
+			rp = new int[n + 1];
+			ci = new int[nnz];
+			vals = new double[nnz];
+			for (int p = 0; p < nnz; p++) {
+				rp[matrix.rowIndices[p] + 1]++;
+			}
+			for (int i = 0; i < n; i++) {
+				rp[i + 1] += rp[i];
+			}
+			var pos = rp.clone();
+			for (int j = 0; j < matrix.columns; j++) {
+				for (int p = matrix.columnPointers[j];
+						 p < matrix.columnPointers[j + 1]; p++) {
+					int k = pos[matrix.rowIndices[p]]++;
+					ci[k] = j;
+					vals[k] = matrix.values[p];
+				}
+			}
+
+			diag = new int[n];
+			for (int i = 0; i < n; i++) {
+				diag[i] = -1;
+				for (int p = rp[i]; p < rp[i + 1]; p++) {
+					if (ci[p] == i) {
+						diag[i] = p;
+						break;
+					}
+				}
+			}
+
+			invDiag = preconditioner == Preconditioner.JACOBI
+					? jacobi()
+					: null;
+			if (preconditioner == Preconditioner.ILU) {
+				pivots = new double[n];
+				ilu = ilu(pivots);
+			} else {
+				pivots = null;
+				ilu = null;
+			}
+		}
+
+		private double[] jacobi() {
+			var d = new double[n];
+			for (int i = 0; i < n; i++) {
+				double aii = diag[i] < 0 ? 0 : vals[diag[i]];
+				d[i] = aii == 0 ? 1 : 1 / aii;
+			}
+			return d;
+		}
+
+		/**
+		 * Calculates the incomplete LU factorization ILU(0) on the pattern of
+		 * the matrix (IKJ variant). L is unit lower triangular and stored
+		 * below the diagonal, U on and above the diagonal. Zero pivots are
+		 * replaced by 1 so that the preconditioner is always defined.
+		 */
+		private double[] ilu(double[] pivots) {
+			var lu = vals.clone();
+			var at = new int[n];
+			Arrays.fill(at, -1);
+			for (int i = 0; i < n; i++) {
+				for (int p = rp[i]; p < rp[i + 1]; p++) {
+					at[ci[p]] = p;
+				}
+				for (int p = rp[i]; p < rp[i + 1]; p++) {
+					int k = ci[p];
+					if (k >= i)
+						break;
+					lu[p] /= pivots[k];
+					double lik = lu[p];
+					for (int q = upperStart(k); q < rp[k + 1]; q++) {
+						int w = at[ci[q]];
+						if (w >= 0) {
+							lu[w] -= lik * lu[q];
+						}
+					}
+				}
+				double pivot = diag[i] < 0 ? 0 : lu[diag[i]];
+				pivots[i] = pivot == 0 ? 1 : pivot;
+				for (int p = rp[i]; p < rp[i + 1]; p++) {
+					at[ci[p]] = -1;
+				}
+			}
+			return lu;
+		}
+
+		/**
+		 * Returns the position of the first entry right of the diagonal in
+		 * row i.
+		 */
+		private int upperStart(int i) {
+			if (diag[i] >= 0)
+				return diag[i] + 1;
+			int p = rp[i];
+			while (p < rp[i + 1] && ci[p] < i) {
+				p++;
+			}
+			return p;
+		}
+
+		/** Calculates $y = A x$. */
+		private void multiply(double[] x, double[] y) {
+			for (int i = 0; i < n; i++) {
+				double sum = 0;
+				for (int p = rp[i]; p < rp[i + 1]; p++) {
+					sum += vals[p] * x[ci[p]];
+				}
+				y[i] = sum;
+			}
+		}
+
+		/** Calculates $z = M^{-1} r$. */
+		private void precondition(double[] r, double[] z) {
+			if (invDiag != null) {
+				for (int i = 0; i < n; i++) {
+					z[i] = invDiag[i] * r[i];
+				}
+				return;
+			}
+			if (ilu == null) {
+				System.arraycopy(r, 0, z, 0, n);
+				return;
+			}
+			// forward substitution with L
+			for (int i = 0; i < n; i++) {
+				double sum = r[i];
+				for (int p = rp[i]; p < rp[i + 1]; p++) {
+					int k = ci[p];
+					if (k >= i)
+						break;
+					sum -= ilu[p] * z[k];
+				}
+				z[i] = sum;
+			}
+			// backward substitution with U
+			for (int i = n - 1; i >= 0; i--) {
+				double sum = z[i];
+				for (int p = upperStart(i); p < rp[i + 1]; p++) {
+					sum -= ilu[p] * z[ci[p]];
+				}
+				z[i] = sum / pivots[i];
+			}
+		}
+
+		@Override
+		public int size() {
+			return n;
+		}
+
+		@Override
+		public double[] solve(int i, double val) {
+			var b = new double[n];
+			b[i] = val;
+			var x = solve(b, startValue(i, val, n));
+			keepStartValue(i, val, x);
+			return x;
+		}
+
+		@Override
+		public double[] solve(double[] b) {
+			return solve(b, null);
+		}
+
+		private double[] solve(double[] b, double[] start) {
+			var x = start != null ? start : new double[n];
+			double bnorm = norm(b);
+			if (bnorm == 0) {
+				lastIterations = 0;
+				return new double[n];
+			}
+			int iterations = method == Method.GMRES
+					? gmres(b, x, bnorm)
+					: bicgstab(b, x, bnorm);
+			if (iterations >= 0) {
+				lastIterations = iterations;
+				return x;
+			}
+
+			log.warn("{} did not converge in {} iterations;"
+					+ " use direct solver", method, maxIterations);
+			lastIterations = 0;
+			if (fallback == null) {
+				fallback = direct.factorize(matrix);
+			}
+			return fallback.solve(b);
+		}
+
+		/**
+		 * Preconditioned BiCGSTAB of van der Vorst. Returns the number of
+		 * iterations or -1 if the method did not converge.
+		 */
+		private int bicgstab(double[] b, double[] x, double bnorm) {
+			var r = new double[n];
+			multiply(x, r);
+			for (int i = 0; i < n; i++) {
+				r[i] = b[i] - r[i];
+			}
+			if (norm(r) <= tolerance * bnorm)
+				return 0;
+
+			// the shadow residual; the right-hand sides in openLCA are often
+			// unit vectors and with r0 = r the iteration would break down as
+			// the Krylov vectors of sparse matrices are sparse too. Thus, we
+			// add a dense, constant part to it.
+			var r0 = r.clone();
+			double shift = norm(r) / Math.sqrt(n);
+			for (int i = 0; i < n; i++) {
+				r0[i] += shift;
+			}
+			var p = new double[n];
+			var v = new double[n];
+			var y = new double[n];
+			var s = new double[n];
+			var z = new double[n];
+			var t = new double[n];
+			double rho = 1, alpha = 1, omega = 1;
+
+			for (int iter = 1; iter <= maxIterations; iter++) {
+				double rhoNext = dot(r0, r);
+				if (rhoNext == 0)
+					return -1;
+				double beta = (rhoNext / rho) * (alpha / omega);
+				rho = rhoNext;
+				for (int i = 0; i < n; i++) {
+					p[i] = r[i] + beta * (p[i] - omega * v[i]);
+				}
+				precondition(p, y);
+				multiply(y, v);
+				double r0v = dot(r0, v);
+				if (r0v == 0)
+					return -1;
+				alpha = rho / r0v;
+				for (int i = 0; i < n; i++) {
+					s[i] = r[i] - alpha * v[i];
+				}
+				if (norm(s) <= tolerance * bnorm) {
+					for (int i = 0; i < n; i++) {
+						x[i] += alpha * y[i];
+					}
+					return iter;
+				}
+				precondition(s, z);
+				multiply(z, t);
+				double tt = dot(t, t);
+				if (tt == 0)
+					return -1;
+				omega = dot(t, s) / tt;
+				for (int i = 0; i < n; i++) {
+					x[i] += alpha * y[i] + omega * z[i];
+					r[i] = s[i] - omega * t[i];
+				}
+				if (norm(r) <= tolerance * bnorm)
+					return iter;
+				if (omega == 0)
+					return -1;
+			}
+			return -1;
+		}
+
+		/**
+		 * Right-preconditioned GMRES with restarts. The least-squares problem
+		 * of the Hessenberg matrix is solved with Givens rotations. Returns the
+		 * number of iterations or -1 if the method did not converge.
+		 */
+		private int gmres(double[] b, double[] x, double bnorm) {
+			int m = Math.min(restart, n);
+			var basis = new double[m + 1][];
+			var h = new double[m + 1][m];
+			var cs = new double[m];
+			var sn = new double[m];
+			var g = new double[m + 1];
+			var w = new double[n];
+			var z = new double[n];
+			var r = new double[n];
+
+			int iterations = 0;
+			while (iterations < maxIterations) {
+				multiply(x, r);
+				for (int i = 0; i < n; i++) {
+					r[i] = b[i] - r[i];
+				}
+				double beta = norm(r);
+				if (beta <= tolerance * bnorm)
+					return iterations;
+
+				basis[0] = new double[n];
+				for (int i = 0; i < n; i++) {
+					basis[0][i] = r[i] / beta;
+				}
+				Arrays.fill(g, 0);
+				g[0] = beta;
+
+				int k = 0;
+				boolean converged = false;
+				for (; k < m && iterations < maxIterations; k++) {
+					iterations++;
+
+					// Arnoldi step with modified Gram-Schmidt
+					precondition(basis[k], z);
+					multiply(z, w);
+					for (int j = 0; j <= k; j++) {
+						double hjk = dot(w, basis[j]);
+						h[j][k] = hjk;
+						var vj = basis[j];
+						for (int i = 0; i < n; i++) {
+							w[i] -= hjk * vj[i];
+						}
+					}
+					double wnorm = norm(w);
+					h[k + 1][k] = wnorm;
+
+					// apply the previous rotations and calculate the new one
+					for (int j = 0; j < k; j++) {
+						double tmp = cs[j] * h[j][k] + sn[j] * h[j + 1][k];
+						h[j + 1][k] = -sn[j] * h[j][k] + cs[j] * h[j + 1][k];
+						h[j][k] = tmp;
+					}
+					double rr = Math.hypot(h[k][k], h[k + 1][k]);
+					if (rr == 0)
+						return -1;
+					cs[k] = h[k][k] / rr;
+					sn[k] = h[k + 1][k] / rr;
+					h[k][k] = rr;
+					h[k + 1][k] = 0;
+					g[k + 1] = -sn[k] * g[k];
+					g[k] = cs[k] * g[k];
+
+					if (Math.abs(g[k + 1]) <= tolerance * bnorm || wnorm == 0) {
+						converged = true;
+						k++;
+						break;
+					}
+					basis[k + 1] = new double[n];
+					for (int i = 0; i < n; i++) {
+						basis[k + 1][i] = w[i] / wnorm;
+					}
+				}
+
+				// solve the triangular system H y = g and update x += M^-1 V y
+				var yv = new double[k];
+				for (int j = k - 1; j >= 0; j--) {
+					double sum = g[j];
+					for (int l = j + 1; l < k; l++) {
+						sum -= h[j][l] * yv[l];
+					}
+					yv[j] = sum / h[j][j];
+				}
+				Arrays.fill(w, 0);
+				for (int j = 0; j < k; j++) {
+					var vj = basis[j];
+					double yj = yv[j];
+					for (int i = 0; i < n; i++) {
+						w[i] += yj * vj[i];
+					}
+				}
+				precondition(w, z);
+				for (int i = 0; i < n; i++) {
+					x[i] += z[i];
+				}
+
+				if (converged) {
+					// check the true residual
+					multiply(x, r);
+					for (int i = 0; i < n; i++) {
+						r[i] = b[i] - r[i];
+					}
+					if (norm(r) <= tolerance * bnorm)
+						return iterations;
+				}
+			}
+			return -1;
+		}
+
+		@Override
+		public void dispose() {
+			if (fallback != null) {
+				fallback.dispose();
+			}
+			disposed = true;
+		}
+
+		@Override
+		public boolean isDisposed() {
+			return disposed;
+		}
+	}
+
+	private static double dot(double[] a, double[] b) {
+		double sum = 0;
+		for (int i = 0; i < a.length; i++) {
+			sum += a[i] * b[i];
+		}
+		return sum;
+	}
+
+	private static double norm(double[] v) {
+		return Math.sqrt(dot(v, v));
+	}
+}
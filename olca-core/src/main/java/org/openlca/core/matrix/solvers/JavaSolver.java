@@ -7,12 +7,24 @@ import org.apache.commons.math3.linear.RealMatrix;
 import org.openlca.core.matrix.format.Matrix;
 import org.openlca.core.matrix.format.JavaMatrix;
 import org.openlca.core.matrix.format.MatrixReader;
-
+import org.openlca.core.matrix.io.MappedNpyMatrix;
+
+/**
+ * A pure Java implementation of the matrix solver. Dense matrices are solved
+ * with the LU decomposition of Apache Commons Math. Sparse matrices are
+ * factorized with the sparse LU decomposition of {@link SparseLU} so that
+ * they are never converted into a dense format for solving.
+ */
 public class JavaSolver implements MatrixSolver {
 
+	@Override
+	public boolean isThreadSafe() {
+		return true;
+	}
+
 	@Override
 	public boolean hasSparseSupport() {
-		return false;
+		return true;
 	}
 
 	@Override
@@ -22,6 +34,8 @@ public class JavaSolver implements MatrixSolver {
 
 	@Override
 	public double[] solve(MatrixReader a, int idx, double d) {
+		if (a.isSparse())
+			return SparseLU.of(a).solve(idx, d);
 		var A = unwrap(a);
 		var b = new ArrayRealVector(a.rows());
 		b.setEntry(idx, d);
@@ -31,6 +45,8 @@ public class JavaSolver implements MatrixSolver {
 
 	@Override
 	public double[] multiply(MatrixReader m, double[] v) {
+		if (m.isSparse() || m instanceof MappedNpyMatrix)
+			return m.multiply(v);
 		var A = unwrap(m);
 		var b = new Array2DRowRealMatrix(v.length, 1);
 		b.setColumn(0, v);
@@ -63,7 +79,9 @@ public class JavaSolver implements MatrixSolver {
 
 	@Override
 	public Factorization factorize(MatrixReader matrix) {
-		return LU.of(matrix);
+		return matrix.isSparse()
+				? SparseLU.of(matrix)
+				: LU.of(matrix);
 	}
 
 	private static class LU implements Factorization {
@@ -95,6 +113,17 @@ public class JavaSolver implements MatrixSolver {
 			return x.toArray();
 		}
 
+		@Override
+		public boolean hasBlockSolve() {
+			return true;
+		}
+
+		@Override
+		public long memorySize() {
+			// the LU decomposition keeps the full n*n matrix
+			return 8L * n * n;
+		}
+
 		@Override
 		public Matrix solve(Matrix b) {
 			var _b = unwrap(b);
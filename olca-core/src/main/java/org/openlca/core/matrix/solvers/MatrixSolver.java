@@ -102,4 +102,15 @@ public interface MatrixSolver {
 	default boolean isNative() {
 		return this instanceof NativeSolver;
 	}
+
+	/**
+	 * Returns true if an instance of this solver can be used from multiple
+	 * threads at the same time, e.g. for calculating independent sub-systems
+	 * in parallel. Solvers that keep state between calls, like the
+	 * {@link PatternReusingSolver}, must return false here which is also the
+	 * default.
+	 */
+	default boolean isThreadSafe() {
+		return false;
+	}
 }
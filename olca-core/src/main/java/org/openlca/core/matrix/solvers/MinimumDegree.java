@@ -0,0 +1,189 @@
+package org.openlca.core.matrix.solvers;
+
+import java.util.Arrays;
+
+import org.openlca.core.matrix.format.CSCMatrix;
+
+import gnu.trove.set.hash.TIntHashSet;
+
+/**
+ * Calculates a fill-reducing ordering of a square sparse matrix $A$ via a
+ * minimum degree ordering of the graph of $A + A^T$. As in AMD, dense nodes
+ * with a degree larger than $10 \sqrt{n}$ are removed from the graph first
+ * and ordered last. The remaining graph is eliminated explicitly (without
+ * the quotient graph and approximate degrees of AMD) which works well for the
+ * very sparse and nearly triangular technology matrices in openLCA. To bound
+ * the memory for matrices with a large fill, the elimination graph is not
+ * updated anymore when it grows too much; the remaining nodes are then
+ * ordered by their degree at that point.
+ */
+final class MinimumDegree {
+
+	/**
+	 * The maximum growth of the elimination graph compared to the original
+	 * graph before the elimination is stopped.
+	 */
+	private static final long FILL_FACTOR = 20;
+
+	private final int n;
+	private final TIntHashSet[] adj;
+
+	// bucket lists of the nodes by degree
+	private final int[] head;
+	private final int[] next;
+	private final int[] prev;
+	private final int[] degree;
+	private final boolean[] done;
+
+	private MinimumDegree(int n) {
+		this.n = n;
+		adj = new TIntHashSet[n];
+		head = new int[n + 1];
+		next = new int[n];
+		prev = new int[n];
+		degree = new int[n];
+		done = new boolean[n];
+	}
+
+	/**
+	 * Returns the ordering as a permutation vector $q$ where $q[k]$ is the
+	 * index of the column that should be eliminated in step $k$.
+	 */
+	static int[] of(CSCMatrix a) {
+		int n = a.columns;
+		var md = new MinimumDegree(n);
+		md.initGraph(a);
+		return md.order();
+	}
+
+	private void initGraph(CSCMatrix a) {
+		for (int j = 0; j < n; j++) {
+			adj[j] = new TIntHashSet(4);
+		}
+		for (int j = 0; j < n; j++) {
+			for (int p = a.columnPointers[j]; p < a.columnPointers[j + 1]; p++) {
+				int i = a.rowIndices[p];
+				if (i == j || i >= n)
+					continue;
+				adj[i].add(j);
+				adj[j].add(i);
+			}
+		}
+	}
+
+	private int[] order() {
+		var q = new int[n];
+		int k = 0;
+
+		// remove dense nodes; they are ordered last
+		int dense = (int) Math.max(16, 10 * Math.sqrt(n));
+		int denseCount = 0;
+		for (int j = 0; j < n; j++) {
+			if (adj[j].size() > dense) {
+				done[j] = true;
+				denseCount++;
+			}
+		}
+		if (denseCount > 0) {
+			int last = n - denseCount;
+			for (int j = 0; j < n; j++) {
+				if (!done[j])
+					continue;
+				q[last++] = j;
+				for (int i : adj[j].toArray()) {
+					if (!done[i]) {
+						adj[i].remove(j);
+					}
+				}
+			}
+			for (int j = 0; j < n; j++) {
+				if (done[j]) {
+					adj[j] = null;
+				}
+			}
+		}
+
+		// fill the degree buckets
+		Arrays.fill(head, -1);
+		for (int j = 0; j < n; j++) {
+			if (done[j])
+				continue;
+			degree[j] = adj[j].size();
+			link(j);
+		}
+
+		// eliminate the node with the minimum degree in each step; when the
+		// fill in the elimination graph exceeds the budget, the remaining
+		// nodes are just ordered by their current degree
+		long edges = 0;
+		for (int j = 0; j < n; j++) {
+			if (!done[j]) {
+				edges += degree[j];
+			}
+		}
+		long budget = Math.max(FILL_FACTOR * edges, 1L << 20);
+		int minDeg = 0;
+		while (k < n - denseCount) {
+			while (head[minDeg] < 0) {
+				minDeg++;
+			}
+			int v = head[minDeg];
+			unlink(v);
+			done[v] = true;
+			q[k++] = v;
+			if (edges > budget) {
+				adj[v] = null;
+				continue;
+			}
+
+			// connect the neighbors of v to a clique
+			var neighbors = adj[v].toArray();
+			adj[v] = null;
+			for (int u : neighbors) {
+				adj[u].remove(v);
+			}
+			edges -= 2L * neighbors.length;
+			for (int u : neighbors) {
+				var set = adj[u];
+				for (int w : neighbors) {
+					if (w != u && set.add(w)) {
+						edges++;
+					}
+				}
+				if (set.size() != degree[u]) {
+					unlink(u);
+					degree[u] = set.size();
+					link(u);
+					if (degree[u] < minDeg) {
+						minDeg = degree[u];
+					}
+				}
+			}
+		}
+		return q;
+	}
+
+	private void link(int j) {
+		int d = degree[j];
+		int h = head[d];
+		next[j] = h;
+		prev[j] = -1;
+		if (h >= 0) {
+			prev[h] = j;
+		}
+		head[d] = j;
+	}
+
+	private void unlink(int j) {
+		int p = prev[j];
+		int nx = next[j];
+		if (p >= 0) {
+			next[p] = nx;
+		} else {
+			head[degree[j]] = nx;
+		}
+		if (nx >= 0) {
+			prev[nx] = p;
+		}
+	}
+}
@@ -9,6 +9,7 @@ import org.openlca.core.matrix.format.HashPointMatrix;
 import org.openlca.core.matrix.format.Matrix;
 import org.openlca.core.matrix.format.MatrixConverter;
 import org.openlca.core.matrix.format.MatrixReader;
+import org.openlca.core.matrix.io.MappedNpyMatrix;
 import org.openlca.julia.Julia;
 import org.openlca.nativelib.Module;
 import org.openlca.nativelib.NativeLib;
@@ -18,6 +19,11 @@ public class NativeSolver implements MatrixSolver {
 	public NativeSolver() {
 	}
 
+	@Override
+	public boolean isThreadSafe() {
+		return true;
+	}
+
 	@Override
 	public boolean hasSparseSupport() {
 		return NativeLib.isLoaded(Module.UMFPACK);
@@ -64,7 +70,8 @@ public class NativeSolver implements MatrixSolver {
 	@Override
 	public double[] multiply(MatrixReader m, double[] x) {
 		if (m instanceof HashPointMatrix
-				|| m instanceof CSCMatrix) {
+				|| m instanceof CSCMatrix
+				|| m instanceof MappedNpyMatrix) {
 			return m.multiply(x);
 		}
 		var a = MatrixConverter.dense(m);
@@ -0,0 +1,124 @@
+package org.openlca.core.matrix.solvers;
+
+import java.util.Arrays;
+
+import org.openlca.core.matrix.format.CSCMatrix;
+import org.openlca.core.matrix.format.Matrix;
+import org.openlca.core.matrix.format.MatrixReader;
+
+/**
+ * A matrix solver for factorizing a sequence of matrices that have the same
+ * sparsity pattern, like the technology matrices in the iterations of a Monte
+ * Carlo simulation where only the values change. For the first matrix, it
+ * creates the compressed column structure (CSC) and keeps it. For the next
+ * matrices, only the values of that structure are refreshed instead of
+ * sorting and compressing the matrix again. The structure is rebuilt when a
+ * matrix has entries outside the stored pattern. All other operations are
+ * delegated to the wrapped solver.
+ * <p>
+ * Each factorization gets a matrix with its own copy of the values; only the
+ * column pointers and row indices are shared between them. Thus, solvers
+ * that keep the matrix in their factorization (like the fallback of the
+ * {@link IterativeSolver}) still see the values they were created with after
+ * the next refresh. The shared index arrays are never modified.
+ * <p>
+ * Note that an instance of this solver is not thread-safe. In a parallel
+ * simulation, each worker needs its own instance.
+ */
+public class PatternReusingSolver implements MatrixSolver {
+
+	private final MatrixSolver solver;
+	private CSCMatrix pattern;
+
+	public PatternReusingSolver(MatrixSolver solver) {
+		this.solver = solver;
+	}
+
+	public static PatternReusingSolver of(MatrixSolver solver) {
+		return solver instanceof PatternReusingSolver prs
+				? prs
+				: new PatternReusingSolver(solver);
+	}
+
+	@Override
+	public boolean hasSparseSupport() {
+		return solver.hasSparseSupport();
+	}
+
+	@Override
+	public boolean isNative() {
+		return solver.isNative();
+	}
+
+	@Override
+	public Matrix matrix(int rows, int columns) {
+		return solver.matrix(rows, columns);
+	}
+
+	@Override
+	public double[] solve(MatrixReader a, int idx, double d) {
+		return solver.solve(a, idx, d);
+	}
+
+	@Override
+	public Matrix invert(MatrixReader a) {
+		return solver.invert(a);
+	}
+
+	@Override
+	public Matrix multiply(MatrixReader a, MatrixReader b) {
+		return solver.multiply(a, b);
+	}
+
+	@Override
+	public double[] multiply(MatrixReader m, double[] v) {
+		return solver.multiply(m, v);
+	}
+
+	@Override
+	public Factorization factorize(MatrixReader matrix) {
+		if (!solver.hasSparseSupport()
+				|| !matrix.isSparse()
+				|| matrix instanceof CSCMatrix)
+			return solver.factorize(matrix);
+		var csc = refresh(matrix);
+		var copy = new CSCMatrix(csc.rows, csc.columns,
+				csc.values.clone(), csc.columnPointers, csc.rowIndices);
+		return solver.factorize(copy);
+	}
+
+	/**
+	 * Writes the values of the given matrix into the stored CSC structure. If
+	 * there is no structure yet or the matrix does not fit into it, a new
+	 * structure is created from the given matrix.
+	 */
+	private CSCMatrix refresh(MatrixReader matrix) {
+		if (pattern == null
+				|| pattern.rows != matrix.rows()
+				|| pattern.columns != matrix.columns()) {
+			pattern = CSCMatrix.of(matrix);
+			return pattern;
+		}
+
+		var values = pattern.values;
+		var ptrs = pattern.columnPointers;
+		var rowIdx = pattern.rowIndices;
+		Arrays.fill(values, 0);
+		boolean[] fits = {true};
+		matrix.iterate((row, col, val) -> {
+			if (!fits[0])
+				return;
+			int pos = Arrays.binarySearch(rowIdx, ptrs[col], ptrs[col + 1], row);
+			if (pos < 0) {
+				fits[0] = false;
+				return;
+			}
+			values[pos] = val;
+		});
+
+		if (!fits[0]) {
+			pattern = CSCMatrix.of(matrix);
+		}
+		return pattern;
+	}
+}
@@ -0,0 +1,403 @@
+package org.openlca.core.matrix.solvers;
+
+import java.util.Arrays;
+
+import org.apache.commons.math3.linear.NonSquareMatrixException;
+import org.apache.commons.math3.linear.SingularMatrixException;
+import org.openlca.core.matrix.format.CSCMatrix;
+import org.openlca.core.matrix.format.DenseMatrix;
+import org.openlca.core.matrix.format.Matrix;
+import org.openlca.core.matrix.format.MatrixReader;
+
+/**
+ * A pure Java sparse LU factorization $P A Q = L U$ of a square matrix $A$. The
+ * column permutation $Q$ is the natural order or a fill-reducing minimum
+ * degree ordering of $A + A^T$, depending on which one produces less fill-in
+ * (technology matrices are often nearly triangular so that the natural order
+ * is already a very good ordering). The row permutation $P$ is calculated
+ * with threshold partial
+ * pivoting where the diagonal entry is preferred when its absolute value is
+ * at least {@code PIVOT_TOLERANCE} times the largest absolute value in the
+ * column. The factorization is calculated column by column with the
+ * left-looking algorithm of Gilbert and Peierls (as in CSparse) so that the
+ * matrix is never converted into a dense format.
+ */
+public class SparseLU implements Factorization {
+
+	private static final double PIVOT_TOLERANCE = 0.1;
+
+	/**
+	 * When the factorization in natural order has not more than this number
+	 * of non-zeros per non-zero of $A$, no other ordering is tried.
+	 */
+	private static final int NATURAL_FILL = 4;
+
+	/**
+	 * The factorization in natural order is stopped when it exceeds this
+	 * number of non-zeros per non-zero of $A$.
+	 */
+	private static final int NATURAL_LIMIT = 64;
+
+	/**
+	 * The number of right-hand sides that are solved together in a single
+	 * pass over the factors in {@link #solve(Matrix)}.
+	 */
+	private static final int BLOCK_SIZE = 16;
+
+	private final int n;
+
+	/** Row permutation: pinv[i] is the position of row i in L and U. */
+	private final int[] pinv;
+
+	/** Column permutation: q[k] is the column of A in column k of L and U. */
+	private final int[] q;
+
+	// L is unit lower triangular; the first entry of each column is the 1 of
+	// the diagonal
+	private final int[] lp;
+	private final int[] li;
+	private final double[] lx;
+
+	// U is upper triangular; the last entry of each column is the diagonal
+	private final int[] up;
+	private final int[] ui;
+	private final double[] ux;
+
+	private boolean disposed;
+
+	private SparseLU(int n, int[] pinv, int[] q, Factors l, Factors u) {
+		this.n = n;
+		this.pinv = pinv;
+		this.q = q;
+		this.lp = l.p;
+		this.li = l.i;
+		this.lx = l.x;
+		this.up = u.p;
+		this.ui = u.i;
+		this.ux = u.x;
+	}
+
+	public static SparseLU of(MatrixReader matrix) {
+		if (!matrix.isSquare())
+			throw new NonSquareMatrixException(matrix.rows(), matrix.columns());
+		var a = matrix instanceof CSCMatrix csc
+				? csc
+				: CSCMatrix.of(matrix);
+		int n = a.columns;
+		long nnz = a.values.length + n;
+
+		var natural = new int[n];
+		for (int i = 0; i < n; i++) {
+			natural[i] = i;
+		}
+		var lu = factorize(a, natural, Math.max(NATURAL_LIMIT * nnz, 1L << 20));
+		if (lu != null && lu.nonZeros() <= NATURAL_FILL * nnz)
+			return lu;
+
+		// try the minimum degree ordering but stop as soon as it gets worse
+		long max = lu != null ? lu.nonZeros() : Long.MAX_VALUE;
+		var md = factorize(a, MinimumDegree.of(a), max);
+		return md != null ? md : lu;
+	}
+
+	/**
+	 * Factorizes the matrix with the given column order. Returns {@code null}
+	 * when the number of non-zeros in the factors exceeds the given maximum.
+	 */
+	static SparseLU factorize(CSCMatrix a, int[] q, long maxNonZeros) {
+		int n = a.columns;
+		var l = new Factors(n, a.values.length + n);
+		var u = new Factors(n, a.values.length + n);
+		var pinv = new int[n];
+		Arrays.fill(pinv, -1);
+
+		var x = new double[n];
+		var xi = new int[n];
+		var stack = new int[n];
+		var pstack = new int[n];
+		var marks = new int[n];
+		int stamp = 0;
+
+		for (int k = 0; k < n; k++) {
+			l.p[k] = l.nz;
+			u.p[k] = u.nz;
+			int col = q[k];
+
+			// x = L \ A(:, col) on the non-zero pattern of the reach
+			stamp++;
+			int top = n;
+			for (int p = a.columnPointers[col]; p < a.columnPointers[col + 1]; p++) {
+				int i = a.rowIndices[p];
+				if (marks[i] != stamp) {
+					top = dfs(i, l, top, xi, stack, pstack, pinv, marks, stamp);
+				}
+			}
+			for (int p = top; p < n; p++) {
+				x[xi[p]] = 0;
+			}
+			for (int p = a.columnPointers[col]; p < a.columnPointers[col + 1]; p++) {
+				x[a.rowIndices[p]] = a.values[p];
+			}
+			for (int px = top; px < n; px++) {
+				int j = xi[px];
+				int jnew = pinv[j];
+				if (jnew < 0)
+					continue;
+				double xj = x[j];
+				for (int p = l.p[jnew] + 1; p < l.p[jnew + 1]; p++) {
+					x[l.i[p]] -= l.x[p] * xj;
+				}
+			}
+
+			// collect U(:, k) and find the pivot
+			int ipiv = -1;
+			double max = -1;
+			for (int p = top; p < n; p++) {
+				int i = xi[p];
+				if (pinv[i] < 0) {
+					double t = Math.abs(x[i]);
+					if (t > max) {
+						max = t;
+						ipiv = i;
+					}
+				} else {
+					u.add(pinv[i], x[i]);
+				}
+			}
+			if (ipiv < 0 || max <= 0)
+				throw new SingularMatrixException();
+			if (pinv[col] < 0 && marks[col] == stamp
+					&& Math.abs(x[col]) >= PIVOT_TOLERANCE * max) {
+				ipiv = col;
+			}
+
+			// the diagonal entry of U and the column of L
+			double pivot = x[ipiv];
+			u.add(k, pivot);
+			pinv[ipiv] = k;
+			l.add(ipiv, 1);
+			for (int p = top; p < n; p++) {
+				int i = xi[p];
+				if (pinv[i] < 0) {
+					l.add(i, x[i] / pivot);
+				}
+				x[i] = 0;
+			}
+			if ((long) l.nz + u.nz > maxNonZeros)
+				return null;
+		}
+		l.p[n] = l.nz;
+		u.p[n] = u.nz;
+
+		// map the row indices of L to the pivot order
+		for (int p = 0; p < l.nz; p++) {
+			l.i[p] = pinv[l.i[p]];
+		}
+		l.trim();
+		u.trim();
+		return new SparseLU(n, pinv, q, l, u);
+	}
+
+	/**
+	 * Depth-first search from row j in the graph of L; the reached rows are
+	 * pushed in topological order onto xi[top...n-1]. Returns the new top.
+	 */
+	private static int dfs(int j, Factors l, int top, int[] xi, int[] stack,
+			int[] pstack, int[] pinv, int[] marks, int stamp) {
+		int head = 0;
+		stack[0] = j;
+		while (head >= 0) {
+			j = stack[head];
+			int jnew = pinv[j];
+			if (marks[j] != stamp) {
+				marks[j] = stamp;
+				pstack[head] = jnew < 0 ? 0 : l.p[jnew] + 1;
+			}
+			boolean done = true;
+			int end = jnew < 0 ? 0 : l.p[jnew + 1];
+			for (int p = pstack[head]; p < end; p++) {
+				int i = l.i[p];
+				if (marks[i] == stamp)
+					continue;
+				pstack[head] = p + 1;
+				stack[++head] = i;
+				done = false;
+				break;
+			}
+			if (done) {
+				head--;
+				xi[--top] = j;
+			}
+		}
+		return top;
+	}
+
+	@Override
+	public int size() {
+		return n;
+	}
+
+	@Override
+	public double[] solve(double[] b) {
+
+		// y = P b
+		var y = new double[n];
+		for (int i = 0; i < n; i++) {
+			y[pinv[i]] = b[i];
+		}
+
+		// L y = P b
+		for (int j = 0; j < n; j++) {
+			double yj = y[j];
+			if (yj == 0)
+				continue;
+			for (int p = lp[j] + 1; p < lp[j + 1]; p++) {
+				y[li[p]] -= lx[p] * yj;
+			}
+		}
+
+		// U z = y
+		for (int j = n - 1; j >= 0; j--) {
+			int diag = up[j + 1] - 1;
+			y[j] /= ux[diag];
+			double yj = y[j];
+			if (yj == 0)
+				continue;
+			for (int p = up[j]; p < diag; p++) {
+				y[ui[p]] -= ux[p] * yj;
+			}
+		}
+
+		// x = Q z
+		var x = new double[n];
+		for (int k = 0; k < n; k++) {
+			x[q[k]] = y[k];
+		}
+		return x;
+	}
+
+	@Override
+	public boolean hasBlockSolve() {
+		return true;
+	}
+
+	@Override
+	public long memorySize() {
+		return 4L * (pinv.length + q.length + lp.length + li.length
+				+ up.length + ui.length)
+				+ 8L * (lx.length + ux.length);
+	}
+
+	/**
+	 * Solves the columns of the given matrix in blocks of {@code BLOCK_SIZE}
+	 * columns. The columns of a block are stored interleaved so that each
+	 * entry of the factors is loaded only once per block.
+	 */
+	@Override
+	public Matrix solve(Matrix b) {
+		int cols = b.columns();
+		var x = new DenseMatrix(n, cols);
+		var y = new double[n * Math.min(BLOCK_SIZE, Math.max(cols, 1))];
+		for (int start = 0; start < cols; start += BLOCK_SIZE) {
+			int k = Math.min(BLOCK_SIZE, cols - start);
+			Arrays.fill(y, 0);
+
+			// Y = P B
+			for (int c = 0; c < k; c++) {
+				var bc = b.getColumn(start + c);
+				for (int i = 0; i < n; i++) {
+					y[pinv[i] * k + c] = bc[i];
+				}
+			}
+
+			// L Y = P B
+			for (int j = 0; j < n; j++) {
+				int jk = j * k;
+				for (int p = lp[j] + 1; p < lp[j + 1]; p++) {
+					int ik = li[p] * k;
+					double lij = lx[p];
+					for (int c = 0; c < k; c++) {
+						y[ik + c] -= lij * y[jk + c];
+					}
+				}
+			}
+
+			// U Z = Y
+			for (int j = n - 1; j >= 0; j--) {
+				int jk = j * k;
+				int diag = up[j + 1] - 1;
+				double ujj = ux[diag];
+				for (int c = 0; c < k; c++) {
+					y[jk + c] /= ujj;
+				}
+				for (int p = up[j]; p < diag; p++) {
+					int ik = ui[p] * k;
+					double uij = ux[p];
+					for (int c = 0; c < k; c++) {
+						y[ik + c] -= uij * y[jk + c];
+					}
+				}
+			}
+
+			// X = Q Z
+			for (int r = 0; r < n; r++) {
+				int row = q[r];
+				int rk = r * k;
+				for (int c = 0; c < k; c++) {
+					x.set(row, start + c, y[rk + c]);
+				}
+			}
+		}
+		return x;
+	}
+
+	/**
+	 * Returns the number of non-zero entries in the factors L and U.
+	 */
+	public long nonZeros() {
+		return (long) lp[n] + up[n];
+	}
+
+	@Override
+	public void dispose() {
+		disposed = true;
+	}
+
+	@Override
+	public boolean isDisposed() {
+		return disposed;
+	}
+
+	/**
+	 * A growable compressed column storage for the factors.
+	 */
+	private static class Factors {
+
+		final int[] p;
+		int[] i;
+		double[] x;
+		int nz;
+
+		Factors(int n, int capacity) {
+			p = new int[n + 1];
+			i = new int[Math.max(capacity, 1)];
+			x = new double[Math.max(capacity, 1)];
+		}
+
+		void add(int row, double val) {
+			if (nz == i.length) {
+				int size = 2 * i.length;
+				i = Arrays.copyOf(i, size);
+				x = Arrays.copyOf(x, size);
+			}
+			i[nz] = row;
+			x[nz] = val;
+			nz++;
+		}
+
+		void trim() {
+			i = Arrays.copyOf(i, nz);
+			x = Arrays.copyOf(x, nz);
+		}
+	}
+}
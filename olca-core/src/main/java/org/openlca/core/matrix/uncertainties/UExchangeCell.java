@@ -35,13 +35,13 @@ class UExchangeCell implements UCell {
 
 	@Override
 	public double next(FormulaInterpreter interpreter) {
-		if (gen != null) {
-			exchange.amount = gen.next();
-		}
+		double value = gen != null
+			? gen.next()
+			: exchange.amount;
 		double af = allocationFactor != null
 			? allocationFactor.force(interpreter)
 			: 1;
-		double amount = exchange.matrixValue(interpreter, af);
+		double amount = exchange.matrixValue(value, interpreter, af);
 		if (overlay != null) {
 			for (UCell u : overlay) {
 				amount += u.next(interpreter);
@@ -19,10 +19,10 @@ class UImpactCell implements UCell {
 
 	@Override
 	public double next(FormulaInterpreter interpreter) {
-		if (gen != null) {
-			factor.amount = gen.next();
-		}
-		return factor.matrixValue(interpreter);
+		double value = gen != null
+				? gen.next()
+				: factor.amount;
+		return factor.matrixValue(value, interpreter);
 	}
 
 	private static NumberGenerator generator(CalcImpactFactor e) {
@@ -438,6 +438,18 @@ public class LcaResult implements IResult {
 		subResults.put(product, result);
 	}
 
+	/**
+	 * Releases the cached results of the provider of this result and its
+	 * sub-results. The result can be still used but results that were
+	 * calculated on demand need to be calculated again.
+	 */
+	public void dispose() {
+		provider.dispose();
+		for (var sub : subResults.values()) {
+			sub.dispose();
+		}
+	}
+
 	// endregion
 
 	/**
@@ -12,6 +12,7 @@ import org.openlca.core.model.descriptors.ImpactDescriptor;
 import org.openlca.core.results.providers.ResultProvider;
 
 import gnu.trove.impl.Constants;
+import gnu.trove.list.array.TIntArrayList;
 import gnu.trove.map.hash.TIntObjectHashMap;
 import gnu.trove.set.hash.TIntHashSet;
 
@@ -320,6 +321,7 @@ public class Sankey<T> {
 		 */
 		private void expand(Node node) {
 			var colA = result.techColumnOf(node.index);
+			prefetch(node.index, colA);
 			for (int i = 0; i < colA.length; i++) {
 				if (i == node.index || colA[i] == 0)
 					continue;
@@ -373,6 +375,22 @@ public class Sankey<T> {
 			}
 		}
 
+		/**
+		 * Requests the results of the providers of a node that are not in the
+		 * graph yet in a single batch.
+		 */
+		private void prefetch(int index, double[] colA) {
+			var providers = new TIntArrayList();
+			for (int i = 0; i < colA.length; i++) {
+				if (i != index && colA[i] != 0 && !handled.containsKey(i)) {
+					providers.add(i);
+				}
+			}
+			if (providers.size() > 1) {
+				result.prefetch(providers.toArray());
+			}
+		}
+
 		private void add(Node existing, Node provider) {
 			existing.providers.add(provider);
 			handled.put(provider.index, provider);
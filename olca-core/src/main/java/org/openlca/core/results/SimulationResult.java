@@ -1,8 +1,6 @@
 package org.openlca.core.results;
 
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Set;
 
 import org.openlca.core.matrix.Demand;
@@ -10,21 +8,29 @@ import org.openlca.core.matrix.MatrixData;
 import org.openlca.core.matrix.index.EnviFlow;
 import org.openlca.core.matrix.index.EnviIndex;
 import org.openlca.core.matrix.index.ImpactIndex;
+import org.openlca.core.matrix.index.MatrixIndex;
 import org.openlca.core.matrix.index.TechFlow;
 import org.openlca.core.matrix.index.TechIndex;
 import org.openlca.core.model.descriptors.ImpactDescriptor;
 import org.openlca.core.results.providers.ResultProvider;
+import org.openlca.core.results.simulation.RunningStatistics;
+import org.openlca.core.results.simulation.SimulationStore;
 
 /**
- * The results of a Monte-Carlo-Simulation. The single result values of the
- * simulation runs are stored in an array of lists where the flow- and LCIA
- * category indices are mapped to the respective array rows and the result
- * values to the respective list entries.
+ * The results of a Monte-Carlo-Simulation. The result vectors of the
+ * simulation runs are appended to simulation stores which keep the values of
+ * a flow or LCIA category in column-major order, so that reading all values
+ * of a single result element is fast. The stores also update the statistics
+ * of the result elements while the runs are appended. By default, the values
+ * are stored on the heap; a store factory can be passed to store them e.g. in
+ * memory-mapped files. The result should be disposed when it is not needed
+ * anymore so that the stores can release their resources.
  */
 public class SimulationResult implements IResult {
 
-	private final List<double[]> flowResults = new ArrayList<>();
-	private final List<double[]> impactResults = new ArrayList<>();
+	private final SimulationStore.Factory stores;
+	private final SimulationStore flowResults;
+	private final SimulationStore impactResults;
 	private final HashMap<TechFlow, PinnedContributions> pinned = new HashMap<>();
 
 	private final Demand demand;
@@ -33,10 +39,25 @@ public class SimulationResult implements IResult {
 	private final ImpactIndex impactIndex;
 
 	public SimulationResult(MatrixData data) {
+		this(data, SimulationStore.Factory.onHeap());
+	}
+
+	public SimulationResult(MatrixData data, SimulationStore.Factory stores) {
 		this.demand = data.demand;
 		this.techIndex = data.techIndex;
 		this.flowIndex = data.enviIndex;
 		this.impactIndex = data.impactIndex;
+		this.stores = stores != null
+				? stores
+				: SimulationStore.Factory.onHeap();
+		this.flowResults = storeOf(flowIndex);
+		this.impactResults = storeOf(impactIndex);
+	}
+
+	private SimulationStore storeOf(MatrixIndex<?> index) {
+		return index != null
+				? stores.create(index.size())
+				: null;
 	}
 
 	@Override
@@ -66,11 +87,11 @@ public class SimulationResult implements IResult {
 	public void append(LcaResult r) {
 		if (r == null)
 			return;
-		if (r.hasEnviFlows()) {
-			flowResults.add(r.provider().totalFlows());
+		if (r.hasEnviFlows() && flowResults != null) {
+			flowResults.append(r.provider().totalFlows());
 		}
-		if (r.hasImpacts()) {
-			impactResults.add(r.provider().totalImpacts());
+		if (r.hasImpacts() && impactResults != null) {
+			impactResults.append(r.provider().totalImpacts());
 		}
 	}
 
@@ -157,13 +178,29 @@ public class SimulationResult implements IResult {
 	 * Get all simulation results of the given flow.
 	 */
 	public double[] getAll(EnviFlow flow) {
-		double[] vals = new double[flowResults.size()];
-		for (int i = 0; i < flowResults.size(); i++) {
-			vals[i] = get(flow, i);
+		if (flowIndex == null || flowResults == null)
+			return new double[0];
+		double[] vals = flowResults.column(flowIndex.of(flow));
+		for (int i = 0; i < vals.length; i++) {
+			vals[i] = ResultProvider.flowValueView(flow, vals[i]);
 		}
 		return vals;
 	}
 
+	/**
+	 * Get the statistics of the simulation results of the given flow. These
+	 * statistics are updated when a run is appended to this result and thus,
+	 * do not require reading the values of the single runs.
+	 */
+	public RunningStatistics getStatistics(EnviFlow flow) {
+		if (flowIndex == null || flowResults == null)
+			return RunningStatistics.empty();
+		var stats = flowResults.statistics(flowIndex.of(flow));
+		return flow != null && flow.isInput()
+				? stats.negated()
+				: stats;
+	}
+
 	/**
 	 * Get the result of the given LCIA category in the iteration i (zero
 	 * based).
@@ -233,27 +270,46 @@ public class SimulationResult implements IResult {
 	 * Get all simulation results of the given LCIA category.
 	 */
 	public double[] getAll(ImpactDescriptor impact) {
-		double[] vals = new double[impactResults.size()];
-		for (int i = 0; i < impactResults.size(); i++) {
-			vals[i] = get(impact, i);
-		}
-		return vals;
+		if (impactIndex == null || impactResults == null)
+			return new double[0];
+		return impactResults.column(impactIndex.of(impact));
+	}
+
+	/**
+	 * Get the statistics of the simulation results of the given LCIA category.
+	 */
+	public RunningStatistics getStatistics(ImpactDescriptor impact) {
+		if (impactIndex == null || impactResults == null)
+			return RunningStatistics.empty();
+		return impactResults.statistics(impactIndex.of(impact));
 	}
 
 	public int getNumberOfRuns() {
-		return flowResults.size();
+		return flowResults != null
+				? flowResults.size()
+				: 0;
 	}
 
-	private static double val(List<double[]> list, int listIdx, int arrayIdx) {
-		if (list == null
-				|| listIdx < 0
-				|| arrayIdx < 0
-				|| list.size() <= listIdx)
-			return 0;
-		double[] vec = list.get(listIdx);
-		if (vec == null || vec.length <= arrayIdx)
+	/**
+	 * Releases the resources of the underlying simulation stores. The values
+	 * of the runs are not available anymore after this method was called.
+	 */
+	public void dispose() {
+		if (flowResults != null) {
+			flowResults.close();
+		}
+		if (impactResults != null) {
+			impactResults.close();
+		}
+		for (var pc : pinned.values()) {
+			pc.close();
+		}
+	}
+
+	private static double val(SimulationStore store, int iteration, int idx) {
+		if (store == null)
 			return 0;
-		return vec[arrayIdx];
+		return store.get(iteration, idx);
 	}
 
 	// TODO: no LCC for Monte Carlo simulations ?
@@ -263,10 +319,26 @@ public class SimulationResult implements IResult {
 	}
 
 	private static class PinnedContributions {
-		private final List<double[]> directFlows = new ArrayList<>();
-		private final List<double[]> upstreamFlows = new ArrayList<>();
-		private final List<double[]> directImpacts = new ArrayList<>();
-		private final List<double[]> upstreamImpacts = new ArrayList<>();
+		private final SimulationStore directFlows;
+		private final SimulationStore upstreamFlows;
+		private final SimulationStore directImpacts;
+		private final SimulationStore upstreamImpacts;
+
+		PinnedContributions(SimulationResult r) {
+			directFlows = r.storeOf(r.flowIndex);
+			upstreamFlows = r.storeOf(r.flowIndex);
+			directImpacts = r.storeOf(r.impactIndex);
+			upstreamImpacts = r.storeOf(r.impactIndex);
+		}
+
+		void close() {
+			for (var store : new SimulationStore[]{
+					directFlows, upstreamFlows, directImpacts, upstreamImpacts}) {
+				if (store != null) {
+					store.close();
+				}
+			}
+		}
 	}
 
 	public static class PinnedContribution {
@@ -308,18 +380,16 @@ public class SimulationResult implements IResult {
 
 		public void add() {
 			var pinned = result.pinned.computeIfAbsent(
-					product, p -> new PinnedContributions());
-			if (directFlows != null) {
-				pinned.directFlows.add(directFlows);
-			}
-			if (upstreamFlows != null) {
-				pinned.upstreamFlows.add(upstreamFlows);
-			}
-			if (directImpacts != null) {
-				pinned.directImpacts.add(directImpacts);
-			}
-			if (upstreamImpacts != null) {
-				pinned.upstreamImpacts.add(upstreamImpacts);
+					product, p -> new PinnedContributions(result));
+			append(pinned.directFlows, directFlows);
+			append(pinned.upstreamFlows, upstreamFlows);
+			append(pinned.directImpacts, directImpacts);
+			append(pinned.upstreamImpacts, upstreamImpacts);
+		}
+
+		private void append(SimulationStore store, double[] values) {
+			if (store != null && values != null) {
+				store.append(values);
 			}
 		}
 
@@ -8,6 +8,8 @@ import org.openlca.core.matrix.index.EnviFlow;
 import org.openlca.core.model.descriptors.ImpactDescriptor;
 import org.openlca.core.results.providers.ResultProvider;
 
+import gnu.trove.list.array.TIntArrayList;
+
 /**
  * Maps the upstream results of the product system graph to a tree where the
  * root is the reference process of the product system.
@@ -69,6 +71,7 @@ public class UpstreamTree {
 			return parent.childs;
 
 		var requirements = r.techColumnOf(parent.index);
+		prefetch(parent.index, requirements);
 		for (int i = 0; i < requirements.length; i++) {
 			if (i == parent.index)
 				continue;
@@ -91,6 +94,22 @@ public class UpstreamTree {
 		return parent.childs;
 	}
 
+	/**
+	 * Requests the results of the providers of a node in a single batch as
+	 * they are all needed when the node is expanded.
+	 */
+	private void prefetch(int index, double[] requirements) {
+		var providers = new TIntArrayList();
+		for (int i = 0; i < requirements.length; i++) {
+			if (i != index && requirements[i] != 0) {
+				providers.add(i);
+			}
+		}
+		if (providers.size() > 1) {
+			r.prefetch(providers.toArray());
+		}
+	}
+
 	/**
 	 * When the reference of this upstream tree is an input tree we have to
 	 * switch the sign of it.
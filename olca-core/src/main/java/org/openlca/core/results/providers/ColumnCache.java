@@ -0,0 +1,451 @@
+package org.openlca.core.results.providers;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A size-bounded cache for the result columns (vectors) that are calculated
+ * on demand in the result providers, like the solutions or total flows
+ * related to one unit of a technosphere flow. Each cache owns its entries
+ * and is owned by its provider; the caches are only weakly registered in a
+ * global memory budget. Thus, when a provider is discarded, its cache and
+ * entries can be garbage collected and their memory is released from the
+ * budget. When the budget is exceeded, the least recently used entries are
+ * removed, regardless of the cache they belong to: each access gets a tick
+ * of a global clock and the entry with the oldest tick of all caches is
+ * evicted first. Thus, the memory of many open results in a long-running
+ * application (like an IPC server) is bounded.
+ * <p>
+ * Caches of short-lived providers, like the providers of the runs in a Monte
+ * Carlo simulation, should be created via {@link #createLocal(String)}. Such
+ * caches are not registered in the global budget; they do not push out the
+ * entries of other results and do not contend for the global lock.
+ * <p>
+ * Sparse vectors are stored in a compact format (the indices and values of
+ * the non-zero entries) when this saves at least half of the memory; this
+ * can be switched off via {@link #setCompaction(boolean)}. Note that the
+ * arrays returned from a cache should be never modified.
+ * <p>
+ * The caches are thread-safe.
+ */
+public final class ColumnCache {
+
+	/** The estimated memory overhead of a cache entry in bytes. */
+	private static final long ENTRY_OVERHEAD = 96;
+
+	/** Guards the registry and the eviction. */
+	private static final Object lock = new Object();
+	private static final Set<Registration> registry = new HashSet<>();
+	private static final ReferenceQueue<ColumnCache> collected =
+			new ReferenceQueue<>();
+
+	private static final AtomicLong clock = new AtomicLong();
+	private static final AtomicLong usedBytes = new AtomicLong();
+	private static final LongAdder totalHits = new LongAdder();
+	private static final LongAdder totalMisses = new LongAdder();
+	private static final LongAdder evictions = new LongAdder();
+	private static volatile long budget = Runtime.getRuntime().maxMemory() / 4;
+	private static volatile boolean compaction = true;
+
+	private final String name;
+	private final boolean local;
+
+	/** The memory of the entries of this cache; outlives the cache. */
+	private final AtomicLong bytes = new AtomicLong();
+
+	/** The entries in the order of their last access; guarded by this. */
+	private final LinkedHashMap<Integer, Entry> entries =
+			new LinkedHashMap<>(16, 0.75f, true);
+	private long hits;
+	private long misses;
+
+	private ColumnCache(String name, boolean local) {
+		this.name = name;
+		this.local = local;
+	}
+
+	/**
+	 * Creates a new cache that is registered in the global memory budget.
+	 * The name is only used for debugging.
+	 */
+	public static ColumnCache create(String name) {
+		var cache = new ColumnCache(name, false);
+		synchronized (lock) {
+			expunge();
+			registry.add(new Registration(cache));
+		}
+		return cache;
+	}
+
+	/**
+	 * Creates a cache that is not registered in the global memory budget.
+	 * The entries of such a cache are only owned by the cache and are never
+	 * evicted; it should be only used for short-lived providers.
+	 */
+	public static ColumnCache createLocal(String name) {
+		return new ColumnCache(name, true);
+	}
+
+	/**
+	 * Sets the global memory budget (in bytes) of all column caches. The
+	 * default is a quarter of the maximum heap size.
+	 */
+	public static void setMemoryBudget(long bytes) {
+		budget = Math.max(0, bytes);
+		evict();
+	}
+
+	public static long memoryBudget() {
+		return budget;
+	}
+
+	/**
+	 * Returns the number of dense vectors of the given length that fit into
+	 * half of the memory budget. Prefetching more vectors than this would
+	 * evict the first ones before they are requested.
+	 */
+	static int fittingColumns(int length) {
+		long bytes = ENTRY_OVERHEAD + 8L * Math.max(length, 1);
+		return (int) Math.min(Integer.MAX_VALUE, memoryBudget() / 2 / bytes);
+	}
+
+	/**
+	 * Enables or disables the compact storage of sparse vectors for the
+	 * entries that are added after this call.
+	 */
+	public static void setCompaction(boolean b) {
+		compaction = b;
+	}
+
+	/**
+	 * Removes all entries from all registered caches.
+	 */
+	public static void clearAll() {
+		for (var cache : registered()) {
+			cache.clear();
+		}
+	}
+
+	/**
+	 * Returns the global statistics of all registered caches.
+	 */
+	public static Stats stats() {
+		int count = 0;
+		for (var cache : registered()) {
+			count += cache.size();
+		}
+		return new Stats(count, usedBytes.get(), budget,
+				totalHits.sum(), totalMisses.sum(), evictions.sum());
+	}
+
+	/**
+	 * Returns the cached vector for the given index or {@code null} if there
+	 * is no such vector in the cache.
+	 */
+	public double[] get(int index) {
+		Object value;
+		synchronized (this) {
+			var entry = entries.get(index);
+			if (entry == null) {
+				misses++;
+				if (!local) {
+					totalMisses.increment();
+				}
+				return null;
+			}
+			hits++;
+			entry.tick = clock.incrementAndGet();
+			value = entry.value;
+		}
+		if (!local) {
+			totalHits.increment();
+		}
+		return value instanceof Sparse sparse
+				? sparse.expand()
+				: (double[]) value;
+	}
+
+	/**
+	 * Returns {@code true} when a vector for the given index is in the cache
+	 * without changing the access order or statistics.
+	 */
+	public synchronized boolean contains(int index) {
+		return entries.containsKey(index);
+	}
+
+	/**
+	 * Returns the number of vectors in this cache.
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Returns the estimated memory in bytes of the entries of this cache.
+	 */
+	public long bytes() {
+		return bytes.get();
+	}
+
+	/**
+	 * Adds the given vector to the cache and returns it.
+	 */
+	public double[] put(int index, double[] vector) {
+		if (vector == null)
+			return null;
+		Object value = compaction
+				? Sparse.of(vector)
+				: null;
+		if (value == null) {
+			value = vector;
+		}
+		long size = sizeOf(value);
+		if (!local && size > budget)
+			return vector;
+		long delta = size;
+		synchronized (this) {
+			var entry = new Entry(value, size, clock.incrementAndGet());
+			var old = entries.put(index, entry);
+			if (old != null) {
+				delta -= old.size;
+			}
+			bytes.addAndGet(delta);
+		}
+		if (!local) {
+			usedBytes.addAndGet(delta);
+			evict();
+		}
+		return vector;
+	}
+
+	/**
+	 * Removes all entries of this cache.
+	 */
+	public void clear() {
+		long removed = 0;
+		synchronized (this) {
+			for (var entry : entries.values()) {
+				removed += entry.size;
+			}
+			entries.clear();
+			bytes.addAndGet(-removed);
+		}
+		if (!local) {
+			usedBytes.addAndGet(-removed);
+		}
+	}
+
+	/**
+	 * Returns the number of cache hits of this cache.
+	 */
+	public synchronized long hits() {
+		return hits;
+	}
+
+	/**
+	 * Returns the number of cache misses of this cache.
+	 */
+	public synchronized long misses() {
+		return misses;
+	}
+
+	@Override
+	public String toString() {
+		return "ColumnCache{" + name + "}";
+	}
+
+	/**
+	 * Returns the tick of the least recently used entry of this cache or
+	 * {@code Long.MAX_VALUE} if the cache is empty.
+	 */
+	private synchronized long eldestTick() {
+		if (entries.isEmpty())
+			return Long.MAX_VALUE;
+		return entries.values().iterator().next().tick;
+	}
+
+	/**
+	 * Removes the least recently used entry of this cache and returns its
+	 * size, or 0 if the cache is empty.
+	 */
+	private synchronized long removeEldest() {
+		var it = entries.values().iterator();
+		if (!it.hasNext())
+			return 0;
+		var eldest = it.next();
+		it.remove();
+		bytes.addAndGet(-eldest.size);
+		return eldest.size;
+	}
+
+	/**
+	 * Removes the least recently used entries of all registered caches until
+	 * the used memory fits into the budget.
+	 */
+	private static void evict() {
+		if (usedBytes.get() <= budget)
+			return;
+		synchronized (lock) {
+			expunge();
+			while (usedBytes.get() > budget) {
+				ColumnCache oldest = null;
+				long min = Long.MAX_VALUE;
+				for (var reg : registry) {
+					var cache = reg.get();
+					if (cache == null)
+						continue;
+					long tick = cache.eldestTick();
+					if (tick < min) {
+						min = tick;
+						oldest = cache;
+					}
+				}
+				if (oldest == null)
+					break;
+				long removed = oldest.removeEldest();
+				if (removed > 0) {
+					usedBytes.addAndGet(-removed);
+					evictions.increment();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Removes the registrations of the caches that were garbage collected
+	 * and releases their memory from the budget. Must be called within the
+	 * lock.
+	 */
+	private static void expunge() {
+		Reference<? extends ColumnCache> ref;
+		while ((ref = collected.poll()) != null) {
+			var reg = (Registration) ref;
+			if (registry.remove(reg)) {
+				usedBytes.addAndGet(-reg.bytes.get());
+			}
+		}
+	}
+
+	private static List<ColumnCache> registered() {
+		synchronized (lock) {
+			expunge();
+			var caches = new ArrayList<ColumnCache>(registry.size());
+			for (var reg : registry) {
+				var cache = reg.get();
+				if (cache != null) {
+					caches.add(cache);
+				}
+			}
+			return caches;
+		}
+	}
+
+	private static long sizeOf(Object value) {
+		if (value instanceof Sparse sparse)
+			return ENTRY_OVERHEAD + 16 + 12L * sparse.indices.length;
+		var array = (double[]) value;
+		return ENTRY_OVERHEAD + 8L * array.length;
+	}
+
+	/**
+	 * The global statistics of the column caches.
+	 *
+	 * @param entries   the number of cached vectors
+	 * @param usedBytes the estimated memory of the cached vectors
+	 * @param budget    the memory budget
+	 * @param hits      the number of cache hits
+	 * @param misses    the number of cache misses
+	 * @param evictions the number of entries that were removed because the
+	 *                  budget was exceeded
+	 */
+	public record Stats(
+			int entries,
+			long usedBytes,
+			long budget,
+			long hits,
+			long misses,
+			long evictions) {
+
+		public double hitRate() {
+			long total = hits + misses;
+			return total == 0 ? 0 : (double) hits / total;
+		}
+	}
+
+	private static class Entry {
+
+		final Object value;
+		final long size;
+		long tick;
+
+		Entry(Object value, long size, long tick) {
+			this.value = value;
+			this.size = size;
+			this.tick = tick;
+		}
+	}
+
+	/**
+	 * The weak registration of a cache in the global budget. It keeps the
+	 * memory counter of the cache so that the memory can be released when
+	 * the cache was garbage collected.
+	 */
+	private static class Registration extends WeakReference<ColumnCache> {
+
+		final AtomicLong bytes;
+
+		Registration(ColumnCache cache) {
+			super(cache, collected);
+			this.bytes = cache.bytes;
+		}
+	}
+
+	/**
+	 * A compact representation of a sparse vector.
+	 */
+	private record Sparse(int length, int[] indices, double[] values) {
+
+		/**
+		 * Returns the compact form of the given vector or {@code null} if it
+		 * would not save at least half of the memory.
+		 */
+		static Sparse of(double[] vector) {
+			int nnz = 0;
+			for (double v : vector) {
+				if (v != 0) {
+					nnz++;
+				}
+			}
+			if (12L * nnz > 4L * vector.length)
+				return null;
+			var indices = new int[nnz];
+			var values = new double[nnz];
+			int k = 0;
+			for (int i = 0; i < vector.length; i++) {
+				double v = vector[i];
+				if (v != 0) {
+					indices[k] = i;
+					values[k] = v;
+					k++;
+				}
+			}
+			return new Sparse(vector.length, indices, values);
+		}
+
+		double[] expand() {
+			var vector = new double[length];
+			for (int k = 0; k < indices.length; k++) {
+				vector[indices[k]] = values[k];
+			}
+			return vector;
+		}
+	}
+}
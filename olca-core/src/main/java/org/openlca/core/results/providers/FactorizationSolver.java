@@ -2,6 +2,7 @@ package org.openlca.core.results.providers;
 
 import org.openlca.core.matrix.Demand;
 import org.openlca.core.matrix.MatrixData;
+import org.openlca.core.matrix.format.DenseMatrix;
 import org.openlca.core.matrix.format.Matrix;
 import org.openlca.core.matrix.index.EnviIndex;
 import org.openlca.core.matrix.index.ImpactIndex;
@@ -9,10 +10,17 @@ import org.openlca.core.matrix.index.TechIndex;
 import org.openlca.core.matrix.solvers.Factorization;
 import org.openlca.core.matrix.solvers.MatrixSolver;
 
-import gnu.trove.map.hash.TIntObjectHashMap;
+import gnu.trove.set.hash.TIntHashSet;
 
 public class FactorizationSolver implements ResultProvider {
 
+	/**
+	 * The maximum number of columns that are solved together when solutions
+	 * are prefetched with a factorization that supports this (see
+	 * {@link Factorization#hasBlockSolve()}).
+	 */
+	private static final int PREFETCH_BLOCK = 256;
+
 	private final Demand demand;
 	private final MatrixData data;
 	private final MatrixSolver solver;
@@ -20,15 +28,15 @@ public class FactorizationSolver implements ResultProvider {
 
 	private final double[] scalingVector;
 	private double[] totalRequirements;
-	private final TIntObjectHashMap<double[]> solutions;
+	private final ColumnCache solutions;
 
 	private Matrix directFlows;
 	private final double[] totalFlows;
-	private final TIntObjectHashMap<double[]> totalFlowsOfOne;
+	private final ColumnCache totalFlowsOfOne;
 
 	private Matrix directImpacts;
 	private double[] totalImpacts;
-	private final TIntObjectHashMap<double[]> totalImpactsOfOne;
+	private final ColumnCache totalImpactsOfOne;
 
 	private final double[] directCosts;
 	private final double totalCosts;
@@ -39,12 +47,12 @@ public class FactorizationSolver implements ResultProvider {
 		this.solver = context.solver();
 		this.factorization = solver.factorize(data.techMatrix);
 
-		solutions = new TIntObjectHashMap<>();
+		solutions = context.cache("solutions");
 		totalFlowsOfOne = hasFlows()
-			? new TIntObjectHashMap<>()
+			? context.cache("totalFlowsOfOne")
 			: null;
 		totalImpactsOfOne = hasImpacts()
-			? new TIntObjectHashMap<>()
+			? context.cache("totalImpactsOfOne")
 			: null;
 
 		// calculate the scaling vector
@@ -156,6 +164,76 @@ public class FactorizationSolver implements ResultProvider {
 		return s;
 	}
 
+	@Override
+	public void prefetch(int[] techFlows) {
+		if (techFlows == null)
+			return;
+		var set = new TIntHashSet(techFlows.length);
+		for (int techFlow : techFlows) {
+			if (!solutions.contains(techFlow)) {
+				set.add(techFlow);
+			}
+		}
+		if (set.isEmpty())
+			return;
+		var missing = set.toArray();
+
+		// prefetch only as many columns as fit well into the cache; otherwise
+		// they would evict each other before they are requested
+		int n = data.techIndex.size();
+		int count = Math.min(missing.length, ColumnCache.fittingColumns(n));
+		if (count <= 1 || !factorization.hasBlockSolve()) {
+			for (int i = 0; i < count; i++) {
+				solutionOfOne(missing[i]);
+			}
+			return;
+		}
+
+		for (int start = 0; start < count; start += PREFETCH_BLOCK) {
+			int k = Math.min(PREFETCH_BLOCK, count - start);
+			var b = new DenseMatrix(n, k);
+			for (int j = 0; j < k; j++) {
+				b.set(missing[start + j], j, 1.0);
+			}
+			var x = factorization.solve(b);
+			for (int j = 0; j < k; j++) {
+				solutions.put(missing[start + j], x.getColumn(j));
+			}
+		}
+	}
+
+	@Override
+	public long memorySize() {
+		long size = ResultProvider.super.memorySize()
+				+ data.memorySize()
+				+ factorization.memorySize()
+				+ solutions.bytes();
+		if (directFlows != null) {
+			size += directFlows.memorySize();
+		}
+		if (directImpacts != null) {
+			size += directImpacts.memorySize();
+		}
+		if (totalFlowsOfOne != null) {
+			size += totalFlowsOfOne.bytes();
+		}
+		if (totalImpactsOfOne != null) {
+			size += totalImpactsOfOne.bytes();
+		}
+		return size;
+	}
+
+	@Override
+	public void dispose() {
+		solutions.clear();
+		if (totalFlowsOfOne != null) {
+			totalFlowsOfOne.clear();
+		}
+		if (totalImpactsOfOne != null) {
+			totalImpactsOfOne.clear();
+		}
+	}
+
 	@Override
 	public double loopFactorOf(int techFlow) {
 		var aii = data.techMatrix.get(techFlow, techFlow);
@@ -1,6 +1,7 @@
 package org.openlca.core.results.providers;
 
 import org.openlca.core.matrix.Demand;
+import org.openlca.core.matrix.format.MatrixReader;
 import org.openlca.core.matrix.index.EnviIndex;
 import org.openlca.core.matrix.index.ImpactIndex;
 import org.openlca.core.matrix.index.TechIndex;
@@ -56,6 +57,18 @@ public class InversionResultProvider implements ResultProvider {
 		return scalingVector()[techFlow];
 	}
 
+	@Override
+	public long memorySize() {
+		long size = ResultProvider.super.memorySize() + r.data().memorySize();
+		for (var m : new MatrixReader[]{r.inverse(), r.directFlows(),
+				r.flowIntensities(), r.directImpacts(), r.impactIntensities()}) {
+			if (m != null) {
+				size += m.memorySize();
+			}
+		}
+		return size;
+	}
+
 	@Override
 	public double[] totalRequirements() {
 		return r.totalRequirements();
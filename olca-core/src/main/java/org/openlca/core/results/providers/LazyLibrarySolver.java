@@ -22,9 +22,6 @@ import org.openlca.core.matrix.index.TechIndex;
 import org.openlca.core.matrix.solvers.MatrixSolver;
 import org.openlca.util.Pair;
 
-import gnu.trove.impl.Constants;
-import gnu.trove.map.hash.TIntObjectHashMap;
-
 public class LazyLibrarySolver implements ResultProvider {
 
 	private final IDatabase db;
@@ -39,18 +36,18 @@ public class LazyLibrarySolver implements ResultProvider {
 
 	private double[] scalingVector;
 	private double[] totalRequirements;
-	private final TIntObjectHashMap<double[]> solutions = newCache();
-	private final TIntObjectHashMap<double[]> techColumns = newCache();
+	private final ColumnCache solutions;
+	private final ColumnCache techColumns;
 
 	private double[] totalFlows;
-	private final TIntObjectHashMap<double[]> flowColumns = newCache();
-	private final TIntObjectHashMap<double[]> directFlows = newCache();
-	private final TIntObjectHashMap<double[]> totalFlowsOfOne = newCache();
+	private final ColumnCache flowColumns;
+	private final ColumnCache directFlows;
+	private final ColumnCache totalFlowsOfOne;
 
 	private double[] totalImpacts;
 	private Matrix flowImpacts;
-	private final TIntObjectHashMap<double[]> directImpacts = newCache();
-	private final TIntObjectHashMap<double[]> totalImpactsOfOne = newCache();
+	private final ColumnCache directImpacts;
+	private final ColumnCache totalImpactsOfOne;
 
 	private LazyLibrarySolver(SolverContext context) {
 		this.db = context.db();
@@ -64,18 +61,17 @@ public class LazyLibrarySolver implements ResultProvider {
 		this.foregroundSolution = InversionResult.of(context)
 			.calculate()
 			.provider();
+		this.solutions = context.cache("solutions");
+		this.techColumns = context.cache("techColumns");
+		this.flowColumns = context.cache("flowColumns");
+		this.directFlows = context.cache("directFlows");
+		this.totalFlowsOfOne = context.cache("totalFlowsOfOne");
+		this.directImpacts = context.cache("directImpacts");
+		this.totalImpactsOfOne = context.cache("totalImpactsOfOne");
 	}
 
-	private static TIntObjectHashMap<double[]> newCache() {
-		return new TIntObjectHashMap<>(
-				Constants.DEFAULT_CAPACITY,
-				Constants.DEFAULT_LOAD_FACTOR,
-				-1);
-	}
-
-	private double[] put(int key, TIntObjectHashMap<double[]> cache, double[] v) {
-		cache.put(key, v);
-		return v;
+	private double[] put(int key, ColumnCache cache, double[] v) {
+		return cache.put(key, v);
 	}
 
 	public static ResultProvider solve(SolverContext context) {
@@ -266,6 +262,50 @@ public class LazyLibrarySolver implements ResultProvider {
 		return put(techFlow, techColumns, column);
 	}
 
+	/**
+	 * There is no block solve for the library systems. Thus, the missing
+	 * solutions are calculated one by one here; the library columns that
+	 * they share are then read only once into the cache.
+	 */
+	@Override
+	public void prefetch(int[] techFlows) {
+		if (techFlows == null)
+			return;
+		int max = ColumnCache.fittingColumns(fullData.techIndex.size());
+		int count = 0;
+		for (int techFlow : techFlows) {
+			if (count >= max)
+				return;
+			if (solutions.contains(techFlow))
+				continue;
+			solutionOfOne(techFlow);
+			count++;
+		}
+	}
+
+	@Override
+	public long memorySize() {
+		long size = ResultProvider.super.memorySize()
+				+ foregroundSolution.memorySize();
+		if (flowImpacts != null) {
+			size += flowImpacts.memorySize();
+		}
+		for (var cache : new ColumnCache[]{solutions, techColumns, flowColumns,
+				directFlows, totalFlowsOfOne, directImpacts, totalImpactsOfOne}) {
+			size += cache.bytes();
+		}
+		return size;
+	}
+
+	@Override
+	public void dispose() {
+		for (var cache : new ColumnCache[]{solutions, techColumns, flowColumns,
+				directFlows, totalFlowsOfOne, directImpacts, totalImpactsOfOne}) {
+			cache.clear();
+		}
+		foregroundSolution.dispose();
+	}
+
 	@Override
 	public double[] solutionOfOne(int techFlow) {
 		var solution = solutions.get(techFlow);
@@ -12,11 +12,8 @@ import org.openlca.core.matrix.format.MatrixReader;
 import org.openlca.core.matrix.index.EnviIndex;
 import org.openlca.core.matrix.index.ImpactIndex;
 import org.openlca.core.matrix.index.TechIndex;
+import org.openlca.core.matrix.io.MappedNpyMatrix;
 import org.openlca.core.matrix.io.NpyMatrix;
-import org.openlca.npy.Array2d;
-
-import gnu.trove.impl.Constants;
-import gnu.trove.map.hash.TIntObjectHashMap;
 import org.openlca.util.Strings;
 
 public class LibraryCache {
@@ -29,7 +26,6 @@ public class LibraryCache {
 	private final HashMap<String, ImpactIndex> impactIndices = new HashMap<>();
 
 	private final HashMap<String, MatrixReader> matrices = new HashMap<>();
-	private final HashMap<String, TIntObjectHashMap<double[]>> columns = new HashMap<>();
 	private final HashMap<String, double[]> diagonals = new HashMap<>();
 	private final HashMap<String, Optional<double[]>> costVectors = new HashMap<>();
 
@@ -90,12 +86,17 @@ public class LibraryCache {
 		});
 	}
 
+	/**
+	 * Returns the given matrix of the library. Dense matrices (npy files) are
+	 * memory-mapped and these mappings are shared between all library caches
+	 * in the process. Sparse matrices (npz files) are loaded into memory.
+	 */
 	public MatrixReader matrixOf(String libId, LibMatrix matrix) {
 		return matrices.computeIfAbsent(keyOf(libId, matrix), key -> {
-			var lib = dir.getLibrary(libId).orElse(null);
-			if (lib == null)
-				return null;
-			return lib.getMatrix(matrix).orElse(null);
+			var file = MatrixFile.of(dir, libId, matrix);
+			return file.isEmpty()
+				? null
+				: file.read();
 		});
 	}
 
@@ -109,81 +110,21 @@ public class LibraryCache {
 	}
 
 	public double[] diagonalOf(String libId, LibMatrix matrix) {
-		var key = keyOf(libId, matrix);
-		var diag = diagonals.get(key);
-		if (diag != null)
-			return diag;
-
-		var fullMatrix = matrices.get(key);
-		if (fullMatrix != null) {
-			diag = fullMatrix.diag();
-			diagonals.put(key, diag);
-			return diag;
-		}
-
-		var file = MatrixFile.of(dir, libId, matrix);
-		if (file.isEmpty())
-			return new double[0];
-
-		if (file.isSparse()) {
-			fullMatrix = file.readFull();
-			if (fullMatrix == null)
-				return new double[0];
-			matrices.put(key, fullMatrix);
-			diag = fullMatrix.diag();
-			diagonals.put(key, diag);
-			return diag;
-		}
-
-		diag = Array2d.readDiag(file.file)
-			.asDoubleArray()
-			.data();
-		diagonals.put(key, diag);
-		return diag;
+		return diagonals.computeIfAbsent(keyOf(libId, matrix), key -> {
+			var m = matrixOf(libId, matrix);
+			return m != null
+				? m.diag()
+				: new double[0];
+		});
 	}
 
 	public double[] columnOf(String libId, LibMatrix matrix, int j) {
-		var key = keyOf(libId, matrix);
-
-		var fullMatrix = matrices.get(key);
-		if (fullMatrix != null) {
-			return fullMatrix.getColumn(j);
-		}
-
-		var colCache = columns.get(key);
-		var col = colCache != null
-			? colCache.get(j)
-			: null;
-		if (col != null)
-			return col;
-
-		var file = MatrixFile.of(dir, libId, matrix);
-		if (file.isEmpty())
-			return new double[0];
-
-		if (file.isSparse()) {
-			fullMatrix = file.readFull();
-			if (fullMatrix == null)
-				return new double[0];
-			matrices.put(key, fullMatrix);
-			return fullMatrix.getColumn(j);
-		}
-
-		col = Array2d.readColumn(file.file, j)
-			.asDoubleArray()
-			.data();
-		if (colCache == null) {
-			colCache = new TIntObjectHashMap<>(
-				Constants.DEFAULT_CAPACITY,
-				Constants.DEFAULT_LOAD_FACTOR,
-				-1);
-			columns.put(key, colCache);
-		}
-		colCache.put(j, col);
-		return col;
+		var m = matrixOf(libId, matrix);
+		return m != null
+			? m.getColumn(j)
+			: new double[0];
 	}
 
-
 	private String keyOf(String libId, LibMatrix matrix) {
 		return libId + "::" + matrix.name();
 	}
@@ -212,10 +153,12 @@ public class LibraryCache {
 			return file == null || !file.exists();
 		}
 
-		public MatrixReader readFull() {
-			return isEmpty()
-				? null
-				: NpyMatrix.read(file);
+		MatrixReader read() {
+			if (isEmpty())
+				return null;
+			return isSparse
+				? NpyMatrix.read(file)
+				: MappedNpyMatrix.of(file);
 		}
 	}
 
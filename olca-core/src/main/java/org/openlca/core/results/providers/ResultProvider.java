@@ -196,6 +196,38 @@ public interface ResultProvider {
 	 */
 	double[] solutionOfOne(int techFlow);
 
+	/**
+	 * Tells the provider that the results related to 1 unit of the given
+	 * technosphere flows (like {@link #solutionOfOne(int)} or
+	 * {@link #totalFlowsOfOne(int)}) will be requested soon. Providers that
+	 * calculate these results on demand can then calculate them in a batch,
+	 * e.g. when the child nodes of a level in an upstream tree or Sankey
+	 * diagram are expanded. The default implementation does nothing.
+	 */
+	default void prefetch(int[] techFlows) {
+	}
+
+	/**
+	 * Releases the cached results of this provider when the result is not
+	 * used anymore. Results that are requested after this call are
+	 * calculated again. The default implementation does nothing.
+	 */
+	default void dispose() {
+	}
+
+	/**
+	 * Returns an estimate of the heap memory in bytes of the data that this
+	 * provider currently holds. The default implementation estimates the size
+	 * of the result vectors from the index sizes; providers that hold
+	 * matrices, factorizations, or cached columns add them.
+	 */
+	default long memorySize() {
+		long t = techIndex() != null ? techIndex().size() : 0;
+		long f = enviIndex() != null ? enviIndex().size() : 0;
+		long i = impactIndex() != null ? impactIndex().size() : 0;
+		return 8 * (2 * t + f + i) + 1024;
+	}
+
 	/**
 	 * Get the loop factor for the given technosphere flow. The loop factor `lf[j]`
 	 * describes the faction of the total requirements of a technosphere flow `j`
@@ -14,6 +14,7 @@ public class SolverContext {
 	private LibraryDir libDir;
 	private LibraryCache libraries;
 	private MatrixSolver solver;
+	private boolean shortLived;
 
 	private SolverContext(IDatabase db, MatrixData matrixData) {
 		this.db = db;
@@ -73,6 +74,30 @@ public class SolverContext {
 		return this;
 	}
 
+	/**
+	 * Marks the provider of this context as short-lived, like the providers
+	 * of the runs in a Monte Carlo simulation. The column caches of such a
+	 * provider are not registered in the global memory budget of the
+	 * {@link ColumnCache} but are only owned by the provider.
+	 */
+	public SolverContext shortLived(boolean b) {
+		this.shortLived = b;
+		return this;
+	}
+
+	public boolean isShortLived() {
+		return shortLived;
+	}
+
+	/**
+	 * Creates a column cache for a provider of this context.
+	 */
+	ColumnCache cache(String name) {
+		return shortLived
+				? ColumnCache.createLocal(name)
+				: ColumnCache.create(name);
+	}
+
 	public MatrixSolver solver() {
 		if (solver == null) {
 			solver = MatrixSolver.get();
@@ -0,0 +1,150 @@
+package org.openlca.core.results.simulation;
+
+/**
+ * The base class of the simulation stores. It collects the appended vectors
+ * in a block buffer where the values of {@code blockSize} iterations are
+ * stored in column-major order: the value of position {@code idx} in the
+ * {@code k}-th iteration of a block is stored at {@code idx * blockSize + k}.
+ * Full blocks are passed to the concrete store implementation. The buffer of
+ * the first block grows from a small capacity so that short simulations and
+ * stores of results that are never filled do not allocate full blocks.
+ */
+abstract class BlockStore implements SimulationStore {
+
+	/**
+	 * The targeted number of values in a block (= 8 MB).
+	 */
+	private static final int BLOCK_VALUES = 1 << 20;
+
+	/**
+	 * The initial number of iterations of the buffer of the first block.
+	 */
+	private static final int INITIAL_CAPACITY = 16;
+
+	final int length;
+	final int blockSize;
+	private final RunningStatistics[] stats;
+
+	private double[] buffer;
+	/** The number of iterations the current buffer can hold. */
+	private int capacity;
+	private int size;
+
+	BlockStore(int length) {
+		this.length = Math.max(length, 0);
+		this.blockSize = Math.max(1,
+				Math.min(4096, BLOCK_VALUES / Math.max(1, this.length)));
+		this.stats = new RunningStatistics[this.length];
+		for (int i = 0; i < this.length; i++) {
+			stats[i] = new RunningStatistics();
+		}
+		this.capacity = Math.min(blockSize, INITIAL_CAPACITY);
+		this.buffer = new double[this.length * capacity];
+	}
+
+	/**
+	 * Stores the full block with the given index. The store can take the
+	 * ownership of the given array; the buffer is not used anymore by this
+	 * class after this call.
+	 */
+	abstract void storeBlock(int block, double[] values);
+
+	/**
+	 * Reads the value at the given position of the stored block.
+	 */
+	abstract double readBlock(int block, int pos);
+
+	/**
+	 * Copies {@code count} values that start at the given position of the
+	 * stored block into the target array.
+	 */
+	abstract void readBlock(
+			int block, int pos, double[] target, int offset, int count);
+
+	@Override
+	public final synchronized void append(double[] vector) {
+		int k = size % blockSize;
+		int n = vector != null
+				? Math.min(vector.length, length)
+				: 0;
+		if (k == capacity) {
+			grow(k);
+		}
+		for (int idx = 0; idx < length; idx++) {
+			double val = idx < n ? vector[idx] : 0;
+			buffer[idx * capacity + k] = val;
+			stats[idx].add(val);
+		}
+		size++;
+		if (k == blockSize - 1) {
+			// the buffer has the full block size here
+			storeBlock(size / blockSize - 1, buffer);
+			buffer = new double[length * blockSize];
+			capacity = blockSize;
+		}
+	}
+
+	/**
+	 * Doubles the capacity of the buffer (up to the block size) and moves the
+	 * first {@code count} values of each position into the new layout.
+	 */
+	private void grow(int count) {
+		int next = Math.min(blockSize, capacity * 2);
+		var grown = new double[length * next];
+		for (int idx = 0; idx < length; idx++) {
+			System.arraycopy(buffer, idx * capacity, grown, idx * next, count);
+		}
+		buffer = grown;
+		capacity = next;
+	}
+
+	@Override
+	public final int length() {
+		return length;
+	}
+
+	@Override
+	public final synchronized int size() {
+		return size;
+	}
+
+	@Override
+	public final synchronized double get(int iteration, int idx) {
+		if (iteration < 0 || iteration >= size || idx < 0 || idx >= length)
+			return 0;
+		int block = iteration / blockSize;
+		int k = iteration % blockSize;
+		return block < size / blockSize
+				? readBlock(block, idx * blockSize + k)
+				: buffer[idx * capacity + k];
+	}
+
+	@Override
+	public final synchronized double[] column(int idx) {
+		if (idx < 0 || idx >= length)
+			return new double[0];
+		var values = new double[size];
+		int fullBlocks = size / blockSize;
+		int pos = idx * blockSize;
+		for (int block = 0; block < fullBlocks; block++) {
+			readBlock(block, pos, values, block * blockSize, blockSize);
+		}
+		int rest = size % blockSize;
+		if (rest > 0) {
+			System.arraycopy(buffer, idx * capacity, values,
+					fullBlocks * blockSize, rest);
+		}
+		return values;
+	}
+
+	/**
+	 * Returns a read-only snapshot of the statistics of the given position.
+	 * The snapshot is not updated when further vectors are appended.
+	 */
+	@Override
+	public final synchronized RunningStatistics statistics(int idx) {
+		return idx >= 0 && idx < length
+				? stats[idx].snapshot()
+				: RunningStatistics.empty();
+	}
+}
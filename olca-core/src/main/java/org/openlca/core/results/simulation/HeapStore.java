@@ -0,0 +1,36 @@
+package org.openlca.core.results.simulation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A simulation store that keeps the blocks as arrays on the heap.
+ */
+class HeapStore extends BlockStore {
+
+	private final List<double[]> blocks = new ArrayList<>();
+
+	HeapStore(int length) {
+		super(length);
+	}
+
+	@Override
+	void storeBlock(int block, double[] values) {
+		blocks.add(values);
+	}
+
+	@Override
+	double readBlock(int block, int pos) {
+		return blocks.get(block)[pos];
+	}
+
+	@Override
+	void readBlock(int block, int pos, double[] target, int offset, int count) {
+		System.arraycopy(blocks.get(block), pos, target, offset, count);
+	}
+
+	@Override
+	public synchronized void close() {
+		blocks.clear();
+	}
+}
@@ -0,0 +1,112 @@
+package org.openlca.core.results.simulation;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.LoggerFactory;
+
+/**
+ * A simulation store that writes the blocks into a temporary file and reads
+ * them back via memory-mapped buffers. Thus, only the current block is kept
+ * on the heap. The file is deleted when the store is closed.
+ */
+class MappedStore extends BlockStore {
+
+	/**
+	 * Files of closed stores that could not be deleted yet. On some platforms
+	 * a file cannot be deleted while it is still mapped (until the buffers
+	 * are garbage collected); we try to delete these files again when other
+	 * stores are created or closed.
+	 */
+	private static final Set<File> undeleted = ConcurrentHashMap.newKeySet();
+
+	private final File file;
+	private final FileChannel channel;
+	private final List<DoubleBuffer> blocks = new ArrayList<>();
+
+	MappedStore(File dir, int length) {
+		super(length);
+		deleteUndeleted();
+		try {
+			if (!dir.exists()) {
+				Files.createDirectories(dir.toPath());
+			}
+			file = File.createTempFile("olca_simulation_", ".bin", dir);
+			channel = FileChannel.open(file.toPath(),
+					StandardOpenOption.READ,
+					StandardOpenOption.WRITE);
+		} catch (IOException e) {
+			throw new UncheckedIOException(
+					"failed to create simulation store in " + dir, e);
+		}
+	}
+
+	@Override
+	void storeBlock(int block, double[] values) {
+		long bytes = (long) values.length * Double.BYTES;
+		long offset = block * bytes;
+		try {
+			var buffer = channel
+					.map(FileChannel.MapMode.READ_WRITE, offset, bytes)
+					.asDoubleBuffer();
+			buffer.put(0, values);
+			blocks.add(buffer);
+		} catch (IOException e) {
+			throw new UncheckedIOException(
+					"failed to write block to simulation store " + file, e);
+		}
+	}
+
+	@Override
+	double readBlock(int block, int pos) {
+		return blocks.get(block).get(pos);
+	}
+
+	@Override
+	void readBlock(int block, int pos, double[] target, int offset, int count) {
+		blocks.get(block).get(pos, target, offset, count);
+	}
+
+	@Override
+	public synchronized void close() {
+		if (!channel.isOpen())
+			return;
+		blocks.clear();
+		try {
+			channel.close();
+		} catch (IOException e) {
+			var log = LoggerFactory.getLogger(getClass());
+			log.warn("failed to close simulation store " + file, e);
+		}
+		if (!delete(file)) {
+			undeleted.add(file);
+		}
+		deleteUndeleted();
+	}
+
+	private static void deleteUndeleted() {
+		if (undeleted.isEmpty())
+			return;
+		undeleted.removeIf(MappedStore::delete);
+	}
+
+	private static boolean delete(File file) {
+		try {
+			Files.deleteIfExists(file.toPath());
+			return true;
+		} catch (IOException e) {
+			var log = LoggerFactory.getLogger(MappedStore.class);
+			log.trace("could not delete simulation store " + file, e);
+			return false;
+		}
+	}
+}
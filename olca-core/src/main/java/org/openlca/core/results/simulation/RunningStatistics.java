@@ -0,0 +1,289 @@
+package org.openlca.core.results.simulation;
+
+import java.util.Arrays;
+
+/**
+ * Statistics of a series of values that are updated incrementally when a
+ * value is added. The mean and variance are calculated with Welford's online
+ * algorithm. The percentiles are estimated with the P² algorithm of Jain and
+ * Chlamtac (1985) for a fixed set of quantiles; other percentiles are
+ * interpolated between these estimates. For exact percentiles use the
+ * {@link org.openlca.core.results.Statistics} of the stored values.
+ */
+public class RunningStatistics {
+
+	/**
+	 * The tracked quantiles; this set needs to be symmetric around the median
+	 * (see {@link #negated()}).
+	 */
+	private static final double[] QUANTILES = {
+			0.025, 0.05, 0.25, 0.5, 0.75, 0.95, 0.975};
+
+	private int count;
+	private double mean;
+	private double m2;
+	private double min;
+	private double max;
+
+	private final P2[] sketches;
+
+	/**
+	 * Fixed quantile estimates of a negated view; {@code null} for statistics
+	 * that are updated via {@link #add(double)}.
+	 */
+	private final double[] fixed;
+
+	RunningStatistics() {
+		sketches = new P2[QUANTILES.length];
+		for (int i = 0; i < QUANTILES.length; i++) {
+			sketches[i] = new P2(QUANTILES[i]);
+		}
+		fixed = null;
+	}
+
+	private RunningStatistics(double[] fixed) {
+		this.sketches = null;
+		this.fixed = fixed;
+	}
+
+	/**
+	 * Returns empty statistics, e.g. for a result element that is not
+	 * available in a simulation result.
+	 */
+	public static RunningStatistics empty() {
+		return new RunningStatistics(new double[QUANTILES.length]);
+	}
+
+	void add(double x) {
+		if (sketches == null)
+			throw new IllegalStateException("statistics are read-only");
+		count++;
+		if (count == 1) {
+			min = x;
+			max = x;
+		} else {
+			min = Math.min(min, x);
+			max = Math.max(max, x);
+		}
+		double delta = x - mean;
+		mean += delta / count;
+		m2 += delta * (x - mean);
+		for (var sketch : sketches) {
+			sketch.add(x);
+		}
+	}
+
+	public int count() {
+		return count;
+	}
+
+	public double mean() {
+		return mean;
+	}
+
+	public double min() {
+		return min;
+	}
+
+	public double max() {
+		return max;
+	}
+
+	public double range() {
+		return max - min;
+	}
+
+	/**
+	 * Returns the sample variance of the values.
+	 */
+	public double variance() {
+		return count < 2 ? 0 : m2 / (count - 1);
+	}
+
+	public double standardDeviation() {
+		return Math.sqrt(variance());
+	}
+
+	public double median() {
+		return percentile(50);
+	}
+
+	/**
+	 * Returns the estimated value at the given percentile.
+	 *
+	 * @param percentile the percentage value (0..100)
+	 */
+	public double percentile(double percentile) {
+		if (count == 0)
+			return 0;
+		double p = Math.max(0, Math.min(100, percentile)) / 100;
+		var estimates = estimates();
+		if (p <= QUANTILES[0]) {
+			return interpolate(p, 0, min, QUANTILES[0], estimates[0]);
+		}
+		for (int i = 1; i < QUANTILES.length; i++) {
+			if (p <= QUANTILES[i]) {
+				return interpolate(p, QUANTILES[i - 1], estimates[i - 1],
+						QUANTILES[i], estimates[i]);
+			}
+		}
+		int last = QUANTILES.length - 1;
+		return interpolate(p, QUANTILES[last], estimates[last], 1, max);
+	}
+
+	private static double interpolate(
+			double p, double p0, double v0, double p1, double v1) {
+		if (p1 == p0)
+			return v0;
+		return v0 + (p - p0) * (v1 - v0) / (p1 - p0);
+	}
+
+	private double[] estimates() {
+		if (fixed != null)
+			return fixed;
+		var estimates = new double[sketches.length];
+		for (int i = 0; i < sketches.length; i++) {
+			estimates[i] = sketches[i].estimate();
+		}
+		return estimates;
+	}
+
+	/**
+	 * Returns a read-only copy of the current state of these statistics.
+	 */
+	public RunningStatistics snapshot() {
+		if (fixed != null)
+			return this;
+		var copy = new RunningStatistics(estimates());
+		copy.count = count;
+		copy.mean = mean;
+		copy.m2 = m2;
+		copy.min = min;
+		copy.max = max;
+		return copy;
+	}
+
+	/**
+	 * Returns a read-only copy of these statistics for the negated values.
+	 * This is used for the view of input flows in the results.
+	 */
+	public RunningStatistics negated() {
+		var estimates = estimates();
+		int n = estimates.length;
+		var neg = new double[n];
+		for (int i = 0; i < n; i++) {
+			neg[i] = -estimates[n - 1 - i];
+		}
+		var copy = new RunningStatistics(neg);
+		copy.count = count;
+		copy.mean = mean == 0 ? 0 : -mean;
+		copy.m2 = m2;
+		copy.min = max == 0 ? 0 : -max;
+		copy.max = min == 0 ? 0 : -min;
+		return copy;
+	}
+
+	/**
+	 * The P² estimator of a single quantile. It uses 5 markers of which the
+	 * middle one approximates the quantile.
+	 */
+	private static class P2 {
+
+		private final double p;
+		private final double[] q = new double[5];
+		private final double[] n = new double[5];
+		private final double[] np = new double[5];
+		private final double[] dn = new double[5];
+		private int count;
+
+		P2(double p) {
+			this.p = p;
+			dn[1] = p / 2;
+			dn[2] = p;
+			dn[3] = (1 + p) / 2;
+			dn[4] = 1;
+		}
+
+		void add(double x) {
+
+			// collect the first 5 values
+			if (count < 5) {
+				q[count] = x;
+				count++;
+				if (count == 5) {
+					Arrays.sort(q);
+					for (int i = 0; i < 5; i++) {
+						n[i] = i;
+					}
+					np[0] = 0;
+					np[1] = 2 * p;
+					np[2] = 4 * p;
+					np[3] = 2 + 2 * p;
+					np[4] = 4;
+				}
+				return;
+			}
+			count++;
+
+			// find the cell k of x and update the extreme markers
+			int k;
+			if (x < q[0]) {
+				q[0] = x;
+				k = 0;
+			} else if (x >= q[4]) {
+				q[4] = x;
+				k = 3;
+			} else {
+				k = 0;
+				while (k < 3 && x >= q[k + 1]) {
+					k++;
+				}
+			}
+
+			for (int i = k + 1; i < 5; i++) {
+				n[i]++;
+			}
+			for (int i = 0; i < 5; i++) {
+				np[i] += dn[i];
+			}
+
+			// adjust the heights of the middle markers
+			for (int i = 1; i < 4; i++) {
+				double d = np[i] - n[i];
+				if ((d >= 1 && n[i + 1] - n[i] > 1)
+						|| (d <= -1 && n[i - 1] - n[i] < -1)) {
+					int ds = d >= 0 ? 1 : -1;
+					double qp = parabolic(i, ds);
+					q[i] = q[i - 1] < qp && qp < q[i + 1]
+							? qp
+							: linear(i, ds);
+					n[i] += ds;
+				}
+			}
+		}
+
+		private double parabolic(int i, int d) {
+			return q[i] + d / (n[i + 1] - n[i - 1])
+					* ((n[i] - n[i - 1] + d) * (q[i + 1] - q[i]) / (n[i + 1] - n[i])
+					+ (n[i + 1] - n[i] - d) * (q[i] - q[i - 1]) / (n[i] - n[i - 1]));
+		}
+
+		private double linear(int i, int d) {
+			return q[i] + d * (q[i + d] - q[i]) / (n[i + d] - n[i]);
+		}
+
+		double estimate() {
+			if (count == 0)
+				return 0;
+			if (count >= 5)
+				return q[2];
+			// exact quantile of the few values
+			var vals = Arrays.copyOf(q, count);
+			Arrays.sort(vals);
+			double pos = p * (count - 1);
+			int lower = (int) Math.floor(pos);
+			int upper = Math.min(lower + 1, count - 1);
+			return vals[lower] + (pos - lower) * (vals[upper] - vals[lower]);
+		}
+	}
+}
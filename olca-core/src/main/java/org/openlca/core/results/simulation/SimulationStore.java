@@ -0,0 +1,87 @@
+package org.openlca.core.results.simulation;
+
+import java.io.File;
+
+/**
+ * A simulation store holds the result vectors of the iterations of a
+ * Monte-Carlo simulation. The vectors are appended row by row (one vector per
+ * iteration) but the values are stored in column-major order in blocks of
+ * iterations. Thus, reading all values of a single result element (e.g. a
+ * flow) is a mostly sequential read. Also, the statistics of each result
+ * element are updated when a vector is appended, so that they are available
+ * without reading the stored values again.
+ */
+public interface SimulationStore extends AutoCloseable {
+
+	/**
+	 * Appends the given vector as the next iteration to this store. The
+	 * vector is filled with zeros or truncated when its length does not match
+	 * the length of this store.
+	 */
+	void append(double[] vector);
+
+	/**
+	 * Returns the length of the vectors in this store.
+	 */
+	int length();
+
+	/**
+	 * Returns the number of iterations (vectors) in this store.
+	 */
+	int size();
+
+	/**
+	 * Returns the value at position {@code idx} of the vector of the given
+	 * iteration (both zero-based) or 0 if there is no such value.
+	 */
+	double get(int iteration, int idx);
+
+	/**
+	 * Returns the values at position {@code idx} of all iterations.
+	 */
+	double[] column(int idx);
+
+	/**
+	 * Returns the statistics of the values at position {@code idx} of all
+	 * iterations. This is never {@code null}.
+	 */
+	RunningStatistics statistics(int idx);
+
+	/**
+	 * Releases the resources of this store (e.g. deletes a backing file).
+	 */
+	@Override
+	void close();
+
+	/**
+	 * Creates a store that keeps the values on the heap.
+	 */
+	static SimulationStore onHeap(int length) {
+		return new HeapStore(length);
+	}
+
+	/**
+	 * Creates a store that keeps the values in a memory-mapped file in the
+	 * given folder. The file is deleted when the store is closed.
+	 */
+	static SimulationStore mappedIn(File dir, int length) {
+		return new MappedStore(dir, length);
+	}
+
+	/**
+	 * A factory for creating stores of a given vector length.
+	 */
+	@FunctionalInterface
+	interface Factory {
+
+		SimulationStore create(int length);
+
+		static Factory onHeap() {
+			return SimulationStore::onHeap;
+		}
+
+		static Factory mappedIn(File dir) {
+			return length -> SimulationStore.mappedIn(dir, length);
+		}
+	}
+}
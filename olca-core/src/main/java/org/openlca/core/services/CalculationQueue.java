@@ -1,20 +1,35 @@
 package org.openlca.core.services;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.openlca.core.database.IDatabase;
 import org.openlca.core.library.LibraryDir;
 import org.openlca.core.math.SystemCalculator;
 import org.openlca.core.model.CalculationSetup;
 import org.openlca.core.results.LcaResult;
+import org.openlca.core.results.providers.ResultProvider;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Calculates results in a thread-pool and keeps them until they are disposed.
+ * Optionally, the stored results can be bounded by their number and by their
+ * (estimated) memory; when a bound is exceeded, the least recently accessed
+ * results that were already fetched by a client are evicted. Also, results
+ * can expire when they were not accessed for a given time (see
+ * {@link #withTimeout(long, TimeUnit)}).
+ */
 public class CalculationQueue {
 
 	private final IDatabase db;
@@ -23,6 +38,13 @@ public class CalculationQueue {
 	private LibraryDir libDir;
 	private Cleaner cleaner;
 
+	private volatile int maxResults;
+	private volatile long maxMemory;
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+	private final LongAdder expirations = new LongAdder();
+
 	public CalculationQueue(IDatabase db, int threadCount) {
 		this.db = db;
 		threads = Executors.newFixedThreadPool(threadCount);
@@ -40,9 +62,33 @@ public class CalculationQueue {
 		if (config.timeout() > 0) {
 			queue.withTimeout(config.timeout(), TimeUnit.MINUTES);
 		}
+		if (config.maxResultMemory() > 0) {
+			queue.withMaxMemory(config.maxResultMemory() * 1024L * 1024L);
+		}
 		return queue;
 	}
 
+	/**
+	 * Set the maximum number of results that are kept in this queue. A value
+	 * {@code <= 0} means that there is no limit (default).
+	 */
+	public CalculationQueue withMaxResults(int maxResults) {
+		this.maxResults = Math.max(0, maxResults);
+		evict(null);
+		return this;
+	}
+
+	/**
+	 * Set the maximum memory in bytes that the results of this queue can use.
+	 * The memory of a result is estimated with {@link #estimateSize}. A value
+	 * {@code <= 0} means that there is no limit (default).
+	 */
+	public CalculationQueue withMaxMemory(long bytes) {
+		this.maxMemory = Math.max(0, bytes);
+		evict(null);
+		return this;
+	}
+
 	public void withTimeout(long time, TimeUnit unit) {
 		if (cleaner != null) {
 			cleaner.halt();
@@ -74,12 +120,29 @@ public class CalculationQueue {
 	 * Get the state of the calculation with the given ID.
 	 */
 	public ResultState get(String id) {
-		var next = states.compute(id, ($, state) -> state != null
-				? state.update()
-				: null);
-		return next == null
-				? ResultState.empty(id)
-				: next;
+		return access(id, false);
+	}
+
+	/**
+	 * Get the state of the calculation with the given ID for reading its
+	 * result. A result that was fetched this way can be evicted from the
+	 * queue when a bound is exceeded; results that were not fetched yet are
+	 * kept until they are disposed or expired.
+	 */
+	public ResultState fetch(String id) {
+		return access(id, true);
+	}
+
+	private ResultState access(String id, boolean isFetch) {
+		var next = states.compute(id, ($, state) -> state == null
+				? null
+				: isFetch ? state.fetch() : state.update());
+		if (next == null) {
+			misses.increment();
+			return ResultState.empty(id);
+		}
+		hits.increment();
+		return next;
 	}
 
 	/**
@@ -87,7 +150,22 @@ public class CalculationQueue {
 	 * was scheduled, it will not be performed.
 	 */
 	public void dispose(String id) {
-		states.remove(id);
+		release(states.remove(id));
+	}
+
+	/**
+	 * Releases the cached results of the given state when it was removed
+	 * from the queue.
+	 */
+	private static void release(ResultState state) {
+		if (state == null)
+			return;
+		if (state.result() != null) {
+			state.result().dispose();
+		}
+		if (state.simulator() != null) {
+			state.simulator().dispose();
+		}
 	}
 
 	/**
@@ -144,6 +222,7 @@ public class CalculationQueue {
 				}
 				var nextState = state.updateResult(result);
 				states.put(state.id(), nextState);
+				evict(state.id());
 			} catch (Throwable err) {
 				var message = "Calculation failed: " + err.getMessage();
 				states.put(state.id(), state.toError(message));
@@ -151,6 +230,103 @@ public class CalculationQueue {
 		});
 	}
 
+	/**
+	 * Evicts the least recently accessed results until the bounds of this
+	 * queue are met. Only results that were already fetched by a client can
+	 * be evicted. The most recently accessed result and the result with the
+	 * given ID, which was just calculated, are never evicted, even if they
+	 * exceed the memory bound. States without results (scheduled calculations,
+	 * errors) are not evicted.
+	 */
+	private synchronized void evict(String keep) {
+		int maxResults = this.maxResults > 0
+				? this.maxResults
+				: Integer.MAX_VALUE;
+		long maxMemory = this.maxMemory > 0
+				? this.maxMemory
+				: Long.MAX_VALUE;
+		if (maxResults == Integer.MAX_VALUE && maxMemory == Long.MAX_VALUE)
+			return;
+
+		var ready = new ArrayList<ResultState>();
+		long memory = 0;
+		for (var state : states.values()) {
+			if (!state.isReady())
+				continue;
+			ready.add(state);
+			memory += estimateSize(state.result());
+		}
+		if (ready.size() <= maxResults && memory <= maxMemory)
+			return;
+
+		ready.sort(Comparator.comparingLong(ResultState::time));
+		int count = ready.size();
+		for (var state : ready.subList(0, ready.size() - 1)) {
+			if (count <= maxResults && memory <= maxMemory)
+				break;
+			if (!state.isFetched() || state.id().equals(keep))
+				continue;
+			// the state may have been accessed or disposed in the meantime
+			if (!states.remove(state.id(), state))
+				continue;
+			release(state);
+			count--;
+			memory -= estimateSize(state.result());
+			evictions.increment();
+		}
+	}
+
+	/**
+	 * Returns statistics of the results that are currently stored in this
+	 * queue.
+	 */
+	public Stats stats() {
+		int size = 0;
+		long memory = 0;
+		for (var state : states.values()) {
+			if (!state.isReady())
+				continue;
+			size++;
+			memory += estimateSize(state.result());
+		}
+		return new Stats(size, memory, hits.sum(), misses.sum(),
+				evictions.sum(), expirations.sum());
+	}
+
+	/**
+	 * Returns an estimate of the memory size of the given result in bytes,
+	 * based on the data that its provider and the providers of its
+	 * sub-results currently hold (see {@link ResultProvider#memorySize()}).
+	 */
+	public static long estimateSize(LcaResult r) {
+		// sub-results can be shared within a result and are counted once
+		return estimateSize(r, Collections.newSetFromMap(new IdentityHashMap<>()));
+	}
+
+	private static long estimateSize(LcaResult r, Set<LcaResult> visited) {
+		if (r == null || !visited.add(r))
+			return 0;
+		long size = r.provider().memorySize();
+		for (var sub : r.subResults().values()) {
+			size += estimateSize(sub, visited);
+		}
+		return size;
+	}
+
+	/**
+	 * Statistics of the results of a queue: the number of stored results,
+	 * their estimated memory in bytes, and the number of hits, misses,
+	 * evictions, and expirations since the queue was created.
+	 */
+	public record Stats(
+			int size,
+			long memory,
+			long hits,
+			long misses,
+			long evictions,
+			long expirations) {
+	}
+
 	private static class Cleaner extends Thread {
 
 		private final CalculationQueue queue;
@@ -183,8 +359,10 @@ public class CalculationQueue {
 				long limit = System.currentTimeMillis() - timeout;
 				for (var e : queue.states.entrySet()) {
 					var state = e.getValue();
-					if (state.time() < limit) {
-						queue.states.remove(e.getKey(), e.getValue());
+					if (state.time() < limit
+							&& queue.states.remove(e.getKey(), state)) {
+						release(state);
+						queue.expirations.increment();
 					}
 				}
 			}
@@ -38,6 +38,13 @@ public class JsonResultService {
 		return new JsonResultService(config);
 	}
 
+	/**
+	 * Returns the calculation queue of this service.
+	 */
+	public CalculationQueue queue() {
+		return queue;
+	}
+
 	public Response<JsonObject> calculate(JsonObject setup) {
 		try {
 			var r = JsonCalculationSetup.readFrom(setup, DbEntityResolver.of(db));
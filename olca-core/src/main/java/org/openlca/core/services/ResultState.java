@@ -13,7 +13,8 @@ record ResultState(
 		CalculationSetup setup,
 		Simulator simulator,
 		LcaResult result,
-		String error
+		String error,
+		boolean isFetched
 		) {
 
 	boolean isEmpty() {
@@ -34,19 +35,19 @@ record ResultState(
 
 	static ResultState empty(String id) {
 		long time = System.currentTimeMillis();
-		return new ResultState(id, time, null, null, null, null);
+		return new ResultState(id, time, null, null, null, null, false);
 	}
 
 	static ResultState error(String message) {
 		String id = UUID.randomUUID().toString();
 		long time = System.currentTimeMillis();
-		return new ResultState(id, time, null, null, null, message);
+		return new ResultState(id, time, null, null, null, message, false);
 	}
 
 	static ResultState schedule(CalculationSetup setup) {
 		String id = UUID.randomUUID().toString();
 		long time = System.currentTimeMillis();
-		return new ResultState(id, time, setup, null, null, null);
+		return new ResultState(id, time, setup, null, null, null, false);
 	}
 
 	static ResultState scheduleSimulation(CalculationSetup setup, IDatabase db) {
@@ -54,10 +55,10 @@ record ResultState(
 		long time = System.currentTimeMillis();
 		try {
 			var simulator = Simulator.create(setup, db);
-			return new ResultState(id, time, setup, simulator, null, null);
+			return new ResultState(id, time, setup, simulator, null, null, false);
 		} catch (Exception e) {
 			return new ResultState(id, time, null, null, null,
-					"failed to create simulator: " + e.getMessage());
+					"failed to create simulator: " + e.getMessage(), false);
 		}
 	}
 
@@ -68,7 +69,7 @@ record ResultState(
 	 */
 	ResultState updateResult(LcaResult result) {
 		long time = System.currentTimeMillis();
-		return new ResultState(id, time, setup, simulator, result, null);
+		return new ResultState(id, time, setup, simulator, result, null, false);
 	}
 
 	/**
@@ -76,7 +77,18 @@ record ResultState(
 	 */
 	ResultState update() {
 		long time = System.currentTimeMillis();
-		return new ResultState(id, time, setup, simulator, result, null);
+		return new ResultState(
+				id, time, setup, simulator, result, null, isFetched);
+	}
+
+	/**
+	 * Returns a new result state with an updated time-stamp that is marked as
+	 * fetched when it contains a result, i.e. the result was read by a client.
+	 */
+	ResultState fetch() {
+		long time = System.currentTimeMillis();
+		return new ResultState(
+				id, time, setup, simulator, result, null, isFetched || isReady());
 	}
 
 	/**
@@ -85,6 +97,6 @@ record ResultState(
 	 */
 	ResultState toError(String error) {
 		long time = System.currentTimeMillis();
-		return new ResultState(id, time, null, null, null, error);
+		return new ResultState(id, time, null, null, null, error, false);
 	}
 }
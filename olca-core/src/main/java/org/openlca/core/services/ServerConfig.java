@@ -51,6 +51,12 @@ import org.slf4j.LoggerFactory;
  * 	disposed by the user. A value of <=0 means that no timeout should be
  * 	applied; defaults to 0.
  *
+ * 	-max-result-memory <megabytes>
+ * 	The estimated memory in MB that the stored results can use. When this is
+ * 	exceeded, the least recently used results that were already read by a
+ * 	client are disposed. A value of <=0 means that no limit is applied;
+ * 	defaults to 0.
+ *
  *  --readonly <true | false>?
  *  If this flag is set, the server will run in readonly mode and modifying the
  *  database will not be possible.
@@ -75,6 +81,8 @@ import org.slf4j.LoggerFactory;
  *                   modification of the database is not supported in this case.
  * @param staticDir  an optional folder from which static files are hosted by
  *                   the server, if this is supported; {@code null} by default}
+ * @param maxResultMemory the memory limit of the stored results in MB; 0
+ *                   means no limit
  * @param args       all configuration arguments as key-value pairs
  */
 public record ServerConfig(
@@ -85,6 +93,7 @@ public record ServerConfig(
 		File staticDir,
 		int threadCount,
 		int timeout,
+		int maxResultMemory,
 		Map<String, String> args
 ) {
 
@@ -128,6 +137,7 @@ public record ServerConfig(
 					staticDir,
 					getThreadCount(),
 					getTimeout(),
+					getMaxResultMemory(),
 					args);
 		}
 
@@ -172,6 +182,14 @@ public record ServerConfig(
 			return timeout;
 		}
 
+		private int getMaxResultMemory() {
+			int mb = Math.max(intOf("-max-result-memory", 0), 0);
+			if (mb > 0) {
+				log.info("limit the memory of stored results to {} MB", mb);
+			}
+			return mb;
+		}
+
 		private int intOf(String flag, int defaultVal) {
 			var str = args.get(flag);
 			if (str == null)
@@ -246,6 +264,7 @@ public record ServerConfig(
 		private File staticDir;
 		private int threadCount = 1;
 		private int timeout = 0;
+		private int maxResultMemory = 0;
 		private Map<String, String> args;
 
 		private Builder(IDatabase db) {
@@ -286,6 +305,13 @@ public record ServerConfig(
 			return this;
 		}
 
+		public Builder withMaxResultMemory(int megabytes) {
+			if (megabytes >= 0) {
+				this.maxResultMemory = megabytes;
+			}
+			return this;
+		}
+
 		public Builder withArgs(Map<String, String> args) {
 			this.args = args;
 			return this;
@@ -302,7 +328,8 @@ public record ServerConfig(
 					? java.util.Map.of()
 					: this.args;
 			return new ServerConfig(
-					dataDir, db, port, isReadonly, staticDir, threadCount, timeout, args);
+					dataDir, db, port, isReadonly, staticDir, threadCount, timeout,
+					maxResultMemory, args);
 		}
 	}
 }
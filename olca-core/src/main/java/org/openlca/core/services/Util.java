@@ -16,7 +16,7 @@ final class Util {
 		if (queue == null)
 			return Response.error("no calculation service available");
 		try {
-			var state = queue.get(resultId);
+			var state = queue.fetch(resultId);
 			if (state.isError())
 				return Response.error(state.error());
 			if (state.isEmpty())
@@ -3,9 +3,10 @@ package org.openlca.geo.calc;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
+import org.locationtech.jts.geom.prep.PreparedGeometryFactory;
+import org.locationtech.jts.index.strtree.STRtree;
 import org.openlca.geo.geojson.Feature;
 import org.openlca.geo.geojson.FeatureCollection;
 import org.openlca.geo.geojson.Geometry;
@@ -17,6 +18,13 @@ import org.openlca.util.Pair;
  * with characterization factors of an LCIA category). A specific projection can
  * be applied when calculating the intersections. By default the Mollweide
  * projection is used.
+ * <p>
+ * The features are indexed by the envelopes of their geometries in an
+ * R-tree (JTS {@link STRtree}) so that only the features whose envelopes
+ * overlap with the envelope of $g$ are tested. For these candidates, $g$ is
+ * prepared once and features that are fully contained in $g$ are taken as
+ * they are, without calculating the intersection geometry; features that do
+ * not intersect $g$ are skipped.
  */
 public class IntersectionCalculator {
 
@@ -33,6 +41,15 @@ public class IntersectionCalculator {
 
 	private final Projection projection;
 
+	/**
+	 * An envelope index of the geometries; the items of the index are the
+	 * positions of the geometries in the respective array.
+	 */
+	private final STRtree index;
+
+	private volatile ShareCache cache;
+	private volatile String featuresHash;
+
 	private IntersectionCalculator(
 			Feature[] features,
 			org.locationtech.jts.geom.Geometry[] geometries,
@@ -40,6 +57,12 @@ public class IntersectionCalculator {
 		this.features = features;
 		this.geometries = geometries;
 		this.projection = projection;
+		this.index = new STRtree();
+		for (int i = 0; i < geometries.length; i++) {
+			index.insert(geometries[i].getEnvelopeInternal(), i);
+		}
+		// building the tree is not thread-safe, queries on a built tree are
+		index.build();
 	}
 
 	public static IntersectionCalculator on(FeatureCollection coll) {
@@ -80,12 +103,26 @@ public class IntersectionCalculator {
 				projection);
 	}
 
+	/**
+	 * Attaches the given cache to this calculator. The shares of a geometry
+	 * are then taken from the cache if possible, and newly calculated shares
+	 * are added to the cache.
+	 */
+	public IntersectionCalculator withCache(ShareCache cache) {
+		this.cache = cache;
+		return this;
+	}
+
 	/**
 	 * Returns a list of features and their corresponding intersection geometry
 	 * with the given geometry.
 	 */
 	public List<Pair<Feature, Geometry>> calculate(Geometry g) {
-		return jts(g).map(p -> Pair.of(p.first, JTS.toGeoJSON(p.second)))
+		var jts = toJts(g);
+		if (jts == null)
+			return new ArrayList<>();
+		return intersect(jts)
+				.map(p -> Pair.of(features[p.first], JTS.toGeoJSON(p.second)))
 				.filter(p -> p.second != null)
 				.collect(Collectors.toList());
 	}
@@ -102,7 +139,35 @@ public class IntersectionCalculator {
 	 * </ol>
 	 */
 	public List<Pair<Feature, Double>> shares(Geometry g) {
-		List<Pair<Feature, org.locationtech.jts.geom.Geometry>> s = jts(g).toList();
+		List<Pair<Feature, Double>> list = new ArrayList<>();
+		var jts = toJts(g);
+		if (jts == null)
+			return list;
+
+		ShareCache.Shares shares;
+		var cache = this.cache;
+		if (cache == null) {
+			shares = sharesOf(jts);
+		} else {
+			var key = new ShareCache.Key(
+					ShareCache.hashOf(jts), featuresHash(), projectionKey());
+			shares = cache.get(key);
+			if (shares == null) {
+				shares = sharesOf(jts);
+				cache.put(key, shares);
+			}
+		}
+
+		for (int i = 0; i < shares.features().length; i++) {
+			list.add(Pair.of(
+					features[shares.features()[i]], shares.values()[i]));
+		}
+		return list;
+	}
+
+	private ShareCache.Shares sharesOf(org.locationtech.jts.geom.Geometry jts) {
+		List<Pair<Integer, org.locationtech.jts.geom.Geometry>> s =
+				intersect(jts).toList();
 
 		// get the maximum dimension
 		int maxDim = s.stream().reduce(0,
@@ -111,7 +176,7 @@ public class IntersectionCalculator {
 		);
 
 		// calculate the shares
-		List<Pair<Feature, Double>> shares = s
+		List<Pair<Integer, Double>> shares = s
 				.parallelStream()
 				.map(p -> {
 					double a = switch (maxDim) {
@@ -123,46 +188,79 @@ public class IntersectionCalculator {
 					return Pair.of(p.first, a);
 				})
 				.filter(p -> p.second != null && p.second > 0)
-				.collect(Collectors.toList());
-
-		if (shares.isEmpty())
-			return shares;
+				.toList();
 
-		// calculate the relative shares; above we made sure that
+		// calculate the relative shares; we made sure that
 		// the total amount is > 0
 		double total = 0;
-		for (Pair<Feature, Double> p : shares) {
+		for (var p : shares) {
 			total = Math.max(total, p.second);
 		}
-		for (Pair<Feature, Double> p : shares) {
-			p.second = p.second / total;
+		var indices = new int[shares.size()];
+		var values = new double[shares.size()];
+		for (int i = 0; i < shares.size(); i++) {
+			var p = shares.get(i);
+			indices[i] = p.first;
+			values[i] = p.second / total;
 		}
-		return shares;
+		return new ShareCache.Shares(indices, values);
 	}
 
 	/**
-	 * Calculates the intersection geometries based on JTS geometries and
-	 * returns the non-empty intersections.
+	 * Projects the given geometry and converts it into a JTS geometry.
 	 */
-	private Stream<Pair<Feature, org.locationtech.jts.geom.Geometry>> jts(
-			Geometry g) {
+	private org.locationtech.jts.geom.Geometry toJts(Geometry g) {
 		if (g == null)
+			return null;
+		if (projection == null)
+			return JTS.fromGeoJSON(g);
+		Geometry clone = g.copy();
+		projection.project(clone);
+		return JTS.fromGeoJSON(clone);
+	}
+
+	/**
+	 * Calculates the intersection geometries based on JTS geometries and
+	 * returns the non-empty intersections together with the positions of the
+	 * respective features.
+	 */
+	private Stream<Pair<Integer, org.locationtech.jts.geom.Geometry>> intersect(
+			org.locationtech.jts.geom.Geometry jts) {
+
+		// the candidates are sorted so that the features are returned in
+		// the same order as they are stored in the collection
+		@SuppressWarnings("unchecked")
+		List<Integer> candidates = index.query(jts.getEnvelopeInternal());
+		if (candidates.isEmpty())
 			return Stream.empty();
-		org.locationtech.jts.geom.Geometry jts;
-		if (projection == null) {
-			jts = JTS.fromGeoJSON(g);
-		} else {
-			Geometry clone = g.copy();
-			projection.project(clone);
-			jts = JTS.fromGeoJSON(clone);
+		candidates.sort(null);
+
+		var prepared = PreparedGeometryFactory.prepare(jts);
+		return candidates.parallelStream()
+				.map(i -> {
+					var geometry = geometries[i];
+					if (prepared.contains(geometry))
+						return Pair.of(i, geometry);
+					if (!prepared.intersects(geometry))
+						return null;
+					return Pair.of(i, geometry.intersection(jts));
+				})
+				.filter(p -> p != null && p.second != null && !p.second.isEmpty());
+	}
+
+	private String featuresHash() {
+		var hash = featuresHash;
+		if (hash == null) {
+			hash = ShareCache.hashOf(geometries);
+			featuresHash = hash;
 		}
-		if (jts == null)
-			return Stream.empty();
-		return IntStream.range(0, features.length)
-				.parallel()
-				.mapToObj(i -> Pair.of(
-						features[i], geometries[i].intersection(jts)))
-				.filter(p -> p.second != null && !p.second.isEmpty());
+		return hash;
+	}
+
+	private String projectionKey() {
+		return projection != null
+				? projection.key()
+				: "none";
 	}
 
 }
@@ -16,6 +16,11 @@ public class Mollweide extends Projection {
 		this(1.0);
 	}
 
+	@Override
+	public String key() {
+		return "mollweide:" + R;
+	}
+
 	@Override
 	protected void apply(Point p) {
 		if (p == null)
@@ -24,9 +24,24 @@ public abstract class Projection {
 			@Override
 			protected void inverse(Point point) {
 			}
+
+			@Override
+			public String key() {
+				return "identity";
+			}
 		};
 	}
 
+	/**
+	 * Returns a string that identifies this projection including its
+	 * parameters. Two projections with the same key must produce the same
+	 * coordinates. This is used, for example, as part of the keys of a
+	 * {@link ShareCache}.
+	 */
+	public String key() {
+		return getClass().getName();
+	}
+
 	/**
 	 * Applies the projection on the given point.
 	 */
@@ -0,0 +1,289 @@
+package org.openlca.geo.calc;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
+import org.openlca.core.database.IDatabase;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+/**
+ * A persistent cache of intersection shares. The shares of a geometry $g$
+ * with a feature collection $F$ are stored under a key of the hash of $g$,
+ * the hash of the geometries in $F$, and the projection that was used for
+ * the calculation. Thus, when a regionalized LCIA method is applied on the
+ * locations of a database again, the shares of unchanged locations and
+ * features can be taken from the cache instead of being calculated again.
+ * A cache is attached to a calculator via
+ * {@link IntersectionCalculator#withCache(ShareCache)}.
+ * <p>
+ * The cache is backed by an append-only file: new entries are appended to
+ * the file when they are added and the complete file is read when the cache
+ * is opened. Entries are never removed from the file; a cache can be reset
+ * with {@link #clear()}. The cache can be used from multiple threads.
+ */
+public final class ShareCache implements AutoCloseable {
+
+	private static final int MAGIC = 0x4f4c5348;
+	private static final int VERSION = 1;
+
+	private final Logger log = LoggerFactory.getLogger(getClass());
+	private final ConcurrentHashMap<Key, Shares> entries =
+			new ConcurrentHashMap<>();
+	private final File file;
+	private DataOutputStream out;
+
+	private ShareCache(File file) {
+		this.file = file;
+	}
+
+	/**
+	 * Creates a cache that is not backed by a file.
+	 */
+	public static ShareCache inMemory() {
+		return new ShareCache(null);
+	}
+
+	/**
+	 * Opens the cache from the given file. The file is created if it does not
+	 * exist yet. If the file has an unknown format, it is replaced.
+	 */
+	public static ShareCache open(File file) {
+		var cache = new ShareCache(file);
+		cache.load();
+		return cache;
+	}
+
+	/**
+	 * Opens the cache that is stored in the file storage of the given
+	 * database.
+	 */
+	public static ShareCache of(IDatabase db) {
+		var dir = db.getFileStorageLocation();
+		return dir != null
+				? open(new File(dir, "intersection-shares.bin"))
+				: inMemory();
+	}
+
+	public int size() {
+		return entries.size();
+	}
+
+	Shares get(Key key) {
+		return entries.get(key);
+	}
+
+	void put(Key key, Shares shares) {
+		if (key == null || shares == null)
+			return;
+		if (entries.putIfAbsent(key, shares) != null)
+			return;
+		if (file == null)
+			return;
+		synchronized (this) {
+			try {
+				if (out == null) {
+					out = new DataOutputStream(new BufferedOutputStream(
+							new FileOutputStream(file, true)));
+				}
+				write(key, shares);
+				out.flush();
+			} catch (IOException e) {
+				log.error("failed to write shares to " + file, e);
+			}
+		}
+	}
+
+	/**
+	 * Removes all entries from the cache and its file.
+	 */
+	public synchronized void clear() {
+		entries.clear();
+		if (file == null)
+			return;
+		closeStream();
+		try {
+			writeHeader();
+		} catch (IOException e) {
+			log.error("failed to clear cache file " + file, e);
+		}
+	}
+
+	@Override
+	public synchronized void close() {
+		closeStream();
+	}
+
+	private void closeStream() {
+		if (out == null)
+			return;
+		try {
+			out.close();
+		} catch (IOException e) {
+			log.error("failed to close cache file " + file, e);
+		}
+		out = null;
+	}
+
+	private void load() {
+		try {
+			if (!file.exists() || file.length() < 8) {
+				var dir = file.getParentFile();
+				if (dir != null && !dir.exists()) {
+					dir.mkdirs();
+				}
+				writeHeader();
+				return;
+			}
+			long valid = read();
+			if (valid < 0) {
+				log.warn("unknown format of share cache {}; replaced it", file);
+				writeHeader();
+			} else if (valid < file.length()) {
+				// a partially written record at the end, e.g. after a crash
+				log.warn("truncate share cache {} to {} bytes", file, valid);
+				try (var raf = new RandomAccessFile(file, "rw")) {
+					raf.setLength(valid);
+				}
+			}
+		} catch (IOException e) {
+			log.error("failed to load share cache from " + file, e);
+		}
+	}
+
+	/**
+	 * Reads the entries from the file and returns the number of bytes of the
+	 * complete records in the file, or -1 if the file has an unknown format.
+	 */
+	private long read() throws IOException {
+		try (var in = new DataInputStream(new BufferedInputStream(
+				new FileInputStream(file)))) {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION)
+				return -1;
+			long valid = 8;
+			while (true) {
+				try {
+					var key = new Key(in.readUTF(), in.readUTF(), in.readUTF());
+					int n = in.readInt();
+					var features = new int[n];
+					var values = new double[n];
+					for (int i = 0; i < n; i++) {
+						features[i] = in.readInt();
+						values[i] = in.readDouble();
+					}
+					entries.put(key, new Shares(features, values));
+					valid += recordSize(key, n);
+				} catch (EOFException e) {
+					return valid;
+				}
+			}
+		}
+	}
+
+	private void writeHeader() throws IOException {
+		try (var stream = new DataOutputStream(new FileOutputStream(file))) {
+			stream.writeInt(MAGIC);
+			stream.writeInt(VERSION);
+		}
+	}
+
+	private void write(Key key, Shares shares) throws IOException {
+		out.writeUTF(key.geometry);
+		out.writeUTF(key.features);
+		out.writeUTF(key.projection);
+		int n = shares.features.length;
+		out.writeInt(n);
+		for (int i = 0; i < n; i++) {
+			out.writeInt(shares.features[i]);
+			out.writeDouble(shares.values[i]);
+		}
+	}
+
+	private static long recordSize(Key key, int n) {
+		return utfSize(key.geometry)
+				+ utfSize(key.features)
+				+ utfSize(key.projection)
+				+ 4 + 12L * n;
+	}
+
+	/**
+	 * Returns the size of the string as written by `writeUTF`; the modified
+	 * UTF-8 encoding only differs from UTF-8 for zero and supplementary
+	 * characters which do not occur in the keys.
+	 */
+	private static long utfSize(String s) {
+		return 2 + s.getBytes(StandardCharsets.UTF_8).length;
+	}
+
+	/**
+	 * Calculates the hash of the given geometry.
+	 */
+	static String hashOf(Geometry g) {
+		var hasher = Hashing.murmur3_128().newHasher();
+		put(hasher, g);
+		return hasher.hash().toString();
+	}
+
+	/**
+	 * Calculates the hash of the given array of geometries, including the
+	 * order of the geometries.
+	 */
+	static String hashOf(Geometry[] geometries) {
+		var hasher = Hashing.murmur3_128().newHasher();
+		hasher.putInt(geometries.length);
+		for (var g : geometries) {
+			put(hasher, g);
+		}
+		return hasher.hash().toString();
+	}
+
+	private static void put(Hasher hasher, Geometry g) {
+		if (g == null) {
+			hasher.putInt(-1);
+			return;
+		}
+		hasher.putUnencodedChars(g.getGeometryType());
+		int n = g.getNumGeometries();
+		hasher.putInt(n);
+		if (n > 1) {
+			for (int i = 0; i < n; i++) {
+				put(hasher, g.getGeometryN(i));
+			}
+			return;
+		}
+		if (g instanceof org.locationtech.jts.geom.Polygon polygon) {
+			hasher.putInt(polygon.getNumInteriorRing());
+		}
+		var coordinates = g.getCoordinates();
+		hasher.putInt(coordinates.length);
+		for (Coordinate c : coordinates) {
+			hasher.putDouble(c.x);
+			hasher.putDouble(c.y);
+		}
+	}
+
+	record Key(String geometry, String features, String projection) {
+	}
+
+	/**
+	 * The non-zero relative shares of the features with the given positions
+	 * in the feature array of the calculator.
+	 */
+	record Shares(int[] features, double[] values) {
+	}
+}
@@ -16,6 +16,11 @@ public class WebMercator extends Projection {
 		this.zoom = zoom;
 	}
 
+	@Override
+	public String key() {
+		return "web-mercator:" + zoom;
+	}
+
 	/**
 	 * Projects a WGS 84 (longitude, latitude)-point to a (x,y)- pixel
 	 * coordinate. It directly mutates the coordinates of the point.
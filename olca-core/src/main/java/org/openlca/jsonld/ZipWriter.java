@@ -0,0 +1,88 @@
+package org.openlca.jsonld;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.openlca.util.Strings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+
+/**
+ * A write-only store that streams the data directly into a new zip file.
+ * Other than the {@link ZipStore}, which is backed by a zip file system that
+ * keeps the written entries until it is closed, the entries are compressed
+ * and written to the file immediately. Thus, the memory usage does not grow
+ * with the size of the export. The writer is thread-safe: JSON objects are
+ * serialized in the calling thread and only the writing of the entries is
+ * synchronized. As entries cannot be replaced in a zip stream, only the first
+ * entry of a path is written.
+ */
+public class ZipWriter implements JsonStoreWriter, AutoCloseable {
+
+	private static final Gson gson = new Gson();
+
+	private final Logger log = LoggerFactory.getLogger(getClass());
+	private final ZipOutputStream zip;
+	private final Set<String> paths = new HashSet<>();
+
+	private ZipWriter(File file) throws IOException {
+		zip = new ZipOutputStream(
+				new BufferedOutputStream(new FileOutputStream(file)));
+		PackageInfo.create().writeTo(this);
+	}
+
+	/**
+	 * Creates a new zip file; an existing file is overwritten.
+	 */
+	public static ZipWriter open(File file) throws IOException {
+		return new ZipWriter(file);
+	}
+
+	@Override
+	public void put(String path, JsonObject object) {
+		if (path == null || object == null)
+			return;
+		var bytes = new ByteArrayOutputStream();
+		try (var writer = new OutputStreamWriter(bytes, StandardCharsets.UTF_8)) {
+			gson.toJson(object, writer);
+		} catch (IOException e) {
+			log.error("failed to serialize " + path, e);
+			return;
+		}
+		put(path, bytes.toByteArray());
+	}
+
+	@Override
+	public synchronized void put(String path, byte[] data) {
+		if (Strings.nullOrEmpty(path) || data == null)
+			return;
+		if (!paths.add(path)) {
+			log.warn("entry {} was already written", path);
+			return;
+		}
+		try {
+			zip.putNextEntry(new ZipEntry(path));
+			zip.write(data);
+			zip.closeEntry();
+		} catch (IOException e) {
+			log.error("failed to put " + path, e);
+		}
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		zip.close();
+	}
+}
@@ -37,19 +37,22 @@ class BatchImport<T extends RootEntity> {
 
 	@SuppressWarnings("unchecked")
 	void run() {
-		for (var refId : imp.reader.getRefIds(type)) {
-			var item = imp.fetch(clazz, refId);
-			if (item.isVisited() || item.isError())
-				continue;
-			var reader = (EntityReader<T>) imp.readerFor(type);
-			if (item.isNew()) {
-				insert(reader.read(item.json()));
-			} else {
-				T model = item.entity();
-				reader.update(model, item.json());
-				update(model);
+		var refIds = imp.reader.getRefIds(type);
+		try (var jsons = imp.prefetch(type, refIds)) {
+			for (var refId : refIds) {
+				var item = imp.fetch(clazz, refId, jsons.next());
+				if (item.isVisited() || item.isError())
+					continue;
+				var reader = (EntityReader<T>) imp.readerFor(type);
+				if (item.isNew()) {
+					insert(reader.read(item.json()));
+				} else {
+					T model = item.entity();
+					reader.update(model, item.json());
+					update(model);
+				}
+				imp.copyBinaryFilesOf(type, refId);
 			}
-			imp.copyBinaryFilesOf(type, refId);
 		}
 		if (inserts.size() > 0) {
 			flushInserts();
@@ -1,8 +1,8 @@
 package org.openlca.jsonld.input;
 
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.google.gson.JsonObject;
 import org.openlca.core.model.Actor;
@@ -22,7 +22,9 @@ class ImportCache {
 
 	private final JsonImport imp;
 
-	private final Map<Class<?>, Map<String, Object>> cache = new HashMap<>();
+	// the cache is updated by the batch writer and read by the import thread
+	private final Map<Class<?>, Map<String, Object>> cache =
+		new ConcurrentHashMap<>();
 
 	// small independent instances that we cache as full objects, instances
 	// of classes that are not in this set are cached as descriptors
@@ -46,7 +48,7 @@ class ImportCache {
 		if (entity == null)
 			return;
 		var type = entity.getClass();
-		var cacheMap = cache.computeIfAbsent(type, t -> new HashMap<>());
+		var cacheMap = cache.computeIfAbsent(type, t -> new ConcurrentHashMap<>());
 		var cacheObj = fullyCached.contains(type)
 			? entity
 			: Descriptor.of(entity);
@@ -67,7 +69,13 @@ class ImportCache {
 		return null;
 	}
 
-	<T extends RootEntity> ImportItem<T> fetch(Class<T> type, String refId) {
+	/**
+	 * Fetches the import item of the given type and ID. The JSON object of the
+	 * item is only read from the store if it is needed and not already given
+	 * (e.g. by a prefetch).
+	 */
+	<T extends RootEntity> ImportItem<T> fetch(
+		Class<T> type, String refId, JsonObject prefetched) {
 		if (type == null || refId == null)
 			return ImportItem.error();
 		var modelType = imp.types.get(type);
@@ -75,7 +83,7 @@ class ImportCache {
 			return ImportItem.error();
 
 		// first, try to read it from cache
-		var cacheMap = cache.computeIfAbsent(type, t -> new HashMap<>());
+		var cacheMap = cache.computeIfAbsent(type, t -> new ConcurrentHashMap<>());
 		var cached = cacheMap.get(refId);
 		if (cached != null) {
 			if (type.isInstance(cached))
@@ -96,7 +104,9 @@ class ImportCache {
 			}
 		}
 
-		var json = imp.reader.get(modelType, refId);
+		var json = prefetched != null
+			? prefetched
+			: imp.reader.get(modelType, refId);
 		if (json == null) {
 			if (model == null)
 				return ImportItem.error();
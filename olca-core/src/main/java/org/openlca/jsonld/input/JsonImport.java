@@ -4,10 +4,14 @@ import java.io.File;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.Consumer;
 
+import com.google.gson.JsonObject;
 import org.openlca.core.database.FileStore;
 import org.openlca.core.database.IDatabase;
 import org.openlca.core.io.CategorySync;
@@ -38,6 +42,10 @@ public class JsonImport implements Runnable, EntityResolver {
 	private final ImportCache cache = new ImportCache(this);
 	private final ExchangeProviderQueue providers;
 
+	private boolean parallelReads;
+	private ExecutorService readers;
+	private int lookAhead;
+
 	public JsonImport(JsonStoreReader reader, IDatabase db) {
 		this.db = db;
 		this.reader = Upgrades.chain(reader);
@@ -58,6 +66,19 @@ public class JsonImport implements Runnable, EntityResolver {
 		return this;
 	}
 
+	/**
+	 * Set if the JSON objects should be read and parsed in parallel when all
+	 * data sets are imported via {@link #run()}. The objects are then read by
+	 * a pool of worker threads ahead of the import thread, which converts the
+	 * objects in the same order as in a sequential import; the converted
+	 * entities are written by a single writer. The store reader needs to
+	 * support concurrent reads in this case (like the zip store does).
+	 */
+	public JsonImport setParallelReads(boolean b) {
+		this.parallelReads = b;
+		return this;
+	}
+
 	@Override
 	public IDatabase db() {
 		return db;
@@ -88,6 +109,28 @@ public class JsonImport implements Runnable, EntityResolver {
 
 	@Override
 	public void run() {
+		if (parallelReads) {
+			// the import thread and the writer also need a core
+			int threads = Math.max(
+				1, Runtime.getRuntime().availableProcessors() - 1);
+			lookAhead = 4 * threads;
+			readers = Executors.newFixedThreadPool(threads, r -> {
+				var thread = new Thread(r, "json-reader");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+		try {
+			runAll();
+		} finally {
+			if (readers != null) {
+				readers.shutdownNow();
+				readers = null;
+			}
+		}
+	}
+
+	private void runAll() {
 		new UnitGroupImport(this).importAll();
 		var typeOrder = new ModelType[]{
 				ModelType.ACTOR,
@@ -113,22 +156,43 @@ public class JsonImport implements Runnable, EntityResolver {
 				var clazz = (Class<? extends RootEntity>) type.getModelClass();
 				new BatchImport<>(this, clazz, batchSize).run();
 			} else {
-				for (var id : reader.getRefIds(type)) {
-					run(type, id);
+				var ids = reader.getRefIds(type);
+				try (var jsons = prefetch(type, ids)) {
+					for (var id : ids) {
+						get(type.getModelClass(), id, jsons.next());
+					}
 				}
 			}
 		}
 	}
 
+	/**
+	 * Creates a prefetch of the JSON objects with the given IDs. If parallel
+	 * reads are not enabled, the returned prefetch is empty.
+	 */
+	JsonPrefetch prefetch(ModelType type, List<String> ids) {
+		return new JsonPrefetch(reader, type, ids, readers, lookAhead);
+	}
+
 	@Override
-	@SuppressWarnings("unchecked")
 	public <T extends RootEntity> T get(Class<T> type, String refId) {
+		return get(type, refId, null);
+	}
+
+	/**
+	 * Imports the entity with the given ID. If the JSON object of the entity
+	 * was already read, it can be passed to this method, otherwise it is read
+	 * from the store if needed.
+	 */
+	@SuppressWarnings("unchecked")
+	private <T extends RootEntity> T get(
+			Class<T> type, String refId, JsonObject json) {
 		// unit groups can have cyclic dependencies with flow properties
 		// thus, we handle them a bit differently than other types
 		if (Objects.equals(UnitGroup.class, type))
 			return new UnitGroupImport(this).get(type, refId);
 
-		var item = cache.fetch(type, refId);
+		var item = cache.fetch(type, refId, json);
 		if (item.isError())
 			return null;
 		if (item.isVisited())
@@ -171,7 +235,12 @@ public class JsonImport implements Runnable, EntityResolver {
 	}
 
 	<T extends RootEntity> ImportItem<T> fetch(Class<T> type, String refId) {
-		return cache.fetch(type, refId);
+		return cache.fetch(type, refId, null);
+	}
+
+	<T extends RootEntity> ImportItem<T> fetch(
+			Class<T> type, String refId, JsonObject json) {
+		return cache.fetch(type, refId, json);
 	}
 
 	@Override
@@ -0,0 +1,75 @@
+package org.openlca.jsonld.input;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import com.google.gson.JsonObject;
+import org.openlca.core.model.ModelType;
+import org.openlca.jsonld.JsonStoreReader;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads and parses the JSON objects of a list of data sets in parallel, ahead
+ * of the import thread. The objects are returned in the order of the IDs.
+ * Only a bounded number of objects is read ahead, so that large objects (like
+ * processes) do not pile up in memory when the import thread or the writer
+ * is slower than the readers. Without an executor, nothing is read ahead and
+ * {@link #next()} always returns {@code null}; the import thread then reads
+ * the objects itself.
+ */
+class JsonPrefetch implements AutoCloseable {
+
+	private final JsonStoreReader reader;
+	private final ModelType type;
+	private final List<String> ids;
+	private final ExecutorService pool;
+	private final int lookAhead;
+	private final ArrayDeque<Future<JsonObject>> queue = new ArrayDeque<>();
+	private int next;
+
+	JsonPrefetch(JsonStoreReader reader, ModelType type, List<String> ids,
+			ExecutorService pool, int lookAhead) {
+		this.reader = reader;
+		this.type = type;
+		this.ids = ids;
+		this.pool = pool;
+		this.lookAhead = Math.max(1, lookAhead);
+	}
+
+	/**
+	 * Returns the JSON object of the next ID in the list; this method must be
+	 * called exactly once for each ID in the order of the list. Returns
+	 * {@code null} if the object could not be read ahead.
+	 */
+	JsonObject next() {
+		if (pool == null)
+			return null;
+		while (queue.size() < lookAhead && next < ids.size()) {
+			var id = ids.get(next++);
+			queue.add(pool.submit(() -> reader.get(type, id)));
+		}
+		var future = queue.poll();
+		if (future == null)
+			return null;
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		} catch (Exception e) {
+			var log = LoggerFactory.getLogger(getClass());
+			log.error("failed to read JSON object of type " + type, e);
+			return null;
+		}
+	}
+
+	@Override
+	public void close() {
+		for (var future : queue) {
+			future.cancel(true);
+		}
+		queue.clear();
+	}
+}
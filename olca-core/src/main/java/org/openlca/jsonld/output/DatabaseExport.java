@@ -0,0 +1,179 @@
+package org.openlca.jsonld.output;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.openlca.core.database.Daos;
+import org.openlca.core.database.IDatabase;
+import org.openlca.core.database.ParameterDao;
+import org.openlca.core.model.Callback;
+import org.openlca.core.model.ModelType;
+import org.openlca.core.model.RootEntity;
+import org.openlca.core.model.descriptors.RootDescriptor;
+import org.openlca.jsonld.JsonStoreWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Exports all data sets of a database to a JSON store. Other than exporting
+ * the data sets one by one with a {@link JsonExport}, the data sets are
+ * loaded in batches (one query per batch) and converted to JSON by a pool of
+ * worker threads. Each worker uses its own {@link JsonExport} and writes the
+ * converted data sets directly into the store; references are not followed
+ * as all data sets are exported anyway. Thus, the store needs to be
+ * thread-safe. In combination with a {@link org.openlca.jsonld.ZipWriter},
+ * the data sets are streamed into a zip file and the memory usage is bounded
+ * by the number of threads times the batch size.
+ */
+public class DatabaseExport {
+
+	private static final ModelType[] TYPES = {
+			ModelType.ACTOR,
+			ModelType.SOURCE,
+			ModelType.CURRENCY,
+			ModelType.DQ_SYSTEM,
+			ModelType.LOCATION,
+			ModelType.UNIT_GROUP,
+			ModelType.FLOW_PROPERTY,
+			ModelType.FLOW,
+			ModelType.SOCIAL_INDICATOR,
+			ModelType.PARAMETER,
+			ModelType.PROCESS,
+			ModelType.IMPACT_CATEGORY,
+			ModelType.IMPACT_METHOD,
+			ModelType.PRODUCT_SYSTEM,
+			ModelType.PROJECT,
+			ModelType.RESULT,
+			ModelType.EPD,
+	};
+
+	private final Logger log = LoggerFactory.getLogger(getClass());
+	private final IDatabase db;
+	private final JsonStoreWriter writer;
+
+	private int threads = Math.max(1, Runtime.getRuntime().availableProcessors());
+	private int batchSize = 100;
+	private boolean skipLibraryData = true;
+	private boolean skipExternalFiles = false;
+	private Callback callback;
+
+	private DatabaseExport(IDatabase db, JsonStoreWriter writer) {
+		this.db = Objects.requireNonNull(db);
+		this.writer = Objects.requireNonNull(writer);
+	}
+
+	/**
+	 * Creates a new export of the given database into the given store. The
+	 * store must support concurrent writes.
+	 */
+	public static DatabaseExport of(IDatabase db, JsonStoreWriter writer) {
+		return new DatabaseExport(db, writer);
+	}
+
+	public DatabaseExport withThreads(int threads) {
+		this.threads = Math.max(1, threads);
+		return this;
+	}
+
+	/**
+	 * Set the number of data sets that are loaded with one query.
+	 */
+	public DatabaseExport withBatchSize(int batchSize) {
+		this.batchSize = Math.max(1, batchSize);
+		return this;
+	}
+
+	public DatabaseExport skipLibraryData(boolean b) {
+		skipLibraryData = b;
+		return this;
+	}
+
+	public DatabaseExport skipExternalFiles(boolean b) {
+		skipExternalFiles = b;
+		return this;
+	}
+
+	/**
+	 * Set a callback that is called for each exported data set. Note that the
+	 * callback is called from the worker threads.
+	 */
+	public DatabaseExport withCallback(Callback callback) {
+		this.callback = callback;
+		return this;
+	}
+
+	public void run() {
+		var exports = ThreadLocal.withInitial(() -> new JsonExport(db, writer)
+				.withReferences(false)
+				.skipLibraryData(skipLibraryData)
+				.skipExternalFiles(skipExternalFiles));
+
+		// the bounded queue together with the caller-runs policy makes sure
+		// that only a limited number of batches is loaded at the same time
+		var pool = new ThreadPoolExecutor(threads, threads,
+				0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(threads),
+				r -> {
+					var thread = new Thread(r, "json-export");
+					thread.setDaemon(true);
+					return thread;
+				},
+				new ThreadPoolExecutor.CallerRunsPolicy());
+
+		try {
+			for (var type : TYPES) {
+				for (var batch : batchesOf(type)) {
+					pool.execute(() -> exportBatch(type, batch, exports.get()));
+				}
+			}
+		} finally {
+			pool.shutdown();
+			try {
+				pool.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				pool.shutdownNow();
+			}
+		}
+	}
+
+	private List<HashSet<Long>> batchesOf(ModelType type) {
+		List<? extends RootDescriptor> descriptors = type == ModelType.PARAMETER
+				? new ParameterDao(db).getGlobalDescriptors()
+				: Daos.root(db, type).getDescriptors();
+		var ids = new ArrayList<Long>(descriptors.size());
+		for (var d : descriptors) {
+			if (skipLibraryData && d.isFromLibrary())
+				continue;
+			ids.add(d.id);
+		}
+		ids.sort(null);
+
+		var batches = new ArrayList<HashSet<Long>>();
+		HashSet<Long> batch = null;
+		for (var id : ids) {
+			if (batch == null || batch.size() >= batchSize) {
+				batch = new HashSet<>();
+				batches.add(batch);
+			}
+			batch.add(id);
+		}
+		return batches;
+	}
+
+	private void exportBatch(ModelType type, HashSet<Long> ids, JsonExport export) {
+		try {
+			List<? extends RootEntity> entities = Daos.root(db, type).getForIds(ids);
+			for (var entity : entities) {
+				export.write(entity, callback);
+			}
+		} catch (Exception e) {
+			log.error("failed to export batch of " + type, e);
+		}
+	}
+}
@@ -12,7 +12,13 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Upgrades data sets of schema version 1 to version 2. An instance can be
+ * used by multiple threads, e.g. in a JSON import with parallel reads; the
+ * lazily collected data of the store are thus guarded accordingly.
+ */
 class Upgrade2 extends Upgrade {
 
 	private List<JsonObject> _rawImpactMethods;
@@ -119,17 +125,8 @@ class Upgrade2 extends Upgrade {
 		if (nwRefs == null || nwRefs.isEmpty())
 			return;
 
-		if (_rawNwSets == null) {
-			_rawNwSets = super.getFiles("nw_sets").stream()
-				.map(super::getJson)
-				.filter(Objects::nonNull)
-				.filter(JsonElement::isJsonObject)
-				.map(JsonElement::getAsJsonObject)
-				.toList();
-		}
-
 		var idx = new HashMap<String, JsonObject>();
-		for (var nwSet : _rawNwSets) {
+		for (var nwSet : rawNwSets()) {
 			var id = Json.getString(nwSet, "@id");
 			if (id == null)
 				continue;
@@ -179,8 +176,19 @@ class Upgrade2 extends Upgrade {
 		}
 	}
 
-	private JsonObject getMethodOfImpact(String impactId) {
+	private synchronized List<JsonObject> rawNwSets() {
+		if (_rawNwSets == null) {
+			_rawNwSets = super.getFiles("nw_sets").stream()
+				.map(super::getJson)
+				.filter(Objects::nonNull)
+				.filter(JsonElement::isJsonObject)
+				.map(JsonElement::getAsJsonObject)
+				.toList();
+		}
+		return _rawNwSets;
+	}
 
+	private synchronized List<JsonObject> rawImpactMethods() {
 		if (_rawImpactMethods == null) {
 			_rawImpactMethods = super.getRefIds(ModelType.IMPACT_METHOD)
 				.stream()
@@ -188,8 +196,11 @@ class Upgrade2 extends Upgrade {
 				.filter(Objects::nonNull)
 				.toList();
 		}
+		return _rawImpactMethods;
+	}
 
-		for (var methodObj : _rawImpactMethods) {
+	private JsonObject getMethodOfImpact(String impactId) {
+		for (var methodObj : rawImpactMethods()) {
 			var impRefs = Json.getArray(methodObj, "impactCategories");
 			if (impRefs == null)
 				continue;
@@ -283,16 +294,20 @@ class Upgrade2 extends Upgrade {
 					parents.put(id, parentId);
 				}
 			}
-			var paths = new HashMap<String, String>();
+			// the paths are cached in a concurrent map as the builder is
+			// called from multiple threads when the objects are read in
+			// parallel
+			var paths = new ConcurrentHashMap<String, String>();
 			return new PathBuilder(names, parents, paths);
 		}
 
 		String getPath(String categoryId) {
-			if (categoryId == null)
-				return null;
-			var cached = paths.get(categoryId);
-			if (cached != null)
-				return cached;
+			return categoryId != null
+				? paths.computeIfAbsent(categoryId, this::buildPath)
+				: null;
+		}
+
+		private String buildPath(String categoryId) {
 			var buffer = new StringBuilder();
 			var nextId = categoryId;
 			do {
@@ -304,11 +319,9 @@ class Upgrade2 extends Upgrade {
 				}
 				nextId = parents.get(nextId);
 			} while (nextId != null);
-			if (buffer.isEmpty())
-				return null;
-			var path = buffer.toString();
-			paths.put(categoryId, path);
-			return path;
+			return buffer.isEmpty()
+				? null
+				: buffer.toString();
 		}
 	}
 }
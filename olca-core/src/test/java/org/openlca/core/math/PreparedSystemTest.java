@@ -0,0 +1,138 @@
+package org.openlca.core.math;
+
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.openlca.core.Tests;
+import org.openlca.core.database.IDatabase;
+import org.openlca.core.matrix.solvers.JavaSolver;
+import org.openlca.core.model.CalculationSetup;
+import org.openlca.core.model.Flow;
+import org.openlca.core.model.FlowProperty;
+import org.openlca.core.model.ImpactCategory;
+import org.openlca.core.model.ImpactMethod;
+import org.openlca.core.model.Parameter;
+import org.openlca.core.model.ParameterRedef;
+import org.openlca.core.model.Process;
+import org.openlca.core.model.ProductSystem;
+import org.openlca.core.model.UnitGroup;
+
+public class PreparedSystemTest {
+
+	private final IDatabase db = Tests.getDb();
+
+	private UnitGroup units;
+	private FlowProperty mass;
+	private Flow ch4;
+	private Flow co2;
+	private Flow p;
+	private Parameter param;
+	private Process process;
+	private ProductSystem system;
+	private ImpactCategory gwp;
+	private ImpactMethod method;
+
+	@Before
+	public void setup() {
+		units = db.insert(UnitGroup.of("Mass units", "kg"));
+		mass = db.insert(FlowProperty.of("Mass", units));
+		ch4 = db.insert(Flow.elementary("CH4", mass));
+		co2 = db.insert(Flow.elementary("CO2", mass));
+		p = db.insert(Flow.product("p", mass));
+
+		// CH4 depends on a process parameter, CO2 is constant
+		process = Process.of("P", p);
+		param = Parameter.process("a", 2);
+		process.parameters.add(param);
+		process.output(ch4, 2).formula = "a";
+		process.output(co2, 1);
+		process = db.insert(process);
+		system = db.insert(ProductSystem.of(process));
+
+		gwp = ImpactCategory.of("GWP");
+		gwp.factor(ch4, 25);
+		gwp.factor(co2, 1);
+		gwp = db.insert(gwp);
+		method = ImpactMethod.of("method");
+		method.impactCategories.add(gwp);
+		method = db.insert(method);
+	}
+
+	@After
+	public void tearDown() {
+		db.delete(method, gwp, system, process, p, co2, ch4, mass, units);
+	}
+
+	@Test
+	public void testRedefinitions() {
+		try (var prepared = PreparedSystem.of(db, setupOf(2, 2))) {
+			var calculator = new SystemCalculator(db)
+					.withSolver(new JavaSolver())
+					.withPreparedSystem(prepared);
+			for (double a : new double[]{1, 2, 5}) {
+				for (double amount : new double[]{1, 3}) {
+					var setup = setupOf(a, amount);
+					Assert.assertTrue(prepared.isCompatible(setup));
+					double expected = amount * (25 * a + 1);
+					Assert.assertEquals(expected, gwpOf(calculator, setup), 1e-10);
+
+					// the same as without the prepared system
+					double direct = gwpOf(new SystemCalculator(db)
+							.withSolver(new JavaSolver()), setup);
+					Assert.assertEquals(direct, gwpOf(calculator, setup), 1e-10);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testInvalidation() {
+		try (var prepared = PreparedSystem.of(db, setupOf(2, 1))) {
+			var calculator = new SystemCalculator(db)
+					.withSolver(new JavaSolver())
+					.withPreparedSystem(prepared);
+			Assert.assertEquals(51, gwpOf(calculator, setupOf(2, 1)), 1e-10);
+			Assert.assertFalse(prepared.isStale());
+
+			// change the constant CO2 output
+			for (var e : process.exchanges) {
+				if (e.flow.equals(co2)) {
+					e.amount = 3;
+				}
+			}
+			process = db.update(process);
+			Assert.assertTrue(prepared.isStale());
+			Assert.assertEquals(53, gwpOf(calculator, setupOf(2, 1)), 1e-10);
+			Assert.assertFalse(prepared.isStale());
+		}
+	}
+
+	@Test
+	public void testCompatibility() {
+		try (var prepared = PreparedSystem.of(db, setupOf(2, 1))) {
+			Assert.assertFalse(prepared.isCompatible(
+					CalculationSetup.of(system)));
+			Assert.assertFalse(prepared.isCompatible(
+					setupOf(2, 1).withSimulationRuns(10)));
+			Assert.assertThrows(IllegalArgumentException.class,
+					() -> prepared.dataOf(CalculationSetup.of(system)));
+		}
+	}
+
+	private CalculationSetup setupOf(double a, double amount) {
+		return CalculationSetup.of(system)
+				.withImpactMethod(method)
+				.withAmount(amount)
+				.withParameters(List.of(ParameterRedef.of(param, process, a)));
+	}
+
+	private double gwpOf(SystemCalculator calculator, CalculationSetup setup) {
+		var result = calculator.calculate(setup);
+		var impacts = result.provider().totalImpacts();
+		Assert.assertEquals(1, impacts.length);
+		return impacts[0];
+	}
+}
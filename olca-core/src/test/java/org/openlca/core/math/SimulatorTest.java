@@ -1,5 +1,7 @@
 package org.openlca.core.math;
 
+import java.nio.file.Files;
+
 import org.junit.Assert;
 import org.junit.Test;
 import org.openlca.core.Tests;
@@ -15,6 +17,8 @@ import org.openlca.core.model.Process;
 import org.openlca.core.model.ProductSystem;
 import org.openlca.core.model.Uncertainty;
 import org.openlca.core.model.UnitGroup;
+import org.openlca.core.model.descriptors.Descriptor;
+import org.openlca.core.results.simulation.SimulationStore;
 
 public class SimulatorTest {
 
@@ -64,4 +68,79 @@ public class SimulatorTest {
 		db.delete(method, gwp, system, process, p, ch4, mass, units);
 	}
 
+	@Test
+	public void testParallelRuns() {
+
+		// a process with an uncertain output of CH4
+		var units = db.insert(UnitGroup.of("Mass units", "kg"));
+		var mass = db.insert(FlowProperty.of("Mass", units));
+		var ch4 = db.insert(Flow.elementary("CH4", mass));
+		var p = db.insert(Flow.product("p", mass));
+		var process = Process.of("P", p);
+		var e = process.output(ch4, 1);
+		e.uncertainty = Uncertainty.uniform(1, 2);
+		db.insert(process);
+		var system = db.insert(ProductSystem.of(process));
+
+		var gwp = ImpactCategory.of("GWP");
+		gwp.factor(ch4, 25);
+		db.insert(gwp);
+		var method = ImpactMethod.of("method");
+		method.impactCategories.add(gwp);
+		db.insert(method);
+
+		var setup = CalculationSetup.of(system)
+				.withSimulationRuns(100)
+				.withImpactMethod(method);
+		var impact = Descriptor.of(gwp);
+
+		// the same seed should give the same results, independent
+		// of the number of workers
+		double[][] results = new double[2][];
+		int[] workers = {1, 4};
+		for (int k = 0; k < 2; k++) {
+			var simulator = Simulator.create(setup, db)
+					.withSolver(new JavaSolver())
+					.withSeed(42);
+			int succeeded = simulator.runParallel(100, workers[k]);
+			Assert.assertEquals(100, succeeded);
+			var result = simulator.getResult();
+			Assert.assertEquals(100, result.getNumberOfRuns());
+			results[k] = result.getAll(impact);
+			for (double val : results[k]) {
+				Assert.assertTrue(val >= 25 && val <= 50);
+			}
+		}
+		Assert.assertArrayEquals(results[0], results[1], 1e-12);
+
+		db.delete(method, gwp, system, process, p, ch4, mass, units);
+	}
+
+	@Test
+	public void testDisposeDeletesMappedStores() throws Exception {
+		var units = db.insert(UnitGroup.of("Mass units", "kg"));
+		var mass = db.insert(FlowProperty.of("Mass", units));
+		var ch4 = db.insert(Flow.elementary("CH4", mass));
+		var p = db.insert(Flow.product("p", mass));
+		var process = Process.of("P", p);
+		var e = process.output(ch4, 1);
+		e.uncertainty = Uncertainty.uniform(1, 2);
+		db.insert(process);
+		var system = db.insert(ProductSystem.of(process));
+
+		var dir = Files.createTempDirectory("_olca_tests").toFile();
+		var setup = CalculationSetup.of(system)
+				.withSimulationRuns(10);
+		var simulator = Simulator.create(setup, db)
+				.withSolver(new JavaSolver())
+				.withResultStore(SimulationStore.Factory.mappedIn(dir));
+		Assert.assertEquals(10, simulator.runParallel(10, 2));
+		Assert.assertTrue(dir.listFiles().length > 0);
+
+		simulator.dispose();
+		Assert.assertEquals(0, dir.listFiles().length);
+		Files.delete(dir.toPath());
+
+		db.delete(system, process, p, ch4, mass, units);
+	}
 }
@@ -0,0 +1,207 @@
+package org.openlca.core.math;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openlca.core.Tests;
+import org.openlca.core.database.IDatabase;
+import org.openlca.core.matrix.format.Matrix;
+import org.openlca.core.matrix.format.MatrixReader;
+import org.openlca.core.matrix.index.EnviFlow;
+import org.openlca.core.matrix.index.TechFlow;
+import org.openlca.core.matrix.solvers.Factorization;
+import org.openlca.core.matrix.solvers.JavaSolver;
+import org.openlca.core.matrix.solvers.MatrixSolver;
+import org.openlca.core.model.CalculationSetup;
+import org.openlca.core.model.Flow;
+import org.openlca.core.model.FlowProperty;
+import org.openlca.core.model.Process;
+import org.openlca.core.model.ProductSystem;
+import org.openlca.core.model.UnitGroup;
+
+public class SubSystemCalculationTest {
+
+	private final IDatabase db = Tests.getDb();
+
+	@Test
+	public void testSharedSubSystem() {
+		var units = db.insert(UnitGroup.of("Units of mass", "kg"));
+		var mass = db.insert(FlowProperty.of("Mass", units));
+		var e = db.insert(Flow.elementary("e", mass));
+		var a = db.insert(Flow.product("a", mass));
+		var b = db.insert(Flow.product("b", mass));
+		var c = db.insert(Flow.product("c", mass));
+		var d = db.insert(Flow.product("d", mass));
+
+		// D is used in B and C which are both used in A
+		var procD = Process.of("D", d);
+		procD.output(e, 1);
+		db.insert(procD);
+		var procB = Process.of("B", b);
+		procB.input(d, 1);
+		procB.output(e, 1);
+		db.insert(procB);
+		var procC = Process.of("C", c);
+		procC.input(d, 1);
+		procC.output(e, 1);
+		db.insert(procC);
+		var procA = Process.of("A", a);
+		procA.input(b, 1);
+		procA.input(c, 1);
+		procA.output(e, 1);
+		db.insert(procA);
+
+		var sysD = db.insert(ProductSystem.of(procD));
+		var sysB = ProductSystem.of(procB);
+		sysB.link(TechFlow.of(sysD), procB);
+		db.insert(sysB);
+		var sysC = ProductSystem.of(procC);
+		sysC.link(TechFlow.of(sysD), procC);
+		db.insert(sysC);
+		var sysA = ProductSystem.of(procA);
+		sysA.link(TechFlow.of(sysB), procA);
+		sysA.link(TechFlow.of(sysC), procA);
+		db.insert(sysA);
+
+		var pool = Executors.newFixedThreadPool(2);
+		try {
+			var result = new SystemCalculator(db)
+					.withExecutor(pool)
+					.calculate(CalculationSetup.of(sysA));
+			Assert.assertEquals(5,
+					result.getTotalFlowValueOf(EnviFlow.outputOf(e)), 1e-12);
+
+			// D is calculated only once
+			var subB = result.subResultOf(TechFlow.of(sysB));
+			var subC = result.subResultOf(TechFlow.of(sysC));
+			Assert.assertNotNull(subB);
+			Assert.assertNotNull(subC);
+			var subD = subB.subResultOf(TechFlow.of(sysD));
+			Assert.assertNotNull(subD);
+			Assert.assertSame(subD, subC.subResultOf(TechFlow.of(sysD)));
+		} finally {
+			pool.shutdown();
+		}
+
+		db.delete(sysA, sysB, sysC, sysD, procA, procB, procC, procD,
+				a, b, c, d, e, mass, units);
+	}
+
+	@Test
+	public void testNotThreadSafeSolver() {
+		var units = db.insert(UnitGroup.of("Units of mass", "kg"));
+		var mass = db.insert(FlowProperty.of("Mass", units));
+		var e = db.insert(Flow.elementary("e", mass));
+		var a = db.insert(Flow.product("a", mass));
+		var b = db.insert(Flow.product("b", mass));
+		var c = db.insert(Flow.product("c", mass));
+
+		var procB = Process.of("B", b);
+		procB.output(e, 1);
+		db.insert(procB);
+		var procC = Process.of("C", c);
+		procC.output(e, 1);
+		db.insert(procC);
+		var procA = Process.of("A", a);
+		procA.input(b, 1);
+		procA.input(c, 1);
+		procA.output(e, 1);
+		db.insert(procA);
+
+		var sysB = db.insert(ProductSystem.of(procB));
+		var sysC = db.insert(ProductSystem.of(procC));
+		var sysA = ProductSystem.of(procA);
+		sysA.link(TechFlow.of(sysB), procA);
+		sysA.link(TechFlow.of(sysC), procA);
+		db.insert(sysA);
+
+		// the independent sub-systems B and C are not calculated in parallel
+		// with a solver that is not thread-safe
+		var solver = new ThreadRecorder();
+		var pool = Executors.newFixedThreadPool(2);
+		try {
+			var result = new SystemCalculator(db)
+					.withSolver(solver)
+					.withExecutor(pool)
+					.calculate(CalculationSetup.of(sysA));
+			Assert.assertEquals(3,
+					result.getTotalFlowValueOf(EnviFlow.outputOf(e)), 1e-12);
+			Assert.assertEquals(
+					Set.of(Thread.currentThread()), solver.threads);
+		} finally {
+			pool.shutdown();
+		}
+
+		db.delete(sysA, sysB, sysC, procA, procB, procC,
+				a, b, c, e, mass, units);
+	}
+
+	@Test
+	public void testCycle() {
+		var units = db.insert(UnitGroup.of("Units of mass", "kg"));
+		var mass = db.insert(FlowProperty.of("Mass", units));
+		var x = db.insert(Flow.product("x", mass));
+		var y = db.insert(Flow.product("y", mass));
+
+		var procX = Process.of("X", x);
+		procX.input(y, 0.5);
+		db.insert(procX);
+		var procY = Process.of("Y", y);
+		procY.input(x, 0.5);
+		db.insert(procY);
+
+		var sysX = db.insert(ProductSystem.of(procX));
+		var sysY = db.insert(ProductSystem.of(procY));
+		sysX.link(TechFlow.of(sysY), procX);
+		sysX = db.update(sysX);
+		sysY.link(TechFlow.of(sysX), procY);
+		sysY = db.update(sysY);
+
+		var setup = CalculationSetup.of(sysX);
+		Assert.assertThrows(IllegalStateException.class,
+				() -> new SystemCalculator(db).calculate(setup));
+
+		db.delete(sysX, sysY, procX, procY, x, y, mass, units);
+	}
+
+	/**
+	 * A solver that is not thread-safe and records the threads on which it
+	 * is used.
+	 */
+	private static class ThreadRecorder implements MatrixSolver {
+
+		private final MatrixSolver solver = new JavaSolver();
+		private final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+
+		@Override
+		public boolean hasSparseSupport() {
+			return solver.hasSparseSupport();
+		}
+
+		@Override
+		public Matrix matrix(int rows, int columns) {
+			return solver.matrix(rows, columns);
+		}
+
+		@Override
+		public double[] solve(MatrixReader a, int idx, double d) {
+			threads.add(Thread.currentThread());
+			return solver.solve(a, idx, d);
+		}
+
+		@Override
+		public Matrix invert(MatrixReader a) {
+			threads.add(Thread.currentThread());
+			return solver.invert(a);
+		}
+
+		@Override
+		public Factorization factorize(MatrixReader matrix) {
+			threads.add(Thread.currentThread());
+			return solver.factorize(matrix);
+		}
+	}
+}
@@ -0,0 +1,95 @@
+package org.openlca.core.matrix.io.npy;
+
+import java.io.File;
+import java.lang.ref.WeakReference;
+import java.nio.file.Files;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openlca.core.matrix.format.DenseMatrix;
+import org.openlca.core.matrix.io.MappedNpyMatrix;
+import org.openlca.core.matrix.io.NpyMatrix;
+import org.openlca.npy.Npy;
+import org.openlca.npy.NpyDoubleArray;
+import org.openlca.util.Dirs;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class MappedNpyMatrixTest {
+
+	private File dir;
+	private DenseMatrix matrix;
+
+	@Before
+	public void setup() throws Exception {
+		matrix = new DenseMatrix(2, 3);
+		matrix.setValues(new double[][]{
+			{1., 2., 0.},
+			{4., 5., 6.}
+		});
+		dir = Files.createTempDirectory("_olca_tests").toFile();
+	}
+
+	@After
+	public void tearDown() {
+		MappedNpyMatrix.releaseAll(dir);
+		Dirs.delete(dir);
+	}
+
+	@Test
+	public void testColumnOrder() {
+		var file = NpyMatrix.write(dir, "M", matrix);
+		check(MappedNpyMatrix.of(file));
+	}
+
+	@Test
+	public void testRowOrder() {
+		var file = new File(dir, "M.npy");
+		var rowData = new double[]{1., 2., 0., 4., 5., 6.};
+		Npy.write(file, NpyDoubleArray.rowOrderOf(rowData, 2, 3));
+		check(MappedNpyMatrix.of(file));
+	}
+
+	@Test
+	public void testSharedMapping() {
+		var file = NpyMatrix.write(dir, "M", matrix);
+		var m1 = MappedNpyMatrix.of(file);
+		assertSame(m1, MappedNpyMatrix.of(file));
+		MappedNpyMatrix.releaseAll(dir);
+		assertNotSame(m1, MappedNpyMatrix.of(file));
+	}
+
+	@Test
+	public void testUnusedMappingIsCollected() throws Exception {
+		var file = NpyMatrix.write(dir, "M", matrix);
+		var ref = new WeakReference<>(MappedNpyMatrix.of(file));
+		for (int i = 0; i < 50 && ref.get() != null; i++) {
+			System.gc();
+			Thread.sleep(10);
+		}
+		assertNull(ref.get());
+		check(MappedNpyMatrix.of(file));
+	}
+
+	private void check(MappedNpyMatrix m) {
+		assertEquals(2, m.rows());
+		assertEquals(3, m.columns());
+		for (int j = 0; j < 3; j++) {
+			assertArrayEquals(matrix.getColumn(j), m.getColumn(j), 1e-16);
+		}
+		for (int i = 0; i < 2; i++) {
+			assertArrayEquals(matrix.getRow(i), m.getRow(i), 1e-16);
+		}
+		assertArrayEquals(matrix.diag(), m.diag(), 1e-16);
+		var v = new double[]{1., 0., 2.};
+		assertArrayEquals(matrix.multiply(v), m.multiply(v), 1e-16);
+		var copy = new DenseMatrix(2, 3);
+		m.copyTo(copy, 0, 0);
+		assertArrayEquals(matrix.data, copy.data, 1e-16);
+	}
+}
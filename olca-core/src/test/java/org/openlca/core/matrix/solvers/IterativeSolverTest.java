@@ -0,0 +1,79 @@
+package org.openlca.core.matrix.solvers;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openlca.core.matrix.format.HashPointMatrix;
+import org.openlca.core.matrix.solvers.IterativeSolver.Method;
+import org.openlca.core.matrix.solvers.IterativeSolver.Preconditioner;
+
+public class IterativeSolverTest {
+
+	@Test
+	public void testMethods() {
+		var a = techMatrix(200, new Random(42));
+		var expected = new JavaSolver().solve(a, 0, 1);
+		for (var method : Method.values()) {
+			for (var pre : Preconditioner.values()) {
+				var solver = new IterativeSolver(new JavaSolver())
+						.withMethod(method)
+						.withPreconditioner(pre)
+						.withTolerance(1e-12);
+				var x = solver.solve(a, 0, 1);
+				Assert.assertArrayEquals(
+						method + " + " + pre, expected, x, 1e-9);
+				Assert.assertTrue(solver.lastIterations() > 0);
+			}
+		}
+	}
+
+	@Test
+	public void testMissingDiagonal() {
+		var a = HashPointMatrix.of(new double[][]{
+			{0., 2., 1.},
+			{1., 0., 3.},
+			{4., 1., 0.},
+		});
+		var expected = new JavaSolver().solve(a, 1, 2);
+		var solver = new IterativeSolver(new JavaSolver())
+				.withTolerance(1e-12);
+		Assert.assertArrayEquals(expected, solver.solve(a, 1, 2), 1e-9);
+	}
+
+	@Test
+	public void testWarmStart() {
+		var rand = new Random(42);
+		var a = techMatrix(500, rand);
+		var solver = new IterativeSolver(new JavaSolver())
+				.withPreconditioner(Preconditioner.JACOBI)
+				.withTolerance(1e-12);
+		solver.factorize(a).solve(0, 1);
+		int cold = solver.lastIterations();
+
+		// a slightly changed matrix converges faster from the last solution
+		a.iterate((row, col, val) -> {
+			if (row != col) {
+				a.set(row, col, val * (1 + 0.001 * rand.nextGaussian()));
+			}
+		});
+		var x = solver.factorize(a).solve(0, 2);
+		int warm = solver.lastIterations();
+		Assert.assertTrue(warm < cold);
+		Assert.assertArrayEquals(new JavaSolver().solve(a, 0, 2), x, 1e-9);
+	}
+
+	private HashPointMatrix techMatrix(int n, Random rand) {
+		var a = new HashPointMatrix(n, n);
+		for (int j = 0; j < n; j++) {
+			a.set(j, j, 1 + rand.nextDouble());
+			for (int k = 0; k < 3; k++) {
+				int i = rand.nextInt(n);
+				if (i != j) {
+					a.set(i, j, -0.2 * rand.nextDouble());
+				}
+			}
+		}
+		return a;
+	}
+}
@@ -0,0 +1,96 @@
+package org.openlca.core.matrix.solvers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openlca.core.matrix.format.CSCMatrix;
+import org.openlca.core.matrix.format.HashPointMatrix;
+import org.openlca.core.matrix.format.MatrixReader;
+
+public class PatternReusingSolverTest {
+
+	@Test
+	public void testReusePattern() {
+		var delegate = new SparseJavaSolver();
+		var solver = PatternReusingSolver.of(delegate);
+
+		var a = HashPointMatrix.of(new double[][]{
+			{1., 0., 0.},
+			{-2., 1., 0.},
+			{0., -3., 1.},
+		});
+		var x = solver.factorize(a).solve(0, 1);
+		Assert.assertArrayEquals(new double[]{1, 2, 6}, x, 1e-12);
+
+		// same pattern, new values
+		a.set(1, 0, -4);
+		x = solver.factorize(a).solve(0, 1);
+		Assert.assertArrayEquals(new double[]{1, 4, 12}, x, 1e-12);
+		assertSamePattern(delegate.factorized.get(0), delegate.factorized.get(1));
+
+		// a removed entry still fits into the pattern
+		a.set(2, 1, 0);
+		x = solver.factorize(a).solve(0, 1);
+		Assert.assertArrayEquals(new double[]{1, 4, 0}, x, 1e-12);
+		assertSamePattern(delegate.factorized.get(0), delegate.factorized.get(2));
+
+		// a new entry requires a new pattern
+		a.set(2, 0, -1);
+		x = solver.factorize(a).solve(0, 1);
+		Assert.assertArrayEquals(new double[]{1, 4, 1}, x, 1e-12);
+		var first = (CSCMatrix) delegate.factorized.get(0);
+		var last = (CSCMatrix) delegate.factorized.get(3);
+		Assert.assertNotSame(first.columnPointers, last.columnPointers);
+	}
+
+	@Test
+	public void testOldFactorizationAfterRefresh() {
+		// the iterative solver keeps the matrix of a factorization for its
+		// direct fallback; with one iteration, it always uses the fallback
+		var solver = PatternReusingSolver.of(new IterativeSolver(new JavaSolver())
+				.withMaxIterations(1));
+		var a = HashPointMatrix.of(new double[][]{
+			{1., 0., -1.},
+			{-2., 1., 0.},
+			{0., -3., 1.},
+		});
+		var expected = new JavaSolver().solve(a, 0, 1);
+		var old = solver.factorize(a);
+
+		// refresh the pattern with new values
+		a.set(1, 0, -4);
+		a.set(0, 2, -0.5);
+		var next = solver.factorize(a);
+		Assert.assertArrayEquals(
+				new JavaSolver().solve(a, 0, 1), next.solve(0, 1), 1e-10);
+		Assert.assertArrayEquals(expected, old.solve(0, 1), 1e-10);
+	}
+
+	private void assertSamePattern(MatrixReader a, MatrixReader b) {
+		var first = (CSCMatrix) a;
+		var second = (CSCMatrix) b;
+		Assert.assertNotSame(first, second);
+		Assert.assertNotSame(first.values, second.values);
+		Assert.assertSame(first.columnPointers, second.columnPointers);
+		Assert.assertSame(first.rowIndices, second.rowIndices);
+	}
+
+	private static class SparseJavaSolver extends JavaSolver {
+
+		final List<MatrixReader> factorized = new ArrayList<>();
+
+		@Override
+		public boolean hasSparseSupport() {
+			return true;
+		}
+
+		@Override
+		public Factorization factorize(MatrixReader matrix) {
+			Assert.assertTrue(matrix instanceof CSCMatrix);
+			factorized.add(matrix);
+			return super.factorize(matrix);
+		}
+	}
+}
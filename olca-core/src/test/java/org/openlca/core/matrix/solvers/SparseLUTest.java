@@ -0,0 +1,122 @@
+package org.openlca.core.matrix.solvers;
+
+import java.util.Random;
+
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.ArrayRealVector;
+import org.apache.commons.math3.linear.LUDecomposition;
+import org.apache.commons.math3.linear.SingularMatrixException;
+import org.junit.Assert;
+import org.junit.Test;
+import org.openlca.core.matrix.format.DenseMatrix;
+import org.openlca.core.matrix.format.HashPointMatrix;
+
+public class SparseLUTest {
+
+	@Test
+	public void testSimpleSystem() {
+		var a = HashPointMatrix.of(new double[][]{
+			{1., 0., -0.5},
+			{-2., 1., 0.},
+			{0., -3., 1.},
+		});
+		var x = SparseLU.of(a).solve(0, 1);
+		var dense = denseSolve(a, 0, 1);
+		Assert.assertArrayEquals(dense, x, 1e-12);
+	}
+
+	@Test
+	public void testTechMatrices() {
+		var rand = new Random(42);
+		for (int n : new int[]{1, 2, 10, 100, 500}) {
+			var a = techMatrix(n, rand);
+			var lu = SparseLU.of(a);
+			for (int idx : new int[]{0, n / 2, n - 1}) {
+				Assert.assertArrayEquals(
+						denseSolve(a, idx, 1), lu.solve(idx, 1), 1e-9);
+			}
+		}
+	}
+
+	@Test
+	public void testPivoting() {
+		// a zero diagonal requires off-diagonal pivots
+		var a = HashPointMatrix.of(new double[][]{
+			{0., 2., 1.},
+			{1., 0., 3.},
+			{4., 1., 0.},
+		});
+		var lu = SparseLU.of(a);
+		for (int i = 0; i < 3; i++) {
+			Assert.assertArrayEquals(denseSolve(a, i, 1), lu.solve(i, 1), 1e-12);
+		}
+	}
+
+	@Test(expected = SingularMatrixException.class)
+	public void testSingular() {
+		var a = HashPointMatrix.of(new double[][]{
+			{1., 2.},
+			{2., 4.},
+		});
+		SparseLU.of(a);
+	}
+
+	@Test
+	public void testSolveMatrix() {
+		int n = 100;
+		var a = techMatrix(n, new Random(11));
+		var lu = SparseLU.of(a);
+
+		// more columns than the block size and a last, partial block
+		var b = new DenseMatrix(n, 37);
+		for (int j = 0; j < b.columns(); j++) {
+			b.set(j, j, 1);
+			b.set(n - 1 - j, j, 0.5);
+		}
+		var x = lu.solve(b);
+		for (int j = 0; j < b.columns(); j++) {
+			Assert.assertArrayEquals(
+					lu.solve(b.getColumn(j)), x.getColumn(j), 1e-12);
+		}
+	}
+
+	@Test
+	public void testJavaSolver() {
+		var a = techMatrix(50, new Random(7));
+		var solver = new JavaSolver();
+		Assert.assertTrue(solver.factorize(a) instanceof SparseLU);
+		Assert.assertArrayEquals(
+				denseSolve(a, 3, 2), solver.solve(a, 3, 2), 1e-9);
+	}
+
+	/**
+	 * Creates a random technology matrix with a unit diagonal, a few random
+	 * inputs per column, and a hub process that is used by many others.
+	 */
+	private HashPointMatrix techMatrix(int n, Random rand) {
+		var a = new HashPointMatrix(n, n);
+		for (int j = 0; j < n; j++) {
+			a.set(j, j, 1);
+			if (n == 1)
+				continue;
+			for (int k = 0; k < 3; k++) {
+				int i = rand.nextInt(n);
+				if (i != j) {
+					a.set(i, j, -0.1 * rand.nextDouble());
+				}
+			}
+			if (j != 0 && rand.nextBoolean()) {
+				a.set(0, j, -0.05 * rand.nextDouble());
+			}
+		}
+		return a;
+	}
+
+	private double[] denseSolve(HashPointMatrix a, int idx, double val) {
+		var m = new Array2DRowRealMatrix(a.rows(), a.columns());
+		a.iterate(m::setEntry);
+		var b = new ArrayRealVector(a.rows());
+		b.setEntry(idx, val);
+		return new LUDecomposition(m).getSolver().solve(b).toArray();
+	}
+}
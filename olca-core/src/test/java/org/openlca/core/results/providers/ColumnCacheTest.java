@@ -0,0 +1,165 @@
+package org.openlca.core.results.providers;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.openlca.core.matrix.Demand;
+import org.openlca.core.matrix.MatrixData;
+import org.openlca.core.matrix.format.HashPointMatrix;
+import org.openlca.core.matrix.index.TechFlow;
+import org.openlca.core.matrix.index.TechIndex;
+import org.openlca.core.model.descriptors.FlowDescriptor;
+import org.openlca.core.model.descriptors.ProcessDescriptor;
+
+public class ColumnCacheTest {
+
+	private long budget;
+
+	@Before
+	public void setup() {
+		budget = ColumnCache.memoryBudget();
+		ColumnCache.clearAll();
+	}
+
+	@After
+	public void tearDown() {
+		ColumnCache.setMemoryBudget(budget);
+		ColumnCache.setCompaction(true);
+		ColumnCache.clearAll();
+	}
+
+	@Test
+	public void testGetPut() {
+		var cache = ColumnCache.create("test");
+		Assert.assertNull(cache.get(1));
+		var v = new double[]{1, 2, 3};
+		cache.put(1, v);
+		Assert.assertArrayEquals(v, cache.get(1), 0);
+		Assert.assertEquals(1, cache.hits());
+		Assert.assertEquals(1, cache.misses());
+
+		// caches do not share entries
+		var other = ColumnCache.create("other");
+		Assert.assertNull(other.get(1));
+		cache.clear();
+		Assert.assertNull(cache.get(1));
+	}
+
+	@Test
+	public void testCompaction() {
+		var cache = ColumnCache.create("test");
+		var v = new double[1000];
+		v[3] = 1;
+		v[997] = -2;
+		cache.put(0, v);
+		Assert.assertArrayEquals(v, cache.get(0), 0);
+		Assert.assertTrue(ColumnCache.stats().usedBytes() < 8 * v.length);
+
+		ColumnCache.setCompaction(false);
+		cache.put(0, v);
+		Assert.assertTrue(ColumnCache.stats().usedBytes() > 8 * v.length);
+	}
+
+	@Test
+	public void testGlobalBudget() {
+		ColumnCache.setCompaction(false);
+		ColumnCache.setMemoryBudget(10 * (8 * 100 + 96));
+		var c1 = ColumnCache.create("c1");
+		var c2 = ColumnCache.create("c2");
+		for (int i = 0; i < 10; i++) {
+			c1.put(i, new double[100]);
+		}
+		c1.get(0); // 0 is now the most recently used entry
+		long evictions = ColumnCache.stats().evictions();
+
+		// adding entries to another cache evicts the oldest entries
+		c2.put(0, new double[100]);
+		c2.put(1, new double[100]);
+		var stats = ColumnCache.stats();
+		Assert.assertEquals(10, stats.entries());
+		Assert.assertEquals(evictions + 2, stats.evictions());
+		Assert.assertTrue(stats.usedBytes() <= stats.budget());
+		Assert.assertTrue(c1.contains(0));
+		Assert.assertFalse(c1.contains(1));
+		Assert.assertFalse(c1.contains(2));
+		Assert.assertTrue(c1.contains(3));
+		Assert.assertTrue(c2.contains(1));
+	}
+
+	@Test
+	public void testLocalCache() {
+		ColumnCache.setCompaction(false);
+		ColumnCache.setMemoryBudget(10 * (8 * 100 + 96));
+		var global = ColumnCache.create("global");
+		for (int i = 0; i < 10; i++) {
+			global.put(i, new double[100]);
+		}
+		long evictions = ColumnCache.stats().evictions();
+
+		// local caches are not part of the budget
+		var local = ColumnCache.createLocal("local");
+		for (int i = 0; i < 20; i++) {
+			local.put(i, new double[100]);
+		}
+		Assert.assertEquals(20, local.size());
+		Assert.assertEquals(10, global.size());
+		var stats = ColumnCache.stats();
+		Assert.assertEquals(10, stats.entries());
+		Assert.assertEquals(evictions, stats.evictions());
+	}
+
+	@Test
+	public void testReleaseCollectedCaches() throws Exception {
+		ColumnCache.setCompaction(false);
+		fillDroppedCache();
+		Assert.assertTrue(ColumnCache.stats().usedBytes() > 0);
+		for (int i = 0; i < 100 && ColumnCache.stats().usedBytes() > 0; i++) {
+			System.gc();
+			Thread.sleep(20);
+		}
+		Assert.assertEquals(0, ColumnCache.stats().usedBytes());
+		Assert.assertEquals(0, ColumnCache.stats().entries());
+	}
+
+	private void fillDroppedCache() {
+		var cache = ColumnCache.create("dropped");
+		for (int i = 0; i < 10; i++) {
+			cache.put(i, new double[100]);
+		}
+	}
+
+	@Test
+	public void testDisposeProvider() {
+		var data = new MatrixData();
+		data.techMatrix = HashPointMatrix.of(new double[][]{
+				{1.0, 0.0},
+				{-0.5, 1.0},
+		});
+		data.techIndex = new TechIndex(product(1));
+		data.techIndex.add(product(2));
+		data.demand = Demand.of(data.techIndex.at(0), 1.0);
+		var provider = FactorizationSolver.solve(SolverContext.of(data));
+		provider.solutionOfOne(1);
+		Assert.assertEquals(2, ColumnCache.stats().entries());
+		provider.dispose();
+		Assert.assertEquals(0, ColumnCache.stats().entries());
+		Assert.assertEquals(0, ColumnCache.stats().usedBytes());
+		Assert.assertArrayEquals(
+				new double[]{0, 1}, provider.solutionOfOne(1), 1e-10);
+
+		// short-lived providers do not use the global cache
+		var simProvider = FactorizationSolver.solve(
+				SolverContext.of(data).shortLived(true));
+		simProvider.solutionOfOne(1);
+		Assert.assertEquals(1, ColumnCache.stats().entries());
+	}
+
+	private TechFlow product(int i) {
+		var process = new ProcessDescriptor();
+		process.id = i;
+		var flow = new FlowDescriptor();
+		flow.id = i;
+		return TechFlow.of(process, flow);
+	}
+}
@@ -1,12 +1,19 @@
 package org.openlca.core.results.providers;
 
+import java.util.Random;
+
 import org.junit.Assert;
 import org.junit.Test;
 import org.openlca.core.matrix.Demand;
 import org.openlca.core.matrix.MatrixData;
 import org.openlca.core.matrix.format.HashPointMatrix;
+import org.openlca.core.matrix.format.Matrix;
+import org.openlca.core.matrix.format.MatrixReader;
 import org.openlca.core.matrix.index.TechFlow;
 import org.openlca.core.matrix.index.TechIndex;
+import org.openlca.core.matrix.solvers.Factorization;
+import org.openlca.core.matrix.solvers.JavaSolver;
+import org.openlca.core.matrix.solvers.MatrixSolver;
 import org.openlca.core.model.descriptors.FlowDescriptor;
 import org.openlca.core.model.descriptors.ProcessDescriptor;
 
@@ -31,6 +38,108 @@ public class LazyProviderTest {
 				new double[]{1.0, 1.0, 1.0}, scaling, 1e-10);
 	}
 
+	@Test
+	public void testPrefetch() {
+		var data = new MatrixData();
+		data.techMatrix = HashPointMatrix.of(new double[][]{
+				{1.0, 0.0, 0.0},
+				{-0.5, 1.0, -0.1},
+				{-2.0, -1.0, 1.0},
+		});
+		data.techIndex = new TechIndex(product(1));
+		data.techIndex.add(product(2));
+		data.techIndex.add(product(3));
+		data.demand = Demand.of(data.techIndex.at(0), 1.0);
+
+		var expected = FactorizationSolver.solve(SolverContext.of(data));
+		var provider = FactorizationSolver.solve(SolverContext.of(data));
+		provider.prefetch(new int[]{1, 2, 1});
+		for (int j = 0; j < 3; j++) {
+			Assert.assertArrayEquals(
+					expected.solutionOfOne(j), provider.solutionOfOne(j), 1e-10);
+		}
+	}
+
+	@Test
+	public void testPrefetchBlocks() {
+		// more columns than fit into one prefetch block
+		int n = 300;
+		var rand = new Random(42);
+		var data = new MatrixData();
+		var a = new HashPointMatrix(n, n);
+		data.techIndex = new TechIndex(product(1));
+		for (int i = 0; i < n; i++) {
+			if (i > 0) {
+				data.techIndex.add(product(i + 1));
+			}
+			a.set(i, i, 1.0);
+			for (int k = 0; k < 3; k++) {
+				int j = rand.nextInt(n);
+				if (j != i) {
+					a.set(j, i, -0.1 * rand.nextDouble());
+				}
+			}
+		}
+		data.techMatrix = a;
+		data.demand = Demand.of(data.techIndex.at(0), 1.0);
+		var all = new int[n];
+		for (int i = 0; i < n; i++) {
+			all[i] = i;
+		}
+
+		// a factorization with and without a block solve
+		var solvers = new MatrixSolver[]{new JavaSolver(), new NoBlockSolver()};
+		for (var solver : solvers) {
+			var context = SolverContext.of(data).solver(solver);
+			var single = FactorizationSolver.solve(context);
+			var prefetched = FactorizationSolver.solve(context);
+			prefetched.prefetch(all);
+			for (int j = 0; j < n; j++) {
+				Assert.assertArrayEquals(single.solutionOfOne(j),
+						prefetched.solutionOfOne(j), 1e-12);
+			}
+		}
+	}
+
+	/**
+	 * A solver with factorizations that do not support block solves; a call
+	 * of solve(Matrix) fails.
+	 */
+	private static class NoBlockSolver extends JavaSolver {
+
+		@Override
+		public Factorization factorize(MatrixReader matrix) {
+			var f = super.factorize(matrix);
+			return new Factorization() {
+
+				@Override
+				public int size() {
+					return f.size();
+				}
+
+				@Override
+				public double[] solve(double[] b) {
+					return f.solve(b);
+				}
+
+				@Override
+				public Matrix solve(Matrix b) {
+					throw new AssertionError("no block solve expected");
+				}
+
+				@Override
+				public void dispose() {
+					f.dispose();
+				}
+
+				@Override
+				public boolean isDisposed() {
+					return f.isDisposed();
+				}
+			};
+		}
+	}
+
 	private TechFlow product(int i) {
 		var process = new ProcessDescriptor();
 		process.id = i;
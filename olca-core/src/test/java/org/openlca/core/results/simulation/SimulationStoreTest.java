@@ -0,0 +1,121 @@
+package org.openlca.core.results.simulation;
+
+import java.nio.file.Files;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openlca.core.results.Statistics;
+
+public class SimulationStoreTest {
+
+	@Test
+	public void testHeapStore() {
+		check(SimulationStore.onHeap(3000));
+	}
+
+	@Test
+	public void testMappedStore() throws Exception {
+		var dir = Files.createTempDirectory("_olca_tests").toFile();
+		var store = SimulationStore.mappedIn(dir, 3000);
+		check(store);
+		Assert.assertEquals(0, dir.listFiles().length);
+		Files.delete(dir.toPath());
+	}
+
+	/**
+	 * Appends more runs than fit into a single block and checks the values
+	 * and statistics.
+	 */
+	private void check(SimulationStore store) {
+		int runs = 1000;
+		var rand = new Random(42);
+		var expected = new double[runs][];
+		for (int i = 0; i < runs; i++) {
+			var v = new double[store.length()];
+			for (int j = 0; j < v.length; j++) {
+				v[j] = j + rand.nextGaussian();
+			}
+			expected[i] = v;
+			store.append(v);
+		}
+		Assert.assertEquals(runs, store.size());
+
+		for (int j : new int[]{0, 1, 1234, 2999}) {
+			var column = store.column(j);
+			Assert.assertEquals(runs, column.length);
+			for (int i = 0; i < runs; i++) {
+				Assert.assertEquals(expected[i][j], column[i], 1e-16);
+				Assert.assertEquals(expected[i][j], store.get(i, j), 1e-16);
+			}
+
+			var exact = Statistics.of(column);
+			var stats = store.statistics(j);
+			Assert.assertEquals(runs, stats.count());
+			Assert.assertEquals(exact.mean, stats.mean(), 1e-10);
+			Assert.assertEquals(exact.standardDeviation,
+					stats.standardDeviation(), 1e-10);
+			Assert.assertEquals(exact.min, stats.min(), 1e-16);
+			Assert.assertEquals(exact.max, stats.max(), 1e-16);
+			Assert.assertEquals(exact.median, stats.median(), 0.1);
+			Assert.assertEquals(exact.getPercentileValue(5),
+					stats.percentile(5), 0.2);
+		}
+		Assert.assertEquals(0, store.get(runs, 0), 1e-16);
+		store.close();
+	}
+
+	@Test
+	public void testGrowFirstBlock() {
+		// 100 runs of a short vector are in the growing buffer of the first
+		// block
+		var store = SimulationStore.onHeap(10);
+		for (int i = 0; i < 100; i++) {
+			var v = new double[10];
+			for (int j = 0; j < v.length; j++) {
+				v[j] = i * 10 + j;
+			}
+			store.append(v);
+			Assert.assertEquals(i * 10 + 9, store.get(i, 9), 1e-16);
+		}
+		for (int j = 0; j < 10; j++) {
+			var column = store.column(j);
+			Assert.assertEquals(100, column.length);
+			for (int i = 0; i < 100; i++) {
+				Assert.assertEquals(i * 10 + j, column[i], 1e-16);
+				Assert.assertEquals(i * 10 + j, store.get(i, j), 1e-16);
+			}
+		}
+		store.close();
+	}
+
+	@Test
+	public void testStatisticsSnapshot() {
+		var store = SimulationStore.onHeap(1);
+		store.append(new double[]{1});
+		var stats = store.statistics(0);
+		store.append(new double[]{3});
+		Assert.assertEquals(1, stats.count());
+		Assert.assertEquals(1, stats.mean(), 1e-16);
+		var next = store.statistics(0);
+		Assert.assertEquals(2, next.count());
+		Assert.assertEquals(2, next.mean(), 1e-16);
+		Assert.assertEquals(2, next.median(), 1e-16);
+		store.close();
+	}
+
+	@Test
+	public void testNegatedStatistics() {
+		var stats = new RunningStatistics();
+		for (int i = 1; i <= 100; i++) {
+			stats.add(i);
+		}
+		var neg = stats.negated();
+		Assert.assertEquals(-stats.mean(), neg.mean(), 1e-16);
+		Assert.assertEquals(-100, neg.min(), 1e-16);
+		Assert.assertEquals(-1, neg.max(), 1e-16);
+		Assert.assertEquals(-stats.percentile(95), neg.percentile(5), 1e-10);
+		Assert.assertEquals(stats.standardDeviation(),
+				neg.standardDeviation(), 1e-16);
+	}
+}
@@ -1,8 +1,10 @@
 package org.openlca.core.services;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 
@@ -83,4 +85,73 @@ public class CalculationQueueTest {
 		}
 	}
 
+	@Test
+	public void testEvictOverBudget() throws Exception {
+		var queue = new CalculationQueue(db, 1);
+		var setup = CalculationSetup.of(process);
+		var first = awaitResult(queue, queue.schedule(setup).id());
+		long size = CalculationQueue.estimateSize(first.result());
+		assertTrue(size > 0);
+
+		// the memory budget is smaller than two results, but results that
+		// were not fetched by a client yet are not evicted
+		queue.withMaxMemory(size + size / 2);
+		var second = awaitResult(queue, queue.schedule(setup).id());
+		assertTrue(queue.get(first.id()).isReady());
+		assertTrue(queue.get(second.id()).isReady());
+		assertEquals(0, queue.stats().evictions());
+
+		// when they were fetched, the least recently used one is evicted
+		assertTrue(queue.fetch(first.id()).isReady());
+		Thread.sleep(5); // the access times are in milliseconds
+		assertTrue(queue.fetch(second.id()).isReady());
+		queue.withMaxMemory(size + size / 2);
+		assertFalse(queue.get(first.id()).isReady());
+		assertTrue(queue.get(second.id()).isReady());
+
+		// a result that alone exceeds the budget is still kept
+		queue.withMaxMemory(1);
+		assertTrue(queue.get(second.id()).isReady());
+
+		var stats = queue.stats();
+		assertEquals(1, stats.size());
+		assertEquals(size, stats.memory());
+		assertEquals(1, stats.evictions());
+
+		// the same with the number of results
+		queue.withMaxMemory(0).withMaxResults(1);
+		var third = awaitResult(queue, queue.schedule(setup).id());
+		assertFalse(queue.get(second.id()).isReady());
+		assertTrue(queue.get(third.id()).isReady());
+		assertEquals(2, queue.stats().evictions());
+		queue.shutdown();
+	}
+
+	@Test
+	public void testNoLimitsByDefault() throws Exception {
+		var queue = new CalculationQueue(db, 1);
+		var setup = CalculationSetup.of(process);
+		var ids = new ArrayList<String>();
+		for (int i = 0; i < 3; i++) {
+			var id = awaitResult(queue, queue.schedule(setup).id()).id();
+			assertTrue(queue.fetch(id).isReady());
+			ids.add(id);
+		}
+		for (var id : ids) {
+			assertTrue(queue.get(id).isReady());
+		}
+		assertEquals(0, queue.stats().evictions());
+		queue.shutdown();
+	}
+
+	private ResultState awaitResult(CalculationQueue queue, String id)
+			throws Exception {
+		var state = queue.get(id);
+		while (state.isScheduled()) {
+			Thread.sleep(10);
+			state = queue.get(id);
+		}
+		assertTrue(state.isReady());
+		return state;
+	}
 }
@@ -1,6 +1,7 @@
 package org.openlca.geo.calc;
 
 import java.util.List;
+import java.util.Map;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -9,6 +10,7 @@ import org.openlca.geo.geojson.FeatureCollection;
 import org.openlca.geo.geojson.Geometry;
 import org.openlca.geo.geojson.LineString;
 import org.openlca.geo.geojson.Point;
+import org.openlca.geo.geojson.Polygon;
 import org.openlca.util.Pair;
 
 public class IntersectionTest {
@@ -60,4 +62,54 @@ public class IntersectionTest {
 		b.points.add(new Point(35, 60));
 		b.points.add(new Point(85, 40));
 	}
+
+	@Test
+	public void testGridShares() {
+		// a 10x10 grid of unit cells
+		var grid = new FeatureCollection();
+		for (int x = 0; x < 10; x++) {
+			for (int y = 0; y < 10; y++) {
+				var f = new Feature();
+				f.geometry = rect(x, y, x + 1, y + 1);
+				f.properties = Map.of("x", x, "y", y);
+				grid.features.add(f);
+			}
+		}
+
+		var calc = IntersectionCalculator.on(grid, Projection.identity());
+		var shares = calc.shares(rect(2.5, 2.5, 5.5, 4.5));
+		Assert.assertEquals(12, shares.size());
+		for (var share : shares) {
+			int x = (int) share.first.properties.get("x");
+			int y = (int) share.first.properties.get("y");
+			double sx = x == 2 || x == 5 ? 0.5 : 1;
+			double sy = y == 2 || y == 4 ? 0.5 : 1;
+			Assert.assertEquals(sx * sy, share.second, 1e-10);
+		}
+
+		// the features are returned in the order of the collection
+		var intersections = calc.calculate(rect(2.5, 2.5, 5.5, 4.5));
+		Assert.assertEquals(12, intersections.size());
+		int last = -1;
+		for (var i : intersections) {
+			int pos = grid.features.indexOf(i.first);
+			Assert.assertTrue(pos > last);
+			last = pos;
+		}
+
+		// a geometry outside the grid
+		Assert.assertTrue(calc.shares(rect(20, 20, 21, 21)).isEmpty());
+	}
+
+	private Polygon rect(double x1, double y1, double x2, double y2) {
+		var ring = new LineString();
+		ring.points.add(new Point(x1, y1));
+		ring.points.add(new Point(x2, y1));
+		ring.points.add(new Point(x2, y2));
+		ring.points.add(new Point(x1, y2));
+		ring.points.add(new Point(x1, y1));
+		var polygon = new Polygon();
+		polygon.rings.add(ring);
+		return polygon;
+	}
 }
@@ -0,0 +1,129 @@
+package org.openlca.geo.calc;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openlca.geo.geojson.Feature;
+import org.openlca.geo.geojson.FeatureCollection;
+import org.openlca.geo.geojson.LineString;
+import org.openlca.geo.geojson.Point;
+import org.openlca.geo.geojson.Polygon;
+import org.openlca.util.Dirs;
+
+public class ShareCacheTest {
+
+	private File dir;
+	private File file;
+	private FeatureCollection grid;
+
+	@Before
+	public void setup() throws Exception {
+		dir = Files.createTempDirectory("_olca_tests_").toFile();
+		file = new File(dir, "shares.bin");
+		grid = new FeatureCollection();
+		for (int x = 0; x < 5; x++) {
+			for (int y = 0; y < 5; y++) {
+				var f = new Feature();
+				f.geometry = rect(x, y, x + 1, y + 1);
+				grid.features.add(f);
+			}
+		}
+	}
+
+	@After
+	public void cleanup() {
+		Dirs.delete(dir);
+	}
+
+	@Test
+	public void testPersistShares() {
+		var g = rect(0.5, 0.5, 2, 1.5);
+		try (var cache = ShareCache.open(file)) {
+			var calc = IntersectionCalculator.on(grid, Projection.identity())
+					.withCache(cache);
+			var shares = calc.shares(g);
+			assertEquals(4, shares.size());
+			assertEquals(1, cache.size());
+
+			// the same geometry with another projection has another key
+			IntersectionCalculator.on(grid).withCache(cache).shares(g);
+			assertEquals(2, cache.size());
+		}
+
+		// reopen the cache; the shares are mapped to the features of the
+		// new calculator
+		try (var cache = ShareCache.open(file)) {
+			assertEquals(2, cache.size());
+			var calc = IntersectionCalculator.on(grid, Projection.identity())
+					.withCache(cache);
+			var cached = calc.shares(g);
+			var expected = IntersectionCalculator.on(grid, Projection.identity())
+					.shares(g);
+			assertEquals(expected.size(), cached.size());
+			for (int i = 0; i < expected.size(); i++) {
+				assertSame(expected.get(i).first, cached.get(i).first);
+				assertEquals(expected.get(i).second, cached.get(i).second, 1e-16);
+			}
+			assertEquals(2, cache.size());
+		}
+	}
+
+	@Test
+	public void testChangedFeatures() {
+		var g = rect(0.5, 0.5, 2, 1.5);
+		try (var cache = ShareCache.open(file)) {
+			IntersectionCalculator.on(grid, Projection.identity())
+					.withCache(cache)
+					.shares(g);
+			grid.features.get(0).geometry = rect(0, 0, 0.5, 0.5);
+			var shares = IntersectionCalculator.on(grid, Projection.identity())
+					.withCache(cache)
+					.shares(g);
+			assertEquals(3, shares.size());
+			assertEquals(2, cache.size());
+		}
+	}
+
+	@Test
+	public void testTruncatedFile() throws Exception {
+		try (var cache = ShareCache.open(file)) {
+			var calc = IntersectionCalculator.on(grid).withCache(cache);
+			calc.shares(rect(0.5, 0.5, 2, 1.5));
+			calc.shares(rect(2.5, 2.5, 4, 3.5));
+		}
+		try (var raf = new RandomAccessFile(file, "rw")) {
+			raf.setLength(raf.length() - 5);
+		}
+		try (var cache = ShareCache.open(file)) {
+			assertEquals(1, cache.size());
+			IntersectionCalculator.on(grid)
+					.withCache(cache)
+					.shares(rect(2.5, 2.5, 4, 3.5));
+		}
+		try (var cache = ShareCache.open(file)) {
+			assertEquals(2, cache.size());
+			cache.clear();
+		}
+		try (var cache = ShareCache.open(file)) {
+			assertEquals(0, cache.size());
+		}
+	}
+
+	private Polygon rect(double x1, double y1, double x2, double y2) {
+		var ring = new LineString();
+		ring.points.add(new Point(x1, y1));
+		ring.points.add(new Point(x2, y1));
+		ring.points.add(new Point(x2, y2));
+		ring.points.add(new Point(x1, y2));
+		ring.points.add(new Point(x1, y1));
+		var polygon = new Polygon();
+		polygon.rings.add(ring);
+		return polygon;
+	}
+}
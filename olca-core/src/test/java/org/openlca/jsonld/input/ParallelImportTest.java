@@ -0,0 +1,136 @@
+package org.openlca.jsonld.input;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.gson.JsonObject;
+import org.openlca.core.database.Derby;
+import org.openlca.core.database.IDatabase;
+import org.openlca.core.model.Flow;
+import org.openlca.core.model.ModelType;
+import org.openlca.core.model.FlowProperty;
+import org.openlca.core.model.Process;
+import org.openlca.core.model.UnitGroup;
+import org.openlca.jsonld.Json;
+import org.openlca.jsonld.MemStore;
+import org.openlca.jsonld.PackageInfo;
+import org.openlca.jsonld.SchemaVersion;
+import org.openlca.jsonld.output.JsonExport;
+
+public class ParallelImportTest {
+
+	// we use fresh in-memory databases here as a lot of IDs are allocated
+	private final IDatabase source = Derby.createInMemory();
+	private final IDatabase db = Derby.createInMemory();
+	private final MemStore store = new MemStore();
+	private final List<Process> processes = new ArrayList<>();
+
+	@Before
+	public void setup() {
+		var units = UnitGroup.of("Mass units", "kg");
+		var mass = FlowProperty.of("Mass", units);
+		source.insert(units, mass);
+		var export = new JsonExport(source, store);
+		export.write(units);
+		export.write(mass);
+
+		// a chain of processes where process i is the provider of
+		// process i + 1; more than one batch of processes is written
+		for (int i = 0; i < 250; i++) {
+			var product = source.insert(Flow.product("product " + i, mass));
+			var process = Process.of("process " + i, product);
+			if (i > 0) {
+				var provider = processes.get(i - 1);
+				process.input(provider.quantitativeReference.flow, 1.0)
+					.defaultProviderId = provider.id;
+			}
+			processes.add(source.insert(process));
+			export.write(product);
+		}
+		processes.forEach(export::write);
+	}
+
+	@After
+	public void cleanup() throws Exception {
+		source.close();
+		db.close();
+	}
+
+	@Test
+	public void testParallelImport() {
+		new JsonImport(store, db)
+			.setParallelReads(true)
+			.run();
+
+		Process provider = null;
+		for (var p : processes) {
+			var imported = db.get(Process.class, p.refId);
+			assertNotNull(imported);
+			assertEquals(p.name, imported.name);
+			if (provider != null) {
+				var input = imported.exchanges.stream()
+					.filter(e -> e.isInput)
+					.findAny()
+					.orElseThrow();
+				assertEquals(provider.id, input.defaultProviderId);
+			}
+			provider = imported;
+		}
+	}
+
+	@Test
+	public void testParallelUpgrade() {
+		// a package of schema version 1 where the categories are references
+		// which are converted to paths when the flows are read in parallel
+		var v1 = new MemStore();
+		PackageInfo.create()
+			.withSchemaVersion(SchemaVersion.fallback())
+			.writeTo(v1);
+		for (var type : List.of(ModelType.UNIT_GROUP, ModelType.FLOW_PROPERTY)) {
+			for (var obj : store.getAll(type)) {
+				v1.put(type, obj);
+			}
+		}
+		var root = new JsonObject();
+		Json.put(root, "@id", "root");
+		Json.put(root, "name", "root");
+		Json.put(root, "modelType", "FLOW");
+		v1.put(ModelType.CATEGORY, root);
+		for (int i = 0; i < 10; i++) {
+			var category = new JsonObject();
+			Json.put(category, "@id", "category " + i);
+			Json.put(category, "name", "category " + i);
+			Json.put(category, "modelType", "FLOW");
+			var parent = new JsonObject();
+			Json.put(parent, "@id", "root");
+			category.add("category", parent);
+			v1.put(ModelType.CATEGORY, category);
+		}
+		for (int i = 0; i < processes.size(); i++) {
+			var flowId = processes.get(i).quantitativeReference.flow.refId;
+			var flow = store.get(ModelType.FLOW, flowId);
+			var ref = new JsonObject();
+			Json.put(ref, "@id", "category " + (i % 10));
+			flow.add("category", ref);
+			v1.put(ModelType.FLOW, flow);
+		}
+
+		new JsonImport(v1, db)
+			.setParallelReads(true)
+			.run();
+
+		for (int i = 0; i < processes.size(); i++) {
+			var flowId = processes.get(i).quantitativeReference.flow.refId;
+			var flow = db.get(Flow.class, flowId);
+			assertNotNull(flow);
+			assertNotNull(flow.category);
+			assertEquals("root/category " + (i % 10), flow.category.toPath());
+		}
+	}
+}
@@ -0,0 +1,67 @@
+package org.openlca.jsonld.output;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.openlca.core.database.Derby;
+import org.openlca.core.model.Flow;
+import org.openlca.core.model.FlowProperty;
+import org.openlca.core.model.ModelType;
+import org.openlca.core.model.Process;
+import org.openlca.core.model.UnitGroup;
+import org.openlca.jsonld.ZipStore;
+import org.openlca.jsonld.ZipWriter;
+import org.openlca.jsonld.input.JsonImport;
+import org.openlca.util.Dirs;
+
+public class DatabaseExportTest {
+
+	@Test
+	public void testExportAll() throws Exception {
+		var processes = new ArrayList<Process>();
+		var tempDir = Files.createTempDirectory("_olca_tests_").toFile();
+		var zip = new File(tempDir, "export.zip");
+		var count = new AtomicInteger();
+
+		try (var db = Derby.createInMemory()) {
+			var units = db.insert(UnitGroup.of("Mass units", "kg"));
+			var mass = db.insert(FlowProperty.of("Mass", units));
+			for (int i = 0; i < 120; i++) {
+				var flow = db.insert(Flow.product("product " + i, mass));
+				processes.add(db.insert(Process.of("process " + i, flow)));
+			}
+			try (var writer = ZipWriter.open(zip)) {
+				DatabaseExport.of(db, writer)
+						.withThreads(4)
+						.withBatchSize(7)
+						.withCallback(($, e) -> count.incrementAndGet())
+						.run();
+			}
+		}
+		assertEquals(2 + 2 * 120, count.get());
+
+		// the zip can be read and imported again
+		try (var store = ZipStore.open(zip); var db = Derby.createInMemory()) {
+			var ids = new HashSet<>(store.getRefIds(ModelType.PROCESS));
+			assertEquals(120, ids.size());
+			for (var p : processes) {
+				assertTrue(ids.contains(p.refId));
+			}
+			new JsonImport(store, db).run();
+			for (var p : processes) {
+				var imported = db.get(Process.class, p.refId);
+				assertNotNull(imported);
+				assertEquals(p.name, imported.name);
+				assertEquals(p.quantitativeReference.flow.refId,
+						imported.quantitativeReference.flow.refId);
+			}
+		}
+		Dirs.delete(tempDir);
+	}
+}
@@ -38,7 +38,7 @@ public class EcoSpold2 {
 
 	public static EcoSpold2 read(InputStream is) {
 		try {
-			return JAXB.unmarshal(is, EcoSpold2.class);
+			return Spold2Reader.read(is);
 		} catch (Exception e) {
 			String m = "failed to read EcoSpold 2 document";
 			throw new RuntimeException(m, e);
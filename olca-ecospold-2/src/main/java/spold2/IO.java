@@ -21,7 +21,7 @@ public class IO {
 
 	public static <T> T read(InputStream is, Class<T> type) {
 		try {
-			return JAXB.unmarshal(is, type);
+			return Spold2Reader.read(is, type);
 		} catch (Exception e) {
 			String m = "failed to read stream";
 			throw new RuntimeException(m, e);
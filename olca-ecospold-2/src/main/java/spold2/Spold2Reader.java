@@ -0,0 +1,275 @@
+package spold2;
+
+import java.io.InputStream;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.transform.stream.StreamSource;
+
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.Unmarshaller;
+
+/**
+ * A thread-safe reader for EcoSpold 2 documents. The JAXB contexts are created
+ * only once per root type and the unmarshallers are pooled, so that reading
+ * many small documents (like the activity files of an ecoinvent release) does
+ * not create a new context for each file. Additionally, the reader can read
+ * only selected sections of an activity data set, which are unmarshalled from
+ * a StAX stream while all other sections are skipped.
+ */
+public final class Spold2Reader {
+
+	/**
+	 * The sections of an activity data set that can be selected in a partial
+	 * read.
+	 */
+	public enum Section {
+
+		/** The activity description with classifications, geography etc. */
+		DESCRIPTION("activityDescription"),
+
+		/** The exchanges and parameters. */
+		FLOW_DATA("flowData"),
+
+		/** The modelling and validation information. */
+		VALIDATION("modellingAndValidation"),
+
+		/** The administrative information. */
+		ADMIN_INFO("administrativeInformation"),
+
+		/** The used user master data. */
+		MASTER_DATA("usedUserMasterData");
+
+		private final String element;
+
+		Section(String element) {
+			this.element = element;
+		}
+
+		private static Section of(String element) {
+			for (var s : values()) {
+				if (s.element.equals(element))
+					return s;
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * The maximum number of idle unmarshallers that are kept per context.
+	 */
+	private static final int MAX_POOL_SIZE = 64;
+
+	private static final ConcurrentHashMap<Class<?>, Binding> bindings =
+			new ConcurrentHashMap<>();
+
+	private static final ThreadLocal<XMLInputFactory> factories =
+			ThreadLocal.withInitial(() -> {
+				var factory = XMLInputFactory.newFactory();
+				factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+				factory.setProperty(
+						XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+				return factory;
+			});
+
+	private Spold2Reader() {
+	}
+
+	/**
+	 * Reads a complete EcoSpold 2 document from the given stream.
+	 */
+	public static EcoSpold2 read(InputStream stream) {
+		return read(stream, EcoSpold2.class);
+	}
+
+	/**
+	 * Reads an object of the given type (e.g. a master data list) from the
+	 * given stream.
+	 */
+	public static <T> T read(InputStream stream, Class<T> type) {
+		var binding = bindingOf(type);
+		var unmarshaller = binding.borrow();
+		try {
+			return unmarshaller.unmarshal(new StreamSource(stream), type)
+					.getValue();
+		} catch (Exception e) {
+			throw new RuntimeException("failed to read " + type.getName(), e);
+		} finally {
+			binding.release(unmarshaller);
+		}
+	}
+
+	/**
+	 * Reads only the given sections of the activity data set from the given
+	 * stream; all other sections of the data set are skipped. If the document
+	 * contains an LCIA method instead of an activity data set, the method is
+	 * read completely.
+	 */
+	public static EcoSpold2 read(InputStream stream, Set<Section> sections) {
+		var binding = bindingOf(EcoSpold2.class);
+		var unmarshaller = binding.borrow();
+		XMLStreamReader reader = null;
+		try {
+			reader = factories.get().createXMLStreamReader(stream);
+			return readPartial(reader, unmarshaller, sections);
+		} catch (Exception e) {
+			throw new RuntimeException("failed to read EcoSpold 2 document", e);
+		} finally {
+			binding.release(unmarshaller);
+			if (reader != null) {
+				try {
+					reader.close();
+				} catch (XMLStreamException ignored) {
+				}
+			}
+		}
+	}
+
+	private static EcoSpold2 readPartial(XMLStreamReader reader,
+			Unmarshaller unmarshaller, Set<Section> sections)
+			throws XMLStreamException, JAXBException {
+		var selected = sections == null || sections.isEmpty()
+				? EnumSet.noneOf(Section.class)
+				: EnumSet.copyOf(sections);
+		var es2 = new EcoSpold2();
+		DataSet dataSet = null;
+
+		// the number of open elements: 1 for the root element and
+		// 2 for the data set element
+		int depth = 0;
+		int event = reader.getEventType();
+		while (event != XMLStreamConstants.END_DOCUMENT) {
+
+			if (event == XMLStreamConstants.END_ELEMENT) {
+				depth--;
+				event = reader.next();
+				continue;
+			}
+			if (event != XMLStreamConstants.START_ELEMENT) {
+				event = reader.next();
+				continue;
+			}
+
+			var name = reader.getLocalName();
+			if (depth == 0) {
+				depth++;
+				event = reader.next();
+				continue;
+			}
+
+			if (depth == 1) {
+				switch (name) {
+					case "activityDataset" -> {
+						dataSet = es2.dataSet = new DataSet();
+						depth++;
+						event = reader.next();
+					}
+					case "childActivityDataset" -> {
+						dataSet = es2.childDataSet = new DataSet();
+						depth++;
+						event = reader.next();
+					}
+					case "impactMethod" -> {
+						es2.impactMethod = unmarshaller.unmarshal(
+								reader, ImpactMethod.class).getValue();
+						event = reader.getEventType();
+					}
+					default -> event = skip(reader);
+				}
+				continue;
+			}
+
+			var section = depth == 2 && dataSet != null
+					? Section.of(name)
+					: null;
+			if (section == null || !selected.contains(section)) {
+				event = skip(reader);
+				continue;
+			}
+			switch (section) {
+				case DESCRIPTION -> dataSet.description = unmarshaller
+						.unmarshal(reader, ActivityDescription.class).getValue();
+				case FLOW_DATA -> dataSet.flowData = unmarshaller
+						.unmarshal(reader, FlowData.class).getValue();
+				case VALIDATION -> dataSet.validation = unmarshaller
+						.unmarshal(reader, Validation.class).getValue();
+				case ADMIN_INFO -> dataSet.adminInfo = unmarshaller
+						.unmarshal(reader, AdminInfo.class).getValue();
+				case MASTER_DATA -> dataSet.masterData = unmarshaller
+						.unmarshal(reader, UserMasterData.class).getValue();
+			}
+			// the unmarshaller moves the reader to the event after the
+			// end of the element
+			event = reader.getEventType();
+		}
+		return es2;
+	}
+
+	/**
+	 * Skips the element at the current start event of the reader and returns
+	 * the event after the end of that element.
+	 */
+	private static int skip(XMLStreamReader reader) throws XMLStreamException {
+		int level = 1;
+		while (level > 0) {
+			int event = reader.next();
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				level++;
+			} else if (event == XMLStreamConstants.END_ELEMENT) {
+				level--;
+			}
+		}
+		return reader.next();
+	}
+
+	private static Binding bindingOf(Class<?> type) {
+		return bindings.computeIfAbsent(type, Binding::new);
+	}
+
+	/**
+	 * A JAXB context with a pool of unmarshallers for a root type. The
+	 * context is thread-safe, but the unmarshallers are not; thus, an
+	 * unmarshaller is borrowed from the pool for each read.
+	 */
+	private static class Binding {
+
+		private final JAXBContext context;
+		private final ConcurrentLinkedQueue<Unmarshaller> pool =
+				new ConcurrentLinkedQueue<>();
+
+		Binding(Class<?> type) {
+			try {
+				context = JAXBContext.newInstance(type);
+			} catch (JAXBException e) {
+				throw new RuntimeException(
+						"failed to create JAXB context for " + type, e);
+			}
+		}
+
+		Unmarshaller borrow() {
+			var u = pool.poll();
+			if (u != null)
+				return u;
+			try {
+				return context.createUnmarshaller();
+			} catch (JAXBException e) {
+				throw new RuntimeException("failed to create unmarshaller", e);
+			}
+		}
+
+		void release(Unmarshaller u) {
+			// ConcurrentLinkedQueue.size() is not constant time, but the
+			// pool is small
+			if (pool.size() < MAX_POOL_SIZE) {
+				pool.offer(u);
+			}
+		}
+	}
+}
@@ -0,0 +1,93 @@
+package spold2;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import spold2.Spold2Reader.Section;
+
+public class Spold2ReaderTest {
+
+	@Test
+	public void testFullRead() throws Exception {
+		try (var stream = stream("sample_ecospold2.xml")) {
+			var ds = Spold2Reader.read(stream).activity();
+			Assert.assertEquals("Sample", ds.description.activity.name);
+			Assert.assertNotNull(ds.flowData);
+			Assert.assertNotNull(ds.adminInfo);
+		}
+	}
+
+	@Test
+	public void testPartialRead() throws Exception {
+		var sections = EnumSet.of(Section.DESCRIPTION, Section.FLOW_DATA);
+		for (var file : new String[]{
+				"sample_ecospold2.xml", "sample_child_ecospold2.xml"}) {
+			EcoSpold2 full;
+			try (var stream = stream(file)) {
+				full = Spold2Reader.read(stream);
+			}
+			EcoSpold2 partial;
+			try (var stream = stream(file)) {
+				partial = Spold2Reader.read(stream, sections);
+			}
+			var fullDs = full.activity();
+			var ds = partial.activity();
+			Assert.assertEquals(full.dataSet == null, partial.dataSet == null);
+			Assert.assertEquals(fullDs.description.activity.name,
+					ds.description.activity.name);
+			Assert.assertEquals(
+					fullDs.flowData.intermediateExchanges.size(),
+					ds.flowData.intermediateExchanges.size());
+			Assert.assertEquals(
+					fullDs.flowData.elementaryExchanges.size(),
+					ds.flowData.elementaryExchanges.size());
+			Assert.assertEquals(fullDs.flowData.parameters.size(),
+					ds.flowData.parameters.size());
+			Assert.assertNull(ds.validation);
+			Assert.assertNull(ds.adminInfo);
+		}
+	}
+
+	@Test
+	public void testMasterData() throws Exception {
+		try (var stream = stream("Persons.xml")) {
+			var persons = Spold2Reader.read(stream, PersonList.class);
+			Assert.assertFalse(persons.persons.isEmpty());
+		}
+	}
+
+	@Test
+	public void testParallelReads() throws Exception {
+		var pool = Executors.newFixedThreadPool(4);
+		try {
+			var tasks = new ArrayList<Callable<String>>();
+			for (int i = 0; i < 32; i++) {
+				var partial = i % 2 == 0;
+				tasks.add(() -> {
+					try (var stream = stream("sample_ecospold2.xml")) {
+						var es2 = partial
+								? Spold2Reader.read(stream,
+								EnumSet.of(Section.DESCRIPTION))
+								: Spold2Reader.read(stream);
+						return es2.activity().description.activity.name;
+					}
+				});
+			}
+			for (var result : pool.invokeAll(tasks)) {
+				Assert.assertEquals("Sample", result.get());
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	private InputStream stream(String file) {
+		return getClass().getResourceAsStream(file);
+	}
+}
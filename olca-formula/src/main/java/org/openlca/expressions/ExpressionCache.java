@@ -0,0 +1,108 @@
+package org.openlca.expressions;
+
+import java.io.StringReader;
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openlca.expressions.ExpressionCompiler.DoubleNode;
+import org.openlca.expressions.functions.PrimitiveFunctions;
+
+/**
+ * A cache of compiled expressions, keyed by the formula text. An expression
+ * is parsed and checked only once; the variable references in the compiled
+ * expression are resolved to slots, so that the variables can be looked up
+ * by an integer ID instead of their names. The slots are assigned from the
+ * symbol table of the cache, thus, the compiled expressions can be only used
+ * in scopes that share this cache. Additionally, the expressions are compiled
+ * into closures with primitive arithmetic by the {@link ExpressionCompiler}
+ * if possible.
+ * <p>
+ * The compiled expressions are immutable, so that the cache can be shared
+ * between copies of an interpreter that run in different threads.
+ */
+final class ExpressionCache {
+
+	/**
+	 * The maximum number of cached expressions. Additional expressions are
+	 * still compiled but not cached anymore.
+	 */
+	private static final int MAX_SIZE = 100_000;
+
+	private final ConcurrentHashMap<String, Integer> symbols =
+			new ConcurrentHashMap<>();
+	private final AtomicInteger nextSlot = new AtomicInteger();
+	private final ConcurrentHashMap<String, Entry> expressions =
+			new ConcurrentHashMap<>();
+
+	/**
+	 * A cached expression with its syntax tree and its compiled version. The
+	 * compiled version is null if the expression could not be compiled. An
+	 * expression is volatile when it calls a non-deterministic function (like
+	 * `rand()`) and thus can give a different value on each evaluation.
+	 */
+	record Entry(
+			Expression expression, DoubleNode compiled, boolean isVolatile) {
+	}
+
+	/**
+	 * Returns the slot of the given symbol. The symbol must be already
+	 * normalized (trimmed and in lower case).
+	 */
+	int slotOf(String symbol) {
+		var slot = symbols.get(symbol);
+		if (slot != null)
+			return slot;
+		return symbols.computeIfAbsent(
+				symbol, $ -> nextSlot.getAndIncrement());
+	}
+
+	/**
+	 * Returns the compiled version of the given expression.
+	 */
+	Entry get(String expression) throws ParseException,
+			ExpressionException {
+		var compiled = expressions.get(expression);
+		if (compiled != null)
+			return compiled;
+		compiled = compile(expression);
+		if (expressions.size() < MAX_SIZE) {
+			var other = expressions.putIfAbsent(expression, compiled);
+			if (other != null)
+				return other;
+		}
+		return compiled;
+	}
+
+	int size() {
+		return expressions.size();
+	}
+
+	private Entry compile(String expression) throws ParseException,
+			ExpressionException {
+		var reader = new StringReader(expression.toLowerCase());
+		var parser = new FormulaParser(reader);
+		parser.parse();
+		var e = parser.getExpression();
+		e.check();
+		for (var variable : parser.getVariables()) {
+			var symbol = variable.getVariableName().trim();
+			variable.slot = slotOf(symbol);
+		}
+		return new Entry(e, ExpressionCompiler.compile(e), isVolatile(e));
+	}
+
+	private static boolean isVolatile(Expression e) {
+		var queue = new ArrayDeque<Expression>();
+		queue.add(e);
+		while (!queue.isEmpty()) {
+			var next = queue.poll();
+			if (PrimitiveFunctions.isRandom(next))
+				return true;
+			if (next instanceof AbstractExpression ae) {
+				queue.addAll(ae.arguments);
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,340 @@
+package org.openlca.expressions;
+
+import java.util.List;
+
+import org.openlca.expressions.functions.And;
+import org.openlca.expressions.functions.If;
+import org.openlca.expressions.functions.Or;
+import org.openlca.expressions.functions.PrimitiveFunctions;
+
+/**
+ * Compiles the syntax tree of an expression into a tree of closures that
+ * calculate with primitive `double` and `boolean` values instead of boxed
+ * objects. The closures evaluate the arguments in the same order and call
+ * the same function implementations as the interpreter, so that a compiled
+ * expression gives the same results and fails in the same cases.
+ * <p>
+ * Not every expression can be compiled: when the type of a sub-expression can
+ * be only decided at runtime (e.g. when variables are compared with boolean
+ * constants), the compiler gives up and the expression is evaluated by the
+ * interpreter.
+ */
+final class ExpressionCompiler {
+
+	@FunctionalInterface
+	interface DoubleNode {
+		double eval(Scope scope) throws ExpressionException;
+	}
+
+	@FunctionalInterface
+	private interface BooleanNode {
+		boolean eval(Scope scope) throws ExpressionException;
+	}
+
+	private ExpressionCompiler() {
+	}
+
+	/**
+	 * Compiles the given expression into a numeric node. Returns null if the
+	 * expression cannot be compiled. The variables of the expression must be
+	 * already resolved to their slots.
+	 */
+	static DoubleNode compile(Expression e) {
+		try {
+			return num(e);
+		} catch (Unsupported u) {
+			return null;
+		}
+	}
+
+	private static DoubleNode num(Expression e) {
+
+		if (e instanceof DecimalConstantFunction c) {
+			double value = c.value;
+			return $ -> value;
+		}
+		if (e instanceof VariableFunction v) {
+			if (isBooleanConstant(v))
+				throw Unsupported.instance;
+			return numVar(v);
+		}
+		if (!(e instanceof AbstractExpression ae))
+			throw Unsupported.instance;
+		var args = ae.arguments;
+
+		if (e instanceof OpUnaryMinus) {
+			var a = num(args.get(0));
+			return s -> -a.eval(s);
+		}
+		if (e instanceof OpAddition) {
+			var a = num(args.get(0));
+			var b = num(args.get(1));
+			return s -> a.eval(s) + b.eval(s);
+		}
+		if (e instanceof OpSubstraction) {
+			var a = num(args.get(0));
+			var b = num(args.get(1));
+			return s -> a.eval(s) - b.eval(s);
+		}
+		if (e instanceof OpMultiplication) {
+			var a = num(args.get(0));
+			var b = num(args.get(1));
+			return s -> a.eval(s) * b.eval(s);
+		}
+		if (e instanceof OpDivision) {
+			var a = num(args.get(0));
+			var b = num(args.get(1));
+			return s -> {
+				double x = a.eval(s);
+				double y = b.eval(s);
+				if (y == 0)
+					throw new ExpressionException("Cannot divide by 0");
+				return x / y;
+			};
+		}
+		if (e instanceof OpIntegerDivision) {
+			var a = num(args.get(0));
+			var b = num(args.get(1));
+			return s -> {
+				double x = a.eval(s);
+				double y = b.eval(s);
+				return (double) (Math.round(x) / Math.round(y));
+			};
+		}
+		if (e instanceof OpModuloDivision) {
+			var a = num(args.get(0));
+			var b = num(args.get(1));
+			return s -> a.eval(s) % b.eval(s);
+		}
+		if (e instanceof OpExponentiation) {
+			var a = num(args.get(0));
+			var b = num(args.get(1));
+			return s -> {
+				double x = a.eval(s);
+				double y = b.eval(s);
+				return Math.pow(x, y);
+			};
+		}
+		if (e instanceof If) {
+			var cond = bool(args.get(0));
+			var then = num(args.get(1));
+			var other = num(args.get(2));
+			return s -> cond.eval(s)
+					? then.eval(s)
+					: other.eval(s);
+		}
+
+		var unary = PrimitiveFunctions.unaryOf(e);
+		if (unary != null) {
+			var a = num(args.get(0));
+			return s -> unary.applyAsDouble(a.eval(s));
+		}
+		var binary = PrimitiveFunctions.binaryOf(e);
+		if (binary != null) {
+			var a = num(args.get(0));
+			var b = num(args.get(1));
+			return s -> {
+				double x = a.eval(s);
+				double y = b.eval(s);
+				return binary.applyAsDouble(x, y);
+			};
+		}
+		var nary = PrimitiveFunctions.naryOf(e);
+		if (nary != null) {
+			var nodes = nums(args);
+			return s -> {
+				double[] values = new double[nodes.length];
+				for (int i = 0; i < nodes.length; i++) {
+					values[i] = nodes[i].eval(s);
+				}
+				return nary.applyAsDouble(values);
+			};
+		}
+		if (PrimitiveFunctions.isRandom(e))
+			return $ -> Math.random();
+		if (PrimitiveFunctions.isConstant(e)
+				&& e.getResultType() == Double.class) {
+			double value = (Double) constantOf(e);
+			return $ -> value;
+		}
+		throw Unsupported.instance;
+	}
+
+	private static BooleanNode bool(Expression e) {
+
+		if (e instanceof VariableFunction v) {
+			if (!isBooleanConstant(v))
+				throw Unsupported.instance;
+			return boolVar(v);
+		}
+		if (!(e instanceof AbstractExpression ae))
+			throw Unsupported.instance;
+		var args = ae.arguments;
+
+		if (e instanceof AbstractComparisonExpression)
+			return comparison(e, args);
+
+		if (e instanceof OpAnd || e instanceof And) {
+			var nodes = bools(args);
+			return s -> {
+				for (var node : nodes) {
+					if (!node.eval(s))
+						return false;
+				}
+				return true;
+			};
+		}
+		if (e instanceof OpOr || e instanceof Or) {
+			var nodes = bools(args);
+			return s -> {
+				for (var node : nodes) {
+					if (node.eval(s))
+						return true;
+				}
+				return false;
+			};
+		}
+		if (e instanceof OpXor) {
+			var a = bool(args.get(0));
+			var b = bool(args.get(1));
+			return s -> {
+				boolean x = a.eval(s);
+				boolean y = b.eval(s);
+				return x != y;
+			};
+		}
+		if (PrimitiveFunctions.isNot(e)) {
+			if (args.isEmpty())
+				return $ -> false;
+			var a = bool(args.get(0));
+			return s -> !a.eval(s);
+		}
+		if (PrimitiveFunctions.isConstant(e)
+				&& e.getResultType() == Boolean.class) {
+			boolean value = (Boolean) constantOf(e);
+			return $ -> value;
+		}
+		throw Unsupported.instance;
+	}
+
+	/**
+	 * Compiles a comparison. The interpreter compares the boxed values with
+	 * `equals` or `compareTo`, which is the same as `Double.compare` and
+	 * `Boolean.compare` for values of the same type.
+	 */
+	private static BooleanNode comparison(
+			Expression e, List<Expression> args) {
+		var typeA = typeOf(args.get(0));
+		var typeB = typeOf(args.get(1));
+		if (typeA != typeB)
+			throw Unsupported.instance;
+
+		Comparison cmp;
+		if (typeA == Double.class) {
+			var a = num(args.get(0));
+			var b = num(args.get(1));
+			cmp = s -> {
+				double x = a.eval(s);
+				double y = b.eval(s);
+				return Double.compare(x, y);
+			};
+		} else if (typeA == Boolean.class) {
+			var a = bool(args.get(0));
+			var b = bool(args.get(1));
+			cmp = s -> {
+				boolean x = a.eval(s);
+				boolean y = b.eval(s);
+				return Boolean.compare(x, y);
+			};
+		} else {
+			throw Unsupported.instance;
+		}
+
+		if (e instanceof OpEqual)
+			return s -> cmp.eval(s) == 0;
+		if (e instanceof OpNotEqual)
+			return s -> cmp.eval(s) != 0;
+		if (e instanceof OpLessThan)
+			return s -> cmp.eval(s) < 0;
+		if (e instanceof OpLessThanOrEqual)
+			return s -> cmp.eval(s) <= 0;
+		if (e instanceof OpGreaterThan)
+			return s -> cmp.eval(s) > 0;
+		if (e instanceof OpGreaterThanOrEqual)
+			return s -> cmp.eval(s) >= 0;
+		throw Unsupported.instance;
+	}
+
+	@FunctionalInterface
+	private interface Comparison {
+		int eval(Scope scope) throws ExpressionException;
+	}
+
+	private static DoubleNode[] nums(List<Expression> args) {
+		var nodes = new DoubleNode[args.size()];
+		for (int i = 0; i < nodes.length; i++) {
+			nodes[i] = num(args.get(i));
+		}
+		return nodes;
+	}
+
+	private static BooleanNode[] bools(List<Expression> args) {
+		var nodes = new BooleanNode[args.size()];
+		for (int i = 0; i < nodes.length; i++) {
+			nodes[i] = bool(args.get(i));
+		}
+		return nodes;
+	}
+
+	/**
+	 * Variables are bound to numbers; only the unbound constants `true` and
+	 * `false` resolve to boolean values.
+	 */
+	private static Class<?> typeOf(Expression e) {
+		if (e instanceof VariableFunction v)
+			return isBooleanConstant(v)
+					? Boolean.class
+					: Double.class;
+		return e.getResultType();
+	}
+
+	private static boolean isBooleanConstant(VariableFunction v) {
+		var name = v.getVariableName().trim();
+		return name.equals("true") || name.equals("false");
+	}
+
+	private static Object constantOf(Expression e) {
+		try {
+			return e.evaluate(null);
+		} catch (ExpressionException ex) {
+			throw Unsupported.instance;
+		}
+	}
+
+	/**
+	 * Numeric variables are resolved by their slots to primitive values;
+	 * constants and unknown variables are resolved by the interpreter. The
+	 * casts fail in the same cases as in the interpreter.
+	 */
+	private static DoubleNode numVar(VariableFunction v) {
+		if (v.slot < 0)
+			return s -> (Double) v.evaluate(s);
+		return s -> s.resolveDouble(v);
+	}
+
+	private static BooleanNode boolVar(VariableFunction v) {
+		return s -> (Boolean) v.evaluate(s);
+	}
+
+	/**
+	 * Thrown when an expression cannot be compiled.
+	 */
+	private static class Unsupported extends RuntimeException {
+
+		static final Unsupported instance = new Unsupported();
+
+		private Unsupported() {
+			super(null, null, false, false);
+		}
+	}
+}
@@ -1,15 +1,33 @@
 package org.openlca.expressions;
 
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Optional;
 
+/**
+ * The formula interpreter manages a global scope and a set of local scopes
+ * in which expressions can be evaluated. The expressions are compiled only
+ * once and cached by their formula text, so that evaluating the same formula
+ * again (e.g. in each iteration of a Monte Carlo simulation) does not parse
+ * it again.
+ * <p>
+ * Optionally, the interpreter can evaluate compiled versions of the
+ * expressions that calculate with primitive values instead of boxed objects;
+ * see {@link #useCompiledExpressions(boolean)}.
+ */
 public class FormulaInterpreter {
 
+	private final ExpressionCache cache;
 	private final Scope globalScope;
 	private final HashMap<Long, Scope> scopes = new HashMap<>();
 
 	public FormulaInterpreter() {
-		globalScope = new Scope();
+		this(new ExpressionCache());
+	}
+
+	private FormulaInterpreter(ExpressionCache cache) {
+		this.cache = cache;
+		globalScope = new Scope(cache);
 	}
 
 	/**
@@ -44,6 +62,26 @@ public class FormulaInterpreter {
 		getGlobalScope().bind(variable, value);
 	}
 
+	/**
+	 * Returns the number of compiled expressions in the cache of this
+	 * interpreter.
+	 */
+	public int compiledExpressions() {
+		return cache.size();
+	}
+
+	/**
+	 * Sets whether the interpreter should evaluate the compiled versions of
+	 * the expressions. The compiled expressions give the same results as the
+	 * interpreted versions but are faster to evaluate, which is useful when
+	 * the same formulas are evaluated very often like in Monte Carlo
+	 * simulations. Expressions that cannot be compiled are still interpreted.
+	 * The default is false.
+	 */
+	public void useCompiledExpressions(boolean b) {
+		globalScope.useCompiledExpressions(b);
+	}
+
 	/** Returns the global scope of the interpreter. */
 	public Scope getGlobalScope() {
 		return globalScope;
@@ -68,6 +106,37 @@ public class FormulaInterpreter {
 		return scope;
 	}
 
+	/**
+	 * Creates a copy of this interpreter with copies of all scopes and their
+	 * variable bindings. The copy is independent of this interpreter, so that
+	 * it can be used in another thread (e.g. in parallel simulation runs);
+	 * only the (thread-safe) cache of compiled expressions is shared.
+	 */
+	public FormulaInterpreter copy() {
+		var copy = new FormulaInterpreter(cache);
+		copy.useCompiledExpressions(globalScope.usesCompiledExpressions());
+		var mapped = new IdentityHashMap<Scope, Scope>();
+		globalScope.copyBindingsTo(copy.globalScope);
+		mapped.put(globalScope, copy.globalScope);
+		for (var e : scopes.entrySet()) {
+			copy.scopes.put(e.getKey(), copyOf(e.getValue(), mapped));
+		}
+		return copy;
+	}
+
+	private Scope copyOf(Scope scope, IdentityHashMap<Scope, Scope> mapped) {
+		var copy = mapped.get(scope);
+		if (copy != null)
+			return copy;
+		var parent = scope.parent() != null
+				? copyOf(scope.parent(), mapped)
+				: null;
+		copy = new Scope(parent);
+		scope.copyBindingsTo(copy);
+		mapped.put(scope, copy);
+		return copy;
+	}
+
 	/** Returns the scope with the given ID or null if no such scope is defined. */
 	public Optional<Scope> getScope(long id) {
 		var scope = scopes.get(id);
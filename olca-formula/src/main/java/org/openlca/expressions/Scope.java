@@ -1,26 +1,55 @@
 package org.openlca.expressions;
 
-import java.io.StringReader;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Set;
 
 /**
  * A scope contains bindings of variable names to expressions. Each scope has a
  * reference to a parent scope except of the global scope. An expression can be
  * evaluated in a scope.
- *
+ * <p>
+ * The expressions are compiled only once and cached in the expression cache
+ * that is shared by all scopes of an interpreter. The variables of a scope are
+ * additionally indexed by their slots in that cache so that the variable
+ * references of compiled expressions are resolved without string operations.
+ * <p>
+ * The values of variables that are bound to expressions are cached. When such
+ * a variable is evaluated, it is registered as a dependent of the variables
+ * that it uses, which results in a dependency graph over all scopes of an
+ * interpreter. When a variable is bound to a new value or expression, only
+ * the variables that depend (directly or indirectly) on it are invalidated
+ * and calculated again when they are needed. Binding a new variable name may
+ * change which variables are resolved in the scopes (shadowing); thus, all
+ * cached values are invalidated in this case. Variables that call a
+ * non-deterministic function like `rand()`, directly or via other variables,
+ * are volatile: their values are only reused within the same top-level
+ * evaluation call and calculated again in the next one.
+ * <p>
+ * Optionally, the expressions can be evaluated with their compiled versions
+ * that calculate with primitive values (see {@link ExpressionCompiler}).
  */
 public final class Scope {
 
 	private final Scope parent;
+	private final ExpressionCache cache;
+	private final Graph graph;
 	private final HashMap<String, Variable> variables = new HashMap<>();
-	private final HashMap<String, Integer> evaluationCalls = new HashMap<>();
+	private final Slots slots = new Slots();
 
-	Scope() {
-		this(null);
+	Scope(ExpressionCache cache) {
+		this.parent = null;
+		this.cache = cache;
+		this.graph = new Graph();
 	}
 
 	Scope(Scope parent) {
 		this.parent = parent;
+		this.cache = parent.cache;
+		this.graph = parent.graph;
 	}
 
 	/**
@@ -30,8 +59,7 @@ public final class Scope {
 		if (variable == null)
 			return;
 		var symbol = variable.toLowerCase().trim();
-		var v = new Variable(symbol, value);
-		variables.put(symbol, v);
+		put(new Variable(symbol, value));
 	}
 
 	/**
@@ -41,8 +69,17 @@ public final class Scope {
 		if (variable == null || expression == null)
 			return;
 		var symbol = variable.toLowerCase().trim();
-		var v = new Variable(symbol, expression);
-		variables.put(symbol, v);
+		put(new Variable(symbol, expression));
+	}
+
+	private void put(Variable v) {
+		var old = variables.put(v.name, v);
+		slots.put(cache.slotOf(v.name), v);
+		if (old != null) {
+			graph.invalidate(old);
+		} else {
+			graph.version++;
+		}
 	}
 
 	/**
@@ -50,35 +87,63 @@ public final class Scope {
 	 */
 	public void clear() {
 		variables.clear();
-		evaluationCalls.clear();
+		slots.clear();
+		graph.version++;
+	}
+
+	Scope parent() {
+		return parent;
+	}
+
+	/**
+	 * Sets whether compiled expressions should be used in this scope and all
+	 * other scopes of the same interpreter.
+	 */
+	void useCompiledExpressions(boolean b) {
+		graph.compiled = b;
+	}
+
+	boolean usesCompiledExpressions() {
+		return graph.compiled;
+	}
+
+	/**
+	 * Copies the variable bindings of this scope into the given scope.
+	 */
+	void copyBindingsTo(Scope other) {
+		for (var v : variables.values()) {
+			var copy = v.expression != null
+					? new Variable(v.name, v.expression)
+					: new Variable(v.name, v.value);
+			other.put(copy);
+		}
 	}
 
 	/**
 	 * Evaluates the given expression in this scope.
 	 */
 	public double eval(String expression) throws InterpreterException {
-		// reset the evaluation calls and values for variables
-		evaluationCalls.clear();
-		for (Variable variable : variables.values()) {
-			if (variable.expression != null) {
-				variable.value = null;
-			}
-		}
+		var caller = graph.current;
+		graph.current = null;
+		graph.round++;
 		try {
 			return tryEval(expression);
 		} catch (Throwable e) {
 			throw new InterpreterException("Evaluation of expression "
 					+ expression + " failed: " + e.getMessage(), e);
+		} finally {
+			graph.current = caller;
 		}
 	}
 
 	private double tryEval(String expression) throws Exception {
-		var reader = new StringReader(expression.toLowerCase());
-		var parser = new FormulaParser(reader);
-		parser.parse();
-		var e = parser.getExpression();
-		e.check();
-		var result = e.evaluate(this);
+		var e = cache.get(expression);
+		if (e.isVolatile() && graph.current != null) {
+			graph.current.isVolatile = true;
+		}
+		if (graph.compiled && e.compiled() != null)
+			return e.compiled().eval(this);
+		var result = e.expression().evaluate(this);
 		if (result instanceof Double)
 			return (Double) result;
 		throw new InterpreterException("The expression " + expression
@@ -92,9 +157,7 @@ public final class Scope {
 		var v = variables.get(symbol);
 		if (v != null) {
 			// variable is bound in this scope
-			return v.isEvaluated()
-					? v.value
-					: eval(v);
+			return valueOf(v);
 		}
 		// search in parent scope or constants
 		return parent != null
@@ -102,28 +165,164 @@ public final class Scope {
 				: Constants.get(name);
 	}
 
-	private Object eval(Variable var) throws InterpreterException {
-		Integer call = evaluationCalls.get(var.name);
-		if (call != null && call > 0)
+	/**
+	 * Resolves the variable with the given slot of the expression cache. The
+	 * symbol is only used to look up constants when the variable is not bound.
+	 */
+	Object resolveSlot(int slot, String symbol) throws InterpreterException {
+		var scope = this;
+		while (scope != null) {
+			var v = scope.slots.get(slot);
+			if (v != null)
+				return scope.valueOf(v);
+			scope = scope.parent;
+		}
+		return Constants.get(symbol);
+	}
+
+	/**
+	 * Resolves the value of the given variable reference of a compiled
+	 * expression as a primitive number. Constants and unknown variables are
+	 * resolved by the variable reference itself, so that it fails in the same
+	 * way as in the interpreter.
+	 */
+	double resolveDouble(VariableFunction f) throws ExpressionException {
+		var scope = this;
+		while (scope != null) {
+			var v = scope.slots.get(f.slot);
+			if (v != null) {
+				try {
+					return scope.doubleOf(v);
+				} catch (InterpreterException e) {
+					throw new ExpressionException(
+							e.getMessage(), f.getLine(), f.getColumn());
+				}
+			}
+			scope = scope.parent;
+		}
+		return (Double) f.evaluate(this);
+	}
+
+	/**
+	 * Returns the value of the given variable of this scope. If a variable is
+	 * currently evaluated, it is registered as a dependent of the given
+	 * variable and, if the given variable is volatile, it becomes volatile
+	 * too.
+	 */
+	private Object valueOf(Variable v) throws InterpreterException {
+		return doubleOf(v);
+	}
+
+	private double doubleOf(Variable v) throws InterpreterException {
+		double value = v.isEvaluated(graph)
+				? v.value
+				: eval(v);
+		var current = graph.current;
+		if (current != null) {
+			v.addDependent(current);
+			if (v.isVolatile) {
+				current.isVolatile = true;
+			}
+		}
+		return value;
+	}
+
+	private double eval(Variable var) throws InterpreterException {
+		if (var.evaluating)
 			throw new InterpreterException(
 					"Second evaluation call on variable "
 							+ var.name + ". Cyclic dependencies?");
-		evaluationCalls.put(var.name, 1);
+		var.evaluating = true;
+		var.isVolatile = false;
+		var caller = graph.current;
+		graph.current = var;
 		try {
 			var.value = tryEval(var.expression);
+			var.hasValue = true;
+			var.version = graph.version;
+			var.round = graph.round;
 			return var.value;
 		} catch (Throwable e) {
 			throw new InterpreterException("Evaluation of variable "
 					+ var.name + " failed: " + e.getMessage(), e);
+		} finally {
+			graph.current = caller;
+			var.evaluating = false;
 		}
 	}
 
-	private class Variable {
+	/**
+	 * The state of the dependency graph and the evaluation settings that are
+	 * shared by all scopes of an interpreter.
+	 */
+	private static class Graph {
+
+		/**
+		 * Incremented when the variable names of a scope change; cached values
+		 * that were calculated with an older version are invalid.
+		 */
+		int version;
+
+		/**
+		 * Incremented on each top-level evaluation call; the values of
+		 * volatile variables are only valid within the same round.
+		 */
+		int round;
+
+		/**
+		 * The variable that is currently evaluated or null if a free
+		 * expression is evaluated.
+		 */
+		Variable current;
+
+		/**
+		 * Whether the compiled versions of the expressions are evaluated.
+		 */
+		boolean compiled;
+
+		/**
+		 * Invalidates the cached values of all variables that depend on the
+		 * given variable.
+		 */
+		void invalidate(Variable v) {
+			if (v.dependents == null)
+				return;
+			var queue = new ArrayDeque<Variable>();
+			queue.add(v);
+			while (!queue.isEmpty()) {
+				var next = queue.poll();
+				if (next != v && next.expression != null) {
+					next.hasValue = false;
+				}
+				if (next.dependents == null)
+					continue;
+				queue.addAll(next.dependents);
+				next.dependents = null;
+			}
+		}
+	}
+
+	private static class Variable {
 
 		final String name;
 		final String expression;
 
-		private Double value;
+		private double value;
+		private boolean hasValue;
+		private int version;
+		private int round;
+		private boolean evaluating;
+
+		/**
+		 * True if the value of the variable depends on a non-deterministic
+		 * function and thus must not be cached across evaluation calls.
+		 */
+		private boolean isVolatile;
+
+		/**
+		 * The variables with expressions that use this variable.
+		 */
+		private Set<Variable> dependents;
 
 		Variable(String name, String expression) {
 			this.name = name;
@@ -133,11 +332,93 @@ public final class Scope {
 		Variable(String name, double value) {
 			this.name = name;
 			this.value = value;
+			this.hasValue = true;
 			this.expression = null;
 		}
 
-		public boolean isEvaluated() {
-			return value != null;
+		boolean isEvaluated(Graph graph) {
+			if (!hasValue)
+				return false;
+			if (expression == null)
+				return true;
+			if (isVolatile && round != graph.round)
+				return false;
+			return version == graph.version;
+		}
+
+		void addDependent(Variable v) {
+			if (dependents == null) {
+				dependents = Collections.newSetFromMap(new IdentityHashMap<>());
+			}
+			dependents.add(v);
+		}
+	}
+
+	/**
+	 * A small open addressing hash table that maps the slots of the
+	 * expression cache to the variables of a scope.
+	 */
+	private static class Slots {
+
+		private int[] keys = new int[0];
+		private Variable[] values = new Variable[0];
+		private int size;
+
+		Variable get(int slot) {
+			if (size == 0)
+				return null;
+			int mask = keys.length - 1;
+			int i = hash(slot) & mask;
+			while (true) {
+				int key = keys[i];
+				if (key == slot)
+					return values[i];
+				if (key < 0)
+					return null;
+				i = (i + 1) & mask;
+			}
+		}
+
+		void put(int slot, Variable v) {
+			if (2 * (size + 1) > keys.length) {
+				grow();
+			}
+			int mask = keys.length - 1;
+			int i = hash(slot) & mask;
+			while (keys[i] >= 0 && keys[i] != slot) {
+				i = (i + 1) & mask;
+			}
+			if (keys[i] < 0) {
+				size++;
+			}
+			keys[i] = slot;
+			values[i] = v;
+		}
+
+		void clear() {
+			keys = new int[0];
+			values = new Variable[0];
+			size = 0;
+		}
+
+		private void grow() {
+			var oldKeys = keys;
+			var oldValues = values;
+			int capacity = Math.max(8, 2 * oldKeys.length);
+			keys = new int[capacity];
+			Arrays.fill(keys, -1);
+			values = new Variable[capacity];
+			size = 0;
+			for (int i = 0; i < oldKeys.length; i++) {
+				if (oldKeys[i] >= 0) {
+					put(oldKeys[i], oldValues[i]);
+				}
+			}
+		}
+
+		private static int hash(int slot) {
+			int h = slot * 0x9E3779B9;
+			return h ^ (h >>> 16);
 		}
 	}
 }
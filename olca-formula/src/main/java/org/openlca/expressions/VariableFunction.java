@@ -7,6 +7,12 @@ public class VariableFunction implements Expression {
 	protected String position;
 	protected int line, column;
 
+	/**
+	 * The slot of the variable when the expression was compiled by an
+	 * expression cache, otherwise -1.
+	 */
+	int slot = -1;
+
 	public VariableFunction(String variableName) {
 		this.variableName = variableName;
 	}
@@ -29,7 +35,9 @@ public class VariableFunction implements Expression {
 	public Object evaluate(Scope context) throws ExpressionException {
 		Object obj = null;
 		try {
-			obj = context.resolveVariable(variableName);
+			obj = slot >= 0
+					? context.resolveSlot(slot, variableName)
+					: context.resolveVariable(variableName);
 		} catch (Exception e) {
 			throw new ExpressionException(e.getMessage(), getLine(),
 					getColumn());
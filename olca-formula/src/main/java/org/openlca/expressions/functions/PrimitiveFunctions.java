@@ -0,0 +1,71 @@
+package org.openlca.expressions.functions;
+
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.ToDoubleFunction;
+
+import org.openlca.expressions.Expression;
+
+/**
+ * Provides access to the primitive implementations of the functions in this
+ * package. This is used by the expression compiler so that compiled
+ * expressions call exactly the same implementations as the interpreter.
+ */
+public final class PrimitiveFunctions {
+
+	private PrimitiveFunctions() {
+	}
+
+	/**
+	 * Returns the implementation of the given function if it is a function
+	 * with one numeric argument, otherwise null.
+	 */
+	public static DoubleUnaryOperator unaryOf(Expression e) {
+		return e instanceof Function1 f
+				? f::eval
+				: null;
+	}
+
+	/**
+	 * Returns the implementation of the given function if it is a function
+	 * with two numeric arguments, otherwise null.
+	 */
+	public static DoubleBinaryOperator binaryOf(Expression e) {
+		return e instanceof Function2 f
+				? f::eval
+				: null;
+	}
+
+	/**
+	 * Returns the implementation of the given function if it is a function
+	 * with a variable number of numeric arguments, otherwise null. The
+	 * returned function returns the default value of the function for an
+	 * empty argument array.
+	 */
+	public static ToDoubleFunction<double[]> naryOf(Expression e) {
+		if (!(e instanceof FunctionN f))
+			return null;
+		return args -> args.length == 0
+				? f.getDefault()
+				: f.eval(args);
+	}
+
+	/**
+	 * Returns true if the given function is a constant without arguments
+	 * like `pi()` or `true()`.
+	 */
+	public static boolean isConstant(Expression e) {
+		return e instanceof Pi
+				|| e instanceof E
+				|| e instanceof True
+				|| e instanceof False;
+	}
+
+	public static boolean isRandom(Expression e) {
+		return e instanceof Random;
+	}
+
+	public static boolean isNot(Expression e) {
+		return e instanceof Not;
+	}
+}
@@ -0,0 +1,149 @@
+package org.openlca.expressions;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class CompiledExpressionTest {
+
+	private final String[] formulas = {
+			"1 + 2 * 3 - 4 / 5",
+			"-a + b * c",
+			"- 2  ^  - 3  *  8 ",
+			"2^2^2",
+			"2 * (7 div 2 + 2)",
+			"a mod 3",
+			"a / (b - b)",
+			"7 div 0",
+			"sum() + sum(a; b; c) + avg(a; b) + max(a; b; c) + min(a; c)",
+			"abs(-a) + sqrt(b) + sqr(c) + exp(a) + ln(b) + log(c)",
+			"round(2.5) + ceil(2.1) + floor(2.9) + int(-2.7) + frac(-2.7)",
+			"power(a; b) + pow(b; a) + ipower(a; 2.7)",
+			"sin(a) + cos(b) + tan(c) + asin(0.5) + acos(0.5) + atan(c)",
+			"sinh(a) + cosh(b) + tanh(c) + cotan(a)",
+			"pi * e + pi() + e()",
+			"if(a < b; 1; 2) + if(a <= a; 1; 2) + if(c > b; 1; 2)",
+			"if(a >= b; 1; 2) + if(a = a; 1; 2) + if(a <> b; 1; 2)",
+			"if(3 > 2 && 4 < 3; 4; 2) + if(3 > 2 || 4 < 3; 4; 2)",
+			"if(3 < 2 | 4 < 3; 4; 2) + if(3 > 2 & 4 > 3; 4; 2)",
+			"if(and(3>2;4>3;5>4);4;2) + if(or(1>2;3>4;5==5);1;0)",
+			"if(not(4>3);1;0) + if(not();1;0) + if(true xor false; 1; 0)",
+			"if(true;1;0) + if(FALSE();1;0) + if(true = false; 1; 0)",
+			"if(true < false; 1; 0) + if(true <> true(); 1; 0)",
+			"if(d > 0; d; -d)",
+			"if(a; 1; 2)",
+			"if(true + 1 > 0; 1; 2)",
+			"unknown * 2",
+			"a < b",
+	};
+
+	@Test
+	public void testSameResults() throws Exception {
+		var interpreter = new FormulaInterpreter();
+		var compiled = new FormulaInterpreter();
+		compiled.useCompiledExpressions(true);
+		for (var i : new FormulaInterpreter[]{interpreter, compiled}) {
+			i.bind("a", 3);
+			i.bind("b", "a * 2.5");
+			i.bind("c", "-b / 7");
+			i.bind("d", "a - b");
+		}
+		for (var formula : formulas) {
+			Double expected;
+			try {
+				expected = interpreter.eval(formula);
+			} catch (InterpreterException e) {
+				expected = null;
+			}
+			if (expected == null) {
+				assertThrows(formula, InterpreterException.class,
+						() -> compiled.eval(formula));
+				continue;
+			}
+			assertEquals(formula, expected, compiled.eval(formula), 0);
+		}
+	}
+
+	/**
+	 * Binds global parameters and local parameters that depend on them and
+	 * evaluates a set of formulas after each change of a global parameter,
+	 * similar to a Monte Carlo simulation. The compiled expressions must give
+	 * exactly the same results as the interpreter.
+	 */
+	@Test
+	public void testSameResultsInLocalScopes() throws Exception {
+		var interpreter = new FormulaInterpreter();
+		var compiled = new FormulaInterpreter();
+		compiled.useCompiledExpressions(true);
+		for (var i : new FormulaInterpreter[]{interpreter, compiled}) {
+			i.bind("g1", 1);
+			i.bind("g2", "g1 * 2.5 + sqrt(g1)");
+			for (int s = 0; s < 50; s++) {
+				var scope = i.createScope(s);
+				scope.bind("p", s);
+				scope.bind("q", "if(p > g2; p * g1; p / g2) + max(p; g1; 1)");
+			}
+		}
+		var formulas = new String[]{
+				"q * 2",
+				"p * g1 + q / (1 + g2)",
+				"if(q > 10; ln(q); exp(-q)) + sqr(p - g1)",
+				"pi * p - e",
+		};
+
+		for (int it = 0; it < 20; it++) {
+			double g1 = 1 + it * 0.37;
+			interpreter.bind("g1", g1);
+			compiled.bind("g1", g1);
+			for (int s = 0; s < 50; s++) {
+				var expected = interpreter.getScopeOrGlobal(s);
+				var actual = compiled.getScopeOrGlobal(s);
+				for (var formula : formulas) {
+					assertEquals(formula, expected.eval(formula),
+							actual.eval(formula), 0);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testCompiledVariables() throws Exception {
+		var interpreter = new FormulaInterpreter();
+		interpreter.useCompiledExpressions(true);
+		interpreter.bind("a", 1);
+		interpreter.bind("b", "if(a > 1; a * 2; a / 2)");
+		var local = interpreter.createScope(1);
+		local.bind("c", "b + 1");
+		assertEquals(1.5, local.eval("c"), 1e-16);
+		interpreter.bind("a", 4);
+		assertEquals(9, local.eval("c"), 1e-16);
+
+		// the setting is kept in copies
+		var copy = interpreter.copy();
+		copy.bind("a", 2);
+		assertEquals(5, copy.getScopeOrGlobal(1).eval("c"), 1e-16);
+	}
+
+	@Test
+	public void testCycles() {
+		var interpreter = new FormulaInterpreter();
+		interpreter.useCompiledExpressions(true);
+		interpreter.bind("a", "b + 1");
+		interpreter.bind("b", "a + 1");
+		assertThrows(InterpreterException.class, () -> interpreter.eval("a"));
+	}
+
+	@Test
+	public void testUncompilable() throws Exception {
+		// boolean variables are only known at runtime
+		assertNull(compile("if(true = a; 1; 0)"));
+		assertNull(compile("a < b"));
+		assertNotNull(compile("if(a < b; a; b)"));
+	}
+
+	private ExpressionCompiler.DoubleNode compile(String formula)
+			throws Exception {
+		var cache = new ExpressionCache();
+		return cache.get(formula).compiled();
+	}
+}
@@ -0,0 +1,103 @@
+package org.openlca.expressions;
+
+import static org.junit.Assert.*;
+
+import java.util.HashSet;
+
+import org.junit.Test;
+
+public class DependencyGraphTest {
+
+	@Test
+	public void testRebindUpdatesDependents() throws Exception {
+		var interpreter = new FormulaInterpreter();
+		interpreter.bind("a", 1);
+		interpreter.bind("b", "a + 1");
+		interpreter.bind("c", "b * 2");
+		interpreter.bind("d", 10);
+		interpreter.bind("e", "d * 2");
+		assertEquals(4, interpreter.eval("c"), 1e-16);
+		assertEquals(20, interpreter.eval("e"), 1e-16);
+
+		for (int i = 0; i < 10; i++) {
+			interpreter.bind("a", i);
+			assertEquals(2 * (i + 1), interpreter.eval("c"), 1e-16);
+			assertEquals(20, interpreter.eval("e"), 1e-16);
+		}
+
+		// rebind an intermediate variable with a new expression
+		interpreter.bind("b", "a * 10");
+		assertEquals(180, interpreter.eval("c"), 1e-16);
+	}
+
+	@Test
+	public void testDependentsInLocalScopes() throws Exception {
+		var interpreter = new FormulaInterpreter();
+		interpreter.bind("g", 2);
+		var s1 = interpreter.createScope(1);
+		s1.bind("p", "g * 3");
+		var s2 = interpreter.createScope(2);
+		s2.bind("p", "g * 4");
+		assertEquals(6, s1.eval("p"), 1e-16);
+		assertEquals(8, s2.eval("p"), 1e-16);
+
+		interpreter.bind("g", 3);
+		assertEquals(9, s1.eval("p"), 1e-16);
+		assertEquals(12, s2.eval("p"), 1e-16);
+	}
+
+	@Test
+	public void testShadowing() throws Exception {
+		var interpreter = new FormulaInterpreter();
+		interpreter.bind("a", 1);
+		var local = interpreter.createScope(1);
+		local.bind("b", "a + 1");
+		assertEquals(2, local.eval("b"), 1e-16);
+
+		// a new local `a` shadows the global one
+		local.bind("a", 41);
+		assertEquals(42, local.eval("b"), 1e-16);
+		assertEquals(1, interpreter.eval("a"), 1e-16);
+	}
+
+	@Test
+	public void testCyclesAfterRebind() throws Exception {
+		var interpreter = new FormulaInterpreter();
+		interpreter.bind("a", 1);
+		interpreter.bind("b", "a + 1");
+		assertEquals(2, interpreter.eval("b"), 1e-16);
+		interpreter.bind("a", "b + 1");
+		assertThrows(InterpreterException.class, () -> interpreter.eval("b"));
+		interpreter.bind("a", 2);
+		assertEquals(3, interpreter.eval("b"), 1e-16);
+	}
+
+	@Test
+	public void testRandomVariablesAreNotCached() throws Exception {
+		for (var compiled : new boolean[]{false, true}) {
+			var interpreter = new FormulaInterpreter();
+			interpreter.useCompiledExpressions(compiled);
+			interpreter.bind("a", 1);
+			interpreter.bind("r", "rand()");
+			interpreter.bind("x", "r + a");
+			var local = interpreter.createScope(1);
+			local.bind("y", "x * 10");
+
+			var rs = new HashSet<Double>();
+			var xs = new HashSet<Double>();
+			var ys = new HashSet<Double>();
+			for (int i = 0; i < 3; i++) {
+				rs.add(interpreter.eval("r"));
+				xs.add(interpreter.eval("x"));
+				ys.add(local.eval("y"));
+			}
+			assertEquals(3, rs.size());
+			assertEquals(3, xs.size());
+			assertEquals(3, ys.size());
+
+			// within one evaluation call, a variable has a single value
+			assertEquals(0, interpreter.eval("x - r - a"), 1e-16);
+			assertEquals(0, local.eval("y - 10 * x"), 1e-12);
+		}
+	}
+}
@@ -0,0 +1,58 @@
+package org.openlca.expressions;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class ExpressionCacheTest {
+
+	@Test
+	public void testParseOnce() throws Exception {
+		var interpreter = new FormulaInterpreter();
+		interpreter.bind("a", "2 * b");
+		for (int i = 0; i < 100; i++) {
+			interpreter.bind("b", i);
+			assertEquals(2 * i + 1, interpreter.eval("a + 1"), 1e-16);
+		}
+		// "a + 1" and "2 * b"
+		assertEquals(2, interpreter.compiledExpressions());
+	}
+
+	@Test
+	public void testSlotsInScopes() throws Exception {
+		var interpreter = new FormulaInterpreter();
+		interpreter.bind("a", 1);
+		interpreter.bind("b", "A + 1");
+		var local = interpreter.createScope(1);
+		local.bind("a", 41);
+		local.bind("c", "b * pi / pi");
+
+		// the same compiled expression in different scopes
+		assertEquals(1, interpreter.eval("a"), 1e-16);
+		assertEquals(41, local.eval("a"), 1e-16);
+
+		// `b` is bound in the global scope and uses the global `a`
+		assertEquals(2, local.eval("c"), 1e-16);
+		assertEquals(42, local.eval("a + c - 1"), 1e-16);
+	}
+
+	@Test
+	public void testCopiesShareCache() throws Exception {
+		var interpreter = new FormulaInterpreter();
+		interpreter.bind("x", 2);
+		assertEquals(4, interpreter.eval("x * x"), 1e-16);
+		var copy = interpreter.copy();
+		copy.bind("x", 3);
+		assertEquals(9, copy.eval("x * x"), 1e-16);
+		assertEquals(4, interpreter.eval("x * x"), 1e-16);
+		assertEquals(1, copy.compiledExpressions());
+	}
+
+	@Test
+	public void testUnknownVariable() throws Exception {
+		var interpreter = new FormulaInterpreter();
+		assertThrows(InterpreterException.class, () -> interpreter.eval("y"));
+		interpreter.bind("y", 2);
+		assertEquals(2, interpreter.eval("y"), 1e-16);
+	}
+}
@@ -46,4 +46,17 @@ public class ScopingTest {
 		Assert.assertEquals(18.0, scope.eval("c"), 1e-16);
 	}
 
+	@Test
+	public void testCopy() throws Exception {
+		var interpreter = new FormulaInterpreter();
+		interpreter.bind("a", 2);
+		var scope = interpreter.createScope(1);
+		scope.bind("b", "a * 3");
+
+		var copy = interpreter.copy();
+		copy.bind("a", 4);
+		Assert.assertEquals(6.0, scope.eval("b"), 1e-16);
+		Assert.assertEquals(12.0, copy.getScopeOrGlobal(1).eval("b"), 1e-16);
+	}
+
 }
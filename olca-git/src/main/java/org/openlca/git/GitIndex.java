@@ -2,14 +2,13 @@ package org.openlca.git;
 
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.nio.file.Files;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 
@@ -23,11 +22,49 @@ import org.openlca.git.util.GitUtil;
 import org.openlca.util.Categories;
 import org.openlca.util.Categories.PathBuilder;
 
+/**
+ * The git index stores the object IDs of the data sets and folders of the
+ * last commit together with the version and last change of the data sets.
+ * It is stored in a compact binary format (see {@link GitIndexFile}): a
+ * table of the entries sorted by path that is searched directly instead of
+ * being deserialized into objects, and a log of the changes since the table
+ * was written. When the index is saved, only the changes are appended to the
+ * log; the table is rewritten when the log grows too large. Index files in
+ * the old serialized format are converted when they are saved the next
+ * time.
+ */
 public class GitIndex {
 
+	/**
+	 * The minimum number of log records before the table is rewritten.
+	 */
+	private static final int MIN_LOG_RECORDS = 1000;
+
 	private final File file;
-	private Map<String, GitIndexEntry> entries = new HashMap<>();
-	private Map<String, Set<String>> subPaths = new HashMap<>();
+
+	/**
+	 * The table of the last written index file; can be null.
+	 */
+	private GitIndexFile table;
+
+	/**
+	 * All changes since the table was written; removed entries are stored
+	 * as null values.
+	 */
+	private final Map<String, GitIndexEntry> changes = new HashMap<>();
+
+	/**
+	 * The changes since the index was saved the last time.
+	 */
+	private final Map<String, GitIndexEntry> unsaved = new LinkedHashMap<>();
+
+	/**
+	 * The sub-paths of the paths in the changes.
+	 */
+	private final Map<String, Set<String>> subPaths = new HashMap<>();
+
+	private int logRecords;
+	private boolean rewrite;
 
 	private GitIndex(File file) {
 		this.file = file;
@@ -38,18 +75,40 @@ public class GitIndex {
 		var index = new GitIndex(file);
 		if (file == null || !file.exists())
 			return index;
-		try (var fis = new FileInputStream(file);
-				var ois = new ObjectInputStream(fis)) {
-			index.entries = (HashMap<String, GitIndexEntry>) ois.readObject();
-		} catch (ClassNotFoundException e) {
-			throw new IOException(e);
+		if (!GitIndexFile.isBinary(file)) {
+			// convert an index in the old serialized format
+			try (var fis = new FileInputStream(file);
+					var ois = new ObjectInputStream(fis)) {
+				var entries = (HashMap<String, GitIndexEntry>) ois.readObject();
+				entries.forEach(index::putChange);
+			} catch (ClassNotFoundException e) {
+				throw new IOException(e);
+			}
+			index.unsaved.putAll(index.changes);
+			index.rewrite = true;
+			GitIndexFile.deleteLog(file);
+			return index;
 		}
-		for (var key : index.entries.keySet()) {
-			index.addSubPath(key);
+		index.table = GitIndexFile.read(file);
+		var log = GitIndexFile.readLog(file, index.table, index::putChange);
+		index.logRecords = log.records();
+		if (!log.isComplete()) {
+			// we do not append to a log with a partially written record or
+			// a log of another table; it is deleted with the next rewrite
+			index.rewrite = true;
 		}
 		return index;
 	}
 
+	private void putChange(String path, GitIndexEntry entry) {
+		changes.put(path, entry);
+		if (entry != null) {
+			addSubPath(path);
+		} else {
+			removeSubPath(path);
+		}
+	}
+
 	private void addSubPath(String path) {
 		if (path.isEmpty())
 			return;
@@ -81,16 +140,44 @@ public class GitIndex {
 		return new GitIndex(null);
 	}
 
+	/**
+	 * Saves the changes of the index. The changes are appended to the log of
+	 * the index file, or the index file is rewritten when there is no valid
+	 * table yet or the log would contain more records than a quarter of the
+	 * table entries (but at least {@link #MIN_LOG_RECORDS}).
+	 */
 	public void save() throws IOException {
 		if (file == null)
 			return;
-		if (!file.getParentFile().exists()) {
-			Files.createDirectories(file.getParentFile().toPath());
+		if (!file.getAbsoluteFile().getParentFile().exists()) {
+			Files.createDirectories(file.getAbsoluteFile().getParentFile().toPath());
 		}
-		try (var fos = new FileOutputStream(file);
-				var oos = new ObjectOutputStream(fos)) {
-			oos.writeObject(entries);
+		int maxLog = table != null
+				? Math.max(MIN_LOG_RECORDS, table.size() / 4)
+				: 0;
+		if (rewrite || table == null || logRecords + unsaved.size() > maxLog) {
+			var entries = new HashMap<String, GitIndexEntry>();
+			if (table != null) {
+				table.each(entries::put);
+			}
+			changes.forEach((path, entry) -> {
+				if (entry == null) {
+					entries.remove(path);
+				} else {
+					entries.put(path, entry);
+				}
+			});
+			table = GitIndexFile.write(file, entries);
+			GitIndexFile.deleteLog(file);
+			changes.clear();
+			subPaths.clear();
+			logRecords = 0;
+			rewrite = false;
+		} else if (!unsaved.isEmpty()) {
+			GitIndexFile.appendLog(file, table, unsaved);
+			logRecords += unsaved.size();
 		}
+		unsaved.clear();
 	}
 
 	public boolean has(ModelType type) {
@@ -111,7 +198,7 @@ public class GitIndex {
 	public boolean has(String path) {
 		if (path == null)
 			return false;
-		var entry = entries.get(path);
+		var entry = find(path);
 		return entry != null && entry.objectId != null;
 	}
 
@@ -137,16 +224,40 @@ public class GitIndex {
 	public GitIndexEntry get(String path) {
 		if (path == null)
 			return GitIndexEntry.NULL;
-		var entry = entries.get(path);
+		var entry = find(path);
 		if (entry != null)
 			return entry;
 		return GitIndexEntry.NULL;
 	}
 
+	private GitIndexEntry find(String path) {
+		if (changes.containsKey(path))
+			return changes.get(path);
+		if (table == null)
+			return null;
+		int pos = table.find(path);
+		return pos >= 0
+				? table.entryAt(pos)
+				: null;
+	}
+
 	public Set<String> getSubPaths(String path) {
 		if (path == null)
 			return new HashSet<>();
-		return subPaths.getOrDefault(path, new HashSet<>());
+		var paths = new HashSet<String>();
+		if (table != null) {
+			var prefix = path.isEmpty() ? "" : path + "/";
+			table.eachChild(prefix, (subPath, pos) -> {
+				if (!changes.containsKey(subPath)) {
+					paths.add(subPath);
+				}
+			});
+		}
+		var changed = subPaths.get(path);
+		if (changed != null) {
+			paths.addAll(changed);
+		}
+		return paths;
 	}
 
 	public void putRoot(ObjectId id) {
@@ -175,8 +286,11 @@ public class GitIndex {
 	public void put(String path, long version, long lastChange, ObjectId id) {
 		if (path == null)
 			return;
-		entries.put(path, new GitIndexEntry(path, version, lastChange, id));
-		addSubPath(path);
+		var entry = new GitIndexEntry(version, lastChange, id);
+		putChange(path, entry);
+		if (file != null) {
+			unsaved.put(path, entry);
+		}
 	}
 
 	public void removeRoot() {
@@ -201,8 +315,10 @@ public class GitIndex {
 	public void remove(String path) {
 		if (path == null)
 			return;
-		entries.remove(path);
-		removeSubPath(path);
+		putChange(path, null);
+		if (file != null) {
+			unsaved.put(path, null);
+		}
 	}
 
 	public void invalidate() {
@@ -236,20 +352,23 @@ public class GitIndex {
 					k += "/";
 				}
 			}
-			invalidate(entries.get(k));
+			invalidate(k, find(k));
 		}
-		invalidate(entries.get(""));
+		invalidate("", find(""));
 	}
 
-	private void invalidate(GitIndexEntry entry) {
-		if (entry == null)
+	private void invalidate(String path, GitIndexEntry entry) {
+		if (entry == null || entry.objectId == null)
 			return;
-		entry.objectId = null;
+		put(path, entry.version, entry.lastChange, null);
 	}
 
 	public void clear() {
-		entries.clear();
+		table = null;
+		changes.clear();
+		unsaved.clear();
 		subPaths.clear();
+		rewrite = true;
 	}
 
 	public String getPath(ModelType type) {
@@ -288,13 +407,13 @@ public class GitIndex {
 
 	public static class GitIndexEntry implements Serializable {
 
-		public static final GitIndexEntry NULL = new GitIndexEntry(null, -1, -1, null);
+		public static final GitIndexEntry NULL = new GitIndexEntry(-1, -1, null);
 		private static final long serialVersionUID = 2035250054845500724L;
 		private final long version;
 		private final long lastChange;
-		private byte[] objectId;
+		private final byte[] objectId;
 
-		private GitIndexEntry(String path, long version, long lastChange, ObjectId objectId) {
+		GitIndexEntry(long version, long lastChange, ObjectId objectId) {
 			this.version = version;
 			this.lastChange = lastChange;
 			this.objectId = objectId != null && !objectId.equals(ObjectId.zeroId())
@@ -0,0 +1,361 @@
+package org.openlca.git;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.zip.CRC32;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.openlca.git.GitIndex.GitIndexEntry;
+
+/**
+ * The binary format of a git index. An index file contains a header, a table
+ * of fixed-size entry records that is sorted by the (UTF-8 encoded) paths of
+ * the entries, and the concatenated paths:
+ *
+ * <pre>
+ * header:  magic (int), version (int), entry count (int), path bytes (int)
+ * entries: path offset (int), path length (int), version (long),
+ *          last change (long), object ID (20 bytes, zeros if not set)
+ * paths:   UTF-8 bytes of all paths
+ * </pre>
+ *
+ * Thus, an entry can be found with a binary search directly on the bytes of
+ * the file without creating objects for all entries. Changes after the table
+ * was written are appended to a log file next to the index file. The log
+ * starts with a header that links it to the table, the log magic (int) and
+ * the CRC32 checksum of the table file (long), followed by records of the
+ * form: operation (byte), path (UTF), and for put-operations version (long),
+ * last change (long), and object ID (20 bytes). A log with a checksum that
+ * does not match the table, e.g. when the process stopped after the table
+ * was replaced but before the old log was deleted, is ignored.
+ */
+class GitIndexFile {
+
+	static final int MAGIC = 0x4f4c4749;
+	static final int VERSION = 1;
+	static final int LOG_MAGIC = 0x4f4c474c;
+
+	private static final int HEADER_SIZE = 16;
+	private static final int LOG_HEADER_SIZE = 12;
+	private static final int RECORD_SIZE = 44;
+	private static final int ID_SIZE = 20;
+	private static final byte OP_PUT = 1;
+	private static final byte OP_REMOVE = 2;
+
+	private final byte[] data;
+	private final ByteBuffer buffer;
+	private final int count;
+	private final int pathStart;
+	private final long checksum;
+
+	private GitIndexFile(byte[] data) {
+		this.data = data;
+		this.buffer = ByteBuffer.wrap(data);
+		this.count = buffer.getInt(8);
+		this.pathStart = HEADER_SIZE + count * RECORD_SIZE;
+		var crc = new CRC32();
+		crc.update(data);
+		this.checksum = crc.getValue();
+	}
+
+	/**
+	 * Returns true if the given file starts with the magic number of the
+	 * binary index format.
+	 */
+	static boolean isBinary(File file) throws IOException {
+		if (file.length() < HEADER_SIZE)
+			return false;
+		try (var in = new DataInputStream(new FileInputStream(file))) {
+			return in.readInt() == MAGIC;
+		}
+	}
+
+	/**
+	 * Reads the table of the given index file with a single read.
+	 */
+	static GitIndexFile read(File file) throws IOException {
+		try (var channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE)
+				throw new IOException("index file is too large: " + file);
+			var data = new byte[(int) size];
+			var buffer = ByteBuffer.wrap(data);
+			while (buffer.hasRemaining()) {
+				if (channel.read(buffer) < 0)
+					throw new EOFException("unexpected end of index file " + file);
+			}
+			if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION)
+				throw new IOException("unknown index format: " + file);
+			return new GitIndexFile(data);
+		}
+	}
+
+	/**
+	 * Writes the given entries into a new table file. The file is first
+	 * written into a temporary file that then replaces the index file. The
+	 * written table is returned.
+	 */
+	static GitIndexFile write(File file, Map<String, GitIndexEntry> entries)
+			throws IOException {
+		var paths = new byte[entries.size()][];
+		var values = new GitIndexEntry[entries.size()];
+		int i = 0;
+		for (var e : entries.entrySet()) {
+			paths[i] = e.getKey().getBytes(StandardCharsets.UTF_8);
+			values[i] = e.getValue();
+			i++;
+		}
+		var order = new Integer[paths.length];
+		for (int k = 0; k < order.length; k++) {
+			order[k] = k;
+		}
+		Arrays.sort(order, (a, b) -> Arrays.compareUnsigned(paths[a], paths[b]));
+
+		int pathBytes = 0;
+		for (var p : paths) {
+			pathBytes += p.length;
+		}
+		var data = new byte[HEADER_SIZE + paths.length * RECORD_SIZE + pathBytes];
+		var buffer = ByteBuffer.wrap(data);
+		buffer.putInt(MAGIC);
+		buffer.putInt(VERSION);
+		buffer.putInt(paths.length);
+		buffer.putInt(pathBytes);
+		int offset = 0;
+		for (int k : order) {
+			var entry = values[k];
+			buffer.putInt(offset);
+			buffer.putInt(paths[k].length);
+			buffer.putLong(entry.version());
+			buffer.putLong(entry.lastChange());
+			buffer.put(entry.rawObjectId(), 0, ID_SIZE);
+			offset += paths[k].length;
+		}
+		for (int k : order) {
+			buffer.put(paths[k]);
+		}
+
+		var dir = file.getAbsoluteFile().getParentFile();
+		var tmp = File.createTempFile(file.getName(), ".tmp", dir);
+		try {
+			Files.write(tmp.toPath(), data);
+			Files.move(tmp.toPath(), file.toPath(),
+					StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(tmp.toPath());
+		}
+		return new GitIndexFile(data);
+	}
+
+	int size() {
+		return count;
+	}
+
+	/**
+	 * Returns the CRC32 checksum of the table file, which is written into the
+	 * header of its log.
+	 */
+	long checksum() {
+		return checksum;
+	}
+
+	/**
+	 * Returns the position of the entry with the given path in the table or
+	 * -1 if there is no such entry.
+	 */
+	int find(String path) {
+		var key = path.getBytes(StandardCharsets.UTF_8);
+		int pos = lowerBound(key);
+		return pos < count && compareAt(pos, key) == 0
+				? pos
+				: -1;
+	}
+
+	String pathAt(int pos) {
+		int record = HEADER_SIZE + pos * RECORD_SIZE;
+		return new String(data, pathStart + buffer.getInt(record),
+				buffer.getInt(record + 4), StandardCharsets.UTF_8);
+	}
+
+	GitIndexEntry entryAt(int pos) {
+		int record = HEADER_SIZE + pos * RECORD_SIZE;
+		var objectId = ObjectId.fromRaw(data, record + 24);
+		return new GitIndexEntry(
+				buffer.getLong(record + 8),
+				buffer.getLong(record + 16),
+				objectId);
+	}
+
+	/**
+	 * Calls the given function for each path of the table that starts with
+	 * the given prefix and has no further slash after it, together with the
+	 * position of the respective entry.
+	 */
+	void eachChild(String prefix, BiConsumer<String, Integer> fn) {
+		var key = prefix.getBytes(StandardCharsets.UTF_8);
+		for (int pos = lowerBound(key); pos < count; pos++) {
+			int record = HEADER_SIZE + pos * RECORD_SIZE;
+			int from = pathStart + buffer.getInt(record);
+			int length = buffer.getInt(record + 4);
+			if (length < key.length || Arrays.compareUnsigned(
+					data, from, from + key.length, key, 0, key.length) != 0)
+				return;
+			if (length == key.length)
+				continue;
+			boolean isChild = true;
+			for (int i = from + key.length; i < from + length; i++) {
+				if (data[i] == '/') {
+					isChild = false;
+					break;
+				}
+			}
+			if (isChild) {
+				fn.accept(new String(data, from, length, StandardCharsets.UTF_8), pos);
+			}
+		}
+	}
+
+	/**
+	 * Calls the given function for each path and entry in the table.
+	 */
+	void each(BiConsumer<String, GitIndexEntry> fn) {
+		for (int pos = 0; pos < count; pos++) {
+			fn.accept(pathAt(pos), entryAt(pos));
+		}
+	}
+
+	private int lowerBound(byte[] key) {
+		int low = 0;
+		int high = count;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (compareAt(mid, key) < 0) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	private int compareAt(int pos, byte[] key) {
+		int record = HEADER_SIZE + pos * RECORD_SIZE;
+		int from = pathStart + buffer.getInt(record);
+		int length = buffer.getInt(record + 4);
+		return Arrays.compareUnsigned(
+				data, from, from + length, key, 0, key.length);
+	}
+
+	/**
+	 * Returns the log file of the given index file.
+	 */
+	static File logOf(File file) {
+		return new File(file.getAbsoluteFile().getParentFile(),
+				file.getName() + ".log");
+	}
+
+	/**
+	 * Appends the given changes to the log file of the given table; removed
+	 * entries are given as {@code null} values. When the log is new, its
+	 * header with the checksum of the table is written first.
+	 */
+	static void appendLog(File file, GitIndexFile table,
+			Map<String, GitIndexEntry> changes) throws IOException {
+		var log = logOf(file);
+		boolean isNew = !log.exists() || log.length() == 0;
+		try (var out = new DataOutputStream(new BufferedOutputStream(
+				new FileOutputStream(log, true)))) {
+			if (isNew) {
+				out.writeInt(LOG_MAGIC);
+				out.writeLong(table.checksum());
+			}
+			for (var e : changes.entrySet()) {
+				var entry = e.getValue();
+				if (entry == null) {
+					out.writeByte(OP_REMOVE);
+					out.writeUTF(e.getKey());
+					continue;
+				}
+				out.writeByte(OP_PUT);
+				out.writeUTF(e.getKey());
+				out.writeLong(entry.version());
+				out.writeLong(entry.lastChange());
+				out.write(entry.rawObjectId(), 0, ID_SIZE);
+			}
+		}
+	}
+
+	/**
+	 * Reads the log file of the given index file and passes the changes to
+	 * the given function; removed entries are passed as {@code null} values.
+	 * A partially written record at the end of the log is ignored; in this
+	 * case, the log is marked as incomplete and new records must not be
+	 * appended to it. A log that does not belong to the given table is
+	 * ignored completely and also marked as incomplete.
+	 */
+	static LogState readLog(File file, GitIndexFile table,
+			BiConsumer<String, GitIndexEntry> fn) throws IOException {
+		var log = logOf(file);
+		if (!log.exists() || log.length() == 0)
+			return new LogState(0, true);
+		if (log.length() < LOG_HEADER_SIZE)
+			return new LogState(0, false);
+		int records = 0;
+		long valid = LOG_HEADER_SIZE;
+		try (var in = new DataInputStream(new BufferedInputStream(
+				new FileInputStream(log)))) {
+			if (in.readInt() != LOG_MAGIC || in.readLong() != table.checksum())
+				return new LogState(0, false);
+			var id = new byte[ID_SIZE];
+			while (true) {
+				try {
+					byte op = in.readByte();
+					var path = in.readUTF();
+					int pathSize = 2 + path.getBytes(StandardCharsets.UTF_8).length;
+					if (op == OP_REMOVE) {
+						fn.accept(path, null);
+						valid += 1 + pathSize;
+					} else {
+						long version = in.readLong();
+						long lastChange = in.readLong();
+						in.readFully(id);
+						fn.accept(path, new GitIndexEntry(
+								version, lastChange, ObjectId.fromRaw(id)));
+						valid += 1 + pathSize + 16 + ID_SIZE;
+					}
+					records++;
+				} catch (EOFException e) {
+					return new LogState(records, valid == log.length());
+				}
+			}
+		}
+	}
+
+	static void deleteLog(File file) throws IOException {
+		Files.deleteIfExists(logOf(file).toPath());
+	}
+
+	/**
+	 * The number of records in a log file and whether the last record was
+	 * completely written.
+	 */
+	record LogState(int records, boolean isComplete) {
+	}
+}
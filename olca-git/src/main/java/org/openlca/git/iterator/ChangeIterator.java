@@ -28,6 +28,12 @@ public class ChangeIterator extends EntryIterator {
 		this.changes = changes;
 	}
 
+	private ChangeIterator(String prefix, BinaryResolver binaryResolver, List<Change> changes) {
+		super(GitUtil.encode(prefix), initialize(prefix, binaryResolver, changes));
+		this.binaryResolver = binaryResolver;
+		this.changes = changes;
+	}
+
 	private ChangeIterator(ChangeIterator parent, Change change, String filePath) {
 		super(parent, parent.binaryResolver.list(change, filePath).stream()
 				.map(path -> {
@@ -70,6 +76,22 @@ public class ChangeIterator extends EntryIterator {
 		return createSubtreeIterator(null);
 	}
 
+	/**
+	 * Creates an iterator for the sub-tree of the current entry that does not
+	 * share its path buffer with this iterator. Thus, it can be used in
+	 * another thread while this iterator moves to the next entries.
+	 */
+	public ChangeIterator createDetachedSubtreeIterator() {
+		var data = getEntryData();
+		var filePath = getEntryFilePath();
+		if (data != null && filePath != null)
+			return new ChangeIterator(this, data, filePath);
+		var path = GitUtil.decode(getEntryPathString());
+		return new ChangeIterator(path, binaryResolver, changes.stream()
+				.filter(d -> d.path.startsWith(path + "/"))
+				.toList());
+	}
+
 	@Override
 	public ChangeIterator createSubtreeIterator(ObjectReader reader) {
 		var data = getEntryData();
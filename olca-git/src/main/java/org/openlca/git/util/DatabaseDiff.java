@@ -0,0 +1,308 @@
+package org.openlca.git.util;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+import org.openlca.core.database.IDatabase;
+import org.openlca.core.database.NativeSql;
+import org.openlca.core.model.ModelType;
+import org.openlca.core.model.ParameterScope;
+import org.openlca.git.GitIndex;
+import org.openlca.git.model.Diff;
+import org.openlca.git.model.DiffType;
+import org.openlca.git.model.Reference;
+import org.openlca.util.Strings;
+
+import jakarta.persistence.Table;
+
+/**
+ * Calculates the differences between the data sets of a database and a
+ * commit. Instead of walking the category trees of the database, the
+ * fingerprints (type, ref. ID, version, last change, category) of all root
+ * entities are fetched in a single native SQL query. A data set is unchanged
+ * if its version and last change match the entry in the git index; then the
+ * object ID of that entry is taken as the ID of the data set. The data sets
+ * of both sides are then held in arrays sorted by path and merged in one
+ * pass. The result is the same as walking a {@link TreeWalk} over the commit
+ * and a {@link org.openlca.git.iterator.DatabaseIterator}.
+ */
+class DatabaseDiff {
+
+	private static final ModelType[] TYPES = Arrays.stream(ModelType.values())
+			.filter(type -> type != ModelType.CATEGORY && type.getModelClass() != null)
+			.toArray(ModelType[]::new);
+
+	private final IDatabase database;
+	private final GitIndex gitIndex;
+
+	DatabaseDiff(IDatabase database, GitIndex gitIndex) {
+		this.database = database;
+		this.gitIndex = gitIndex;
+	}
+
+	/**
+	 * Returns the differences between the given commit tree (the left side)
+	 * and the database (the right side). The filter is applied on the tree
+	 * walk and the paths are filters on the (encoded) paths of the data sets
+	 * in the database, with the same semantics as in the tree walk.
+	 */
+	List<Diff> diff(Repository repo, ObjectId tree, String commitId,
+			TreeFilter filter, List<String> paths) throws IOException {
+		var left = tree != null
+				? commitSide(repo, tree, filter)
+				: new Side(new String[0], new ObjectId[0]);
+		var right = databaseSide(paths);
+		var diffs = new ArrayList<Diff>();
+		int i = 0;
+		int j = 0;
+		while (i < left.size() || j < right.size()) {
+			int c = i >= left.size()
+					? 1
+					: j >= right.size()
+							? -1
+							: left.paths[i].compareTo(right.paths[j]);
+			if (c < 0) {
+				diffs.add(new Diff(DiffType.DELETED,
+						left.ref(i, commitId), null));
+				i++;
+			} else if (c > 0) {
+				diffs.add(new Diff(DiffType.ADDED,
+						null, right.ref(j, null)));
+				j++;
+			} else {
+				if (!left.ids[i].equals(right.ids[j])) {
+					diffs.add(new Diff(DiffType.MODIFIED,
+							left.ref(i, commitId), right.ref(j, null)));
+				}
+				i++;
+				j++;
+			}
+		}
+		return diffs;
+	}
+
+	private Side commitSide(Repository repo, ObjectId tree, TreeFilter filter)
+			throws IOException {
+		var paths = new ArrayList<String>();
+		var ids = new ArrayList<ObjectId>();
+		try (var walk = new TreeWalk(repo)) {
+			walk.addTree(tree);
+			walk.setFilter(filter);
+			walk.setRecursive(true);
+			while (walk.next()) {
+				paths.add(walk.getPathString());
+				ids.add(walk.getObjectId(0));
+			}
+		}
+		return Side.sorted(paths, ids);
+	}
+
+	private Side databaseSide(List<String> filters) {
+		var categories = categories();
+		var encodedFilters = filters.stream()
+				.filter(p -> !Strings.nullOrEmpty(p))
+				.map(GitUtil::encode)
+				.toList();
+		var paths = new ArrayList<String>();
+		var ids = new ArrayList<ObjectId>();
+		NativeSql.on(database).query(fingerprintQuery(), r -> {
+			var type = TYPES[r.getInt(1)];
+			var refId = r.getString(2);
+			long version = r.getLong(3);
+			long lastChange = r.getLong(4);
+			long categoryId = r.getLong(5);
+			boolean hasCategory = !r.wasNull();
+			var category = hasCategory ? categories.get(categoryId) : null;
+
+			// data sets in unknown categories, categories of other types, or
+			// library categories are not visible in the database tree
+			if (hasCategory && (category == null || category.hidden(type)))
+				return true;
+
+			var name = refId + GitUtil.DATASET_SUFFIX;
+			var path = category != null
+					? type.name() + "/" + category.treePath() + "/" + GitUtil.encode(name)
+					: type.name() + "/" + GitUtil.encode(name);
+			if (!matches(path, encodedFilters))
+				return true;
+			var indexPath = category != null
+					? category.indexPath()
+					: null;
+			paths.add(path);
+			ids.add(objectIdOf(type, indexPath, name, version, lastChange));
+			return true;
+		});
+		return Side.sorted(paths, ids);
+	}
+
+	private ObjectId objectIdOf(ModelType type, String categoryPath,
+			String name, long version, long lastChange) {
+		if (gitIndex == null)
+			return ObjectId.zeroId();
+		var entry = gitIndex.get(gitIndex.getPath(type, categoryPath, name));
+		return entry.version() == version && entry.lastChange() == lastChange
+				? entry.objectId()
+				: ObjectId.zeroId();
+	}
+
+	/**
+	 * Selects the fingerprints of all root entities that are not from a
+	 * library. The first column contains the position of the model type in
+	 * the {@link #TYPES} array.
+	 */
+	private static String fingerprintQuery() {
+		var sql = new StringBuilder();
+		for (int i = 0; i < TYPES.length; i++) {
+			var type = TYPES[i];
+			var table = type.getModelClass().getAnnotation(Table.class);
+			if (table == null)
+				continue;
+			if (sql.length() > 0) {
+				sql.append(" union all ");
+			}
+			sql.append("select ").append(i)
+					.append(", ref_id, version, last_change, f_category from ")
+					.append(table.name())
+					.append(" where library is null");
+			if (type == ModelType.PARAMETER) {
+				sql.append(" and scope = '")
+						.append(ParameterScope.GLOBAL.name())
+						.append("'");
+			}
+		}
+		return sql.toString();
+	}
+
+	private Map<Long, CategoryNode> categories() {
+		var nodes = new HashMap<Long, CategoryNode>();
+		var sql = "select id, name, f_category, model_type, library from tbl_categories";
+		NativeSql.on(database).query(sql, r -> {
+			var node = new CategoryNode();
+			node.name = r.getString(2);
+			long parent = r.getLong(3);
+			node.parent = r.wasNull() ? null : parent;
+			var type = r.getString(4);
+			node.type = type != null ? ModelType.valueOf(type) : null;
+			node.fromLibrary = r.getString(5) != null;
+			nodes.put(r.getLong(1), node);
+			return true;
+		});
+		for (var node : nodes.values()) {
+			node.link(nodes);
+		}
+		return nodes;
+	}
+
+	private static boolean matches(String path, List<String> filters) {
+		for (var filter : filters) {
+			if (!path.equals(filter) && !path.startsWith(filter + "/"))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * The paths and object IDs of the data sets of one side, sorted by path.
+	 */
+	private record Side(String[] paths, ObjectId[] ids) {
+
+		static Side sorted(List<String> paths, List<ObjectId> ids) {
+			var order = new Integer[paths.size()];
+			for (int i = 0; i < order.length; i++) {
+				order[i] = i;
+			}
+			Arrays.sort(order, (a, b) -> paths.get(a).compareTo(paths.get(b)));
+			var sortedPaths = new String[order.length];
+			var sortedIds = new ObjectId[order.length];
+			for (int i = 0; i < order.length; i++) {
+				sortedPaths[i] = paths.get(order[i]);
+				sortedIds[i] = ids.get(order[i]);
+			}
+			return new Side(sortedPaths, sortedIds);
+		}
+
+		int size() {
+			return paths.length;
+		}
+
+		Reference ref(int i, String commitId) {
+			return new Reference(GitUtil.decode(paths[i]), commitId, ids[i]);
+		}
+	}
+
+	private static class CategoryNode {
+
+		String name;
+		Long parent;
+		ModelType type;
+		boolean fromLibrary;
+
+		private CategoryNode parentNode;
+		private boolean linked;
+		private boolean broken;
+		private String treePath;
+		private String indexPath;
+
+		/**
+		 * Returns true if data sets of the given type in this category are
+		 * not visible in the database tree.
+		 */
+		boolean hidden(ModelType dataSetType) {
+			return broken || type != dataSetType;
+		}
+
+		/**
+		 * The path of this category in the tree with encoded names.
+		 */
+		String treePath() {
+			return treePath;
+		}
+
+		/**
+		 * The path of this category in the git index, like in
+		 * {@link org.openlca.util.Categories.PathBuilder}.
+		 */
+		String indexPath() {
+			return indexPath;
+		}
+
+		private void link(Map<Long, CategoryNode> nodes) {
+			if (linked)
+				return;
+			linked = true;
+			if (parent != null) {
+				parentNode = nodes.get(parent);
+				if (parentNode == null) {
+					broken = true;
+				} else {
+					parentNode.link(nodes);
+					// a cycle in the category tree
+					broken |= parentNode.treePath == null;
+				}
+			}
+			var encoded = GitUtil.encode(name);
+			var trimmed = name != null ? name.trim() : "";
+			if (parentNode == null || parentNode.treePath == null) {
+				broken |= fromLibrary;
+				treePath = encoded;
+				indexPath = Strings.nullIfEmpty(trimmed);
+			} else {
+				broken |= fromLibrary
+						|| parentNode.broken
+						|| parentNode.type != type;
+				treePath = parentNode.treePath + "/" + encoded;
+				indexPath = parentNode.indexPath != null
+						? parentNode.indexPath + "/" + trimmed
+						: trimmed;
+			}
+		}
+	}
+}
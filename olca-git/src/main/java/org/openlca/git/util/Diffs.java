@@ -12,6 +12,7 @@ import org.eclipse.jgit.diff.DiffEntry.Side;
 import org.eclipse.jgit.lib.FileMode;
 import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.treewalk.EmptyTreeIterator;
 import org.eclipse.jgit.treewalk.TreeWalk;
 import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
@@ -21,7 +22,6 @@ import org.openlca.core.database.IDatabase;
 import org.openlca.git.GitIndex;
 import org.openlca.git.find.Commits;
 import org.openlca.git.find.NotBinaryFilter;
-import org.openlca.git.iterator.DatabaseIterator;
 import org.openlca.git.model.Commit;
 import org.openlca.git.model.Diff;
 import org.openlca.git.model.DiffType;
@@ -56,18 +56,27 @@ public class Diffs {
 		return this;
 	}
 
+	/**
+	 * Returns the differences between the commit (or the head commit if no
+	 * commit was given) and the data sets in the database. The state of the
+	 * data sets is compared via the version and last change fields with the
+	 * entries of the given git index.
+	 */
 	public List<Diff> with(IDatabase database, GitIndex gitIndex) {
-		try (var walk = new TreeWalk(repo)) {
-			addTree(repo, walk, commit, true);
-			walk.addTree(new DatabaseIterator(database, gitIndex));
-			if (paths == null) {
-				paths = new ArrayList<>();
-			}
-			walk.setFilter(getPathsFilter(paths.stream().distinct().toList()));
-			walk.setRecursive(true);
-			return scan(walk, e -> map(e, commit, null));
+		if (paths == null) {
+			paths = new ArrayList<>();
+		}
+		var distinct = paths.stream().distinct().toList();
+		try {
+			var revCommit = revCommitOf(repo, commit, true);
+			var tree = revCommit != null
+					? revCommit.getTree().getId()
+					: null;
+			var commitId = commit != null ? commit.id : null;
+			return new DatabaseDiff(database, gitIndex)
+					.diff(repo, tree, commitId, getPathsFilter(distinct), distinct);
 		} catch (IOException e) {
-			log.error("Error adding tree", e);
+			log.error("Error calculating diffs with database", e);
 			return new ArrayList<>();
 		}
 	}
@@ -133,19 +142,24 @@ public class Diffs {
 
 	private static void addTree(Repository repo, TreeWalk walk, Commit commit, boolean useHeadAsDefault)
 			throws IOException {
+		var revCommit = revCommitOf(repo, commit, useHeadAsDefault);
+		if (revCommit == null) {
+			walk.addTree(new EmptyTreeIterator());
+		} else {
+			walk.addTree(revCommit.getTree().getId());
+		}
+	}
+
+	private static RevCommit revCommitOf(Repository repo, Commit commit, boolean useHeadAsDefault)
+			throws IOException {
 		var commitOid = commit != null
 				? ObjectId.fromString(commit.id)
 				: null;
-		var revCommit = commitOid != null
+		return commitOid != null
 				? repo.parseCommit(commitOid)
 				: useHeadAsDefault
 						? Repositories.headCommitOf(repo)
 						: null;
-		if (revCommit == null) {
-			walk.addTree(new EmptyTreeIterator());
-		} else {
-			walk.addTree(revCommit.getTree().getId());
-		}
 	}
 
 	private static TreeFilter getPathsFilter(List<String> paths) {
@@ -2,8 +2,15 @@ package org.openlca.git.writer;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.eclipse.jgit.errors.CorruptObjectException;
 import org.eclipse.jgit.errors.IncorrectObjectTypeException;
@@ -34,6 +41,14 @@ import org.openlca.util.Strings;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Writes the changes of a commit into the repository. The sub-trees of the
+ * top-level folders (the model type folders) are built in parallel. Blobs
+ * are inserted into a pack file per thread, trees and commits via the
+ * object inserter of the repository. The {@link #inserted} and
+ * {@link #removed} call-backs and the progress monitor are called
+ * synchronized, one call at a time, but from different threads.
+ */
 // TODO check error handling
 public abstract class CommitWriter {
 
@@ -43,8 +58,11 @@ public abstract class CommitWriter {
 	protected String ref = Constants.HEAD;
 	protected PersonIdent committer = new PersonIdent("anonymous", "anonymous@anonymous.org");
 	protected ProgressMonitor progressMonitor = ProgressMonitor.NULL;
-	private PackInserter packInserter;
+	private final Object lock = new Object();
+	private final List<PackInserter> packInserters = new ArrayList<>();
+	private ThreadLocal<PackInserter> packInserter;
 	private ObjectInserter objectInserter;
+	private ExecutorService treeThreads;
 
 	public CommitWriter(Repository repo, BinaryResolver binaryResolver) {
 		this.repo = repo;
@@ -102,15 +120,29 @@ public abstract class CommitWriter {
 
 	private void init(boolean firstCommit) {
 		if (repo instanceof FileRepository fileRepo) {
-			packInserter = fileRepo.getObjectDatabase().newPackInserter();
-			packInserter.checkExisting(!firstCommit);
+			packInserter = ThreadLocal.withInitial(() -> {
+				var inserter = fileRepo.getObjectDatabase().newPackInserter();
+				inserter.checkExisting(!firstCommit);
+				synchronized (packInserters) {
+					packInserters.add(inserter);
+				}
+				return inserter;
+			});
 		}
 		objectInserter = repo.newObjectInserter();
+		var threads = Math.max(1, Runtime.getRuntime().availableProcessors());
+		treeThreads = Executors.newFixedThreadPool(threads, r -> {
+			var thread = new Thread(r, "git-tree-writer");
+			thread.setDaemon(true);
+			return thread;
+		});
 	}
 
 	private ObjectId syncTree(String prefix, ChangeIterator iterator, ObjectId[] treeIds) {
 		boolean appended = false;
 		var tree = new TreeFormatter();
+		var isRoot = Strings.nullOrEmpty(prefix);
+		var rootEntries = new ArrayList<RootEntry>();
 		try (var walk = createWalk(prefix, iterator, treeIds)) {
 			var previous = "";
 			var previousWasDeleted = false;
@@ -124,7 +156,13 @@ public abstract class CommitWriter {
 				previousWasDeleted = false;
 				var mode = walk.getFileMode();
 				ObjectId id = null;
-				if (mode == FileMode.TREE) {
+				if (mode == FileMode.TREE && isRoot) {
+					// the sub-trees of the top-level folders are built in
+					// parallel and appended in the same order afterwards
+					var task = subTreeTask(walk, iterator, true);
+					rootEntries.add(new RootEntry(name, mode, treeThreads.submit(task)));
+					continue;
+				} else if (mode == FileMode.TREE) {
 					id = handleTree(walk, iterator);
 				} else if (mode == FileMode.REGULAR_FILE) {
 					id = handleFile(walk);
@@ -133,22 +171,37 @@ public abstract class CommitWriter {
 					previousWasDeleted = true;
 					continue;
 				}
+				if (isRoot) {
+					rootEntries.add(new RootEntry(name, mode,
+							CompletableFuture.completedFuture(id)));
+					continue;
+				}
 				tree.append(name, mode, id);
 				appended = true;
 			}
 		} catch (Exception e) {
 			log.error("Error walking tree", e);
 		}
-		if (!appended && !Strings.nullOrEmpty(prefix)) {
-			removed(prefix);
+		for (var entry : rootEntries) {
+			var id = entry.join();
+			if (id == null || id.equals(ObjectId.zeroId()))
+				continue;
+			tree.append(entry.name, entry.mode, id);
+			appended = true;
+		}
+		if (!appended && !isRoot) {
+			onRemoved(prefix);
 			return null;
 		}
-		if (Strings.nullOrEmpty(prefix)) {
+		if (isRoot) {
 			appendPackageInfo(tree);
 		}
 		try {
-			var newId = objectInserter.insert(tree);
-			inserted(prefix, newId);
+			ObjectId newId;
+			synchronized (lock) {
+				newId = objectInserter.insert(tree);
+			}
+			onInserted(prefix, newId);
 			return newId;
 		} catch (IOException e) {
 			log.error("Error inserting tree", e);
@@ -182,21 +235,39 @@ public abstract class CommitWriter {
 		}
 	}
 
-	private ObjectId handleTree(TreeWalk walk, ChangeIterator iterator) {
+	private ObjectId handleTree(TreeWalk walk, ChangeIterator iterator) throws Exception {
+		return subTreeTask(walk, iterator, false).call();
+	}
+
+	/**
+	 * Creates a task that builds the sub-tree of the current entry of the
+	 * walk. The state of the walk is read when the task is created, so that
+	 * the task can be executed in another thread; in this case, the iterator of
+	 * the sub-tree must be detached from the iterator of the walk.
+	 */
+	private Callable<ObjectId> subTreeTask(TreeWalk walk, ChangeIterator iterator, boolean detached) {
 		var treeCount = walk.getTreeCount();
 		var treeIds = new ObjectId[treeCount - 1];
 		for (var i = 0; i < treeCount - 1; i++) {
 			treeIds[i] = walk.getFileMode(i) != FileMode.MISSING ? walk.getObjectId(i) : null;
 		}
-		var subIterator = walk.getFileMode(treeCount - 1) != FileMode.MISSING ? iterator.createSubtreeIterator() : null;
+		ChangeIterator subIterator = null;
+		if (walk.getFileMode(treeCount - 1) != FileMode.MISSING) {
+			subIterator = detached
+					? iterator.createDetachedSubtreeIterator()
+					: iterator.createSubtreeIterator();
+		}
 		if (subIterator != null) {
 			var prefix = GitUtil.decode(walk.getPathString());
-			return syncTree(prefix, subIterator, treeIds);
+			var sub = subIterator;
+			return () -> syncTree(prefix, sub, treeIds);
 		}
-		for (var i = treeCount - 2; i >= 0; i--)
-			if (treeIds[i] != null)
-				return treeIds[i];
-		return null;
+		return () -> {
+			for (var i = treeCount - 2; i >= 0; i--)
+				if (treeIds[i] != null)
+					return treeIds[i];
+			return null;
+		};
 	}
 
 	private ObjectId handleFile(TreeWalk walk)
@@ -214,22 +285,38 @@ public abstract class CommitWriter {
 		var filePath = iterator.getEntryFilePath();
 		if (change.diffType == DiffType.DELETED && matches(path, change, filePath)) {
 			if (filePath == null) {
-				removed(path);
+				onRemoved(path);
 			}
 			return null;
 		}
 		if (filePath != null)
 			return insertBlob(binaryResolver.resolve(change, filePath));
-		progressMonitor.subTask("Writing", change);
+		synchronized (lock) {
+			progressMonitor.subTask("Writing", change);
+		}
 		var data = getData(change);
 		if (data == null)
 			return null;
 		var blobId = insertBlob(data);
-		inserted(path, blobId);
-		progressMonitor.worked(1);
+		onInserted(path, blobId);
+		synchronized (lock) {
+			progressMonitor.worked(1);
+		}
 		return blobId;
 	}
 
+	private void onInserted(String path, ObjectId id) {
+		synchronized (lock) {
+			inserted(path, id);
+		}
+	}
+
+	private void onRemoved(String path) {
+		synchronized (lock) {
+			removed(path);
+		}
+	}
+
 	private void appendPackageInfo(TreeFormatter tree) {
 		try {
 			var schemaBytes = PackageInfo.create()
@@ -246,8 +333,10 @@ public abstract class CommitWriter {
 
 	private ObjectId insertBlob(byte[] blob) throws IOException {
 		if (packInserter != null)
-			return packInserter.insert(Constants.OBJ_BLOB, blob);
-		return objectInserter.insert(Constants.OBJ_BLOB, blob);
+			return packInserter.get().insert(Constants.OBJ_BLOB, blob);
+		synchronized (lock) {
+			return objectInserter.insert(Constants.OBJ_BLOB, blob);
+		}
 	}
 
 	private boolean matches(String path, Change change, String filePath) {
@@ -309,11 +398,18 @@ public abstract class CommitWriter {
 	}
 
 	protected void close() throws IOException {
-		if (packInserter != null) {
-			packInserter.flush();
-			packInserter.close();
-			packInserter = null;
+		if (treeThreads != null) {
+			treeThreads.shutdownNow();
+			treeThreads = null;
 		}
+		synchronized (packInserters) {
+			for (var inserter : packInserters) {
+				inserter.flush();
+				inserter.close();
+			}
+			packInserters.clear();
+		}
+		packInserter = null;
 		if (objectInserter != null) {
 			objectInserter.flush();
 			objectInserter.close();
@@ -333,4 +429,23 @@ public abstract class CommitWriter {
 
 	protected abstract byte[] getData(Change change) throws IOException;
 
+	/**
+	 * An entry of the root tree; the IDs of sub-trees are built in parallel.
+	 */
+	private record RootEntry(String name, FileMode mode, Future<ObjectId> future) {
+
+		ObjectId join() {
+			try {
+				return future.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				log.error("Interrupted while building tree " + name, e);
+				return null;
+			} catch (ExecutionException e) {
+				log.error("Error building tree " + name, e.getCause());
+				return null;
+			}
+		}
+	}
+
 }
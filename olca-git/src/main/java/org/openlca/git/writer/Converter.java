@@ -1,14 +1,19 @@
 package org.openlca.git.writer;
 
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Deque;
 import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 
+import org.openlca.core.database.Daos;
 import org.openlca.core.database.IDatabase;
 import org.openlca.core.model.ModelType;
 import org.openlca.core.model.RootEntity;
@@ -28,98 +33,140 @@ import com.google.gson.Gson;
 import com.google.gson.JsonObject;
 
 /**
- * Multithreaded data conversion. Starts {config.converterThreads} simultaneous
- * threads to convert data sets to JSON and afterwards starts the next thread.
- * To avoid memory issues when conversion is faster than consummation
- * "startNext" checks if the queueSize is reached and returns otherwise.
- * queueSize considers elements that are still in conversion as already part of
- * the queue. When elements are taken from the queue "startNext" is called again
- * to ensure continuation of threads
- * 
+ * Multithreaded data conversion. Starts a fixed number of converter threads
+ * (one per processor) that take the next batch of data sets of the same type
+ * from the list of changes, load them with one query, and convert them to
+ * JSON. To avoid memory issues when conversion is faster than consummation,
+ * the number of data sets that are converted or wait to be taken is bounded:
+ * a converter thread acquires permits for a batch before it takes the batch
+ * from the list and a permit is released when a data set is taken from the
+ * queue. Each converter thread uses its own JSON export, as an export is not
+ * thread-safe.
+ *
  * Expects all entries that are converted also to be taken in the same order,
  * otherwise runs into deadlock.
- * 
+ *
  * Product systems are not queued, but converted on demand, because the
  * JsonObjects during conversion take to much memory
  */
 class Converter implements JsonStoreWriter {
 
 	private static final Logger log = LoggerFactory.getLogger(Converter.class);
+	private static final int BATCH_SIZE = 25;
 	private final BlockingMap<String, byte[]> queue = new BlockingHashMap<>();
 	private final IDatabase database;
 	private final ExecutorService threads;
-	private final Deque<Change> changes = new LinkedList<>();
+	private final Deque<Change> changes = new ArrayDeque<>();
 	private final Map<String, Change> systems = new HashMap<>();
-	private final AtomicInteger queueSize = new AtomicInteger();
-	private final JsonExport export;
+	private final Semaphore capacity;
+	private final ThreadLocal<JsonExport> exports;
+	private final ThreadLocal<Boolean> written = ThreadLocal.withInitial(() -> false);
 	private final int converterThreads;
 
-	Converter(IDatabase database, ExecutorService threads) {
+	Converter(IDatabase database) {
 		this.database = database;
-		this.threads = threads;
-		this.export = new JsonExport(database, this)
-				.withReferences(false)
-				.skipExternalFiles(true);
 		var processors = 1;
 		try {
 			processors = Runtime.getRuntime().availableProcessors();
 		} catch (Throwable e) {
 			processors = 1;
 		}
-		this.converterThreads = processors;
+		this.converterThreads = Math.max(1, processors);
+		this.capacity = new Semaphore(2 * converterThreads * BATCH_SIZE);
+		this.threads = Executors.newFixedThreadPool(converterThreads, r -> {
+			var thread = new Thread(r, "git-converter");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.exports = ThreadLocal.withInitial(() -> new JsonExport(database, this)
+				.withReferences(false)
+				.skipExternalFiles(true));
 	}
 
 	void start(List<Change> changes) {
-		this.changes.clear();
-		this.systems.clear();
-		for (var change : changes) {
-			if (change.type == ModelType.PRODUCT_SYSTEM) {
-				this.systems.put(change.path, change);
-			} else {
-				this.changes.add(change);
+		synchronized (this.changes) {
+			this.changes.clear();
+			this.systems.clear();
+			for (var change : changes) {
+				if (change.diffType == DiffType.DELETED)
+					continue;
+				if (change.type == ModelType.PRODUCT_SYSTEM) {
+					this.systems.put(change.path, change);
+				} else {
+					this.changes.add(change);
+				}
 			}
 		}
 		for (var i = 0; i < converterThreads; i++) {
-			startNext();
+			threads.execute(this::work);
 		}
 	}
 
-	private void startNext() {
-		// forgoing synchronizing get + incrementAndGet for better performance.
-		// might lead to temporarily slightly higher queueSize than specified
-		if (queueSize.get() >= converterThreads)
-			return;
-		queueSize.incrementAndGet();
-		synchronized (changes) {
-			if (changes.isEmpty())
-				return;
-			var entry = changes.pop();
-			threads.submit(() -> {
-				convert(entry);
-				startNext();
-			});
+	private void work() {
+		try {
+			while (true) {
+				var batch = nextBatch();
+				if (batch.isEmpty())
+					return;
+				convert(batch);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
 		}
 	}
 
-	private void convert(Change change) {
-		if (change.diffType == DiffType.DELETED)
-			return;
-		try {
-			var model = database.get(change.type.getModelClass(), change.refId);
-			convert(model);
-		} catch (Exception e) {
-			log.error("failed to convert data set " + change, e);
-			put(change.path, new byte[0]);
+	/**
+	 * Takes the next changes of the same type from the list. The permits are
+	 * acquired before the changes are taken (within the same lock), so that
+	 * the changes are always converted in the order in which they are taken
+	 * by the consumer.
+	 */
+	private List<Change> nextBatch() throws InterruptedException {
+		synchronized (changes) {
+			if (changes.isEmpty())
+				return Collections.emptyList();
+			capacity.acquire(BATCH_SIZE);
+			var batch = new ArrayList<Change>(BATCH_SIZE);
+			var type = changes.peek().type;
+			while (batch.size() < BATCH_SIZE
+					&& !changes.isEmpty()
+					&& changes.peek().type == type) {
+				batch.add(changes.pop());
+			}
+			capacity.release(BATCH_SIZE - batch.size());
+			return batch;
 		}
 	}
 
-	private void convert(RootEntity entity) {
-		if (entity == null)
-			return;
+	private void convert(List<Change> batch) {
+		var type = batch.get(0).type;
+		var models = new HashMap<String, RootEntity>();
 		try {
-			export.write(entity);
+			var refIds = new HashSet<String>();
+			for (var change : batch) {
+				refIds.add(change.refId);
+			}
+			for (var model : Daos.root(database, type).getForRefIds(refIds)) {
+				models.put(model.refId, model);
+			}
 		} catch (Exception e) {
-			log.error("failed to serialize " + entity, e);
+			log.error("failed to load data sets of type " + type, e);
+		}
+		var export = exports.get();
+		for (var change : batch) {
+			written.set(false);
+			try {
+				var model = models.get(change.refId);
+				if (model != null) {
+					export.write(model);
+				}
+			} catch (Exception e) {
+				log.error("failed to convert data set " + change, e);
+			}
+			if (!written.get()) {
+				// make sure that the consumer does not wait forever
+				put(change.path, new byte[0]);
+			}
 		}
 	}
 
@@ -139,6 +186,7 @@ class Converter implements JsonStoreWriter {
 	public void put(String path, byte[] data) {
 		try {
 			queue.offer(path, data);
+			written.set(true);
 		} catch (InterruptedException e) {
 			log.error("failed to add element to data queue", e);
 		}
@@ -148,19 +196,20 @@ class Converter implements JsonStoreWriter {
 		if (systems.containsKey(path))
 			return convertProductSystem(systems.get(path));
 		byte[] data = queue.take(path);
-		queueSize.decrementAndGet();
-		startNext();
+		capacity.release();
 		return data;
 	}
 
 	private byte[] convertProductSystem(Change change) {
 		var model = database.get(change.type.getModelClass(), change.refId);
+		var export = exports.get();
 		var object = export.getWriter(model).write(model);
 		var json = new Gson().toJson(object);
 		return json.getBytes(StandardCharsets.UTF_8);
 	}
-	
+
 	void clear() {
+		threads.shutdownNow();
 		queue.clear();
 	}
 
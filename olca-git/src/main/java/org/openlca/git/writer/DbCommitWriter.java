@@ -8,8 +8,6 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 
 import org.eclipse.jgit.lib.ObjectId;
@@ -41,7 +39,6 @@ public class DbCommitWriter extends CommitWriter {
 	private String remoteCommitId;
 	private Converter converter;
 	private Commit reference;
-	private ExecutorService threads;
 
 	public DbCommitWriter(Repository repo, IDatabase database, Descriptors descriptors) {
 		super(repo, new DatabaseBinaryResolver(database));
@@ -90,8 +87,7 @@ public class DbCommitWriter extends CommitWriter {
 					: repo.parseCommit(ObjectId.fromString(reference.id));
 			if (changes.isEmpty() && (previousCommit == null || localCommitId == null || remoteCommitId == null))
 				return null;
-			threads = Executors.newCachedThreadPool();
-			converter = new Converter(database, threads);
+			converter = new Converter(database);
 			converter.start(changes.stream()
 					.filter(d -> d.diffType != DiffType.DELETED)
 					.sorted()
@@ -142,9 +138,6 @@ public class DbCommitWriter extends CommitWriter {
 			converter.clear();
 			converter = null;
 		}
-		if (threads != null) {
-			threads.shutdown();
-		}
 	}
 
 	@Override
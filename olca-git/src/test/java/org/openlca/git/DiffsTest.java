@@ -0,0 +1,199 @@
+package org.openlca.git;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.diff.DiffEntry.Side;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.treewalk.EmptyTreeIterator;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
+import org.eclipse.jgit.treewalk.filter.PathFilter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openlca.core.database.CategoryDao;
+import org.openlca.core.database.Derby;
+import org.openlca.core.database.IDatabase;
+import org.openlca.core.model.Category;
+import org.openlca.core.model.Flow;
+import org.openlca.core.model.FlowProperty;
+import org.openlca.core.model.ModelType;
+import org.openlca.core.model.Parameter;
+import org.openlca.core.model.ParameterScope;
+import org.openlca.core.model.UnitGroup;
+import org.openlca.git.find.NotBinaryFilter;
+import org.openlca.git.iterator.DatabaseIterator;
+import org.openlca.git.model.Change;
+import org.openlca.git.model.Diff;
+import org.openlca.git.model.DiffType;
+import org.openlca.git.model.Reference;
+import org.openlca.git.util.Descriptors;
+import org.openlca.git.util.Diffs;
+import org.openlca.git.util.GitUtil;
+import org.openlca.git.util.Repositories;
+import org.openlca.git.writer.DbCommitWriter;
+import org.openlca.jsonld.PackageInfo;
+import org.openlca.util.Dirs;
+
+public class DiffsTest {
+
+	private File dir;
+	private IDatabase db;
+	private Repository repo;
+	private GitIndex gitIndex;
+
+	@Before
+	public void setup() throws Exception {
+		dir = Files.createTempDirectory("olca-git-test").toFile();
+		db = Derby.createInMemory();
+		repo = Repositories.open(new File(dir, "repo"));
+		gitIndex = GitIndex.fromFile(new File(dir, "git.index"));
+	}
+
+	@After
+	public void cleanup() throws Exception {
+		repo.close();
+		db.close();
+		Dirs.delete(dir);
+	}
+
+	@Test
+	public void testSameAsTreeWalk() throws Exception {
+		var units = db.insert(UnitGroup.of("Units of mass", "kg"));
+		var mass = db.insert(FlowProperty.of("Mass", units));
+		Flow first = null;
+		Flow second = null;
+		for (int i = 0; i < 20; i++) {
+			var flow = Flow.product("product " + i, mass);
+			flow.category = CategoryDao.sync(
+					db, ModelType.FLOW, "a.b", "c:" + (i % 3));
+			flow = db.insert(flow);
+			if (i == 0) {
+				first = flow;
+			} else if (i == 1) {
+				second = flow;
+			}
+		}
+		db.insert(Parameter.global("global_param", 42));
+		var local = Parameter.global("local_param", 42);
+		local.scope = ParameterScope.PROCESS;
+		db.insert(local);
+
+		// data sets from libraries and in library categories are not
+		// contained in the database tree
+		var libFlow = Flow.product("lib flow", mass);
+		libFlow.library = "lib";
+		db.insert(libFlow);
+		var libCategory = Category.of("lib", ModelType.FLOW);
+		libCategory.library = "lib";
+		libCategory = db.insert(libCategory);
+		var inLibCategory = Flow.product("in lib category", mass);
+		inLibCategory.category = libCategory;
+		db.insert(inLibCategory);
+
+		assertEquals(23, check(List.of()));
+		commit();
+		assertEquals(0, check(List.of()));
+
+		// modify, delete, move, and add data sets
+		first.name = "changed";
+		first.version++;
+		first.lastChange = System.currentTimeMillis();
+		db.update(first);
+		second.category = CategoryDao.sync(db, ModelType.FLOW, "other");
+		second.lastChange = System.currentTimeMillis();
+		db.update(second);
+		db.delete(units);
+		db.insert(Flow.product("new", mass));
+		assertEquals(5, check(List.of()));
+		assertEquals(1, check(List.of("FLOW/a.b/c:0")));
+		assertEquals(1, check(List.of("FLOW/other")));
+		assertEquals(1, check(List.of("UNIT_GROUP")));
+		assertEquals(0, check(List.of("PROCESS")));
+
+		// without a git index, all data sets are modified or added
+		var diffs = Diffs.of(repo).with(db, null);
+		assertEquals(diffsOf(null, List.of()).size(), diffs.size());
+	}
+
+	/**
+	 * Checks that the diffs are the same as the diffs of a tree walk with a
+	 * database iterator and returns the number of diffs.
+	 */
+	private int check(List<String> paths) throws Exception {
+		var expected = diffsOf(gitIndex, paths);
+		var diffs = Diffs.of(repo).filter(paths).with(db, gitIndex);
+		assertEquals(expected.size(), diffs.size());
+		var sorted = diffs.stream()
+				.sorted((d1, d2) -> d1.path.compareTo(d2.path))
+				.toList();
+		for (int i = 0; i < expected.size(); i++) {
+			var e = expected.get(i);
+			var d = sorted.get(i);
+			assertEquals(e.path, d.path);
+			assertEquals(e.diffType, d.diffType);
+			assertEquals(e.oldObjectId, d.oldObjectId);
+			assertEquals(e.newObjectId, d.newObjectId);
+			assertEquals(e.oldCommitId, d.oldCommitId);
+		}
+		return diffs.size();
+	}
+
+	private List<Diff> diffsOf(GitIndex index, List<String> paths)
+			throws Exception {
+		try (var walk = new TreeWalk(repo)) {
+			var head = Repositories.headCommitOf(repo);
+			if (head != null) {
+				walk.addTree(head.getTree().getId());
+			} else {
+				walk.addTree(new EmptyTreeIterator());
+			}
+			walk.addTree(new DatabaseIterator(db, index));
+			var filter = AndTreeFilter.create(
+					PathFilter.create(PackageInfo.FILE_NAME).negate(),
+					NotBinaryFilter.create());
+			for (var path : paths) {
+				filter = AndTreeFilter.create(
+						filter, PathFilter.create(GitUtil.encode(path)));
+			}
+			walk.setFilter(filter);
+			walk.setRecursive(true);
+			return DiffEntry.scan(walk).stream()
+					.map(e -> new Diff(
+							switch (e.getChangeType()) {
+								case ADD -> DiffType.ADDED;
+								case DELETE -> DiffType.DELETED;
+								default -> DiffType.MODIFIED;
+							},
+							ref(e, Side.OLD),
+							ref(e, Side.NEW)))
+					.sorted((d1, d2) -> d1.path.compareTo(d2.path))
+					.toList();
+		}
+	}
+
+	private Reference ref(DiffEntry e, Side side) {
+		if (e.getMode(side) == FileMode.MISSING)
+			return null;
+		return new Reference(
+				GitUtil.decode(e.getPath(side)), null, e.getId(side).toObjectId());
+	}
+
+	private void commit() throws Exception {
+		var changes = Diffs.of(repo).with(db, gitIndex).stream()
+				.map(Change::new)
+				.collect(Collectors.toList());
+		new DbCommitWriter(repo, db, Descriptors.of(db))
+				.update(gitIndex)
+				.as(new PersonIdent("user", "user@example.com"))
+				.write("commit", changes);
+	}
+}
@@ -0,0 +1,170 @@
+package org.openlca.git;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Set;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openlca.git.GitIndex.GitIndexEntry;
+import org.openlca.util.Dirs;
+
+public class GitIndexTest {
+
+	private File dir;
+	private File file;
+
+	@Before
+	public void setup() throws Exception {
+		dir = Files.createTempDirectory("olca-git-test").toFile();
+		file = new File(dir, "git.index");
+	}
+
+	@After
+	public void cleanup() {
+		Dirs.delete(dir);
+	}
+
+	@Test
+	public void testSaveAndLoad() throws Exception {
+		var index = GitIndex.fromFile(file);
+		index.putRoot(id(1));
+		index.put("PROCESS", id(2));
+		index.put("PROCESS/a", id(3));
+		index.put("PROCESS/a/p1.json", 1, 10, id(4));
+		index.put("PROCESS/p2.json", 2, 20, id(5));
+		index.put("FLOW/f1.json", 3, 30, id(6));
+		index.save();
+
+		index = GitIndex.fromFile(file);
+		assertEquals(id(1), index.getRoot().objectId());
+		var p1 = index.get("PROCESS/a/p1.json");
+		assertEquals(1, p1.version());
+		assertEquals(10, p1.lastChange());
+		assertEquals(id(4), p1.objectId());
+		assertTrue(index.has("FLOW/f1.json"));
+		assertFalse(index.has("FLOW/f2.json"));
+		assertSame(GitIndexEntry.NULL, index.get("FLOW/f2.json"));
+		assertEquals(Set.of("PROCESS"), index.getSubPaths(""));
+		assertEquals(Set.of("FLOW/f1.json"), index.getSubPaths("FLOW"));
+		assertEquals(Set.of("PROCESS/a", "PROCESS/p2.json"),
+				index.getSubPaths("PROCESS"));
+		assertEquals(Set.of("PROCESS/a/p1.json"), index.getSubPaths("PROCESS/a"));
+	}
+
+	@Test
+	public void testAppendLog() throws Exception {
+		var index = GitIndex.fromFile(file);
+		for (int i = 0; i < 100; i++) {
+			index.put("FLOW/f" + i + ".json", i, i, id(i + 1));
+		}
+		index.save();
+		long tableSize = file.length();
+
+		// changes are appended to the log
+		index.put("FLOW/f0.json", 42, 42, id(42));
+		index.remove("FLOW/f1.json");
+		index.put("FLOW/new.json", 1, 1, id(1));
+		index.invalidate("FLOW/f2.json");
+		index.save();
+		assertEquals(tableSize, file.length());
+		assertTrue(new File(dir, "git.index.log").exists());
+
+		index = GitIndex.fromFile(file);
+		assertEquals(42, index.get("FLOW/f0.json").version());
+		assertFalse(index.has("FLOW/f1.json"));
+		assertTrue(index.has("FLOW/new.json"));
+		assertFalse(index.has("FLOW/f2.json"));
+		assertEquals(2, index.get("FLOW/f2.json").version());
+		var subPaths = index.getSubPaths("FLOW");
+		assertEquals(100, subPaths.size());
+		assertFalse(subPaths.contains("FLOW/f1.json"));
+		assertTrue(subPaths.contains("FLOW/new.json"));
+
+		// a partially written log record is ignored and the table is
+		// rewritten on the next save
+		try (var raf = new RandomAccessFile(new File(dir, "git.index.log"), "rw")) {
+			raf.setLength(raf.length() - 3);
+		}
+		index = GitIndex.fromFile(file);
+		assertTrue(index.has("FLOW/new.json"));
+		assertTrue(index.has("FLOW/f2.json"));
+		index.save();
+		assertFalse(new File(dir, "git.index.log").exists());
+		index = GitIndex.fromFile(file);
+		assertEquals(42, index.get("FLOW/f0.json").version());
+		assertTrue(index.has("FLOW/f2.json"));
+	}
+
+	@Test
+	public void testStaleLog() throws Exception {
+		var log = new File(dir, "git.index.log");
+		var index = GitIndex.fromFile(file);
+		for (int i = 0; i < 100; i++) {
+			index.put("FLOW/f" + i + ".json", i, i, id(i + 1));
+		}
+		index.save();
+		index.put("FLOW/f0.json", 42, 42, id(42));
+		index.save();
+		var staleLog = Files.readAllBytes(log.toPath());
+
+		// rewrite the table with more changes than allowed in the log
+		index.put("FLOW/f0.json", 7, 7, id(7));
+		for (int i = 0; i < 1000; i++) {
+			index.put("PROCESS/p" + i + ".json", i, i, id(i + 1));
+		}
+		index.save();
+		assertFalse(log.exists());
+
+		// the process stopped after the table was replaced but before the
+		// old log was deleted: the log of the old table must be ignored
+		Files.write(log.toPath(), staleLog);
+		index = GitIndex.fromFile(file);
+		assertEquals(7, index.get("FLOW/f0.json").version());
+		index.save();
+		assertFalse(log.exists());
+
+		// new changes are appended to a fresh log
+		index.put("FLOW/f3.json", 9, 9, id(9));
+		index.save();
+		assertTrue(log.exists());
+		index = GitIndex.fromFile(file);
+		assertEquals(7, index.get("FLOW/f0.json").version());
+		assertEquals(9, index.get("FLOW/f3.json").version());
+	}
+
+	@Test
+	public void testConvertSerializedIndex() throws Exception {
+		var entries = new HashMap<String, GitIndexEntry>();
+		entries.put("", new GitIndexEntry(-1, -1, id(1)));
+		entries.put("FLOW/f.json", new GitIndexEntry(3, 4, id(2)));
+		try (var out = new ObjectOutputStream(new FileOutputStream(file))) {
+			out.writeObject(entries);
+		}
+
+		var index = GitIndex.fromFile(file);
+		assertEquals(id(2), index.get("FLOW/f.json").objectId());
+		assertEquals(Set.of("FLOW/f.json"), index.getSubPaths("FLOW"));
+		index.save();
+
+		index = GitIndex.fromFile(file);
+		assertEquals(id(1), index.getRoot().objectId());
+		assertEquals(3, index.get("FLOW/f.json").version());
+		assertEquals(4, index.get("FLOW/f.json").lastChange());
+	}
+
+	private ObjectId id(int i) {
+		var bytes = new byte[20];
+		bytes[19] = (byte) i;
+		bytes[0] = 1;
+		return ObjectId.fromRaw(bytes);
+	}
+}
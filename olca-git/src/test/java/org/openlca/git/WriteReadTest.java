@@ -1,17 +1,23 @@
 package org.openlca.git;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.stream.Collectors;
 
 import org.eclipse.jgit.lib.PersonIdent;
 import org.eclipse.jgit.lib.Repository;
 import org.junit.Test;
 import org.openlca.core.database.CategoryDao;
+import org.openlca.core.database.Derby;
 import org.openlca.core.database.IDatabase;
+import org.openlca.core.model.Flow;
+import org.openlca.core.model.FlowProperty;
 import org.openlca.core.model.ModelType;
 import org.openlca.core.model.UnitGroup;
 import org.openlca.git.find.Commits;
@@ -70,15 +76,83 @@ public class WriteReadTest {
 		tmp.delete();
 	}
 
+	@Test
+	public void testManyDataSets() throws Exception {
+		try (var db = Derby.createInMemory()) {
+			var tmp = TmpConfig.create(db);
+
+			// create data sets of different types in different categories
+			var units = db.insert(UnitGroup.of("Units of mass", "kg"));
+			var mass = db.insert(FlowProperty.of("Mass", units));
+			var flows = new ArrayList<Flow>();
+			for (int i = 0; i < 60; i++) {
+				var flow = Flow.product("product " + i, mass);
+				flow.category = CategoryDao.sync(
+						db, ModelType.FLOW, "category " + (i % 3), "sub " + (i % 2));
+				flows.add(db.insert(flow));
+			}
+			var diffs = Diffs.of(tmp.repo).with(db, tmp.gitIndex).stream()
+					.map(Change::new)
+					.collect(Collectors.toList());
+			assertEquals(62, diffs.size());
+			var firstId = new DbCommitWriter(tmp.repo, db, Descriptors.of(db))
+					.update(tmp.gitIndex)
+					.as(tmp.committer)
+					.write("first commit", diffs);
+
+			// all data sets can be read from the commit
+			var datasets = Datasets.of(tmp.repo);
+			var refs = References.of(tmp.repo);
+			for (var flow : flows) {
+				var ref = refs.get(ModelType.FLOW, flow.refId, firstId);
+				var json = new Gson().fromJson(datasets.get(ref), JsonObject.class);
+				assertEquals(flow.name, Json.getString(json, "name"));
+				assertTrue(tmp.gitIndex.has(flow));
+			}
+			assertNotNull(refs.get(ModelType.UNIT_GROUP, units.refId, firstId));
+			assertNotNull(refs.get(ModelType.FLOW_PROPERTY, mass.refId, firstId));
+			assertTrue(Diffs.of(tmp.repo).with(db, tmp.gitIndex).isEmpty());
+
+			// delete and update a flow
+			var deleted = flows.get(0);
+			db.delete(deleted);
+			var updated = flows.get(1);
+			updated.name = "updated";
+			updated.version++;
+			updated.lastChange = System.currentTimeMillis();
+			db.update(updated);
+			diffs = Diffs.of(tmp.repo).with(db, tmp.gitIndex).stream()
+					.map(Change::new)
+					.collect(Collectors.toList());
+			assertEquals(2, diffs.size());
+			var secondId = new DbCommitWriter(tmp.repo, db, Descriptors.of(db))
+					.update(tmp.gitIndex)
+					.as(tmp.committer)
+					.write("second commit", diffs);
+
+			assertNull(refs.get(ModelType.FLOW, deleted.refId, secondId));
+			var ref = refs.get(ModelType.FLOW, updated.refId, secondId);
+			var json = new Gson().fromJson(datasets.get(ref), JsonObject.class);
+			assertEquals("updated", Json.getString(json, "name"));
+			assertEquals(61, refs.find().commit(secondId).count());
+			assertTrue(Diffs.of(tmp.repo).with(db, tmp.gitIndex).isEmpty());
+			tmp.delete();
+		}
+	}
+
 	private record TmpConfig(Repository repo, IDatabase database, GitIndex gitIndex, PersonIdent committer,
 			File dir) {
 
 		static TmpConfig create() {
+			return create(Tests.db());
+		}
+
+		static TmpConfig create(IDatabase db) {
 			try {
 				var dir = Files.createTempDirectory("olca-git-test").toFile();
 				var repo = Repositories.open(new File(dir, "repo"));
 				var gitIndex = GitIndex.fromFile(new File(dir, "git.index"));
-				return new TmpConfig(repo, Tests.db(), gitIndex, new PersonIdent("user", "user@example.com"), dir);
+				return new TmpConfig(repo, db, gitIndex, new PersonIdent("user", "user@example.com"), dir);
 			} catch (Exception e) {
 				throw new RuntimeException(e);
 			}
@@ -8,6 +8,7 @@ import java.io.OutputStream;
 import java.io.Reader;
 import java.io.Writer;
 import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.xml.namespace.QName;
 import javax.xml.transform.stream.StreamSource;
@@ -32,13 +33,22 @@ import jakarta.xml.bind.Unmarshaller;
 /**
  * A helper class for reading and writing ILCD types from / to XML. Uses the
  * standard JAXB mechanisms but in combination with some ILCD specific things.
- * The binder can be used for multiple IO-operations, the marshalers and
- * un-marshalers for the class types are cached.
+ * The binder can be used for multiple IO-operations and is thread-safe: the
+ * JAXB contexts for the class types are created only once and shared, and the
+ * marshalers and un-marshalers, which are not thread-safe, are cached per
+ * thread. Thus, it is possible to read data sets from multiple threads with
+ * the same binder (e.g. in a parallel import).
  */
 public class XmlBinder {
 
-	private HashMap<Class<?>, Marshaller> marshallers = new HashMap<>();
-	private HashMap<Class<?>, Unmarshaller> unmarshallers = new HashMap<>();
+	private static final ConcurrentHashMap<Class<?>, JAXBContext> contexts =
+			new ConcurrentHashMap<>();
+
+	private static final ThreadLocal<HashMap<Class<?>, Marshaller>> marshallers =
+			ThreadLocal.withInitial(HashMap::new);
+
+	private static final ThreadLocal<HashMap<Class<?>, Unmarshaller>> unmarshallers =
+			ThreadLocal.withInitial(HashMap::new);
 
 	/** Writes the given ILCD object to a file. */
 	public void toFile(Object ilcdObject, File file) throws JAXBException {
@@ -76,17 +86,17 @@ public class XmlBinder {
 
 	private Marshaller getMarshaller(Object ilcdObject) throws JAXBException {
 		Class<?> clazz = ilcdObject.getClass();
-		Marshaller marshaller = marshallers.get(clazz);
+		var cache = marshallers.get();
+		Marshaller marshaller = cache.get(clazz);
 		if (marshaller != null)
 			return marshaller;
-		marshaller = createMarshaller(ilcdObject);
-		marshallers.put(clazz, marshaller);
+		marshaller = createMarshaller(clazz);
+		cache.put(clazz, marshaller);
 		return marshaller;
 	}
 
-	private Marshaller createMarshaller(Object ilcdObject) throws JAXBException {
-		JAXBContext context = JAXBContext.newInstance(ilcdObject.getClass());
-		Marshaller marshaller = context.createMarshaller();
+	private Marshaller createMarshaller(Class<?> clazz) throws JAXBException {
+		Marshaller marshaller = contextOf(clazz).createMarshaller();
 		marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.TRUE);
 		return marshaller;
 	}
@@ -129,19 +139,25 @@ public class XmlBinder {
 	}
 
 	private Unmarshaller getUnmarshaller(Class<?> clazz) throws JAXBException {
-		Unmarshaller unmarshaller = unmarshallers.get(clazz);
+		var cache = unmarshallers.get();
+		Unmarshaller unmarshaller = cache.get(clazz);
 		if (unmarshaller != null)
 			return unmarshaller;
-		unmarshaller = createUnmarshaller(clazz);
-		unmarshallers.put(clazz, unmarshaller);
+		unmarshaller = contextOf(clazz).createUnmarshaller();
+		cache.put(clazz, unmarshaller);
 		return unmarshaller;
 	}
 
-	private Unmarshaller createUnmarshaller(Class<?> clazz)
-			throws JAXBException {
-		JAXBContext context = JAXBContext.newInstance(clazz);
-		Unmarshaller unmarshaller = context.createUnmarshaller();
-		return unmarshaller;
+	private static JAXBContext contextOf(Class<?> clazz) throws JAXBException {
+		var context = contexts.get(clazz);
+		if (context != null)
+			return context;
+		// we do not use computeIfAbsent here because the creation of a
+		// context can fail with a checked exception; creating a context
+		// twice in a race is harmless
+		context = JAXBContext.newInstance(clazz);
+		var other = contexts.putIfAbsent(clazz, context);
+		return other != null ? other : context;
 	}
 
 	/**
@@ -1,51 +1,92 @@
 package org.openlca.ilcd.io;
 
 import java.nio.file.Path;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Iterates over the data sets of a type in a zip store. If an executor is
+ * given, the data sets are read in parallel by the threads of that executor
+ * which read ahead of the current position; the order of the data sets is
+ * the same as in a sequential read then.
+ */
 class ZipEntryIterator<T> implements Iterator<T> {
 
 	private final ZipStore zipStore;
-	private final Iterator<Path> it;
 	private final Class<T> clazz;
+	private final List<Path> entries;
+	private final ExecutorService pool;
+	private final Consumer<? super T> onRead;
+	private final ArrayDeque<Future<T>> queue = new ArrayDeque<>();
+	private final int lookAhead;
+	private int next;
 
 	public ZipEntryIterator(ZipStore zipStore, Class<T> clazz) {
+		this(zipStore, clazz, null, null);
+	}
+
+	ZipEntryIterator(ZipStore zipStore, Class<T> clazz,
+			ExecutorService pool, Consumer<? super T> onRead) {
 		this.zipStore = zipStore;
 		this.clazz = clazz;
-		List<Path> list = new ArrayList<>();
+		this.pool = pool;
+		this.onRead = onRead;
+		this.lookAhead = 4 * Math.max(
+				1, Runtime.getRuntime().availableProcessors());
+		entries = new ArrayList<>();
 		for (Path p : zipStore.getEntries(Dir.get(clazz))) {
 			if (Util.isXml(p))
-				list.add(p);
+				entries.add(p);
 		}
-		this.it = list.iterator();
 	}
 
 	@Override
 	public boolean hasNext() {
-		return it != null && it.hasNext();
+		return next < entries.size() || !queue.isEmpty();
 	}
 
 	@Override
 	public T next() {
-		if (it == null)
-			return null;
-		Path entry = it.next();
+		if (!hasNext())
+			throw new NoSuchElementException();
+		if (pool == null)
+			return read(entries.get(next++));
+		while (queue.size() < lookAhead && next < entries.size()) {
+			Path entry = entries.get(next++);
+			queue.add(pool.submit(() -> read(entry)));
+		}
 		try {
-			return zipStore.unmarshal(clazz, entry);
+			return queue.poll().get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("interrupted while reading " + clazz, e);
 		} catch (Exception e) {
 			Logger log = LoggerFactory.getLogger(this.getClass());
-			log.error("Cannot load type " + clazz + " from entry " + entry, e);
+			log.error("Cannot load type " + clazz, e);
 			return null;
 		}
 	}
 
-	@Override
-	public void remove() {
-		it.remove();
+	private T read(Path entry) {
+		try {
+			T dataSet = zipStore.unmarshal(clazz, entry);
+			if (dataSet != null && onRead != null) {
+				onRead.accept(dataSet);
+			}
+			return dataSet;
+		} catch (Exception e) {
+			Logger log = LoggerFactory.getLogger(this.getClass());
+			log.error("Cannot load type " + clazz + " from entry " + entry, e);
+			return null;
+		}
 	}
 }
@@ -15,11 +15,12 @@ import java.nio.file.StandardCopyOption;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 import java.util.function.Consumer;
 
 import org.openlca.ilcd.commons.IDataSet;
@@ -27,18 +28,34 @@ import org.openlca.ilcd.sources.Source;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * A data store that reads and writes data sets from and to a zip file. Reading
+ * data sets from a zip store is thread-safe, so that data sets can be read in
+ * parallel, e.g. via {@link #iterator(Class, ExecutorService, Consumer)}.
+ * Writing to a zip store is not thread-safe.
+ */
 public class ZipStore implements DataStore {
 
 	private final Logger log = LoggerFactory.getLogger(getClass());
 	private final FileSystem zip;
-	private HashMap<String, List<Path>> entries;
+	private Map<String, List<Path>> entries;
+
+	/**
+	 * Maps the IDs of the data sets to the entries of a directory. The index of
+	 * a directory is created when a data set is searched in that directory for
+	 * the first time. The entries are indexed by their file names without the
+	 * version suffix and file extension (e.g. {@code <uuid>_01.00.000.xml}).
+	 */
+	private final Map<String, Map<String, Path>> index =
+			new ConcurrentHashMap<>();
 
 	/**
 	 * Contains the IDs that where added to this zip store. This is used to make
 	 * the contains check faster because in the export we usually first call
 	 * contains and then do the export if necessary.
 	 */
-	private final HashMap<Class<?>, Set<String>> addedContent = new HashMap<>();
+	private final Map<Class<?>, Set<String>> addedContent =
+			new ConcurrentHashMap<>();
 
 	private final XmlBinder binder = new XmlBinder();
 
@@ -54,7 +71,7 @@ public class ZipStore implements DataStore {
 	}
 
 	private void initEntries() throws IOException {
-		entries = new HashMap<>();
+		entries = new ConcurrentHashMap<>();
 		for (Path root : zip.getRootDirectories()) {
 			Files.walkFileTree(root, new FileVisitor(f -> {
 				Path p = f.getParent();
@@ -104,8 +121,12 @@ public class ZipStore implements DataStore {
 			binder.toStream(ds, os);
 			List<Path> list = getEntries(dir);
 			list.add(entry);
+			var dirIndex = index.get(dir);
+			if (dirIndex != null) {
+				dirIndex.put(keyOf(entry), entry);
+			}
 			var ids = addedContent.computeIfAbsent(
-					ds.getClass(), k -> new HashSet<>());
+					ds.getClass(), k -> ConcurrentHashMap.newKeySet());
 			ids.add(ds.getUUID());
 		} catch (Exception e) {
 			throw new RuntimeException("Could not add file  " + entryName, e);
@@ -153,7 +174,11 @@ public class ZipStore implements DataStore {
 		throw new UnsupportedOperationException("delete in zips not supported");
 	}
 
-	<T> T unmarshal(Class<T> type, Path entry) {
+	/**
+	 * Reads the data set of the given type from the given entry of this store.
+	 * This method can be called from multiple threads.
+	 */
+	public <T> T unmarshal(Class<T> type, Path entry) {
 		try {
 			InputStream is = Files.newInputStream(entry);
 			return binder.fromStream(type, is);
@@ -167,6 +192,10 @@ public class ZipStore implements DataStore {
 		List<Path> list = entries.get(dir);
 		if (list == null)
 			return null;
+		var indexed = index.computeIfAbsent(dir, d -> indexOf(list))
+				.get(id);
+		if (indexed != null)
+			return indexed;
 		for (Path entry : list) {
 			try {
 				String name = entry.getFileName().toString();
@@ -182,12 +211,53 @@ public class ZipStore implements DataStore {
 		return null;
 	}
 
+	private Map<String, Path> indexOf(List<Path> list) {
+		var dirIndex = new ConcurrentHashMap<String, Path>();
+		for (Path entry : list) {
+			try {
+				dirIndex.putIfAbsent(keyOf(entry), entry);
+			} catch (Exception e) {
+				// see the comment in findEntry; such entries are found by
+				// the linear search
+			}
+		}
+		return dirIndex;
+	}
+
+	private static String keyOf(Path entry) {
+		String name = entry.getFileName().toString();
+		int end = name.length();
+		int dot = name.lastIndexOf('.');
+		if (dot > 0) {
+			end = dot;
+		}
+		int underscore = name.indexOf('_');
+		if (underscore > 0 && underscore < end) {
+			end = underscore;
+		}
+		return name.substring(0, end);
+	}
+
 	@Override
 	public <T extends IDataSet> Iterator<T> iterator(Class<T> type) {
 		log.trace("create iterator for type {}", type);
 		return new ZipEntryIterator<>(this, type);
 	}
 
+	/**
+	 * Creates an iterator that reads the data sets of the given type in
+	 * parallel using the threads of the given executor. The data sets are
+	 * returned in the same order as by the sequential iterator. The optional
+	 * function {@code onRead} is called in the worker threads for each data
+	 * set that was read, e.g. to prefetch referenced data sets from this
+	 * store.
+	 */
+	public <T extends IDataSet> Iterator<T> iterator(Class<T> type,
+			ExecutorService pool, Consumer<? super T> onRead) {
+		log.trace("create parallel iterator for type {}", type);
+		return new ZipEntryIterator<>(this, type, pool, onRead);
+	}
+
 	@Override
 	public <T extends IDataSet> boolean contains(Class<T> type, String id) {
 		Set<String> ids = addedContent.get(type);
@@ -197,8 +267,8 @@ public class ZipStore implements DataStore {
 		if (entry == null)
 			return false;
 		if (ids == null) {
-			ids = new HashSet<>();
-			addedContent.put(type, ids);
+			ids = addedContent.computeIfAbsent(
+					type, k -> ConcurrentHashMap.newKeySet());
 		}
 		ids.add(id);
 		return true;
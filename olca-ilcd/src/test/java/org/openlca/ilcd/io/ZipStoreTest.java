@@ -6,7 +6,10 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
@@ -16,6 +19,8 @@ import org.openlca.ilcd.contacts.Contact;
 import org.openlca.ilcd.sources.DataSetInfo;
 import org.openlca.ilcd.sources.Source;
 import org.openlca.ilcd.sources.SourceInfo;
+import org.openlca.ilcd.units.UnitGroup;
+import org.openlca.ilcd.units.UnitGroupInfo;
 
 public class ZipStoreTest {
 
@@ -52,6 +57,40 @@ public class ZipStoreTest {
 		assertNotNull(store.iterator(Source.class).next());
 	}
 
+	@Test
+	public void testParallelIterator() throws Exception {
+		for (int i = 0; i < 50; i++) {
+			var group = new UnitGroup();
+			group.unitGroupInfo = new UnitGroupInfo();
+			group.unitGroupInfo.dataSetInfo =
+					new org.openlca.ilcd.units.DataSetInfo();
+			group.unitGroupInfo.dataSetInfo.uuid = UUID.randomUUID().toString();
+			store.put(group);
+		}
+
+		var expected = new ArrayList<String>();
+		store.iterator(UnitGroup.class).forEachRemaining(
+				c -> expected.add(c.getUUID()));
+		assertEquals(50, expected.size());
+
+		var pool = Executors.newFixedThreadPool(4);
+		try {
+			var count = new AtomicInteger();
+			var actual = new ArrayList<String>();
+			store.iterator(UnitGroup.class, pool, c -> count.incrementAndGet())
+					.forEachRemaining(c -> actual.add(c.getUUID()));
+			assertEquals(expected, actual);
+			assertEquals(50, count.get());
+		} finally {
+			pool.shutdown();
+		}
+
+		// the IDs are found via the index
+		for (var id : expected) {
+			assertEquals(id, store.get(UnitGroup.class, id).getUUID());
+		}
+	}
+
 	@Test
 	public void testNoContact() throws Exception {
 		assertFalse(store.contains(Contact.class, "110_abc"));
@@ -5,37 +5,103 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import spold2.DataSet;
 import spold2.EcoSpold2;
+import spold2.Spold2Reader;
 
 import java.io.Closeable;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
+/**
+ * Iterates over the activity data sets in a set of SPOLD files or ZIP files
+ * that contain such files. The data sets are parsed in parallel by a pool of
+ * worker threads that read ahead of the current position; the order of the
+ * data sets is the same as in a sequential read.
+ */
 class DataSetIterator implements Iterator<DataSet>, Closeable {
 
 	private final Logger log = LoggerFactory.getLogger(getClass());
-	private DataSet next;
-	private File[] files;
-	private int currentFile;
+	private final List<ZipFile> zips = new ArrayList<>();
+	private final List<Source> sources = new ArrayList<>();
+	private final ExecutorService pool;
+	private final ArrayDeque<Future<DataSet>> queue = new ArrayDeque<>();
+	private final int lookAhead;
 
-	private ZipFile zipFile;
-	private int currentZipEntry;
-	private ZipEntry[] zipEntries;
+	private int nextSource;
+	private DataSet next;
 
 	public DataSetIterator(File[] files) {
 		log.trace("initialize data set iterator");
-		this.files = files;
-		currentFile = 0;
+		collectSources(files);
+		int threads = Math.max(1, Runtime.getRuntime().availableProcessors());
+		lookAhead = 4 * threads;
+		pool = Executors.newFixedThreadPool(threads, r -> {
+			var thread = new Thread(r, "spold2-reader");
+			thread.setDaemon(true);
+			return thread;
+		});
 		moveNext();
 	}
 
+	private void collectSources(File[] files) {
+		if (files == null)
+			return;
+		for (var file : files) {
+			if (isSpoldFile(file.getName())) {
+				sources.add(new Source(file, null, null));
+			} else if (isZip(file)) {
+				collectZipEntries(file);
+			} else {
+				log.trace("ignore file {}", file);
+			}
+		}
+	}
+
+	private void collectZipEntries(File file) {
+		log.trace("open zip file {}", file);
+		try {
+			var zip = ZipFiles.open(file);
+			zips.add(zip);
+			var entries = zip.entries();
+			while (entries.hasMoreElements()) {
+				var entry = entries.nextElement();
+				if (entry.isDirectory())
+					continue;
+				if (isSpoldFile(entry.getName())) {
+					sources.add(new Source(null, zip, entry));
+				}
+			}
+		} catch (Exception e) {
+			log.error("failed to open Zip file " + file, e);
+		}
+	}
+
 	@Override
 	public void close() {
 		next = null;
-		files = null;
-		closeZip();
+		for (var f : queue) {
+			f.cancel(true);
+		}
+		queue.clear();
+		pool.shutdownNow();
+		for (var zip : zips) {
+			try {
+				zip.close();
+			} catch (Exception e) {
+				log.error("failed to close zip file " + zip.getName(), e);
+			}
+		}
+		zips.clear();
 	}
 
 	@Override
@@ -49,95 +115,49 @@ class DataSetIterator implements Iterator<DataSet>, Closeable {
 
 	@Override
 	public DataSet next() {
+		if (next == null)
+			throw new NoSuchElementException();
 		DataSet current = next;
 		moveNext();
 		return current;
 	}
 
 	private void moveNext() {
-		if (zipFile != null) {
-			moveNextInZip();
-			return;
-		}
 		next = null;
-		if (files == null || currentFile >= files.length) {
-			log.trace("no more files");
-			return;
-		}
-		log.trace("move data set pointer in files");
-		File file = files[currentFile];
-		currentFile++;
-		if (isSpoldFile(file.getName()))
-			nextSpold(file);
-		else if (isZip(file)) {
-			openZip(file);
-			moveNextInZip();
-		} else {
-			log.trace("ignore file {}", file);
-			moveNext();
-		}
-	}
-
-	private void nextSpold(File file) {
-		try {
-			next = EcoSpold2.read(file).activity();
-		} catch (Exception e) {
-			log.error("failed to read spold file " + file, e);
-			moveNext();
-		}
-	}
-
-	private void openZip(File file) {
-		log.trace("open zip file {}", file);
-		try {
-			currentZipEntry = 0;
-			zipFile = ZipFiles.open(file);
-			var entries = zipFile.entries();
-			var spoldEntries = new ArrayList<ZipEntry>();
-			while (entries.hasMoreElements()) {
-				var entry = entries.nextElement();
-				if (entry.isDirectory())
-					continue;
-				if (isSpoldFile(entry.getName()))
-					spoldEntries.add(entry);
+		while (next == null) {
+			fillQueue();
+			var future = queue.poll();
+			if (future == null) {
+				log.trace("no more data sets");
+				return;
+			}
+			try {
+				next = future.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			} catch (Exception e) {
+				log.error("failed to read data set", e);
 			}
-			this.zipEntries = spoldEntries.toArray(new ZipEntry[0]);
-		} catch (Exception e) {
-			log.error("failed to open Zip file " + file, e);
-			closeZip();
 		}
 	}
 
-	private void moveNextInZip() {
-		next = null;
-		if (zipFile == null || zipEntries == null
-				|| currentZipEntry >= zipEntries.length) {
-			log.trace("no  more zip entries");
-			moveNext();
-		}
-		log.trace("move data set pointer in zip entries");
-		ZipEntry entry = zipEntries[currentZipEntry];
-		currentZipEntry++;
-		try {
-			next = EcoSpold2.read(zipFile.getInputStream(entry)).activity();
-			if (currentZipEntry >= zipEntries.length)
-				closeZip();
-		} catch (Exception e) {
-			log.error("failed to open zip entry", e);
+	private void fillQueue() {
+		while (queue.size() < lookAhead && nextSource < sources.size()) {
+			var source = sources.get(nextSource++);
+			queue.add(pool.submit(() -> read(source)));
 		}
 	}
 
-	private void closeZip() {
-		if (zipFile == null)
-			return;
-		try {
-			zipFile.close();
+	private DataSet read(Source source) throws Exception {
+		try (var stream = source.open()) {
+			EcoSpold2 es2 = Spold2Reader.read(stream);
+			return es2 != null
+					? es2.activity()
+					: null;
 		} catch (Exception e) {
-			log.error("failed to close zip file " + zipFile, e);
-		} finally {
-			zipFile = null;
-			zipEntries = null;
-			currentZipEntry = 0;
+			log.error("failed to read spold file " + source, e);
+			return null;
 		}
 	}
 
@@ -153,4 +173,22 @@ class DataSetIterator implements Iterator<DataSet>, Closeable {
 		return file.getName().toLowerCase().endsWith(".zip");
 	}
 
+	/**
+	 * A SPOLD file or an entry of a zip file.
+	 */
+	private record Source(File file, ZipFile zip, ZipEntry entry) {
+
+		InputStream open() throws Exception {
+			return file != null
+					? new FileInputStream(file)
+					: zip.getInputStream(entry);
+		}
+
+		@Override
+		public String toString() {
+			return file != null
+					? file.toString()
+					: zip.getName() + "!" + entry.getName();
+		}
+	}
 }
@@ -48,8 +48,7 @@ public class EcoSpold2Import implements Import {
 			log.info("files is null, nothing to do");
 			return;
 		}
-		RefDataIndex index = importRefData(files);
-		importProcesses(files, index);
+		importDataSets(files);
 
 		// expand ISIC category trees
 		log.info("expand ISIC categories");
@@ -61,30 +60,24 @@ public class EcoSpold2Import implements Import {
 		config.db.getEntityFactory().getCache().evictAll();
 	}
 
-	private RefDataIndex importRefData(File[] files) {
-		log.info("import reference data");
-		var imp = new RefDataImport(config);
-		try (var it = new DataSetIterator(files)) {
+	/**
+	 * Imports the reference data and processes in a single pass over the data
+	 * sets: the data sets are parsed in parallel, the reference data of a data
+	 * set are imported directly before its process is mapped, and the mapped
+	 * processes are written in batches by a separate writer thread.
+	 */
+	private void importDataSets(File[] files) {
+		log.info("import reference data and processes");
+		var refData = new RefDataImport(config);
+		try (var it = new DataSetIterator(files);
+				 var processes = new ProcessImport(refData.getIndex(), config)) {
 			while (!canceled && it.hasNext()) {
 				var dataSet = it.next();
-				imp.importDataSet(dataSet);
+				refData.importDataSet(dataSet);
+				processes.importDataSet(dataSet);
 			}
 		} catch (Exception e) {
-			log.error("reference data import failed", e);
-		}
-		return imp.getIndex();
-	}
-
-	private void importProcesses(File[] files, RefDataIndex index) {
-		log.info("import processes");
-		var imp = new ProcessImport(index, config);
-		try (var it = new DataSetIterator(files)) {
-			while (!canceled && it.hasNext()) {
-				var dataSet = it.next();
-				imp.importDataSet(dataSet);
-			}
-		} catch (Exception e) {
-			log.error("process import failed", e);
+			log.error("import of data sets failed", e);
 		}
 	}
 }
@@ -2,15 +2,21 @@ package org.openlca.io.ecospold2.input;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
-import org.openlca.core.database.ExchangeDao;
 import org.openlca.core.database.ParameterDao;
 import org.openlca.core.database.ProcessDao;
+import org.openlca.core.io.ExchangeProviderQueue;
 import org.openlca.core.io.ImportLog;
 import org.openlca.core.model.Category;
 import org.openlca.core.model.DQSystem;
@@ -37,7 +43,15 @@ import spold2.Representativeness;
 import spold2.RichText;
 import spold2.Spold2;
 
-class ProcessImport {
+/**
+ * Maps EcoSpold 2 data sets to processes. The processes are not written
+ * directly but collected in batches that are then inserted by a single writer
+ * thread, so that the mapping of the next data sets can continue while a batch
+ * is written. The import needs to be closed to write the last batch.
+ */
+class ProcessImport implements AutoCloseable {
+
+	private static final int BATCH_SIZE = 100;
 
 	private final ImportLog log;
 	private final RefDataIndex index;
@@ -47,9 +61,18 @@ class ProcessImport {
 	private final DQSystem dqSystem;
 
 	/**
-	 * Exchanges that wait for a default provider: provider-id -> exchanges.
+	 * The reference IDs of the processes that were already mapped in this
+	 * import.
+	 */
+	private final Set<String> mapped = new HashSet<>();
+
+	private final Writer writer;
+	private List<Entry> batch = new ArrayList<>();
+
+	/**
+	 * The provider links of the process that is currently mapped.
 	 */
-	private final HashMap<String, List<Exchange>> linkQueue = new HashMap<>();
+	private List<ProviderLink> links;
 
 	ProcessImport(RefDataIndex index, ImportConfig config) {
 		this.log = config.log();
@@ -58,6 +81,7 @@ class ProcessImport {
 		dao = new ProcessDao(config.db);
 		prices = new PriceMapper(config.db);
 		dqSystem = DQSystems.ecoinvent(config.db);
+		writer = new Writer(ExchangeProviderQueue.create(config.db));
 	}
 
 	void importDataSet(DataSet ds) {
@@ -80,8 +104,7 @@ class ProcessImport {
 		Activity activity = Spold2.getActivity(ds);
 		try {
 			String refId = RefId.forProcess(ds);
-			boolean contains = dao.contains(refId);
-			if (contains) {
+			if (!mapped.add(refId) || dao.contains(refId)) {
 				log.info("process '" + activity.id + "' is already in the database");
 				return;
 			}
@@ -114,6 +137,7 @@ class ProcessImport {
 	private void runImport(DataSet ds, String refId) {
 		Activity activity = Spold2.getActivity(ds);
 		Process p = new Process();
+		links = new ArrayList<>();
 
 		// map meta data
 		p.refId = refId;
@@ -154,9 +178,24 @@ class ProcessImport {
 
 		p.exchangeDqSystem = dqSystem;
 		new DocImportMapper(config.db).map(ds, p);
-		new ProcessDao(config.db).insert(p);
-		index.putProcessId(refId, p.id);
-		flushLinkQueue(p);
+		batch.add(new Entry(p, links));
+		links = null;
+		if (batch.size() >= BATCH_SIZE) {
+			flushBatch();
+		}
+	}
+
+	private void flushBatch() {
+		if (batch.isEmpty())
+			return;
+		writer.write(batch);
+		batch = new ArrayList<>();
+	}
+
+	@Override
+	public void close() {
+		flushBatch();
+		writer.close();
 	}
 
 	private void handleParameters(DataSet dataSet, Process process) {
@@ -181,21 +220,6 @@ class ProcessImport {
 		}
 	}
 
-	private void flushLinkQueue(Process process) {
-		List<Exchange> exchanges = linkQueue.remove(process.refId);
-		if (exchanges == null || process.id == 0)
-			return;
-		try {
-			ExchangeDao dao = new ExchangeDao(config.db);
-			for (Exchange exchange : exchanges) {
-				exchange.defaultProviderId = process.id;
-				dao.update(exchange);
-			}
-		} catch (Exception e) {
-			log.error("failed to update default provider", e);
-		}
-	}
-
 	private void createElementaryExchanges(DataSet ds, Process process) {
 		for (ElementaryExchange e : Spold2.getElemFlows(ds)) {
 			if (e.amount == 0 && config.skipNullExchanges)
@@ -318,17 +342,9 @@ class ProcessImport {
 	private void addActivityLink(IntermediateExchange input,
 															 Exchange exchange) {
 		String refId = RefId.linkID(input);
-		Long processId = index.getProcessId(refId);
-		if (processId != null) {
-			exchange.defaultProviderId = processId;
-			return;
+		if (refId != null && links != null) {
+			links.add(new ProviderLink(refId, exchange));
 		}
-		List<Exchange> exchanges = linkQueue.get(refId);
-		if (exchanges == null) {
-			exchanges = new ArrayList<>();
-			linkQueue.put(refId, exchanges);
-		}
-		exchanges.add(exchange);
 	}
 
 	/**
@@ -381,4 +397,105 @@ class ProcessImport {
 		return name;
 	}
 
+	private record ProviderLink(String providerId, Exchange exchange) {
+	}
+
+	private record Entry(Process process, List<ProviderLink> links) {
+	}
+
+	/**
+	 * Writes batches of processes in a separate thread. There is at most one
+	 * batch written at a time; when the next batch is passed to the writer,
+	 * it waits until the previous batch is written. The default providers of
+	 * the exchanges are linked in the writer thread, as their IDs are only
+	 * known after the providers are written. A batch is inserted in a single
+	 * transaction; if this fails, the processes of the batch are inserted one
+	 * by one, so that an invalid process does not discard the complete batch.
+	 */
+	private class Writer {
+
+		private final ExecutorService exec = Executors.newFixedThreadPool(1);
+		private final ExchangeProviderQueue providers;
+		private List<Entry> current;
+		private Future<Map<Process, Exception>> task;
+
+		Writer(ExchangeProviderQueue providers) {
+			this.providers = providers;
+		}
+
+		void write(List<Entry> batch) {
+			flush();
+			current = batch;
+			task = exec.submit(() -> {
+				for (var entry : batch) {
+					for (var link : entry.links) {
+						providers.add(link.providerId, link.exchange);
+					}
+				}
+				var failed = insert(batch);
+				for (var entry : batch) {
+					if (!failed.containsKey(entry.process)) {
+						providers.pop(entry.process);
+					}
+				}
+				return failed;
+			});
+		}
+
+		/**
+		 * Inserts the processes of the given batch and returns the processes
+		 * that could not be inserted, with the respective errors.
+		 */
+		private Map<Process, Exception> insert(List<Entry> batch) {
+			var failed = new IdentityHashMap<Process, Exception>();
+			try {
+				dao.insertAll(batch.stream().map(Entry::process).toList());
+				return failed;
+			} catch (Exception e) {
+				for (var entry : batch) {
+					try {
+						dao.insert(entry.process);
+					} catch (Exception err) {
+						failed.put(entry.process, err);
+						for (var link : entry.links) {
+							providers.remove(link.providerId, link.exchange);
+						}
+					}
+				}
+				return failed;
+			}
+		}
+
+		/**
+		 * Waits for the current batch; the import log is only written from
+		 * the calling thread.
+		 */
+		private void flush() {
+			if (task == null)
+				return;
+			try {
+				var failed = task.get();
+				for (var entry : current) {
+					var err = failed.get(entry.process);
+					if (err == null) {
+						log.imported(entry.process);
+					} else {
+						log.error("failed to write process "
+								+ entry.process.refId, err);
+					}
+				}
+			} catch (Exception e) {
+				log.error("failed to write batch of processes", e);
+			} finally {
+				task = null;
+				current = null;
+			}
+		}
+
+		void close() {
+			flush();
+			exec.shutdown();
+		}
+	}
+
 }
@@ -14,7 +14,6 @@ import org.openlca.core.model.Unit;
  */
 class RefDataIndex {
 
-	private final Map<String, Long> processIds = new HashMap<>();
 	private final Map<String, Category> processCategories = new HashMap<>();
 	private final Map<String, Category> compartments = new HashMap<>();
 	private final Map<String, Location> locations = new HashMap<>();
@@ -80,14 +79,6 @@ class RefDataIndex {
 		flows.put(key, flow);
 	}
 
-	public void putProcessId(String key, long id) {
-		processIds.put(key, id);
-	}
-
-	public Long getProcessId(String key) {
-		return processIds.get(key);
-	}
-
 	/**
 	 * Sets the (elementary) flow with the given ID as mapped flow with the
 	 * given conversion factor.
@@ -1,11 +1,16 @@
 package org.openlca.io.ilcd;
 
+import java.util.Iterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 import org.openlca.core.io.ImportLog;
 import org.openlca.ilcd.commons.IDataSet;
 import org.openlca.ilcd.commons.ProcessType;
 import org.openlca.ilcd.contacts.Contact;
 import org.openlca.ilcd.flowproperties.FlowProperty;
 import org.openlca.ilcd.flows.Flow;
+import org.openlca.ilcd.io.ZipStore;
 import org.openlca.ilcd.methods.LCIAMethod;
 import org.openlca.ilcd.models.Model;
 import org.openlca.ilcd.processes.Process;
@@ -28,6 +33,7 @@ public class ILCDImport implements Import {
 
 	private volatile boolean canceled = false;
 	private final ImportConfig config;
+	private ExecutorService pool;
 
 	public ILCDImport(ImportConfig config) {
 		this.config = config;
@@ -53,23 +59,39 @@ public class ILCDImport implements Import {
 	public void run() {
 		if (canceled)
 			return;
-		importAll(Contact.class);
-		importAll(Source.class);
-		importAll(UnitGroup.class);
-		importAll(FlowProperty.class);
-		if (config.withAllFlows()) {
-			importAll(Flow.class);
+		if (config.hasParallelReads() && config.store() instanceof ZipStore) {
+			int threads = Math.max(1, Runtime.getRuntime().availableProcessors());
+			pool = Executors.newFixedThreadPool(threads, r -> {
+				var thread = new Thread(r, "ilcd-reader");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+		try {
+			importAll(Contact.class);
+			importAll(Source.class);
+			importAll(UnitGroup.class);
+			importAll(FlowProperty.class);
+			if (config.withAllFlows()) {
+				importAll(Flow.class);
+			}
+			importAll(Process.class);
+			importAll(LCIAMethod.class);
+			importAll(Model.class);
+		} finally {
+			if (pool != null) {
+				pool.shutdownNow();
+				pool = null;
+			}
+			config.refs().clearDataSets();
 		}
-		importAll(Process.class);
-		importAll(LCIAMethod.class);
-		importAll(Model.class);
 	}
 
 	private <T extends IDataSet> void importAll(Class<T> type) {
 		if (canceled)
 			return;
 		try {
-			var it = config.store().iterator(type);
+			var it = iteratorOf(type);
 			while (!canceled && it.hasNext()) {
 				importOf(it.next());
 			}
@@ -79,6 +101,18 @@ public class ILCDImport implements Import {
 		}
 	}
 
+	/**
+	 * Returns a parallel iterator over the data sets of the given type if
+	 * parallel reads are enabled. The data sets and the flows they reference
+	 * are then read by the worker threads, while the data sets are mapped and
+	 * written to the database in the import thread.
+	 */
+	private <T extends IDataSet> Iterator<T> iteratorOf(Class<T> type) {
+		if (pool != null && config.store() instanceof ZipStore zip)
+			return zip.iterator(type, pool, config.refs()::prefetch);
+		return config.store().iterator(type);
+	}
+
 	private <T extends IDataSet> void importOf(T dataSet) {
 		if (dataSet == null)
 			return;
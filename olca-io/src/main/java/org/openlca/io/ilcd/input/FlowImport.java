@@ -26,13 +26,15 @@ public class FlowImport {
 	}
 
 	public SyncFlow run(org.openlca.ilcd.flows.Flow dataSet) {
-		return config.flowSync().createIfAbsent(
+		var synced = config.flowSync().createIfAbsent(
 			dataSet.getUUID(), () -> createNew(dataSet));
+		config.refs().flowSynced(dataSet.getUUID());
+		return synced;
 	}
 
 	public static SyncFlow get(ImportConfig config, String id) {
-		return config.flowSync().createIfAbsent(id, () -> {
-			var dataSet = config.store().get(org.openlca.ilcd.flows.Flow.class, id);
+		var synced = config.flowSync().createIfAbsent(id, () -> {
+			var dataSet = config.refs().flowDataSet(id);
 			if (dataSet == null) {
 				config.log().error("invalid reference in ILCD data set:" +
 					" flow '" + id + "' does not exist");
@@ -40,6 +42,8 @@ public class FlowImport {
 			}
 			return new FlowImport(config).createNew(dataSet);
 		});
+		config.refs().flowSynced(id);
+		return synced;
 	}
 
 	private Flow createNew(org.openlca.ilcd.flows.Flow dataSet) {
@@ -25,15 +25,22 @@ public class FlowPropertyImport {
 			org.openlca.ilcd.flowproperties.FlowProperty dataSet) {
 		this.ilcdProperty = new FlowPropertyBag(dataSet, config.langOrder());
 		var prop = config.db().get(FlowProperty.class, dataSet.getUUID());
-		return prop != null
-			? prop
-			: createNew();
+		if (prop == null) {
+			prop = createNew();
+		}
+		config.refs().put(prop);
+		return prop;
 	}
 
 	public static FlowProperty get(ImportConfig config, String id) {
+		var cached = config.refs().flowProperty(id);
+		if (cached != null)
+			return cached;
 		var property = config.db().get(FlowProperty.class, id);
-		if (property != null)
+		if (property != null) {
+			config.refs().put(property);
 			return property;
+		}
 		var dataSet = config.store().get(
 			org.openlca.ilcd.flowproperties.FlowProperty.class, id);
 		if (dataSet == null) {
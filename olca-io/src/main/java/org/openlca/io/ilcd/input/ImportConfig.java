@@ -27,8 +27,10 @@ public class ImportConfig {
 	private final IDatabase db;
 	private final FlowSync flowSync;
 	private final ImportLog log;
+	private final RefCache refs;
 
 	private boolean allFlows;
+	private boolean parallelReads;
 	private boolean withGabiGraphs = false;
 	private String[] langOrder = {"en"};
 	private ExchangeProviderQueue providers;
@@ -47,6 +49,7 @@ public class ImportConfig {
 			? FlowSync.of(db, FlowMap.empty())
 			: FlowSync.of(db, flowMap);
 		flowSync.withLog(log);
+		refs = new RefCache(store);
 	}
 
 	public ImportConfig withAllFlows(boolean b) {
@@ -73,6 +76,22 @@ public class ImportConfig {
 		return withGabiGraphs;
 	}
 
+	/**
+	 * Set if the data sets should be read in parallel when the data store
+	 * supports this (currently only for zip files). In this case, the data sets
+	 * and the flows they reference are unmarshalled by worker threads and only
+	 * the mapping and writing to the database is done sequentially in the
+	 * import thread.
+	 */
+	public ImportConfig withParallelReads(boolean b) {
+		parallelReads = b;
+		return this;
+	}
+
+	public boolean hasParallelReads() {
+		return parallelReads;
+	}
+
 	/**
 	 * Define the order in which a multi-language string should be evaluated. It
 	 * first checks if there is a string for the first language of this list, then
@@ -115,6 +134,10 @@ public class ImportConfig {
 		return flowSync;
 	}
 
+	public RefCache refs() {
+		return refs;
+	}
+
 	public ExchangeProviderQueue providers() {
 		if (providers == null) {
 			providers = ExchangeProviderQueue.create(db);
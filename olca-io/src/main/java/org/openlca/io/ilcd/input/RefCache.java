@@ -0,0 +1,127 @@
+package org.openlca.io.ilcd.input;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.openlca.core.model.FlowProperty;
+import org.openlca.core.model.UnitGroup;
+import org.openlca.ilcd.commons.IDataSet;
+import org.openlca.ilcd.flows.Flow;
+import org.openlca.ilcd.io.DataStore;
+import org.openlca.ilcd.methods.LCIAMethod;
+import org.openlca.ilcd.processes.Process;
+import org.openlca.ilcd.util.Methods;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A thread-safe cache of the reference data in an ILCD import. It contains
+ * the flow properties and unit groups that were already resolved, the IDs of
+ * the flows that were already synchronized, and the flow data sets that were
+ * read ahead by worker threads in a parallel import (see
+ * {@link ImportConfig#withParallelReads(boolean)}). The openLCA entities are
+ * only resolved and written in the import thread; the worker threads just
+ * read the referenced data sets from the store via {@link #prefetch}.
+ */
+public class RefCache {
+
+	private final Logger log = LoggerFactory.getLogger(getClass());
+	private final DataStore store;
+
+	private final Map<String, FlowProperty> properties =
+		new ConcurrentHashMap<>();
+	private final Map<String, UnitGroup> groups = new ConcurrentHashMap<>();
+	private final Set<String> syncedFlows = ConcurrentHashMap.newKeySet();
+	private final Set<String> claimedFlows = ConcurrentHashMap.newKeySet();
+	private final Map<String, Flow> flows = new ConcurrentHashMap<>();
+
+	RefCache(DataStore store) {
+		this.store = store;
+	}
+
+	FlowProperty flowProperty(String id) {
+		return id != null ? properties.get(id) : null;
+	}
+
+	void put(FlowProperty property) {
+		if (property != null && property.refId != null) {
+			properties.put(property.refId, property);
+		}
+	}
+
+	UnitGroup unitGroup(String id) {
+		return id != null ? groups.get(id) : null;
+	}
+
+	void put(UnitGroup group) {
+		if (group != null && group.refId != null) {
+			groups.put(group.refId, group);
+		}
+	}
+
+	void flowSynced(String id) {
+		if (id == null)
+			return;
+		syncedFlows.add(id);
+		flows.remove(id);
+	}
+
+	/**
+	 * Returns the flow data set with the given ID. If it was read ahead, it is
+	 * taken from this cache, otherwise it is loaded from the data store.
+	 */
+	Flow flowDataSet(String id) {
+		var prefetched = flows.remove(id);
+		return prefetched != null
+			? prefetched
+			: store.get(Flow.class, id);
+	}
+
+	/**
+	 * Reads the flow data sets that are referenced by the given data set and
+	 * that were not synchronized yet into this cache. This method is intended
+	 * to be called from the worker threads of a parallel import that read the
+	 * data sets from a thread-safe store.
+	 */
+	public void prefetch(IDataSet dataSet) {
+		if (dataSet instanceof Process process) {
+			for (var e : process.exchanges) {
+				if (e != null && e.flow != null) {
+					prefetchFlow(e.flow.uuid);
+				}
+			}
+		} else if (dataSet instanceof LCIAMethod method) {
+			for (var factor : Methods.getFactors(method)) {
+				if (factor != null && factor.flow != null) {
+					prefetchFlow(factor.flow.uuid);
+				}
+			}
+		}
+	}
+
+	private void prefetchFlow(String id) {
+		if (id == null
+			|| syncedFlows.contains(id)
+			|| !claimedFlows.add(id))
+			return;
+		try {
+			var flow = store.get(Flow.class, id);
+			if (flow != null && !syncedFlows.contains(id)) {
+				flows.put(id, flow);
+			}
+		} catch (Exception e) {
+			// the flow is then loaded again in the import thread where the
+			// error is reported in the import log
+			log.trace("failed to prefetch flow " + id, e);
+		}
+	}
+
+	/**
+	 * Removes the data sets that were read ahead but not used.
+	 */
+	public void clearDataSets() {
+		flows.clear();
+		claimedFlows.clear();
+	}
+}
@@ -33,10 +33,15 @@ public class UnitGroupImport {
 	}
 
 	public static UnitGroup get(ImportConfig config, String id) {
+		var cached = config.refs().unitGroup(id);
+		if (cached != null)
+			return cached;
 		var group = config.db().get(UnitGroup.class, id);
-		if (group != null)
+		if (group != null) {
 			// TODO: check if reference unit is in database!
+			config.refs().put(group);
 			return group;
+		}
 		var dataSet = config.store().get(
 			org.openlca.ilcd.units.UnitGroup.class, id);
 		if (dataSet == null) {
@@ -44,7 +49,9 @@ public class UnitGroupImport {
 				" unit group '" + id + "' does not exist");
 			return null;
 		}
-		return new UnitGroupImport(config).run(dataSet);
+		var imported = new UnitGroupImport(config).run(dataSet);
+		config.refs().put(imported);
+		return imported;
 	}
 
 	private UnitGroup createNew() {
@@ -0,0 +1,138 @@
+package org.openlca.io.ecospold2.input;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.UUID;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.openlca.core.database.Derby;
+import org.openlca.core.database.IDatabase;
+import org.openlca.core.io.ImportLog;
+import org.openlca.core.model.Exchange;
+import org.openlca.core.model.Process;
+import org.openlca.util.Dirs;
+import org.openlca.util.KeyGen;
+
+import spold2.EcoSpold2;
+import spold2.IntermediateExchange;
+import spold2.Spold2;
+
+/**
+ * Imports a chain of data sets where each process is the provider of the
+ * previous one. The chain is longer than a batch of the process writer, so
+ * that provider links are also set across batches. One of the data sets
+ * cannot be written (its name is too long), which should only skip that
+ * process but not the other processes of its batch.
+ */
+public class ProcessImportTest {
+
+	private static final int COUNT = 120;
+	private static final int INVALID = 50;
+
+	private static final String[] activityIds = new String[COUNT];
+	private static IDatabase db;
+	private static File dir;
+	private static String productId;
+
+	@BeforeClass
+	public static void setUp() throws Exception {
+		db = Derby.createInMemory();
+		dir = Files.createTempDirectory("_olca_spold2_").toFile();
+		var files = new File[COUNT];
+		for (int i = 0; i < COUNT; i++) {
+			activityIds[i] = UUID.randomUUID().toString();
+		}
+		for (int i = 0; i < COUNT; i++) {
+			files[i] = new File(dir, i + ".spold");
+			writeDataSet(i, files[i]);
+		}
+		var config = new ImportConfig(db);
+		var imp = new EcoSpold2Import(config);
+		imp.setFiles(files);
+		imp.run();
+		assertEquals(1, config.log().countOf(ImportLog.State.ERROR));
+	}
+
+	private static void writeDataSet(int i, File file) {
+		var stream = ProcessImportTest.class
+				.getResourceAsStream("sample_ecospold2.xml");
+		var ds = EcoSpold2.read(stream).activity();
+		var activity = Spold2.getActivity(ds);
+		activity.id = activityIds[i];
+		activity.name = i == INVALID
+				? "x".repeat(3000)
+				: "process " + i;
+
+		IntermediateExchange input = null;
+		for (var e : Spold2.getProducts(ds)) {
+			if (e.outputGroup != null && e.outputGroup == 0) {
+				productId = e.flowId;
+				e.activityLinkId = null;
+			} else if (e.inputGroup != null) {
+				input = e;
+			}
+		}
+		assertNotNull(input);
+		input.flowId = productId;
+		input.activityLinkId = i < COUNT - 1
+				? activityIds[i + 1]
+				: null;
+		EcoSpold2.write(ds, file);
+	}
+
+	@AfterClass
+	public static void tearDown() throws Exception {
+		db.close();
+		Dirs.delete(dir);
+	}
+
+	@Test
+	public void testProcesses() {
+		assertEquals(COUNT - 1, db.getAll(Process.class).size());
+		for (int i = 0; i < COUNT; i++) {
+			var process = processOf(i);
+			if (i == INVALID) {
+				assertNull(process);
+				continue;
+			}
+			assertNotNull(process);
+			assertEquals("process " + i, process.name.split(" \\| ")[0]);
+			assertNotNull(process.quantitativeReference);
+		}
+	}
+
+	@Test
+	public void testProviderLinks() {
+		for (int i = 0; i < COUNT - 1; i++) {
+			if (i == INVALID)
+				continue;
+			var input = inputOf(processOf(i));
+			var provider = processOf(i + 1);
+			long expected = provider != null
+					? provider.id
+					: 0L;
+			assertEquals("provider of process " + i,
+					expected, input.defaultProviderId);
+		}
+		var last = inputOf(processOf(COUNT - 1));
+		assertEquals(0L, last.defaultProviderId);
+	}
+
+	private Process processOf(int i) {
+		var refId = KeyGen.get(activityIds[i], productId);
+		return db.get(Process.class, refId);
+	}
+
+	private Exchange inputOf(Process process) {
+		for (var e : process.exchanges) {
+			if (e.isInput && e.flow.refId.equals(productId))
+				return e;
+		}
+		fail("no product input in process " + process.name);
+		return null;
+	}
+}
@@ -2,6 +2,7 @@ package org.openlca.io.ilcd;
 
 import java.io.File;
 import java.nio.file.Files;
+import java.util.List;
 
 import jakarta.xml.bind.JAXB;
 import org.junit.AfterClass;
@@ -9,6 +10,11 @@ import org.junit.BeforeClass;
 import org.junit.FixMethodOrder;
 import org.junit.Test;
 import org.junit.runners.MethodSorters;
+import org.openlca.core.database.Derby;
+import org.openlca.core.database.IDatabase;
+import org.openlca.core.io.ImportLog;
+import org.openlca.core.model.Actor;
+import org.openlca.core.model.RootEntity;
 import org.openlca.ilcd.commons.IDataSet;
 import org.openlca.ilcd.contacts.Contact;
 import org.openlca.ilcd.flowproperties.FlowProperty;
@@ -139,4 +145,58 @@ public class ILCDImportExportTest {
 		assertTrue(exportConf.store.contains(Process.class, id));
 	}
 
+	@Test
+	public void testG_ParallelZipImport() {
+		// import the exported zip into fresh databases, sequentially and
+		// with parallel reads, and compare the results
+		try (var seqDb = Derby.createInMemory();
+				var parDb = Derby.createInMemory()) {
+			// the test data sets contain a reference to a source that is not
+			// included; thus, we only check that both imports have the same
+			// errors
+			var errors = new int[2];
+			var dbs = new IDatabase[]{seqDb, parDb};
+			for (int i = 0; i < 2; i++) {
+				var config = new ImportConfig(exportConf.store, dbs[i])
+					.withAllFlows(true)
+					.withParallelReads(i == 1);
+				new ILCDImport(config).run();
+				errors[i] = config.log().countOf(ImportLog.State.ERROR);
+			}
+			assertEquals(errors[0], errors[1]);
+
+			List<Class<? extends RootEntity>> types = List.of(
+				Actor.class,
+				org.openlca.core.model.Source.class,
+				org.openlca.core.model.UnitGroup.class,
+				org.openlca.core.model.FlowProperty.class,
+				org.openlca.core.model.Flow.class,
+				org.openlca.core.model.Process.class);
+			for (var type : types) {
+				var expected = seqDb.getAll(type).size();
+				assertTrue(expected > 0);
+				assertEquals(expected, parDb.getAll(type).size());
+			}
+
+			// check the process -> flow -> flow property -> unit group chain
+			var id = "76d6aaa4-37e2-40b2-994c-03292b600074";
+			var seqProcess = seqDb.get(org.openlca.core.model.Process.class, id);
+			var parProcess = parDb.get(org.openlca.core.model.Process.class, id);
+			assertNotNull(parProcess);
+			assertEquals(seqProcess.exchanges.size(), parProcess.exchanges.size());
+			var seqRef = seqProcess.quantitativeReference;
+			var parRef = parProcess.quantitativeReference;
+			assertNotNull(parRef);
+			assertEquals(seqRef.flow.refId, parRef.flow.refId);
+			assertEquals(seqRef.amount, parRef.amount, 1e-16);
+			assertEquals(
+				seqRef.flowPropertyFactor.flowProperty.refId,
+				parRef.flowPropertyFactor.flowProperty.refId);
+			assertEquals(
+				seqRef.flowPropertyFactor.flowProperty.unitGroup.refId,
+				parRef.flowPropertyFactor.flowProperty.unitGroup.refId);
+			assertEquals(seqRef.unit.refId, parRef.unit.refId);
+		}
+	}
+
 }
@@ -0,0 +1,124 @@
+package org.openlca.ipc;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Collects the request metrics of a server: the number of calls, errors, and
+ * the latency per method, the number of requests that are currently handled,
+ * and the state of the executor for heavy requests. The counters can be
+ * updated concurrently from the request threads. Only the registered methods
+ * of the server get their own counter; all other method names that clients
+ * send are collected under {@link #UNKNOWN} so that the number of counters
+ * is bounded.
+ */
+public class Metrics {
+
+	/**
+	 * The name under which calls of methods that are not registered are
+	 * counted.
+	 */
+	public static final String UNKNOWN = "<unknown>";
+
+	private final ConcurrentHashMap<String, Counter> counters =
+			new ConcurrentHashMap<>();
+	private final AtomicInteger activeRequests = new AtomicInteger();
+	private final LongAdder rejected = new LongAdder();
+	private final ThreadPoolExecutor heavyPool;
+
+	private final Predicate<String> isRegistered;
+
+	Metrics(ThreadPoolExecutor heavyPool, Predicate<String> isRegistered) {
+		this.heavyPool = heavyPool;
+		this.isRegistered = isRegistered;
+	}
+
+	void begin() {
+		activeRequests.incrementAndGet();
+	}
+
+	void end(String method, long nanos, boolean isError) {
+		activeRequests.decrementAndGet();
+		var key = method != null && isRegistered.test(method)
+				? method
+				: UNKNOWN;
+		var counter = counters.computeIfAbsent(key, $ -> new Counter());
+		counter.calls.increment();
+		if (isError) {
+			counter.errors.increment();
+		}
+		counter.totalNanos.add(nanos);
+		counter.maxNanos.accumulateAndGet(nanos, Math::max);
+	}
+
+	void rejected() {
+		rejected.increment();
+	}
+
+	public Stats stats() {
+		var methods = new ArrayList<MethodStats>(counters.size());
+		counters.forEach((method, counter) -> {
+			long calls = counter.calls.sum();
+			double total = counter.totalNanos.sum() / 1e6;
+			methods.add(new MethodStats(
+					method,
+					calls,
+					counter.errors.sum(),
+					calls > 0 ? total / calls : 0,
+					counter.maxNanos.get() / 1e6));
+		});
+		methods.sort(Comparator.comparing(MethodStats::method));
+		return new Stats(
+				activeRequests.get(),
+				heavyPool.getActiveCount(),
+				heavyPool.getQueue().size(),
+				rejected.sum(),
+				methods);
+	}
+
+	/**
+	 * A snapshot of the server metrics.
+	 *
+	 * @param activeRequests the number of requests that are currently handled
+	 * @param heavyRunning   the number of heavy requests that are currently
+	 *                       executed
+	 * @param heavyQueued    the number of heavy requests that wait for
+	 *                       execution
+	 * @param heavyRejected  the number of heavy requests that were rejected
+	 *                       because the queue was full
+	 * @param methods        the statistics of the called methods
+	 */
+	public record Stats(
+			int activeRequests,
+			int heavyRunning,
+			int heavyQueued,
+			long heavyRejected,
+			List<MethodStats> methods) {
+	}
+
+	/**
+	 * The statistics of a method; the latency is given in milliseconds and
+	 * includes the time a heavy request waited in the queue.
+	 */
+	public record MethodStats(
+			String method,
+			long calls,
+			long errors,
+			double meanMillis,
+			double maxMillis) {
+	}
+
+	private static class Counter {
+		final LongAdder calls = new LongAdder();
+		final LongAdder errors = new LongAdder();
+		final LongAdder totalNanos = new LongAdder();
+		final AtomicLong maxNanos = new AtomicLong();
+	}
+}
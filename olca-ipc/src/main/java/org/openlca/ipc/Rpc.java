@@ -12,4 +12,12 @@ public @interface Rpc {
 
 	String value();
 
+	/**
+	 * Marks a method that does expensive work in the request (e.g. running a
+	 * simulation or an export). Such methods are executed by a separate,
+	 * bounded executor of the server so that they cannot block the handling
+	 * of other requests.
+	 */
+	boolean heavy() default false;
+
 }
@@ -1,6 +1,9 @@
 package org.openlca.ipc;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpServer;
 import org.openlca.core.services.JsonResultService;
@@ -15,32 +18,85 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.InputStreamReader;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
 import java.net.InetSocketAddress;
 import java.nio.charset.StandardCharsets;
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * A JSON-RPC server on top of the JDK HTTP server. Requests are handled in
+ * an elastic pool of request threads, so that cheap requests (e.g. reading
+ * a result) are never blocked by other requests. Methods that are marked as
+ * heavy ({@link Rpc#heavy()}) are executed in a separate executor with
+ * {@code config.threadCount()} threads and a bounded queue; when the queue
+ * is full, such requests are rejected with an error. Batch requests, where
+ * the request body is an array of request objects, are supported; the
+ * requests of a batch are handled in parallel by a bounded number of workers
+ * and the responses are returned in the same order. Batches with more than
+ * {@link #MAX_BATCH_SIZE} requests are rejected.
+ */
 public class Server {
 
+	/**
+	 * The maximum number of requests in a batch.
+	 */
+	public static final int MAX_BATCH_SIZE = 1000;
+
+	private static final Gson gson = new Gson();
+
 	private final ServerConfig config;
 	private final HttpServer http;
 	private final Logger log = LoggerFactory.getLogger(getClass());
-	private final HashMap<String, Handler> handlers = new HashMap<>();
+	private final ConcurrentHashMap<String, Handler> handlers =
+			new ConcurrentHashMap<>();
+	private final ExecutorService requestPool;
+	private final ThreadPoolExecutor heavyPool;
+	private final Metrics metrics;
+	private final int batchWorkers;
 
 	public Server(ServerConfig config) {
 		this.config = config;
+		int threads = Math.max(config.threadCount(), 1);
+		requestPool = Executors.newCachedThreadPool(daemons("ipc-request"));
+		heavyPool = new ThreadPoolExecutor(threads, threads,
+				0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(16 * threads),
+				daemons("ipc-heavy"),
+				new ThreadPoolExecutor.AbortPolicy());
+		metrics = new Metrics(heavyPool, handlers::containsKey);
+		batchWorkers = Math.max(
+				threads, Runtime.getRuntime().availableProcessors());
 		try {
 			http = HttpServer.create(new InetSocketAddress(config.port()), 0);
 			http.createContext("/", this::handle);
-			http.setExecutor(Executors.newFixedThreadPool(
-					Math.max(config.threadCount(), 1)));
+			http.setExecutor(requestPool);
 		} catch (Exception e) {
 			throw new RuntimeException("failed to create server", e);
 		}
 	}
 
+	private static ThreadFactory daemons(String name) {
+		var count = new AtomicInteger();
+		return r -> {
+			var thread = new Thread(r, name + "-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
 	public Server withDefaultHandlers() {
 		log.info("Register default handlers");
 		var cache = new Cache();
@@ -55,7 +111,9 @@ public class Server {
 
 	/**
 	 * Registers the `Rpc` annotated methods of the given handler as request
-	 * handlers.
+	 * handlers. For each method, a method handle is bound to the handler
+	 * instance so that no reflective lookup is done when a request is
+	 * dispatched.
 	 */
 	public void register(Object handler) {
 		if (handler == null)
@@ -64,10 +122,12 @@ public class Server {
 		try {
 			var error = "Cannot register method for {}: it must take an"
 					+ "RpcRequest parameter and return an RpcResponse";
+			var lookup = MethodHandles.lookup();
 			for (var method : handler.getClass().getMethods()) {
 				if (!method.isAnnotationPresent(Rpc.class))
 					continue;
-				var methodId = method.getAnnotation(Rpc.class).value();
+				var rpc = method.getAnnotation(Rpc.class);
+				var methodId = rpc.value();
 				if (handlers.containsKey(methodId)) {
 					log.error("A handler for '{}' is already registered", methodId);
 					continue;
@@ -82,7 +142,8 @@ public class Server {
 					log.error(error, methodId);
 					continue;
 				}
-				handlers.put(methodId, new Handler(handler, method));
+				var handle = lookup.unreflect(method).bindTo(handler);
+				handlers.put(methodId, new Handler(handle, rpc.heavy()));
 				log.info("Registered method {}", methodId);
 			}
 		} catch (Exception e) {
@@ -94,30 +155,98 @@ public class Server {
 		return config.port();
 	}
 
+	/**
+	 * Returns a snapshot of the request metrics of this server.
+	 */
+	public Metrics.Stats metrics() {
+		return metrics.stats();
+	}
+
 	public void start() {
 		http.start();
 	}
 
 	public void stop() {
 		http.stop(1);
+		heavyPool.shutdown();
+		requestPool.shutdown();
 	}
 
 	private void handle(HttpExchange t) {
 		var method = t.getRequestMethod();
 		if (!"POST".equals(method)) {
-			serve(t, Responses.requestError("only HTTP POST is allowed"));
+			serve(t, gson.toJsonTree(
+					Responses.requestError("only HTTP POST is allowed")));
 			return;
 		}
-		try (var body = t.getRequestBody();
-				 var reader = new InputStreamReader(body, StandardCharsets.UTF_8)) {
-			var req = new Gson().fromJson(reader, RpcRequest.class);
-			log.trace("handle request {}/{}", req.id, req.method);
-			serve(t, getResponse(req));
+		JsonElement body;
+		try (var stream = t.getRequestBody();
+				 var reader = new InputStreamReader(stream, StandardCharsets.UTF_8)) {
+			body = JsonParser.parseReader(reader);
 		} catch (Exception e) {
-			serve(t, Responses.requestError(
-					"failed to parse request body: " + e.getMessage()));
+			serve(t, gson.toJsonTree(Responses.requestError(
+					"failed to parse request body: " + e.getMessage())));
+			return;
 		}
+		serve(t, body.isJsonArray()
+				? handleBatch(body.getAsJsonArray())
+				: gson.toJsonTree(handleSingle(body)));
+	}
+
+	private JsonElement handleBatch(JsonArray batch) {
+		if (batch.isEmpty())
+			return gson.toJsonTree(Responses.requestError("empty batch"));
+		if (batch.size() > MAX_BATCH_SIZE)
+			return gson.toJsonTree(Responses.requestError(
+					"a batch can contain at most " + MAX_BATCH_SIZE + " requests"));
 
+		// the requests are handled by a bounded number of workers that take
+		// the next request from the batch; the current thread is one of them
+		var results = new RpcResponse[batch.size()];
+		var next = new AtomicInteger();
+		Runnable worker = () -> {
+			int i;
+			while ((i = next.getAndIncrement()) < results.length) {
+				results[i] = handleSingle(batch.get(i));
+			}
+		};
+		int workers = Math.min(batchWorkers, batch.size());
+		var futures = new ArrayList<CompletableFuture<Void>>(workers - 1);
+		for (int w = 1; w < workers; w++) {
+			futures.add(CompletableFuture.runAsync(worker, requestPool));
+		}
+		worker.run();
+		for (var future : futures) {
+			future.join();
+		}
+
+		var responses = new JsonArray(results.length);
+		for (var r : results) {
+			responses.add(gson.toJsonTree(r));
+		}
+		return responses;
+	}
+
+	private RpcResponse handleSingle(JsonElement elem) {
+		RpcRequest req;
+		try {
+			if (elem == null || !elem.isJsonObject())
+				return Responses.requestError("not a JSON object");
+			req = gson.fromJson(elem, RpcRequest.class);
+		} catch (Exception e) {
+			return Responses.requestError(e.getMessage());
+		}
+		log.trace("handle request {}/{}", req.id, req.method);
+		metrics.begin();
+		long start = System.nanoTime();
+		RpcResponse resp = null;
+		try {
+			resp = getResponse(req);
+			return resp;
+		} finally {
+			metrics.end(req.method, System.nanoTime() - start,
+					resp == null || resp.error != null);
+		}
 	}
 
 	private RpcResponse getResponse(RpcRequest req) {
@@ -127,10 +256,20 @@ public class Server {
 		if (handler == null)
 			return Responses.unknownMethod(req);
 		log.trace("Call method {}", req.method);
-		return handler.invoke(req);
+		if (!handler.heavy())
+			return handler.invoke(req);
+		try {
+			return CompletableFuture
+					.supplyAsync(() -> handler.invoke(req), heavyPool)
+					.join();
+		} catch (RejectedExecutionException e) {
+			metrics.rejected();
+			return Responses.error(503,
+					"the server is busy; try again later", req);
+		}
 	}
 
-	private void serve(HttpExchange t, RpcResponse r) {
+	private void serve(HttpExchange t, JsonElement r) {
 		try {
 			var headers = t.getResponseHeaders();
 			headers.put("Content-Type", List.of("application/json"));
@@ -138,7 +277,7 @@ public class Server {
 			headers.put("Access-Control-Allow-Methods", List.of("POST"));
 			headers.put("Access-Control-Allow-Headers",
 					List.of("Content-Type, Allow-Control-Allow-Headers"));
-			var json = new Gson().toJson(r).getBytes(StandardCharsets.UTF_8);
+			var json = gson.toJson(r).getBytes(StandardCharsets.UTF_8);
 			t.sendResponseHeaders(200, json.length);
 			try (var body = t.getResponseBody()) {
 				body.write(json);
@@ -148,18 +287,18 @@ public class Server {
 		}
 	}
 
-	private record Handler(Object instance, java.lang.reflect.Method method) {
+	private record Handler(MethodHandle handle, boolean heavy) {
 
 		RpcResponse invoke(RpcRequest req) {
 			try {
-				Object result = method.invoke(instance, req);
-				if (!(result instanceof RpcResponse))
-					return Responses.error(500, result
-							+ " is not an RpcResponse", req);
-				return (RpcResponse) result;
-			} catch (Exception e) {
+				var result = (RpcResponse) handle.invokeExact(req);
+				return result != null
+						? result
+						: Responses.error(500, "no response from "
+						+ req.method, req);
+			} catch (Throwable e) {
 				return Responses.error(500, "Failed to call method "
-						+ method + ": " + e.getMessage(), req);
+						+ req.method + ": " + e.getMessage(), req);
 			}
 		}
 	}
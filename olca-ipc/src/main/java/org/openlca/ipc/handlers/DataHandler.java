@@ -108,7 +108,7 @@ public class DataHandler {
 		});
 	}
 
-	@Rpc("data/create/system")
+	@Rpc(value = "data/create/system", heavy = true)
 	public RpcResponse createProductSystem(RpcRequest req) {
 		if (req.params == null || !req.params.isJsonObject())
 			return Responses.invalidParams("no parameters given", req);
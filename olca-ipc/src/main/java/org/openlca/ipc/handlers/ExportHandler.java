@@ -28,7 +28,7 @@ public class ExportHandler {
 	}
 
 
-	@Rpc("export/json-ld")
+	@Rpc(value = "export/json-ld", heavy = true)
 	public RpcResponse jsonLd(RpcRequest req) {
 		if (req == null || req.params == null || !req.params.isJsonObject())
 			return Responses.badRequest("No @id given", req);
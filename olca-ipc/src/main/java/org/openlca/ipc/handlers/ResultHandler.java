@@ -32,7 +32,7 @@ public class ResultHandler {
 		return Responses.of(state, req);
 	}
 
-	@Rpc("result/simulate/next")
+	@Rpc(value = "result/simulate/next", heavy = true)
 	public RpcResponse simulateNext(RpcRequest req) {
 		return ResultRequest.of(req, rr -> results.nextSimulationOf(rr.id()));
 	}
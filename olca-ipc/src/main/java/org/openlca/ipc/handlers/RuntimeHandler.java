@@ -1,5 +1,7 @@
 package org.openlca.ipc.handlers;
 
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
 import org.openlca.ipc.Responses;
 import org.openlca.ipc.Rpc;
 import org.openlca.ipc.RpcRequest;
@@ -27,4 +29,40 @@ public class RuntimeHandler {
 			return Responses.serverError(e, req);
 		}
 	}
+
+	@Rpc("runtime/cache")
+	public RpcResponse cacheStats(RpcRequest req) {
+		// the results of the server are stored in the calculation queue
+		var stats = context.results().queue().stats();
+		var obj = new JsonObject();
+		obj.addProperty("size", stats.size());
+		obj.addProperty("memory", stats.memory());
+		obj.addProperty("hits", stats.hits());
+		obj.addProperty("misses", stats.misses());
+		obj.addProperty("evictions", stats.evictions());
+		obj.addProperty("expirations", stats.expirations());
+		return Responses.ok(obj, req);
+	}
+
+	@Rpc("runtime/metrics")
+	public RpcResponse metrics(RpcRequest req) {
+		var stats = context.server().metrics();
+		var obj = new JsonObject();
+		obj.addProperty("activeRequests", stats.activeRequests());
+		obj.addProperty("heavyRunning", stats.heavyRunning());
+		obj.addProperty("heavyQueued", stats.heavyQueued());
+		obj.addProperty("heavyRejected", stats.heavyRejected());
+		var methods = new JsonArray();
+		for (var m : stats.methods()) {
+			var mObj = new JsonObject();
+			mObj.addProperty("method", m.method());
+			mObj.addProperty("calls", m.calls());
+			mObj.addProperty("errors", m.errors());
+			mObj.addProperty("meanMillis", m.meanMillis());
+			mObj.addProperty("maxMillis", m.maxMillis());
+			methods.add(mObj);
+		}
+		obj.add("methods", methods);
+		return Responses.ok(obj, req);
+	}
 }
@@ -0,0 +1,179 @@
+package org.openlca.ipc;
+
+import static org.junit.Assert.*;
+
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.openlca.core.database.Derby;
+import org.openlca.core.database.IDatabase;
+import org.openlca.core.services.ServerConfig;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+
+public class ServerTest {
+
+	private static final int PORT = 8091;
+
+	private static IDatabase db;
+	private static Server server;
+
+	@BeforeClass
+	public static void setup() {
+		db = Derby.createInMemory();
+		var config = ServerConfig.defaultOf(db)
+				.withPort(PORT)
+				.withThreadCount(2)
+				.get();
+		server = new Server(config);
+		server.register(new TestHandler());
+		server.start();
+	}
+
+	@AfterClass
+	public static void tearDown() throws Exception {
+		server.stop();
+		db.close();
+	}
+
+	@Test
+	public void testSingleRequest() throws Exception {
+		var resp = post("""
+				{"jsonrpc": "2.0", "method": "test/echo", "params": "a", "id": 1}
+				""").getAsJsonObject();
+		assertEquals("a", resp.get("result").getAsString());
+		assertEquals(1, resp.get("id").getAsInt());
+	}
+
+	@Test
+	public void testBatch() throws Exception {
+		var resp = post("""
+				[
+					{"jsonrpc": "2.0", "method": "test/heavy", "params": "a", "id": 1},
+					{"jsonrpc": "2.0", "method": "test/echo", "params": "b", "id": 2},
+					{"jsonrpc": "2.0", "method": "test/fail", "id": 3},
+					{"jsonrpc": "2.0", "method": "test/unknown", "id": 4},
+					42
+				]
+				""").getAsJsonArray();
+		assertEquals(5, resp.size());
+		var r1 = resp.get(0).getAsJsonObject();
+		assertEquals("a", r1.get("result").getAsString());
+		assertEquals(1, r1.get("id").getAsInt());
+		var r2 = resp.get(1).getAsJsonObject();
+		assertEquals("b", r2.get("result").getAsString());
+		assertEquals(2, r2.get("id").getAsInt());
+		var r3 = resp.get(2).getAsJsonObject();
+		assertEquals(500, r3.getAsJsonObject("error").get("code").getAsInt());
+		var r4 = resp.get(3).getAsJsonObject();
+		assertEquals(-32601, r4.getAsJsonObject("error").get("code").getAsInt());
+		var r5 = resp.get(4).getAsJsonObject();
+		assertEquals(-32600, r5.getAsJsonObject("error").get("code").getAsInt());
+	}
+
+	@Test
+	public void testMetrics() throws Exception {
+		for (int i = 0; i < 3; i++) {
+			post("""
+					{"jsonrpc": "2.0", "method": "test/heavy", "params": "x", "id": 1}
+					""");
+		}
+		var stats = server.metrics();
+		assertEquals(0, stats.heavyQueued());
+		var heavy = stats.methods().stream()
+				.filter(m -> m.method().equals("test/heavy"))
+				.findAny()
+				.orElseThrow();
+		assertTrue(heavy.calls() >= 3);
+		assertEquals(0, heavy.errors());
+		assertTrue(heavy.maxMillis() >= heavy.meanMillis());
+	}
+
+	@Test
+	public void testUnknownMethods() throws Exception {
+		for (int i = 0; i < 3; i++) {
+			post("{\"jsonrpc\": \"2.0\", \"method\": \"test/random-" + i
+					+ "\", \"id\": 1}");
+		}
+		var methods = server.metrics().methods();
+		assertTrue(methods.stream()
+				.noneMatch(m -> m.method().startsWith("test/random-")));
+		var unknown = methods.stream()
+				.filter(m -> m.method().equals(Metrics.UNKNOWN))
+				.findAny()
+				.orElseThrow();
+		assertTrue(unknown.calls() >= 3);
+		assertTrue(unknown.errors() >= 3);
+	}
+
+	@Test
+	public void testLargeBatch() throws Exception {
+		var batch = new JsonArray();
+		for (int i = 0; i < 200; i++) {
+			var req = new JsonObject();
+			req.addProperty("jsonrpc", "2.0");
+			req.addProperty("method", "test/echo");
+			req.addProperty("params", "p" + i);
+			req.addProperty("id", i);
+			batch.add(req);
+		}
+		var resp = post(batch.toString()).getAsJsonArray();
+		assertEquals(200, resp.size());
+		for (int i = 0; i < 200; i++) {
+			var r = resp.get(i).getAsJsonObject();
+			assertEquals(i, r.get("id").getAsInt());
+			assertEquals("p" + i, r.get("result").getAsString());
+		}
+
+		// batches that are too large are rejected
+		while (batch.size() <= Server.MAX_BATCH_SIZE) {
+			batch.add(batch.get(0));
+		}
+		var err = post(batch.toString()).getAsJsonObject();
+		assertEquals(-32600, err.getAsJsonObject("error").get("code").getAsInt());
+	}
+
+	private JsonElement post(String body) throws Exception {
+		var bytes = body.getBytes(StandardCharsets.UTF_8);
+		var con = (HttpURLConnection) new URL("http://localhost:" + PORT)
+				.openConnection();
+		con.setDoOutput(true);
+		con.setRequestMethod("POST");
+		con.setRequestProperty("Content-Type", "application/json");
+		try (var out = con.getOutputStream()) {
+			out.write(bytes);
+		}
+		try (var in = new InputStreamReader(
+				con.getInputStream(), StandardCharsets.UTF_8)) {
+			return JsonParser.parseReader(in);
+		}
+	}
+
+	public static class TestHandler {
+
+		@Rpc("test/echo")
+		public RpcResponse echo(RpcRequest req) {
+			return Responses.ok(req.params, req);
+		}
+
+		@Rpc(value = "test/heavy", heavy = true)
+		public RpcResponse heavy(RpcRequest req) {
+			assertTrue(Thread.currentThread().getName().startsWith("ipc-heavy"));
+			return Responses.ok(new JsonPrimitive(req.params.getAsString()), req);
+		}
+
+		@Rpc("test/fail")
+		public RpcResponse fail(RpcRequest req) {
+			throw new IllegalStateException("failed");
+		}
+	}
+}